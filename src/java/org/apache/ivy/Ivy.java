@@ -65,6 +65,7 @@ import org.apache.ivy.plugins.repository.TransferEvent;
 import org.apache.ivy.plugins.repository.TransferListener;
 import org.apache.ivy.plugins.resolver.BasicResolver;
 import org.apache.ivy.plugins.resolver.DependencyResolver;
+import org.apache.ivy.plugins.trigger.AbstractTrigger;
 import org.apache.ivy.plugins.trigger.Trigger;
 import org.apache.ivy.util.DateUtil;
 import org.apache.ivy.util.HostUtil;
@@ -254,6 +255,15 @@ public class Ivy {
      */
     private MessageLoggerEngine loggerEngine = new MessageLoggerEngine();
 
+    /**
+     * the number of resolves, retrieves and publishes in progress in each thread
+     */
+    private final ThreadLocal/* <int[]> */operationDepth = new ThreadLocal() {
+        protected Object initialValue() {
+            return new int[1];
+        }
+    };
+
     /**
      * The default constructor of Ivy allows to create an instance of Ivy with none of its
      * dependencies (engines, settings, ...) created. If you use this constructor, it's your
@@ -469,24 +479,49 @@ public class Ivy {
         }
     }
 
+    private void beginOperation() {
+        ((int[]) operationDepth.get())[0]++;
+    }
+
+    /**
+     * Ends a resolve, retrieve or publish. Once the outermost one of the current thread is done,
+     * waits until the asynchronous listeners have been notified of all the events it has fired.
+     */
+    private void endOperation() {
+        int[] depth = (int[]) operationDepth.get();
+        if (--depth[0] > 0 || eventManager == null) {
+            return;
+        }
+        try {
+            eventManager.flushAsyncListeners();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            Message.verbose("interrupted while waiting for asynchronous listeners");
+        }
+    }
+
     // ///////////////////////////////////////////////////////////////////////
     // RESOLVE
     // ///////////////////////////////////////////////////////////////////////
 
     public ResolveReport resolve(File ivySource) throws ParseException, IOException {
         pushContext();
+        beginOperation();
         try {
             return resolveEngine.resolve(ivySource);
         } finally {
+            endOperation();
             popContext();
         }
     }
 
     public ResolveReport resolve(URL ivySource) throws ParseException, IOException {
         pushContext();
+        beginOperation();
         try {
             return resolveEngine.resolve(ivySource);
         } finally {
+            endOperation();
             popContext();
         }
     }
@@ -494,9 +529,11 @@ public class Ivy {
     public ResolveReport resolve(ModuleRevisionId mrid, ResolveOptions options, boolean changing)
             throws ParseException, IOException {
         pushContext();
+        beginOperation();
         try {
             return resolveEngine.resolve(mrid, options, changing);
         } finally {
+            endOperation();
             popContext();
         }
     }
@@ -504,9 +541,11 @@ public class Ivy {
     public ResolveReport resolve(URL ivySource, ResolveOptions options) throws ParseException,
             IOException {
         pushContext();
+        beginOperation();
         try {
             return resolveEngine.resolve(ivySource, options);
         } finally {
+            endOperation();
             popContext();
         }
     }
@@ -519,9 +558,11 @@ public class Ivy {
     public ResolveReport resolve(ModuleDescriptor md, ResolveOptions options)
             throws ParseException, IOException {
         pushContext();
+        beginOperation();
         try {
             return resolveEngine.resolve(md, options);
         } finally {
+            endOperation();
             popContext();
         }
     }
@@ -547,9 +588,11 @@ public class Ivy {
     public int retrieve(ModuleRevisionId mrid, String destFilePattern, RetrieveOptions options)
             throws IOException {
         pushContext();
+        beginOperation();
         try {
             return retrieveEngine.retrieve(mrid, destFilePattern, options);
         } finally {
+            endOperation();
             popContext();
         }
     }
@@ -557,9 +600,11 @@ public class Ivy {
     public RetrieveReport retrieve(ModuleRevisionId mrid, RetrieveOptions options)
             throws IOException {
         pushContext();
+        beginOperation();
         try {
             return retrieveEngine.retrieve(mrid, options);
         } finally {
+            endOperation();
             popContext();
         }
     }
@@ -617,9 +662,11 @@ public class Ivy {
     public Collection publish(ModuleRevisionId mrid, Collection srcArtifactPattern,
             String resolverName, PublishOptions options) throws IOException {
         pushContext();
+        beginOperation();
         try {
             return publishEngine.publish(mrid, srcArtifactPattern, resolverName, options);
         } finally {
+            endOperation();
             popContext();
         }
     }
@@ -836,7 +883,9 @@ public class Ivy {
         Collection triggers = settings.getTriggers();
         for (Iterator iter = triggers.iterator(); iter.hasNext();) {
             Trigger trigger = (Trigger) iter.next();
-            eventManager.addIvyListener(trigger, trigger.getEventFilter());
+            boolean async = trigger instanceof AbstractTrigger
+                    && ((AbstractTrigger) trigger).isAsync();
+            eventManager.addIvyListener(trigger, trigger.getEventFilter(), async);
         }
 
         for (Iterator iter = settings.getResolvers().iterator(); iter.hasNext();) {
@@ -17,8 +17,6 @@
  */
 package org.apache.ivy.ant;
 
-import java.io.File;
-
 import org.apache.ivy.core.IvyPatternHelper;
 import org.apache.ivy.core.cache.ResolutionCacheManager;
 import org.apache.ivy.core.module.descriptor.Artifact;
@@ -69,8 +67,7 @@ public class IvyArtifactProperty extends IvyPostResolveTask {
             }
             XmlReportParser parser = new XmlReportParser();
             for (int i = 0; i < confs.length; i++) {
-                File report = cacheMgr.getConfigurationResolveReportInCache(resolveId, confs[i]);
-                parser.parse(report);
+                parser.parse(cacheMgr, resolveId, confs[i]);
 
                 Artifact[] artifacts = parser.getArtifacts();
                 for (int j = 0; j < artifacts.length; j++) {
@@ -17,7 +17,6 @@
  */
 package org.apache.ivy.ant;
 
-import java.io.File;
 import java.io.IOException;
 import java.text.ParseException;
 import java.util.ArrayList;
@@ -88,9 +87,7 @@ public abstract class IvyCacheTask extends IvyPostResolveTask {
                 resolvedId = ResolveOptions.getDefaultResolveId(getResolvedModuleId());
             }
             for (int i = 0; i < confs.length; i++) {
-                File reportFile = cacheMgr.getConfigurationResolveReportInCache(resolvedId,
-                    confs[i]);
-                parser.parse(reportFile);
+                parser.parse(cacheMgr, resolvedId, confs[i]);
 
                 ArtifactDownloadReport[] aReports = parser.getArtifactReports();
                 all.addAll(Arrays.asList(aReports));
@@ -75,6 +75,12 @@ public class IvyResolve extends IvyTask {
 
     private boolean refresh = false;
 
+    private boolean parallel = false;
+
+    private boolean compactNodes = false;
+
+    private boolean useSnapshot = false;
+
     private boolean changing = false;
 
     private Boolean keep = null;
@@ -185,6 +191,30 @@ public class IvyResolve extends IvyTask {
         this.refresh = refresh;
     }
 
+    public boolean isParallel() {
+        return parallel;
+    }
+
+    public void setParallel(boolean parallel) {
+        this.parallel = parallel;
+    }
+
+    public boolean isCompactNodes() {
+        return compactNodes;
+    }
+
+    public void setCompactNodes(boolean compactNodes) {
+        this.compactNodes = compactNodes;
+    }
+
+    public boolean isUseSnapshot() {
+        return useSnapshot;
+    }
+
+    public void setUseSnapshot(boolean useSnapshot) {
+        this.useSnapshot = useSnapshot;
+    }
+
     public String getLog() {
         return log;
     }
@@ -440,7 +470,8 @@ public class IvyResolve extends IvyTask {
                 .setArtifactFilter(FilterHelper.getArtifactTypeFilter(type)).setRevision(revision)
                 .setDate(getPubDate(pubdate, null)).setUseCacheOnly(useCacheOnly)
                 .setRefresh(refresh).setTransitive(transitive).setResolveMode(resolveMode)
-                .setResolveId(resolveId).setCheckIfChanged(checkIfChanged);
+                .setResolveId(resolveId).setCheckIfChanged(checkIfChanged).setParallel(parallel)
+                .setUseSnapshot(useSnapshot).setCompactNodes(compactNodes);
     }
 
     public String getModule() {
@@ -42,6 +42,10 @@ public class IvyRetrieve extends IvyPostResolveTask {
             RetrieveOptions.OVERWRITEMODE_ALWAYS, RetrieveOptions.OVERWRITEMODE_NEVER,
             RetrieveOptions.OVERWRITEMODE_NEWER, RetrieveOptions.OVERWRITEMODE_DIFFERENT});
 
+    private static final Collection STRATEGY_VALUES = Arrays.asList(new String[] {
+            RetrieveOptions.STRATEGY_COPY, RetrieveOptions.STRATEGY_TRANSFER,
+            RetrieveOptions.STRATEGY_HARDLINK, RetrieveOptions.STRATEGY_REFLINK});
+
     private String pattern;
 
     private String ivypattern = null;
@@ -54,6 +58,12 @@ public class IvyRetrieve extends IvyPostResolveTask {
 
     private String overwriteMode = RetrieveOptions.OVERWRITEMODE_NEWER;
 
+    private String strategy = RetrieveOptions.STRATEGY_COPY;
+
+    private int threads = 1;
+
+    private boolean useManifest = false;
+
     private String pathId = null;
 
     private String setId = null;
@@ -102,7 +112,9 @@ public class IvyRetrieve extends IvyPostResolveTask {
                         .setDestIvyPattern(ivypattern).setArtifactFilter(artifactFilter)
                         .setSync(sync).setOverwriteMode(getOverwriteMode())
                         .setUseOrigin(isUseOrigin()).setMakeSymlinks(symlink)
-                        .setMakeSymlinksInMass(symlinkmass).setResolveId(getResolveId())
+                        .setMakeSymlinksInMass(symlinkmass).setStrategy(strategy)
+                        .setThreads(threads).setUseManifest(useManifest)
+                        .setResolveId(getResolveId())
                         .setMapper(mapper == null ? null : new MapperAdapter(mapper)));
 
             int targetsCopied = report.getNbrArtifactsCopied();
@@ -183,6 +195,44 @@ public class IvyRetrieve extends IvyPostResolveTask {
         return overwriteMode;
     }
 
+    /**
+     * How the artifacts are retrieved when no symlink is asked.
+     */
+    public void setStrategy(String strategy) {
+        if (!STRATEGY_VALUES.contains(strategy)) {
+            throw new IllegalArgumentException("invalid strategy value '" + strategy + "'. "
+                    + "Valid values are " + STRATEGY_VALUES);
+        }
+        this.strategy = strategy;
+    }
+
+    public String getStrategy() {
+        return strategy;
+    }
+
+    /**
+     * The number of artifacts retrieved at the same time when no symlink is asked.
+     */
+    public void setThreads(int threads) {
+        this.threads = threads;
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+
+    /**
+     * Option to keep a manifest of the retrieved files, to know which files are up to date and
+     * which files are stale at the next retrieve.
+     */
+    public void setUseManifest(boolean useManifest) {
+        this.useManifest = useManifest;
+    }
+
+    public boolean isUseManifest() {
+        return useManifest;
+    }
+
     /**
      * Add a mapper to convert the file names.
      * 
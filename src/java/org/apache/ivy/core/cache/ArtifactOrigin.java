@@ -56,6 +56,8 @@ public class ArtifactOrigin {
 
     private boolean exists = true;
 
+    private String eTag;
+
     /**
      * Create a new instance
      * 
@@ -128,9 +130,23 @@ public class ArtifactOrigin {
         this.exists = exists;
     }
 
+    /**
+     * The entity tag of the resource when it was downloaded, if the repository provided one. May
+     * be <code>null</code>.
+     * 
+     * @return the entity tag of the resource
+     */
+    public String getETag() {
+        return eTag;
+    }
+
+    public void setETag(String eTag) {
+        this.eTag = eTag;
+    }
+
     public String toString() {
         return "ArtifactOrigin { isLocal=" + isLocal + ", location=" + location + ", lastChecked="
-                + lastChecked + ", exists=" + exists + "}";
+                + lastChecked + ", exists=" + exists + ", eTag=" + eTag + "}";
     }
 
     public boolean equals(Object o) {
@@ -0,0 +1,466 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  See the NOTICE file distributed with
+ *  this work for additional information regarding copyright ownership.
+ *  The ASF licenses this file to You under the Apache License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance with
+ *  the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package org.apache.ivy.core.cache;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Properties;
+import java.util.TreeMap;
+
+import org.apache.ivy.util.Message;
+
+/**
+ * A single file storing the metadata of all the module revisions of a repository cache, used
+ * instead of one ivydata properties file per module revision when
+ * {@link DefaultRepositoryCacheManager#setUseMetadataIndex(boolean)} is set.
+ * <p>
+ * The file is an append only log of records, each record holding the whole metadata of a module
+ * revision: saving the metadata of a module revision appends a new record, which supersedes the
+ * previous ones for the same key. The file is memory mapped for reading, and only the offset of the
+ * last record of each key is kept in memory. The file is extended by chunks, its unused end being
+ * filled with zeros, so that it is not mapped again each time a record is appended. When more than
+ * half of the records have been superseded, the file is compacted in place: it is never truncated
+ * nor replaced, which is impossible on some platforms while it is mapped. Its size is limited to
+ * 2GB, the largest size which can be mapped at once.
+ * </p>
+ * <p>
+ * The file may be shared by several processes: records are appended and the file is compacted
+ * with an exclusive lock on the file, and the records appended by other processes are read before
+ * any access. Each compaction increments the generation stored in the header of the file, so that
+ * the other processes read the whole file again.
+ * </p>
+ * <p>
+ * Only one instance is used per file in a JVM, obtained with {@link #getInstance(File)}.
+ * </p>
+ */
+final class CacheMetadataIndex {
+    private static final int MAGIC = 0x49564458; // IVDX
+
+    private static final int VERSION = 2;
+
+    /**
+     * the magic number, the version and the generation of the file
+     */
+    private static final int HEADER_SIZE = 12;
+
+    private static final int GENERATION_OFFSET = 8;
+
+    /**
+     * the maximum size of the file, which can thus be mapped in a single buffer: offsets in the
+     * file always fit in an int
+     */
+    private static final long MAX_SIZE = Integer.MAX_VALUE;
+
+    /**
+     * the size by which the file is extended when a record doesn't fit in it
+     */
+    private static final long GROWTH = 1024 * 1024;
+
+    private static final long COMPACTION_MIN_SIZE = 64 * 1024;
+
+    private static final Map/* <File, CacheMetadataIndex> */INSTANCES = new HashMap();
+
+    /**
+     * Returns the index stored in the given file, creating it if necessary.
+     */
+    public static CacheMetadataIndex getInstance(File file) {
+        File key = file.getAbsoluteFile();
+        synchronized (INSTANCES) {
+            CacheMetadataIndex index = (CacheMetadataIndex) INSTANCES.get(key);
+            if (index == null) {
+                index = new CacheMetadataIndex(key);
+                INSTANCES.put(key, index);
+            }
+            return index;
+        }
+    }
+
+    private File file;
+
+    private RandomAccessFile raf;
+
+    private FileChannel channel;
+
+    private MappedByteBuffer buffer;
+
+    private Map/* <String, Long> */offsets = new HashMap();
+
+    /**
+     * the generation of the file which has been read, -1 if none. The generation is odd while the
+     * file is compacted, and remains odd if the compaction has not completed.
+     */
+    private int generation = -1;
+
+    /**
+     * the size of the part of the file which has been read
+     */
+    private long readSize;
+
+    /**
+     * the size of the records which have not been superseded
+     */
+    private long liveSize;
+
+    private CacheMetadataIndex(File file) {
+        this.file = file;
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    /**
+     * Returns the size of the records stored in the file, superseded records included.
+     */
+    synchronized long getDataSize() {
+        return readSize - HEADER_SIZE;
+    }
+
+    /**
+     * Returns the metadata stored for the given key, or <code>null</code> if there is none.
+     */
+    public synchronized Properties get(String key) {
+        try {
+            refresh();
+            Long offset = (Long) offsets.get(key);
+            return offset == null ? null : readRecord(offset.longValue());
+        } catch (IOException ex) {
+            Message.warn("exception occurred while reading cache metadata index " + file, ex);
+            close();
+            return null;
+        }
+    }
+
+    /**
+     * Stores the metadata for the given key, replacing any previously stored metadata.
+     */
+    public synchronized void put(String key, Properties metadata) {
+        try {
+            byte[] record = encode(key, metadata);
+            FileLock lock = lock(false);
+            try {
+                readRecords();
+                if (generation % 2 != 0) {
+                    resetRecords();
+                }
+                if (readSize + 8 + record.length > MAX_SIZE && liveSize + HEADER_SIZE < readSize) {
+                    compactRecords();
+                }
+                long end = readSize + 8 + record.length;
+                if (end > MAX_SIZE) {
+                    throw new IOException("cache metadata index is full");
+                }
+                if (end > channel.size()) {
+                    // the file is extended by writing its last byte
+                    write(new byte[1], Math.min(MAX_SIZE, (end + GROWTH - 1) / GROWTH * GROWTH) - 1);
+                }
+                // the record is followed by the end of the records, and its length is written
+                // last so that a process dying while writing it leaves the file consistent
+                write(ByteBuffer.allocate(record.length + 4).put(record).array(), readSize + 4);
+                write(ByteBuffer.allocate(4).putInt(record.length).array(), readSize);
+                indexRecord(key, readSize, record.length);
+                if (hasTooMuchGarbage()) {
+                    compactRecords();
+                }
+            } finally {
+                lock.release();
+            }
+        } catch (IOException ex) {
+            Message.warn("exception occurred while writing cache metadata index " + file, ex);
+            close();
+        }
+    }
+
+    /**
+     * Rewrites the records of the file so that only the last record of each key is kept.
+     */
+    public synchronized void compact() {
+        try {
+            FileLock lock = lock(false);
+            try {
+                readRecords();
+                if (generation % 2 != 0) {
+                    resetRecords();
+                }
+                compactRecords();
+            } finally {
+                lock.release();
+            }
+        } catch (IOException ex) {
+            Message.warn("exception occurred while compacting cache metadata index " + file, ex);
+            close();
+        }
+    }
+
+    /**
+     * Releases the file, which will be reopened on next access.
+     */
+    public synchronized void close() {
+        if (raf != null) {
+            try {
+                raf.close();
+            } catch (IOException e) {
+                // ignored
+            }
+        }
+        raf = null;
+        channel = null;
+        buffer = null;
+        offsets.clear();
+        generation = -1;
+        readSize = 0;
+        liveSize = 0;
+    }
+
+    /**
+     * Opens the file if needed, and reads the records written since last access.
+     */
+    private void refresh() throws IOException {
+        if (channel == null || !file.exists()) {
+            open();
+        } else if (hasChanges()) {
+            FileLock lock = lock(true);
+            try {
+                readRecords();
+            } finally {
+                lock.release();
+            }
+        }
+    }
+
+    /**
+     * Tells whether the file may have been written since it has been read, without locking it.
+     */
+    private boolean hasChanges() throws IOException {
+        if (buffer.getInt(GENERATION_OFFSET) != generation) {
+            return true;
+        }
+        if (readSize + 4 <= buffer.capacity()) {
+            return buffer.getInt((int) readSize) != 0;
+        }
+        return channel.size() > buffer.capacity();
+    }
+
+    private void open() throws IOException {
+        close();
+        if (file.getParentFile() != null) {
+            file.getParentFile().mkdirs();
+        }
+        raf = new RandomAccessFile(file, "rw");
+        channel = raf.getChannel();
+        FileLock lock = channel.lock();
+        try {
+            if (channel.size() < HEADER_SIZE) {
+                // the header of the first generation, followed by the end of the records
+                write(ByteBuffer.allocate(HEADER_SIZE + 4).putInt(MAGIC).putInt(VERSION).array(),
+                    0);
+            } else {
+                ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+                channel.read(header, 0);
+                if (header.getInt(0) != MAGIC || header.getInt(4) != VERSION) {
+                    throw new IOException("unsupported cache metadata index format");
+                }
+            }
+            readRecords();
+            if (generation % 2 != 0) {
+                resetRecords();
+            }
+            if (hasTooMuchGarbage()) {
+                compactRecords();
+            }
+        } finally {
+            lock.release();
+        }
+    }
+
+    /**
+     * Acquires a lock on the file, opening it if it isn't or if it has been deleted.
+     */
+    private FileLock lock(boolean shared) throws IOException {
+        if (channel == null || !file.exists()) {
+            // the cache may have been cleaned
+            open();
+        }
+        return channel.lock(0, Long.MAX_VALUE, shared);
+    }
+
+    /**
+     * Reads the records found after the part of the file already read, or the whole file if it
+     * has been compacted since it has been read. Must be called with a lock on the file.
+     */
+    private void readRecords() throws IOException {
+        map();
+        int current = buffer.getInt(GENERATION_OFFSET);
+        if (current != generation) {
+            offsets.clear();
+            readSize = HEADER_SIZE;
+            liveSize = 0;
+            generation = current;
+        }
+        if (generation % 2 != 0) {
+            // a process died while compacting the file: the records are lost
+            return;
+        }
+        while (readSize + 4 <= buffer.capacity()) {
+            int length = buffer.getInt((int) readSize);
+            if (length <= 0 || readSize + 4 + length > buffer.capacity()) {
+                // end of the records
+                return;
+            }
+            indexRecord(openRecord(readSize).readUTF(), readSize, length);
+        }
+    }
+
+    private void indexRecord(String key, long offset, int length) throws IOException {
+        Long previous = (Long) offsets.put(key, new Long(offset));
+        if (previous != null) {
+            liveSize -= 4 + recordLength(previous.longValue());
+        }
+        liveSize += 4 + length;
+        readSize = offset + 4 + length;
+    }
+
+    private boolean hasTooMuchGarbage() {
+        return readSize > COMPACTION_MIN_SIZE && liveSize * 2 < readSize;
+    }
+
+    /**
+     * Drops all the records of a file whose compaction has not completed. Must be called with an
+     * exclusive lock on the file.
+     */
+    private void resetRecords() throws IOException {
+        write(new byte[4], HEADER_SIZE);
+        writeGeneration(nextGeneration(generation));
+        readRecords();
+    }
+
+    /**
+     * Moves the last record of each key to the beginning of the file, in the order in which they
+     * have been written. Each record is moved before the offset at which the next one is read,
+     * thus no record is overwritten before being moved. Must be called with an exclusive lock on
+     * the file, once its records have been read.
+     */
+    private void compactRecords() throws IOException {
+        Map/* <Long, String> */keys = new TreeMap();
+        for (Iterator it = offsets.entrySet().iterator(); it.hasNext();) {
+            Entry entry = (Entry) it.next();
+            keys.put(entry.getValue(), entry.getKey());
+        }
+        writeGeneration(nextGeneration(generation));
+        long position = HEADER_SIZE;
+        for (Iterator it = keys.entrySet().iterator(); it.hasNext();) {
+            Entry entry = (Entry) it.next();
+            long offset = ((Long) entry.getKey()).longValue();
+            int length = 4 + recordLength(offset);
+            if (position != offset) {
+                byte[] record = new byte[length];
+                ByteBuffer src = buffer.duplicate();
+                src.position((int) offset);
+                src.get(record);
+                write(record, position);
+                offsets.put(entry.getValue(), new Long(position));
+            }
+            position += length;
+        }
+        write(new byte[4], position);
+        channel.force(false);
+        generation = nextGeneration(nextGeneration(generation));
+        writeGeneration(generation);
+        readSize = position;
+        liveSize = position - HEADER_SIZE;
+    }
+
+    private static int nextGeneration(int generation) {
+        return (generation + 1) & Integer.MAX_VALUE;
+    }
+
+    private void writeGeneration(int generation) throws IOException {
+        write(ByteBuffer.allocate(4).putInt(generation).array(), GENERATION_OFFSET);
+    }
+
+    private void write(byte[] bytes, long position) throws IOException {
+        ByteBuffer src = ByteBuffer.wrap(bytes);
+        while (src.hasRemaining()) {
+            channel.write(src, position + src.position());
+        }
+    }
+
+    private int recordLength(long offset) {
+        return buffer.getInt((int) offset);
+    }
+
+    /**
+     * Maps the whole file, if it has been extended since it has been mapped.
+     */
+    private void map() throws IOException {
+        long size = channel.size();
+        if (size > MAX_SIZE) {
+            throw new IOException("cache metadata index is too large: " + size);
+        }
+        if (buffer == null || buffer.capacity() < size) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        }
+    }
+
+    private Properties readRecord(long offset) throws IOException {
+        DataInputStream in = openRecord(offset);
+        in.readUTF();
+        Properties metadata = new Properties();
+        int count = in.readInt();
+        for (int i = 0; i < count; i++) {
+            String name = in.readUTF();
+            metadata.setProperty(name, in.readUTF());
+        }
+        return metadata;
+    }
+
+    private DataInputStream openRecord(long offset) throws IOException {
+        byte[] bytes = new byte[recordLength(offset)];
+        ByteBuffer record = buffer.duplicate();
+        record.position((int) offset + 4);
+        record.get(bytes);
+        return new DataInputStream(new ByteArrayInputStream(bytes));
+    }
+
+    private byte[] encode(String key, Properties metadata) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeUTF(key);
+        out.writeInt(metadata.size());
+        for (Iterator it = metadata.entrySet().iterator(); it.hasNext();) {
+            Entry entry = (Entry) it.next();
+            out.writeUTF((String) entry.getKey());
+            out.writeUTF((String) entry.getValue());
+        }
+        out.close();
+        return bytes.toByteArray();
+    }
+}
@@ -43,6 +43,7 @@ import org.apache.ivy.core.pack.PackagingManager;
 import org.apache.ivy.core.report.ArtifactDownloadReport;
 import org.apache.ivy.core.report.DownloadStatus;
 import org.apache.ivy.core.report.MetadataArtifactDownloadReport;
+import org.apache.ivy.core.resolve.ResolveMetrics;
 import org.apache.ivy.core.resolve.ResolvedModuleRevision;
 import org.apache.ivy.core.settings.IvySettings;
 import org.apache.ivy.plugins.IvySettingsAware;
@@ -63,6 +64,8 @@ import org.apache.ivy.plugins.repository.Repository;
 import org.apache.ivy.plugins.repository.Resource;
 import org.apache.ivy.plugins.repository.ResourceDownloader;
 import org.apache.ivy.plugins.repository.ResourceHelper;
+import org.apache.ivy.plugins.repository.TaggedResource;
+import org.apache.ivy.plugins.repository.url.URLRepository;
 import org.apache.ivy.plugins.resolver.AbstractResolver;
 import org.apache.ivy.plugins.resolver.DependencyResolver;
 import org.apache.ivy.plugins.resolver.util.ResolvedResource;
@@ -71,15 +74,18 @@ import org.apache.ivy.util.FileUtil;
 import org.apache.ivy.util.HexEncoder;
 import org.apache.ivy.util.Message;
 import org.apache.ivy.util.PropertiesFile;
+import org.apache.ivy.util.url.URLHandler.URLInfo;
 
 public class DefaultRepositoryCacheManager implements RepositoryCacheManager, IvySettingsAware {
     private static final String DEFAULT_ARTIFACT_PATTERN = "[organisation]/[module](/[branch])/[type]s/[artifact]-[revision](-[classifier])(.[ext])";
 
     private static final String DEFAULT_DATA_FILE_PATTERN = "[organisation]/[module](/[branch])/ivydata-[revision].properties";
 
+    private static final String METADATA_INDEX_FILE = "ivydata.idx";
+
     private static final String DEFAULT_IVY_PATTERN = "[organisation]/[module](/[branch])/ivy-[revision].xml";
 
-    private static final int DEFAULT_MEMORY_CACHE_SIZE = 150;
+    private static final long DEFAULT_MEMORY_CACHE_BUDGET = 32 * 1024 * 1024;
 
     private static MessageDigest SHA_DIGEST;
     static {
@@ -114,12 +120,24 @@ public class DefaultRepositoryCacheManager implements RepositoryCacheManager, Iv
 
     private Boolean useOrigin;
 
+    private boolean useMetadataIndex = false;
+
+    private boolean useBinaryDescriptors = false;
+
     private ModuleRules/* <Long> */ttlRules = new ModuleRules();
 
     private Long defaultTTL = null;
 
+    private ModuleRules/* <Long> */missingTtlRules = new ModuleRules();
+
+    private Long defaultMissingTTL = null;
+
     private ModuleDescriptorMemoryCache memoryModuleDescrCache;
 
+    private int memorySize = -1;
+
+    private long memoryBudget = DEFAULT_MEMORY_CACHE_BUDGET;
+
     private PackagingManager packagingManager = new PackagingManager();
 
     public DefaultRepositoryCacheManager() {
@@ -184,6 +202,7 @@ public class DefaultRepositoryCacheManager implements RepositoryCacheManager, Iv
 
     public void setBasedir(File cache) {
         this.basedir = cache;
+        memoryModuleDescrCache = null;
     }
 
     public long getDefaultTTL() {
@@ -201,6 +220,27 @@ public class DefaultRepositoryCacheManager implements RepositoryCacheManager, Iv
         this.defaultTTL = new Long(parseDuration(defaultTTL));
     }
 
+    /**
+     * Returns the time during which a resource found missing by a resolver is considered missing
+     * without checking the repository again, when no missing ttl rule applies. 0 means that
+     * missing resources aren't recorded.
+     */
+    public long getDefaultMissingTTL() {
+        if (defaultMissingTTL == null) {
+            defaultMissingTTL = new Long(parseDuration(settings
+                    .getVariable("ivy.cache.ttl.missing.default")));
+        }
+        return defaultMissingTTL.longValue();
+    }
+
+    public void setDefaultMissingTTL(long defaultMissingTTL) {
+        this.defaultMissingTTL = new Long(defaultMissingTTL);
+    }
+
+    public void setDefaultMissingTTL(String defaultMissingTTL) {
+        this.defaultMissingTTL = new Long(parseDuration(defaultMissingTTL));
+    }
+
     public String getDataFilePattern() {
         return dataFilePattern;
     }
@@ -254,17 +294,67 @@ public class DefaultRepositoryCacheManager implements RepositoryCacheManager, Iv
             parseDuration(duration));
     }
 
+    public void addMissingTTL(Map attributes, PatternMatcher matcher, long duration) {
+        missingTtlRules.defineRule(new MapMatcher(attributes, matcher), new Long(duration));
+    }
+
+    public void addConfiguredMissingTtl(Map/* <String,String> */attributes) {
+        String duration = (String) attributes.remove("duration");
+        if (duration == null) {
+            throw new IllegalArgumentException("'duration' attribute is mandatory for missingTtl");
+        }
+        String matcher = (String) attributes.remove("matcher");
+        addMissingTTL(attributes,
+            matcher == null ? ExactPatternMatcher.INSTANCE : settings.getMatcher(matcher),
+            parseDuration(duration));
+    }
+
     public void setMemorySize(int size) {
-        memoryModuleDescrCache = new ModuleDescriptorMemoryCache(size);
+        memorySize = size;
+        memoryModuleDescrCache = null;
+    }
+
+    /**
+     * Sets the memory budget of the cache of parsed module descriptors, in bytes, possibly followed
+     * by a k, m or g unit.
+     */
+    public void setMemoryBudget(String budget) {
+        memoryBudget = parseSize(budget);
+        memoryModuleDescrCache = null;
     }
 
+    /**
+     * Returns the cache of parsed module descriptors, which is shared with the other cache managers
+     * of the same settings using the same base directory.
+     */
     public ModuleDescriptorMemoryCache getMemoryCache() {
         if (memoryModuleDescrCache == null) {
-            memoryModuleDescrCache = new ModuleDescriptorMemoryCache(DEFAULT_MEMORY_CACHE_SIZE);
+            memoryModuleDescrCache = ModuleDescriptorMemoryCache.getSharedInstance(settings,
+                getBasedir(), memorySize, memoryBudget);
         }
         return memoryModuleDescrCache;
     }
 
+    private static final Pattern SIZE_PATTERN = Pattern.compile("(\\d+)\\s*([kKmMgG]?)");
+
+    private static long parseSize(String size) {
+        java.util.regex.Matcher m = SIZE_PATTERN.matcher(size.trim());
+        if (!m.matches()) {
+            throw new IllegalArgumentException("invalid size: '" + size
+                    + "'. It should be a number of bytes, optionally followed by k, m or g");
+        }
+        long bytes = Long.parseLong(m.group(1));
+        String unit = m.group(2).toLowerCase();
+        if ("k".equals(unit)) {
+            return bytes * 1024;
+        } else if ("m".equals(unit)) {
+            return bytes * 1024 * 1024;
+        } else if ("g".equals(unit)) {
+            return bytes * 1024 * 1024 * 1024;
+        }
+        return bytes;
+    }
+
     private static final Pattern DURATION_PATTERN = Pattern
             .compile("(?:(\\d+)d)? ?(?:(\\d+)h)? ?(?:(\\d+)m)? ?(?:(\\d+)s)? ?(?:(\\d+)ms)?");
 
@@ -348,6 +438,31 @@ public class DefaultRepositoryCacheManager implements RepositoryCacheManager, Iv
         useOrigin = Boolean.valueOf(b);
     }
 
+    public boolean isUseMetadataIndex() {
+        return useMetadataIndex;
+    }
+
+    /**
+     * Sets whether the metadata of the module revisions in this cache (resolvers used, artifact
+     * origins, resolved revisions) is stored in a single binary index file rather than in one
+     * properties file per module revision.
+     */
+    public void setUseMetadataIndex(boolean useMetadataIndex) {
+        this.useMetadataIndex = useMetadataIndex;
+    }
+
+    public boolean isUseBinaryDescriptors() {
+        return useBinaryDescriptors;
+    }
+
+    /**
+     * Sets whether a binary form of the cached ivy files is stored next to them, so that cached
+     * module descriptors can be loaded without XML parsing.
+     */
+    public void setUseBinaryDescriptors(boolean useBinaryDescriptors) {
+        this.useBinaryDescriptors = useBinaryDescriptors;
+    }
+
     /**
      * Returns a File object pointing to where the artifact can be found on the local file system.
      * This is usually in the cache, but it can be directly in the repository if it is local and if
@@ -465,6 +580,11 @@ public class DefaultRepositoryCacheManager implements RepositoryCacheManager, Iv
             cdf.setProperty(getLastCheckedKey(artifact), origin.getLastChecked().toString());
         }
         cdf.setProperty(getExistsKey(artifact), Boolean.toString(origin.isExists()));
+        if (origin.getETag() != null) {
+            cdf.setProperty(getETagKey(artifact), origin.getETag());
+        } else {
+            cdf.remove(getETagKey(artifact));
+        }
         cdf.save();
     }
 
@@ -475,6 +595,7 @@ public class DefaultRepositoryCacheManager implements RepositoryCacheManager, Iv
         cdf.remove(getIsLocalKey(artifact));
         cdf.remove(getLastCheckedKey(artifact));
         cdf.remove(getOriginalKey(artifact));
+        cdf.remove(getETagKey(artifact));
         cdf.save();
     }
 
@@ -494,6 +615,7 @@ public class DefaultRepositoryCacheManager implements RepositoryCacheManager, Iv
             String lastChecked = cdf.getProperty(getLastCheckedKey(artifact));
             String exists = cdf.getProperty(getExistsKey(artifact));
             String original = cdf.getProperty(getOriginalKey(artifact));
+            String eTag = cdf.getProperty(getETagKey(artifact));
 
             boolean isLocal = Boolean.valueOf(local).booleanValue();
 
@@ -578,6 +700,7 @@ public class DefaultRepositoryCacheManager implements RepositoryCacheManager, Iv
             if (exists != null) {
                 origin.setExist(Boolean.valueOf(exists).booleanValue());
             }
+            origin.setETag(eTag);
 
             return origin;
         } finally {
@@ -648,6 +771,18 @@ public class DefaultRepositoryCacheManager implements RepositoryCacheManager, Iv
         return prefix + ".exists";
     }
 
+    /**
+     * Returns the key used to identify the entity tag of the remote artifact.
+     * 
+     * @param artifact
+     *            the artifact to generate the key from. Cannot be null.
+     * @return the key to be used to reference the entity tag of the artifact.
+     */
+    private String getETagKey(Artifact artifact) {
+        String prefix = getPrefixKey(artifact);
+        return prefix + ".etag";
+    }
+
     /**
      * Returns the key used to identify the original artifact.
      * 
@@ -665,8 +800,14 @@ public class DefaultRepositoryCacheManager implements RepositoryCacheManager, Iv
     }
 
     private PropertiesFile getCachedDataFile(ModuleRevisionId mRevId) {
-        return new PropertiesFile(new File(getRepositoryCacheRoot(), IvyPatternHelper.substitute(
-            getDataFilePattern(), mRevId)), "ivy cached data file for " + mRevId);
+        String path = IvyPatternHelper.substitute(getDataFilePattern(), mRevId);
+        File file = new File(getRepositoryCacheRoot(), path);
+        String header = "ivy cached data file for " + mRevId;
+        if (isUseMetadataIndex()) {
+            return new IndexedPropertiesFile(CacheMetadataIndex.getInstance(new File(
+                    getRepositoryCacheRoot(), METADATA_INDEX_FILE)), path, file, header);
+        }
+        return new PropertiesFile(file, header);
     }
 
     public ResolvedModuleRevision findModuleInCache(DependencyDescriptor dd,
@@ -681,7 +822,12 @@ public class DefaultRepositoryCacheManager implements RepositoryCacheManager, Iv
             Message.verbose("don't use cache for " + mrid + ": changing=true");
             return null;
         }
-        return doFindModuleInCache(mrid, options, expectedResolver);
+        long start = System.nanoTime();
+        try {
+            return doFindModuleInCache(mrid, options, expectedResolver);
+        } finally {
+            ResolveMetrics.record(ResolveMetrics.CACHE_LOOKUP, start);
+        }
     }
 
     private ResolvedModuleRevision doFindModuleInCache(ModuleRevisionId mrid,
@@ -807,21 +953,42 @@ public class DefaultRepositoryCacheManager implements RepositoryCacheManager, Iv
 
         private final ParserSettings settings;
 
-        public MyModuleDescriptorProvider(ModuleDescriptorParser mdParser, ParserSettings settings) {
+        private final boolean useBinaryDescriptor;
+
+        public MyModuleDescriptorProvider(ModuleDescriptorParser mdParser,
+                ParserSettings settings, boolean useBinaryDescriptor) {
             this.mdParser = mdParser;
             this.settings = settings;
+            this.useBinaryDescriptor = useBinaryDescriptor;
         }
 
         public ModuleDescriptor provideModule(ParserSettings ivySettings, File descriptorURL,
                 boolean validate) throws ParseException, IOException {
-            return mdParser.parseDescriptor(settings, descriptorURL.toURI().toURL(), validate);
+            long start = System.nanoTime();
+            try {
+                if (useBinaryDescriptor && mdParser instanceof XmlModuleDescriptorParser) {
+                    return ((XmlModuleDescriptorParser) mdParser).parseDescriptor(settings,
+                        descriptorURL, getBinaryDescriptorFile(descriptorURL), validate);
+                }
+                return mdParser.parseDescriptor(settings, descriptorURL.toURI().toURL(), validate);
+            } finally {
+                ResolveMetrics.record(ResolveMetrics.DESCRIPTOR_PARSE, start);
+            }
         }
     }
 
+    /**
+     * Returns the file storing the binary form of the given cached ivy file.
+     */
+    private File getBinaryDescriptorFile(File ivyFile) {
+        return new File(ivyFile.getParentFile(), ivyFile.getName() + ".bin");
+    }
+
     private ModuleDescriptor getMdFromCache(ModuleDescriptorParser mdParser,
             CacheMetadataOptions options, File ivyFile) throws ParseException, IOException {
         ModuleDescriptorMemoryCache cache = getMemoryCache();
-        ModuleDescriptorProvider mdProvider = new MyModuleDescriptorProvider(mdParser, settings);
+        ModuleDescriptorProvider mdProvider = new MyModuleDescriptorProvider(mdParser, settings,
+                isUseBinaryDescriptors());
         return cache.get(ivyFile, settings, options.isValidate(), mdProvider);
     }
 
@@ -830,7 +997,7 @@ public class DefaultRepositoryCacheManager implements RepositoryCacheManager, Iv
             throws ParseException, IOException {
         ModuleDescriptorMemoryCache cache = getMemoryCache();
         ModuleDescriptorProvider mdProvider = new MyModuleDescriptorProvider(mdParser,
-                parserSettings);
+                parserSettings, false);
         return cache.getStale(ivyFile, settings, options.isValidate(), mdProvider);
     }
 
@@ -895,6 +1062,97 @@ public class DefaultRepositoryCacheManager implements RepositoryCacheManager, Iv
         return ttl == null ? getDefaultTTL() : ttl.longValue();
     }
 
+    /**
+     * Returns the time during which a resource of the given module revision found missing by a
+     * resolver is considered missing without checking the repository again.
+     */
+    public long getMissingTTL(ModuleRevisionId mrid) {
+        Long ttl = (Long) missingTtlRules.getRule(mrid);
+        return ttl == null ? getDefaultMissingTTL() : ttl.longValue();
+    }
+
+    /**
+     * Returns true if the given resource of the given module revision has been recorded as missing
+     * in the repository of the given resolver, and its missing ttl hasn't expired yet.
+     */
+    public boolean isMissing(ModuleRevisionId mrid, String resolverName, String resourceName) {
+        long ttl = getMissingTTL(mrid);
+        if (ttl <= 0) {
+            return false;
+        }
+        if (!lockMetadataArtifact(mrid)) {
+            Message.error("impossible to acquire lock for " + mrid);
+            return false;
+        }
+        try {
+            String missingTime = getCachedDataFile(mrid).getProperty(
+                getMissingKey(resolverName, resourceName));
+            if (missingTime == null) {
+                return false;
+            }
+            long expiration = Long.parseLong(missingTime) + ttl;
+            // negative expiration means that Long.MAX_VALUE has been exceeded
+            return expiration < 0 || System.currentTimeMillis() <= expiration;
+        } catch (NumberFormatException e) {
+            Message.debug("invalid missing time for " + resourceName + " in " + mrid);
+            return false;
+        } finally {
+            unlockMetadataArtifact(mrid);
+        }
+    }
+
+    /**
+     * Records that the given resource of the given module revision is missing in the repository of
+     * the given resolver, unless the missing ttl of the module revision is 0 or the module revision
+     * has no cached data, i.e. has never been found, in which case nothing is written to the cache.
+     */
+    public void saveMissing(ModuleRevisionId mrid, String resolverName, String resourceName) {
+        if (getMissingTTL(mrid) <= 0) {
+            return;
+        }
+        if (!lockMetadataArtifact(mrid)) {
+            Message.error("impossible to acquire lock for " + mrid);
+            return;
+        }
+        try {
+            PropertiesFile cachedData = getCachedDataFile(mrid);
+            if (cachedData.isEmpty()) {
+                return;
+            }
+            cachedData.setProperty(getMissingKey(resolverName, resourceName),
+                String.valueOf(System.currentTimeMillis()));
+            cachedData.save();
+        } finally {
+            unlockMetadataArtifact(mrid);
+        }
+    }
+
+    /**
+     * Forgets that the given resource of the given module revision was missing in the repository of
+     * the given resolver, typically because it has just been published.
+     */
+    public void removeMissing(ModuleRevisionId mrid, String resolverName, String resourceName) {
+        if (getMissingTTL(mrid) <= 0) {
+            return;
+        }
+        if (!lockMetadataArtifact(mrid)) {
+            Message.error("impossible to acquire lock for " + mrid);
+            return;
+        }
+        try {
+            PropertiesFile cachedData = getCachedDataFile(mrid);
+            if (cachedData.remove(getMissingKey(resolverName, resourceName)) != null) {
+                cachedData.save();
+            }
+        } finally {
+            unlockMetadataArtifact(mrid);
+        }
+    }
+
+    private static String getMissingKey(String resolverName, String resourceName) {
+        return "missing." + resolverName + "." + resourceName;
+    }
+
     public String toString() {
         return name;
     }
@@ -943,13 +1201,16 @@ public class DefaultRepositoryCacheManager implements RepositoryCacheManager, Iv
             if (listener != null) {
                 listener.needArtifact(this, artifact);
             }
+            long lookupStart = System.nanoTime();
             ArtifactOrigin origin = getSavedArtifactOrigin(artifact);
             // if we can use origin file, we just ask ivy for the file in cache, and it will
             // return the original one if possible. If we are not in useOrigin mode, we use the
             // getArchivePath method which always return a path in the actual cache
             File archiveFile = getArchiveFileInCache(artifact, origin, useOrigin);
+            boolean inCache = archiveFile.exists();
+            ResolveMetrics.record(ResolveMetrics.CACHE_LOOKUP, lookupStart);
 
-            if (archiveFile.exists() && !options.isForce()) {
+            if (inCache && !options.isForce()) {
                 adr.setDownloadStatus(DownloadStatus.NO);
                 adr.setSize(archiveFile.length());
                 adr.setArtifactOrigin(origin);
@@ -962,6 +1223,7 @@ public class DefaultRepositoryCacheManager implements RepositoryCacheManager, Iv
                         Resource artifactRes = artifactRef.getResource();
                         origin = new ArtifactOrigin(artifact, artifactRes.isLocal(),
                                 artifactRes.getName());
+                        origin.setETag(getETag(artifactRes));
                         if (useOrigin && artifactRes.isLocal()) {
                             if (artifactRes instanceof LocalizableResource) {
                                 origin.setLocation(((LocalizableResource) artifactRes).getFile()
@@ -1062,11 +1324,15 @@ public class DefaultRepositoryCacheManager implements RepositoryCacheManager, Iv
 
             ArtifactOrigin origin = new ArtifactOrigin(artifact, resource.isLocal(),
                     resource.getName());
+            // remote urls are checked with a conditional request when downloaded, instead of
+            // asking for their last modification date first, if their url handler is able to
+            boolean conditional = repository instanceof URLRepository && !resource.isLocal()
+                    && ((URLRepository) repository).isConditional(resource.getName());
 
             if (!options.isForce()
             // if the local file has been checked to be up to date enough recently, don't download
                     && checkCacheUptodate(archiveFile, resource, savedOrigin, origin,
-                        options.getTtl())) {
+                        options.getTtl(), !conditional)) {
                 if (archiveFile.exists()) {
                     saveArtifactOrigin(artifact, origin);
                     adr.setDownloadStatus(DownloadStatus.NO);
@@ -1097,21 +1363,39 @@ public class DefaultRepositoryCacheManager implements RepositoryCacheManager, Iv
                         }
 
                         // actual download
-                        if (archiveFile.exists()) {
-                            archiveFile.delete();
-                        }
                         File part = new File(archiveFile.getAbsolutePath() + ".part");
-                        repository.get(resource.getName(), part);
-                        if (!part.renameTo(archiveFile)) {
-                            throw new IOException(
-                                    "impossible to move part file to definitive one: " + part
-                                            + " -> " + archiveFile);
+                        URLInfo info;
+                        if (conditional) {
+                            boolean validCache = !options.isForce() && archiveFile.exists()
+                                    && !ArtifactOrigin.isUnknown(savedOrigin);
+                            info = ((URLRepository) repository).getIfModified(
+                                resource.getName(), part,
+                                validCache ? savedOrigin.getETag() : null,
+                                validCache ? archiveFile.lastModified() : 0);
+                            origin.setETag(info == null ? savedOrigin.getETag() : info.getETag());
+                        } else {
+                            repository.get(resource.getName(), part);
+                            info = null;
+                            origin.setETag(getETag(resource));
+                        }
+                        if (conditional && info == null) {
+                            Message.verbose("\t" + resource.getName() + " not modified");
+                            adr.setDownloadStatus(DownloadStatus.NO);
+                        } else {
+                            if (archiveFile.exists()) {
+                                archiveFile.delete();
+                            }
+                            if (!part.renameTo(archiveFile)) {
+                                throw new IOException(
+                                        "impossible to move part file to definitive one: " + part
+                                                + " -> " + archiveFile);
+                            }
+                            adr.setDownloadStatus(DownloadStatus.SUCCESSFUL);
                         }
 
                         adr.setSize(archiveFile.length());
                         saveArtifactOrigin(artifact, origin);
                         adr.setDownloadTimeMillis(System.currentTimeMillis() - start);
-                        adr.setDownloadStatus(DownloadStatus.SUCCESSFUL);
                         adr.setArtifactOrigin(origin);
                         adr.setLocalFile(archiveFile);
                     }
@@ -1163,10 +1447,13 @@ public class DefaultRepositoryCacheManager implements RepositoryCacheManager, Iv
      *            the origin in which to store the new last checked date
      * @param ttl
      *            the time to live to consider the cache up to date
+     * @param checkRemote
+     *            <code>true</code> to compare the cached file with the remote resource once the
+     *            time to live has expired, <code>false</code> to consider it out of date
      * @return <code>true</code> if the cache is considered up to date
      */
     private boolean checkCacheUptodate(File archiveFile, Resource resource,
-            ArtifactOrigin savedOrigin, ArtifactOrigin origin, long ttl) {
+            ArtifactOrigin savedOrigin, ArtifactOrigin origin, long ttl, boolean checkRemote) {
         long time = System.currentTimeMillis();
         if (savedOrigin.getLastChecked() != null
                 && (time - savedOrigin.getLastChecked().longValue()) < ttl) {
@@ -1178,15 +1465,38 @@ public class DefaultRepositoryCacheManager implements RepositoryCacheManager, Iv
             }
             return true;
         }
-        if (!archiveFile.exists()) {
+        if (!archiveFile.exists() || !checkRemote) {
             // the the file doesn't exist in the cache, obviously not up to date
             return false;
         }
         origin.setLastChecked(new Long(time));
+        origin.setETag(getETag(resource));
+        if (isSameETag(savedOrigin, origin.getETag())) {
+            // the remote resource has not changed since it has been downloaded
+            return true;
+        }
         // check if the local resource is up to date regarding the remote one
         return archiveFile.lastModified() >= resource.getLastModified();
     }
 
+    /**
+     * Returns the entity tag of the given resource, or <code>null</code> if its repository doesn't
+     * provide one.
+     */
+    private static String getETag(Resource resource) {
+        return resource instanceof TaggedResource ? ((TaggedResource) resource).getETag() : null;
+    }
+
+    /**
+     * Returns <code>true</code> if the given entity tag is known and equals the one saved in the
+     * given origin. Weak entity tags are accepted: they are not suitable for byte ranges, but they
+     * still tell that the resource is semantically unchanged.
+     */
+    private static boolean isSameETag(ArtifactOrigin savedOrigin, String eTag) {
+        return eTag != null && savedOrigin != null && !ArtifactOrigin.isUnknown(savedOrigin)
+                && eTag.equals(savedOrigin.getETag());
+    }
+
     public void originalToCachedModuleDescriptor(DependencyResolver resolver,
             ResolvedResource orginalMetadataRef, Artifact requestedMetadataArtifact,
             ResolvedModuleRevision rmr, ModuleDescriptorWriter writer) {
@@ -1202,6 +1512,9 @@ public class DefaultRepositoryCacheManager implements RepositoryCacheManager, Iv
         try {
             File originalFileInCache = getArchiveFileInCache(originalMetadataArtifact);
             writer.write(orginalMetadataRef, md, originalFileInCache, mdFileInCache);
+            // the binary form of the previous ivy file may look up to date if the new one has the
+            // same length and is written within the file system time resolution
+            getBinaryDescriptorFile(mdFileInCache).delete();
 
             getMemoryCache().putInCache(mdFileInCache, new ParserSettingsMonitor(settings), true,
                 md);
@@ -1266,7 +1579,9 @@ public class DefaultRepositoryCacheManager implements RepositoryCacheManager, Iv
             }
 
             // now let's see if we can find it in cache and if it is up to date
+            long start = System.nanoTime();
             ResolvedModuleRevision rmr = doFindModuleInCache(mrid, options, null);
+            ResolveMetrics.record(ResolveMetrics.CACHE_LOOKUP, start);
             if (rmr != null) {
                 if (rmr.getDescriptor().isDefault() && rmr.getResolver() != resolver) {
                     Message.verbose("\t" + getName() + ": found revision in cache: " + mrid
@@ -1280,7 +1595,12 @@ public class DefaultRepositoryCacheManager implements RepositoryCacheManager, Iv
                     }
                     long repLastModified = mdRef.getLastModified();
                     long cacheLastModified = rmr.getDescriptor().getLastModified();
-                    if (!rmr.getDescriptor().isDefault() && repLastModified <= cacheLastModified) {
+                    // the entity tag, when the repository provides one, tells that the
+                    // descriptor is unchanged even when its last modified date is not reliable
+                    boolean unchanged = repLastModified <= cacheLastModified
+                            || isSameETag(getSavedArtifactOrigin(getOriginalMetadataArtifact(
+                                moduleArtifact)), getETag(mdRef.getResource()));
+                    if (!rmr.getDescriptor().isDefault() && unchanged) {
                         Message.verbose("\t" + getName() + ": revision in cache (not updated): "
                                 + mrid);
                         rmr.getReport().setSearched(true);
@@ -1454,6 +1774,17 @@ public class DefaultRepositoryCacheManager implements RepositoryCacheManager, Iv
         return artifact.isMetadata() && artifact.getType().endsWith(".original");
     }
 
+    /**
+     * Indicates if the module asked with the given revision has to be checked in the repository
+     * each time it is resolved with the given options, either because it is changing or because
+     * the modification of its metadata is checked.
+     */
+    public boolean isCheckedAtEachResolve(DependencyDescriptor dd,
+            ModuleRevisionId requestedRevisionId, CacheMetadataOptions options) {
+        return isCheckmodified(dd, requestedRevisionId, options)
+                || isChanging(dd, requestedRevisionId, options);
+    }
+
     private boolean isChanging(DependencyDescriptor dd, ModuleRevisionId requestedRevisionId,
             CacheMetadataOptions options) {
         return dd.isChanging()
@@ -1485,6 +1816,11 @@ public class DefaultRepositoryCacheManager implements RepositoryCacheManager, Iv
     }
 
     public void clean() {
+        getMemoryCache().clear();
+        if (isUseMetadataIndex()) {
+            CacheMetadataIndex.getInstance(new File(getRepositoryCacheRoot(), METADATA_INDEX_FILE))
+                    .close();
+        }
         FileUtil.forceDelete(getBasedir());
     }
 
@@ -1495,6 +1831,10 @@ public class DefaultRepositoryCacheManager implements RepositoryCacheManager, Iv
         Message.debug("\t\tlockingStrategy: " + getLockStrategy().getName());
         Message.debug("\t\tchangingPattern: " + getChangingPattern());
         Message.debug("\t\tchangingMatcher: " + getChangingMatcherName());
+        Message.debug("\t\tuseMetadataIndex: " + isUseMetadataIndex());
+        Message.debug("\t\tuseBinaryDescriptors: " + isUseBinaryDescriptors());
+        Message.debug("\t\tdefaultMissingTTL: " + getDefaultMissingTTL());
+        Message.debug("\t\t" + getMemoryCache());
     }
 
     /**
@@ -135,6 +135,40 @@ public class DefaultResolutionCacheManager implements ResolutionCacheManager, Iv
         });
     }
 
+    /**
+     * Returns the file in which the binary form of the report of the given configuration of the
+     * resolve identified by the given resolve id is stored.
+     */
+    public File getConfigurationResolveBinaryReportInCache(String resolveId, String conf) {
+        return new File(getResolutionCacheRoot(), resolveId + "-" + conf + ".bin");
+    }
+
+    /**
+     * Returns the file in which the snapshot of the resolve identified by the given resolve id is
+     * stored, used to know if the reports of this resolve are still up to date.
+     */
+    public File getResolveSnapshotInCache(String resolveId) {
+        return new File(getResolutionCacheRoot(), resolveId + ".snapshot");
+    }
+
+    /**
+     * Returns the file in which the metrics of the last resolve identified by the given resolve id
+     * are stored, as a JSON object.
+     */
+    public File getResolveMetricsInCache(String resolveId) {
+        return new File(getResolutionCacheRoot(), resolveId + "-metrics.json");
+    }
+
+    /**
+     * Returns the file in which the manifest of the files retrieved from the resolve identified by
+     * the given resolve id to the given destination is stored, used to know which retrieved files
+     * are still up to date.
+     */
+    public File getRetrieveManifestInCache(String resolveId, String destination) {
+        return new File(getResolutionCacheRoot(), resolveId + "-"
+                + Integer.toHexString(destination.hashCode()) + ".retrieve");
+    }
+
     public ModuleDescriptor getResolvedModuleDescriptor(ModuleRevisionId mrid)
             throws ParseException, IOException {
         File ivyFile = getResolvedIvyFileInCache(mrid);
@@ -0,0 +1,57 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  See the NOTICE file distributed with
+ *  this work for additional information regarding copyright ownership.
+ *  The ASF licenses this file to You under the Apache License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance with
+ *  the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package org.apache.ivy.core.cache;
+
+import java.io.File;
+import java.util.Properties;
+
+import org.apache.ivy.util.Message;
+import org.apache.ivy.util.PropertiesFile;
+
+/**
+ * The cached data of a module revision, loaded from and saved to a {@link CacheMetadataIndex}.
+ * <p>
+ * When the index has no data for the module revision, the properties file in which the data was
+ * stored before the index was used is loaded instead if it exists, and imported in the index. The
+ * properties file itself is left untouched.
+ * </p>
+ */
+class IndexedPropertiesFile extends PropertiesFile {
+    private CacheMetadataIndex index;
+
+    private String key;
+
+    public IndexedPropertiesFile(CacheMetadataIndex index, String key, File legacyFile,
+            String header) {
+        super(header);
+        this.index = index;
+        this.key = key;
+        Properties data = index.get(key);
+        if (data != null) {
+            putAll(data);
+        } else if (legacyFile.exists()) {
+            Message.debug("importing " + legacyFile + " in " + index.getFile());
+            putAll(new PropertiesFile(legacyFile, header));
+            save();
+        }
+    }
+
+    public void save() {
+        index.put(key, this);
+    }
+}
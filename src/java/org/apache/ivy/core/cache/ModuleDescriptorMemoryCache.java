@@ -19,9 +19,12 @@ package org.apache.ivy.core.cache;
 
 import java.io.File;
 import java.io.IOException;
+import java.lang.ref.WeakReference;
 import java.text.ParseException;
+import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
+import java.util.List;
 
 import org.apache.ivy.core.module.descriptor.ModuleDescriptor;
 import org.apache.ivy.plugins.parser.ParserSettings;
@@ -31,11 +34,72 @@ import org.apache.ivy.util.Message;
  * Cache ModuleDescriptors so that when the same module is used twice (in multi-module build for
  * instance), it is parsed only once. This cache is has a limited size, and keep the most recently
  * used entries. The entry in the cache are invalidated if there is a change to one variable used in
- * the module descriptor.
+ * the module descriptor, or if the module descriptor file is modified.
+ * <p>
+ * The size of the cache can be limited both by a number of entries and by a memory budget, each
+ * module descriptor being weighted by an estimation of its size in memory. The cache obtained with
+ * {@link #getSharedInstance(ParserSettings, File, int, long)} is shared by all the repository
+ * caches of the same settings using the same base directory, so that the Ivy instances using
+ * these settings (one per sub project in a multi module build for instance) don't parse the same
+ * module descriptors over and over. The cached module descriptors may be modified by the resolvers
+ * of the settings, thus they are never shared with other settings. The shared caches are only
+ * weakly referenced, and are dropped once neither their settings nor their repository caches are
+ * used anymore.
+ * </p>
  */
-class ModuleDescriptorMemoryCache {
+public class ModuleDescriptorMemoryCache {
 
-    private final int maxSize;
+    private static final List/* <SharedCache> */SHARED_CACHES = new ArrayList();
+
+    /**
+     * Returns the cache shared by all the repository caches of the given settings using the given
+     * base directory. If the cache already exists, its limits are raised if necessary to the given
+     * ones.
+     *
+     * @param settings
+     *            the settings of the repository cache
+     * @param basedir
+     *            the base directory of the repository cache
+     * @param size
+     *            the maximum number of entries, or a negative value for no limit. A size of 0
+     *            disables the cache, in which case an unshared disabled cache is returned.
+     * @param maxWeight
+     *            the memory budget of the cache, in bytes
+     */
+    public static ModuleDescriptorMemoryCache getSharedInstance(ParserSettings settings,
+            File basedir, int size, long maxWeight) {
+        if (size == 0) {
+            return new ModuleDescriptorMemoryCache(0);
+        }
+        File key = basedir.getAbsoluteFile();
+        synchronized (SHARED_CACHES) {
+            for (Iterator it = SHARED_CACHES.iterator(); it.hasNext();) {
+                SharedCache shared = (SharedCache) it.next();
+                ModuleDescriptorMemoryCache cache = (ModuleDescriptorMemoryCache) shared.get();
+                if (cache == null || shared.settings.get() == null) {
+                    it.remove();
+                } else if (shared.settings.get() == settings && shared.basedir.equals(key)) {
+                    cache.ensureCapacity(size, maxWeight);
+                    return cache;
+                }
+            }
+            ModuleDescriptorMemoryCache cache = new ModuleDescriptorMemoryCache(size, maxWeight);
+            SHARED_CACHES.add(new SharedCache(cache, settings, key));
+            return cache;
+        }
+    }
+
+    private int maxSize;
+
+    private long maxWeight;
+
+    private long weight;
+
+    private long hits;
+
+    private long misses;
+
+    private long evictions;
 
     private final LinkedHashMap/* <File,CacheEntry> */valueMap;
 
@@ -45,8 +109,22 @@ class ModuleDescriptorMemoryCache {
      * @param size
      */
     public ModuleDescriptorMemoryCache(int size) {
-        this.maxSize = size;
-        this.valueMap = new LinkedHashMap(size);
+        this(size, Long.MAX_VALUE);
+    }
+
+    /**
+     * Create a cache limited to the given number of entries and memory budget
+     * 
+     * @param size
+     *            the maximum number of entries, or a negative value for no limit
+     * @param maxWeight
+     *            the memory budget of the cache, in bytes
+     */
+    public ModuleDescriptorMemoryCache(int size, long maxWeight) {
+        this.maxSize = size < 0 ? Integer.MAX_VALUE : size;
+        this.maxWeight = maxWeight;
+        // access ordered, so that iteration starts with the least recently used entry
+        this.valueMap = new LinkedHashMap(16, 0.75f, true);
     }
 
     public ModuleDescriptor get(File ivyFile, ParserSettings ivySettings, boolean validated,
@@ -71,44 +149,124 @@ class ModuleDescriptorMemoryCache {
         return descriptor;
     }
 
-    ModuleDescriptor getFromCache(File ivyFile, ParserSettings ivySettings, boolean validated) {
+    synchronized ModuleDescriptor getFromCache(File ivyFile, ParserSettings ivySettings, boolean validated) {
         if (maxSize <= 0) {
             // cache is disbaled
             return null;
         }
         CacheEntry entry = (CacheEntry) valueMap.get(ivyFile);
         if (entry != null) {
-            if (entry.isStale(validated, ivySettings)) {
+            if (entry.isStale(ivyFile, validated, ivySettings)) {
                 Message.debug("Entry is found in the ModuleDescriptorCache but entry should be "
                         + "reevaluated : " + ivyFile);
-                valueMap.remove(ivyFile);
+                remove(ivyFile);
+                misses++;
                 return null;
             } else {
-                // Move the entry at the end of the list
-                valueMap.remove(ivyFile);
-                valueMap.put(ivyFile, entry);
                 Message.debug("Entry is found in the ModuleDescriptorCache : " + ivyFile);
+                hits++;
                 return entry.md;
             }
         } else {
             Message.debug("No entry is found in the ModuleDescriptorCache : " + ivyFile);
+            misses++;
             return null;
         }
     }
 
-    void putInCache(File url, ParserSettingsMonitor ivySettingsMonitor, boolean validated,
+    synchronized void putInCache(File url, ParserSettingsMonitor ivySettingsMonitor, boolean validated,
             ModuleDescriptor descriptor) {
         if (maxSize <= 0) {
             // cache is disabled
             return;
         }
-        if (valueMap.size() >= maxSize) {
+        CacheEntry entry = new CacheEntry(descriptor, validated, ivySettingsMonitor, url);
+        remove(url);
+        valueMap.put(url, entry);
+        weight += entry.weight;
+        evict();
+    }
+
+    /**
+     * Removes all the entries of the cache.
+     */
+    public synchronized void clear() {
+        valueMap.clear();
+        weight = 0;
+    }
+
+    public synchronized int getSize() {
+        return valueMap.size();
+    }
+
+    /**
+     * Returns the estimated memory used by the module descriptors in the cache, in bytes.
+     */
+    public synchronized long getWeight() {
+        return weight;
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+
+    public synchronized String toString() {
+        return "module descriptor memory cache: " + valueMap.size() + " entries, " + weight
+                + " bytes, " + hits + " hits, " + misses + " misses, " + evictions
+                + " evictions";
+    }
+
+    private synchronized void ensureCapacity(int size, long maxWeight) {
+        this.maxSize = Math.max(this.maxSize, size < 0 ? Integer.MAX_VALUE : size);
+        this.maxWeight = Math.max(this.maxWeight, maxWeight);
+    }
+
+    private void remove(File ivyFile) {
+        CacheEntry entry = (CacheEntry) valueMap.remove(ivyFile);
+        if (entry != null) {
+            weight -= entry.weight;
+        }
+    }
+
+    private void evict() {
+        Iterator it = valueMap.values().iterator();
+        // the last entry is kept even if it exceeds the memory budget on its own
+        while ((valueMap.size() > maxSize || weight > maxWeight) && valueMap.size() > 1) {
             Message.debug("ModuleDescriptorCache is full, remove one entry");
-            Iterator it = valueMap.values().iterator();
-            it.next();
+            CacheEntry entry = (CacheEntry) it.next();
             it.remove();
+            weight -= entry.weight;
+            evictions++;
+        }
+    }
+
+    /**
+     * Estimates the memory used by a parsed module descriptor, which mainly depends on the number
+     * of its dependencies, artifacts and configurations.
+     */
+    static long estimateWeight(ModuleDescriptor md) {
+        return 1024 + 512L * md.getDependencies().length + 256L * md.getAllArtifacts().length
+                + 256L * md.getConfigurations().length;
+    }
+
+    private static class SharedCache extends WeakReference {
+        private final WeakReference/* <ParserSettings> */settings;
+
+        private final File basedir;
+
+        SharedCache(ModuleDescriptorMemoryCache cache, ParserSettings settings, File basedir) {
+            super(cache);
+            this.settings = new WeakReference(settings);
+            this.basedir = basedir;
         }
-        valueMap.put(url, new CacheEntry(descriptor, validated, ivySettingsMonitor));
     }
 
     private static class CacheEntry {
@@ -118,15 +276,25 @@ class ModuleDescriptorMemoryCache {
 
         private final ParserSettingsMonitor parserSettingsMonitor;
 
+        private final long lastModified;
+
+        private final long length;
+
+        private final long weight;
+
         CacheEntry(ModuleDescriptor md, boolean validated,
-                ParserSettingsMonitor parserSettingsMonitor) {
+                ParserSettingsMonitor parserSettingsMonitor, File ivyFile) {
             this.md = md;
             this.validated = validated;
             this.parserSettingsMonitor = parserSettingsMonitor;
+            this.lastModified = ivyFile.lastModified();
+            this.length = ivyFile.length();
+            this.weight = estimateWeight(md);
         }
 
-        boolean isStale(boolean validated, ParserSettings newParserSettings) {
+        boolean isStale(File ivyFile, boolean validated, ParserSettings newParserSettings) {
             return (validated && !this.validated)
+                    || ivyFile.lastModified() != lastModified || ivyFile.length() != length
                     || parserSettingsMonitor.hasChanged(newParserSettings);
         }
     }
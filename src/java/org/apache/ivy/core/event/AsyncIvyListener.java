@@ -0,0 +1,211 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  See the NOTICE file distributed with
+ *  this work for additional information regarding copyright ownership.
+ *  The ASF licenses this file to You under the Apache License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance with
+ *  the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package org.apache.ivy.core.event;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.ivy.core.IvyContext;
+import org.apache.ivy.plugins.repository.TransferEvent;
+import org.apache.ivy.util.Message;
+
+/**
+ * An {@link IvyListener} notifying another listener in a thread of its own, so that a slow listener
+ * doesn't slow down the thread firing the events.
+ * <p>
+ * The events are queued and the listener is notified of them one at a time, in the order in which
+ * they have been fired. The queue is bounded: when it is full, the thread firing an event waits
+ * until the listener has caught up, so that no event is lost. The thread notifying the listener is
+ * a daemon thread, which stops once the queue has been empty for a while, and is started again with
+ * the next event. It stops for good once the listener has been closed.
+ * </p>
+ * <p>
+ * The listener is notified with a copy of the {@link IvyContext} which was current when the event
+ * has been fired. Exceptions thrown by the listener are logged and can't stop the operation which
+ * has fired the event, use {@link #flush()} to wait until the listener has been notified of all
+ * the events fired so far.
+ * </p>
+ * 
+ * @see EventManager#addIvyListener(IvyListener, org.apache.ivy.util.filter.Filter, boolean)
+ */
+public class AsyncIvyListener implements IvyListener {
+    private static final long IDLE_TIMEOUT = 1000;
+
+    private static int threadNumber = 0;
+
+    private final IvyListener listener;
+
+    private final BlockingQueue/* <QueuedEvent> */queue;
+
+    /**
+     * the thread notifying the listener, null when not running
+     */
+    private Thread worker;
+
+    /**
+     * the number of events fired but not notified to the listener yet
+     */
+    private int pending;
+
+    /**
+     * true once closed, the events are no more notified to the listener
+     */
+    private boolean closed;
+
+    /**
+     * @param listener
+     *            the listener to notify
+     * @param queueSize
+     *            the maximum number of events waiting for the listener to be notified
+     */
+    public AsyncIvyListener(IvyListener listener, int queueSize) {
+        this.listener = listener;
+        this.queue = new ArrayBlockingQueue(queueSize);
+    }
+
+    public IvyListener getIvyListener() {
+        return listener;
+    }
+
+    public void progress(IvyEvent event) {
+        if (event instanceof TransferEvent) {
+            event = ((TransferEvent) event).copy();
+        }
+        QueuedEvent queued = new QueuedEvent(event, new IvyContext(IvyContext.getContext()));
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            pending++;
+            if (worker == null) {
+                worker = new Thread(new Runnable() {
+                    public void run() {
+                        notifyListener();
+                    }
+                }, "ivy-async-listener-" + nextThreadNumber());
+                worker.setDaemon(true);
+                worker.start();
+            }
+        }
+        try {
+            queue.put(queued);
+        } catch (InterruptedException e) {
+            eventDone();
+            Thread.currentThread().interrupt();
+            Message.warn("interrupted while queuing " + event + " for " + listener);
+        }
+    }
+
+    private static synchronized int nextThreadNumber() {
+        return ++threadNumber;
+    }
+
+    private void notifyListener() {
+        while (true) {
+            QueuedEvent queued;
+            try {
+                queued = (QueuedEvent) queue.poll(IDLE_TIMEOUT, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                queued = null;
+            }
+            if (queued == null) {
+                synchronized (this) {
+                    if (pending == 0) {
+                        worker = null;
+                        return;
+                    }
+                }
+                continue;
+            }
+            synchronized (this) {
+                if (closed) {
+                    eventDone();
+                    continue;
+                }
+            }
+            IvyContext.pushContext(queued.context);
+            try {
+                listener.progress(queued.event);
+            } catch (RuntimeException e) {
+                Message.warn("problem while notifying " + listener + " of " + queued.event, e);
+            } finally {
+                IvyContext.popContext();
+                eventDone();
+            }
+        }
+    }
+
+    private synchronized void eventDone() {
+        pending--;
+        if (pending == 0) {
+            notifyAll();
+        }
+    }
+
+    /**
+     * Waits until the listener has been notified of all the events fired so far. Returns
+     * immediately if called while notifying the listener.
+     * 
+     * @throws InterruptedException
+     *             if the current thread is interrupted while waiting
+     */
+    public synchronized void flush() throws InterruptedException {
+        if (Thread.currentThread() == worker) {
+            return;
+        }
+        while (pending > 0) {
+            wait();
+        }
+    }
+
+    /**
+     * Waits until the listener has been notified of all the events fired so far, and stops
+     * notifying it: the events fired from now on, and the events still queued if called while
+     * notifying the listener, are dropped.
+     */
+    public void close() {
+        try {
+            flush();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            Message.verbose("interrupted while waiting for " + listener);
+        }
+        synchronized (this) {
+            closed = true;
+            if (worker != null && worker != Thread.currentThread()) {
+                worker.interrupt();
+            }
+        }
+    }
+
+    public String toString() {
+        return "async " + listener;
+    }
+
+    private static class QueuedEvent {
+        private final IvyEvent event;
+
+        private final IvyContext context;
+
+        QueuedEvent(IvyEvent event, IvyContext context) {
+            this.event = event;
+            this.context = context;
+        }
+    }
+}
@@ -18,19 +18,37 @@
 package org.apache.ivy.core.event;
 
 import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import javax.swing.event.EventListenerList;
 
 import org.apache.ivy.plugins.repository.TransferEvent;
 import org.apache.ivy.plugins.repository.TransferListener;
 import org.apache.ivy.util.filter.Filter;
+import org.apache.ivy.util.filter.NoFilter;
 
 public class EventManager implements TransferListener {
 
+    /**
+     * default maximum number of events waiting for an asynchronous listener to be notified
+     */
+    public static final int DEFAULT_ASYNC_QUEUE_SIZE = 1000;
+
     private EventListenerList listeners = new EventListenerList();
 
+    /**
+     * whether some registered IvyListener may be notified of the events, by event name. Replaced
+     * by an empty map whenever an IvyListener is added or removed, so that a value computed from
+     * the former listeners can't be put in the new map.
+     */
+    private volatile Map/* <String, Boolean> */listenedEvents = new ConcurrentHashMap();
+
+    private int asyncQueueSize = DEFAULT_ASYNC_QUEUE_SIZE;
+
     public void addIvyListener(IvyListener listener) {
         listeners.add(IvyListener.class, listener);
+        listenedEvents = new ConcurrentHashMap();
     }
 
     public void addIvyListener(IvyListener listener, String eventName) {
@@ -39,24 +57,122 @@ public class EventManager implements TransferListener {
 
     public void addIvyListener(IvyListener listener, Filter filter) {
         listeners.add(IvyListener.class, new FilteredIvyListener(listener, filter));
+        listenedEvents = new ConcurrentHashMap();
+    }
+
+    /**
+     * Adds a listener notified of the events accepted by the given filter, either in the thread
+     * firing the events or, if <code>async</code> is true, in a thread of its own, as an
+     * {@link AsyncIvyListener}. The events are filtered in the thread firing them in both cases.
+     * 
+     * @param listener
+     *            the listener to add
+     * @param filter
+     *            the filter of the events to notify, null to notify all the events
+     * @param async
+     *            true to notify the listener asynchronously
+     */
+    public void addIvyListener(IvyListener listener, Filter filter, boolean async) {
+        if (async) {
+            listener = new AsyncIvyListener(listener, asyncQueueSize);
+        }
+        addIvyListener(listener, filter == null ? NoFilter.INSTANCE : filter);
     }
 
     public void removeIvyListener(IvyListener listener) {
         listeners.remove(IvyListener.class, listener);
+        if (listener instanceof AsyncIvyListener) {
+            // no event is notified once removed
+            ((AsyncIvyListener) listener).close();
+        }
         IvyListener[] listeners = this.listeners.getListeners(IvyListener.class);
         for (int i = 0; i < listeners.length; i++) {
             if (listeners[i] instanceof FilteredIvyListener) {
-                if (listener.equals(((FilteredIvyListener) listeners[i]).getIvyListener())) {
+                IvyListener registered = ((FilteredIvyListener) listeners[i]).getIvyListener();
+                if (registered instanceof AsyncIvyListener
+                        && listener.equals(((AsyncIvyListener) registered).getIvyListener())) {
+                    this.listeners.remove(IvyListener.class, listeners[i]);
+                    ((AsyncIvyListener) registered).close();
+                } else if (listener.equals(registered)) {
                     this.listeners.remove(IvyListener.class, listeners[i]);
                 }
             }
         }
+        listenedEvents = new ConcurrentHashMap();
     }
 
     public boolean hasIvyListener(IvyListener listener) {
         return Arrays.asList(listeners.getListeners(IvyListener.class)).contains(listener);
     }
 
+    /**
+     * Indicates if some registered IvyListener may be notified of the events with the given name.
+     * When this returns false, firing such an event has no effect, so callers building events
+     * only to fire them can save building them.
+     * 
+     * @param eventName
+     *            the name of the events to check
+     * @return false if no listener can be notified of events with this name, true otherwise
+     */
+    public boolean isIvyEventListened(String eventName) {
+        if (eventName == null) {
+            return true;
+        }
+        Map listenedEvents = this.listenedEvents;
+        Boolean listened = (Boolean) listenedEvents.get(eventName);
+        if (listened == null) {
+            listened = Boolean.valueOf(hasIvyListenerFor(eventName));
+            listenedEvents.put(eventName, listened);
+        }
+        return listened.booleanValue();
+    }
+
+    private boolean hasIvyListenerFor(String eventName) {
+        IvyListener[] listeners = this.listeners.getListeners(IvyListener.class);
+        for (int i = 0; i < listeners.length; i++) {
+            if (!(listeners[i] instanceof FilteredIvyListener)) {
+                return true;
+            }
+            Filter filter = ((FilteredIvyListener) listeners[i]).getFilter();
+            if (!(filter instanceof IvyEventFilter)
+                    || ((IvyEventFilter) filter).acceptsEventName(eventName)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Waits until the asynchronous listeners have been notified of all the events fired so far.
+     * 
+     * @throws InterruptedException
+     *             if the current thread is interrupted while waiting
+     */
+    public void flushAsyncListeners() throws InterruptedException {
+        IvyListener[] listeners = this.listeners.getListeners(IvyListener.class);
+        for (int i = 0; i < listeners.length; i++) {
+            IvyListener listener = listeners[i];
+            if (listener instanceof FilteredIvyListener) {
+                listener = ((FilteredIvyListener) listener).getIvyListener();
+            }
+            if (listener instanceof AsyncIvyListener) {
+                ((AsyncIvyListener) listener).flush();
+            }
+        }
+    }
+
+    public int getAsyncQueueSize() {
+        return asyncQueueSize;
+    }
+
+    /**
+     * Sets the maximum number of events waiting for an asynchronous listener to be notified, for
+     * the asynchronous listeners added from now on.
+     */
+    public void setAsyncQueueSize(int asyncQueueSize) {
+        this.asyncQueueSize = asyncQueueSize;
+    }
+
     public void fireIvyEvent(IvyEvent evt) {
         Object[] listeners = this.listeners.getListenerList();
         for (int i = listeners.length - 2; i >= 0; i -= 2) {
@@ -89,7 +205,9 @@ public class EventManager implements TransferListener {
 
     public void transferProgress(TransferEvent evt) {
         fireTransferEvent(evt);
-        fireIvyEvent(evt);
+        if (isIvyEventListened(evt.getName())) {
+            fireIvyEvent(evt);
+        }
     }
 
 }
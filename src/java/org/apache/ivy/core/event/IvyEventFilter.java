@@ -77,6 +77,8 @@ public class IvyEventFilter implements Filter {
 
     private Filter nameFilter;
 
+    private Matcher eventNameMatcher;
+
     private Filter attFilter;
 
     public IvyEventFilter(String event, String filterExpression, PatternMatcher matcher) {
@@ -84,7 +86,7 @@ public class IvyEventFilter implements Filter {
         if (event == null) {
             nameFilter = NoFilter.INSTANCE;
         } else {
-            final Matcher eventNameMatcher = this.matcher.getMatcher(event);
+            eventNameMatcher = this.matcher.getMatcher(event);
             nameFilter = new Filter() {
                 public boolean accept(Object o) {
                     IvyEvent e = (IvyEvent) o;
@@ -149,6 +151,18 @@ public class IvyEventFilter implements Filter {
         }
     }
 
+    /**
+     * Indicates if events with the given name may be accepted by this filter, i.e. if this filter
+     * accepts the name whatever the attributes of the events.
+     * 
+     * @param eventName
+     *            the name of the events to check
+     * @return false if no event with this name can be accepted by this filter, true otherwise
+     */
+    public boolean acceptsEventName(String eventName) {
+        return eventNameMatcher == null || eventNameMatcher.matches(eventName);
+    }
+
     public boolean accept(Object o) {
         if (!(o instanceof IvyEvent)) {
             return false;
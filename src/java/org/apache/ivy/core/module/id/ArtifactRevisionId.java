@@ -20,6 +20,7 @@ package org.apache.ivy.core.module.id;
 import java.util.Map;
 
 import org.apache.ivy.core.IvyPatternHelper;
+import org.apache.ivy.util.WeakInterner;
 import org.apache.ivy.util.extendable.UnmodifiableExtendableItem;
 
 /**
@@ -28,6 +29,8 @@ import org.apache.ivy.util.extendable.UnmodifiableExtendableItem;
  * @see <a href="package-summary.html">org.apache.ivy.core.module.id</a>
  */
 public class ArtifactRevisionId extends UnmodifiableExtendableItem {
+    private static final WeakInterner CACHE = new WeakInterner();
+
     public static ArtifactRevisionId newInstance(ModuleRevisionId mrid, String name, String type,
             String ext) {
         return newInstance(mrid, name, type, ext, null);
@@ -35,14 +38,31 @@ public class ArtifactRevisionId extends UnmodifiableExtendableItem {
 
     public static ArtifactRevisionId newInstance(ModuleRevisionId mrid, String name, String type,
             String ext, Map extraAttributes) {
-        return new ArtifactRevisionId(new ArtifactId(mrid.getModuleId(), name, type, ext), mrid,
-                extraAttributes);
+        return intern(new ArtifactRevisionId(new ArtifactId(mrid.getModuleId(), name, type, ext),
+                mrid, extraAttributes));
+    }
+
+    /**
+     * Returns an intern instance of the given ArtifactRevisionId if any, or put the given
+     * ArtifactRevisionId in a cache of intern instances and returns it.
+     * <p>
+     * When using static newInstances methods, this method is already called.
+     * </p>
+     * 
+     * @param artifactRevisionId
+     *            the artifact revision id to intern
+     * @return an interned ArtifactRevisionId
+     */
+    public static ArtifactRevisionId intern(ArtifactRevisionId artifactRevisionId) {
+        return (ArtifactRevisionId) CACHE.intern(artifactRevisionId);
     }
 
     private ArtifactId artifactId;
 
     private ModuleRevisionId mrid;
 
+    private int hash;
+
     public ArtifactRevisionId(ArtifactId artifactId, ModuleRevisionId mrid) {
         this(artifactId, mrid, null);
     }
@@ -72,14 +92,16 @@ public class ArtifactRevisionId extends UnmodifiableExtendableItem {
     }
 
     public int hashCode() {
-        // WARN: uniqueness needs to be relatively strong here
-        // CheckStyle:MagicNumber| OFF
-        int hash = 17;
-        hash += getArtifactId().hashCode() * 37;
-        hash += getModuleRevisionId().hashCode() * 37;
-        hash += getQualifiedExtraAttributes().hashCode() * 37;
-        // CheckStyle:MagicNumber| ON
-
+        if (hash == 0) {
+            // WARN: uniqueness needs to be relatively strong here
+            // CheckStyle:MagicNumber| OFF
+            int h = 17;
+            h += getArtifactId().hashCode() * 37;
+            h += getModuleRevisionId().hashCode() * 37;
+            h += getQualifiedExtraAttributes().hashCode() * 37;
+            // CheckStyle:MagicNumber| ON
+            hash = h;
+        }
         return hash;
     }
 
@@ -17,14 +17,13 @@
  */
 package org.apache.ivy.core.module.id;
 
-import java.lang.ref.WeakReference;
 import java.util.HashMap;
 import java.util.Map;
-import java.util.WeakHashMap;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 import org.apache.ivy.core.IvyPatternHelper;
+import org.apache.ivy.util.WeakInterner;
 
 /**
  * Identifies a module, without revision information
@@ -34,7 +33,7 @@ import org.apache.ivy.core.IvyPatternHelper;
 public class ModuleId implements Comparable {
     static final String ENCODE_SEPARATOR = ":#@#:";
 
-    private static final Map/* <ModuleId, WeakReference<ModuleId>> */CACHE = new WeakHashMap();
+    private static final WeakInterner CACHE = new WeakInterner();
 
     /**
      * Returns a ModuleId for the given organization and module name.
@@ -62,20 +61,7 @@ public class ModuleId implements Comparable {
      * @return a unit instance of the given module id.
      */
     public static ModuleId intern(ModuleId moduleId) {
-        ModuleId r = null;
-
-        synchronized (CACHE) {
-            WeakReference ref = (WeakReference) CACHE.get(moduleId);
-            if (ref != null) {
-                r = (ModuleId) ref.get();
-            }
-            if (r == null) {
-                r = moduleId;
-                CACHE.put(r, new WeakReference(r));
-            }
-        }
-
-        return r;
+        return (ModuleId) CACHE.intern(moduleId);
     }
 
     private String organisation;
@@ -139,10 +125,12 @@ public class ModuleId implements Comparable {
     public int hashCode() {
         if (hash == 0) {
             // CheckStyle:MagicNumber| OFF
-            hash = 31;
-            hash = hash * 13 + (organisation == null ? 0 : organisation.hashCode());
-            hash = hash * 13 + name.hashCode();
+            int h = 31;
+            h = h * 13 + (organisation == null ? 0 : organisation.hashCode());
+            h = h * 13 + name.hashCode();
             // CheckStyle:MagicNumber| ON
+            // assigned once, as the hash may be read concurrently
+            hash = h;
         }
         return hash;
     }
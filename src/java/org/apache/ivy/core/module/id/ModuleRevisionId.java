@@ -17,17 +17,16 @@
  */
 package org.apache.ivy.core.module.id;
 
-import java.lang.ref.WeakReference;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.Map;
-import java.util.WeakHashMap;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 import org.apache.ivy.Ivy;
 import org.apache.ivy.core.IvyContext;
 import org.apache.ivy.core.IvyPatternHelper;
+import org.apache.ivy.util.WeakInterner;
 import org.apache.ivy.util.extendable.UnmodifiableExtendableItem;
 
 /**
@@ -46,7 +45,7 @@ public class ModuleRevisionId extends UnmodifiableExtendableItem {
 
     private static final String REV_STRICT_CHARS_PATTERN = "[a-zA-Z0-9\\-/\\._+=,\\[\\]\\{\\}\\(\\):@]";
 
-    private static final Map/* <ModuleRevisionId, ModuleRevisionId> */CACHE = new WeakHashMap();
+    private static final WeakInterner CACHE = new WeakInterner();
 
     /**
      * Pattern to use to matched mrid text representation.
@@ -146,20 +145,7 @@ public class ModuleRevisionId extends UnmodifiableExtendableItem {
      * @return an interned ModuleRevisionId
      */
     public static ModuleRevisionId intern(ModuleRevisionId moduleRevisionId) {
-        ModuleRevisionId r = null;
-
-        synchronized (CACHE) {
-            WeakReference ref = (WeakReference) CACHE.get(moduleRevisionId);
-            if (ref != null) {
-                r = (ModuleRevisionId) ref.get();
-            }
-            if (r == null) {
-                r = moduleRevisionId;
-                CACHE.put(r, new WeakReference(r));
-            }
-        }
-
-        return r;
+        return (ModuleRevisionId) CACHE.intern(moduleRevisionId);
     }
 
     private final ModuleId moduleId;
@@ -243,12 +229,13 @@ public class ModuleRevisionId extends UnmodifiableExtendableItem {
     public int hashCode() {
         if (hash == 0) {
             // CheckStyle:MagicNumber| OFF
-            hash = 31;
-            hash = hash * 13 + (getBranch() == null ? 0 : getBranch().hashCode());
-            hash = hash * 13 + getRevision().hashCode();
-            hash = hash * 13 + getModuleId().hashCode();
-            hash = hash * 13 + getQualifiedExtraAttributes().hashCode();
+            int h = 31;
+            h = h * 13 + (getBranch() == null ? 0 : getBranch().hashCode());
+            h = h * 13 + getRevision().hashCode();
+            h = h * 13 + getModuleId().hashCode();
+            h = h * 13 + getQualifiedExtraAttributes().hashCode();
             // CheckStyle:MagicNumber| ON
+            hash = h;
         }
         return hash;
     }
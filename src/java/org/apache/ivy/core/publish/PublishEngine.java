@@ -273,8 +273,10 @@ public class PublishEngine {
             throws IOException {
         IvyContext.getContext().checkInterrupted();
         // notify triggers that an artifact is about to be published
-        eventManager
-                .fireIvyEvent(new StartArtifactPublishEvent(resolver, artifact, src, overwrite));
+        if (eventManager.isIvyEventListened(StartArtifactPublishEvent.NAME)) {
+            eventManager.fireIvyEvent(new StartArtifactPublishEvent(resolver, artifact, src,
+                    overwrite));
+        }
         boolean successful = false; // set to true once the publish succeeds
         try {
             if (src.exists()) {
@@ -283,8 +285,10 @@ public class PublishEngine {
             }
         } finally {
             // notify triggers that the publish is finished, successfully or not.
-            eventManager.fireIvyEvent(new EndArtifactPublishEvent(resolver, artifact, src,
-                    overwrite, successful));
+            if (eventManager.isIvyEventListened(EndArtifactPublishEvent.NAME)) {
+                eventManager.fireIvyEvent(new EndArtifactPublishEvent(resolver, artifact, src,
+                        overwrite, successful));
+            }
         }
     }
 }
@@ -93,7 +93,7 @@ public class ConfigurationResolveReport {
         if (previousReportFile.exists()) {
             try {
                 XmlReportParser parser = new XmlReportParser();
-                parser.parse(previousReportFile);
+                parser.parse(cache, resolveId, conf);
                 List<ModuleRevisionId> previousDeps = Arrays.asList(parser
                         .getDependencyRevisionIds());
                 HashSet<ModuleRevisionId> previousDepSet = new HashSet<ModuleRevisionId>(
@@ -158,6 +158,15 @@ public class ConfigurationResolveReport {
         dependencyReports.put(node, adrs);
     }
 
+    /**
+     * Adds a dependency restored from a resolve snapshot, with the reports of its artifacts in this
+     * configuration.
+     */
+    public void restoreDependency(IvyNode node, List/* <ArtifactDownloadReport> */adrs) {
+        dependencies.put(node.getId(), node);
+        dependencyReports.put(node, adrs);
+    }
+
     public String getConfiguration() {
         return conf;
     }
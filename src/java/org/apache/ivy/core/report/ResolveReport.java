@@ -39,6 +39,7 @@ import org.apache.ivy.core.module.descriptor.ModuleDescriptor;
 import org.apache.ivy.core.module.id.ModuleId;
 import org.apache.ivy.core.module.id.ModuleRevisionId;
 import org.apache.ivy.core.resolve.IvyNode;
+import org.apache.ivy.core.resolve.ResolveMetrics;
 import org.apache.ivy.core.resolve.ResolveOptions;
 import org.apache.ivy.core.settings.IvySettings;
 import org.apache.ivy.plugins.report.ReportOutputter;
@@ -70,6 +71,8 @@ public class ResolveReport {
 
     private long downloadSize;
 
+    private ResolveMetrics metrics;
+
     public ResolveReport(ModuleDescriptor md) {
         this(md, ResolveOptions.getDefaultResolveId(md));
     }
@@ -251,6 +254,15 @@ public class ResolveReport {
         }
     }
 
+    /**
+     * Sets the dependencies and artifacts of a report restored from a resolve snapshot, whose
+     * dependencies are not able to compute their artifacts themselves.
+     */
+    public void restoreDependencies(List dependencies, List artifacts) {
+        this.dependencies = dependencies;
+        this.artifacts = artifacts;
+    }
+
     /**
      * Returns the list of all dependencies concerned by this report as a List of IvyNode ordered
      * from the more dependent to the least one
@@ -305,6 +317,18 @@ public class ResolveReport {
         return downloadTime;
     }
 
+    public void setMetrics(ResolveMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    /**
+     * Returns the metrics recorded while resolving, or <code>null</code> if this report hasn't been
+     * produced by a resolve.
+     */
+    public ResolveMetrics getMetrics() {
+        return metrics;
+    }
+
     public void setDownloadSize(long size) {
         this.downloadSize = size;
     }
@@ -0,0 +1,59 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  See the NOTICE file distributed with
+ *  this work for additional information regarding copyright ownership.
+ *  The ASF licenses this file to You under the Apache License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance with
+ *  the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package org.apache.ivy.core.resolve;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Gives small integer ids to the configuration names used during a resolve, so that sets of
+ * configurations can be stored as {@link ConfigurationSet}s. Ids are given in the order in which
+ * the names are first used, starting at 0.
+ */
+final class ConfigurationIds {
+    private final Map/* <String, Integer> */ids = new HashMap();
+
+    private final List/* <String> */names = new ArrayList();
+
+    /**
+     * Returns the id of the given configuration name, giving it a new id if it hasn't one yet.
+     */
+    synchronized int getId(String conf) {
+        Integer id = (Integer) ids.get(conf);
+        if (id == null) {
+            id = new Integer(names.size());
+            ids.put(conf, id);
+            names.add(conf);
+        }
+        return id.intValue();
+    }
+
+    /**
+     * Returns the id of the given configuration name, or -1 if it hasn't been given an id.
+     */
+    synchronized int findId(String conf) {
+        Integer id = (Integer) ids.get(conf);
+        return id == null ? -1 : id.intValue();
+    }
+
+    synchronized String getName(int id) {
+        return (String) names.get(id);
+    }
+}
@@ -0,0 +1,167 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  See the NOTICE file distributed with
+ *  this work for additional information regarding copyright ownership.
+ *  The ASF licenses this file to You under the Apache License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance with
+ *  the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package org.apache.ivy.core.resolve;
+
+import java.util.AbstractSet;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.ConcurrentModificationException;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * A set of configuration names stored as a bit set of their {@link ConfigurationIds}, much smaller
+ * than a hash set of the names. The names are iterated in the order of their ids.
+ */
+final class ConfigurationSet extends AbstractSet {
+    private final ConfigurationIds ids;
+
+    private final BitSet bits = new BitSet();
+
+    ConfigurationSet(ConfigurationIds ids) {
+        this.ids = ids;
+    }
+
+    ConfigurationSet(ConfigurationIds ids, Collection/* <String> */confs) {
+        this.ids = ids;
+        addAll(confs);
+    }
+
+    /**
+     * Returns a new set of configuration names, a {@link ConfigurationSet} if ids are given, a
+     * {@link HashSet} otherwise.
+     */
+    static Set/* <String> */newSet(ConfigurationIds ids) {
+        return ids == null ? (Set) new HashSet() : new ConfigurationSet(ids);
+    }
+
+    static Set/* <String> */newSet(ConfigurationIds ids, Collection/* <String> */confs) {
+        return ids == null ? (Set) new HashSet(confs) : new ConfigurationSet(ids, confs);
+    }
+
+    ConfigurationSet copy() {
+        ConfigurationSet copy = new ConfigurationSet(ids);
+        copy.bits.or(bits);
+        return copy;
+    }
+
+    public int size() {
+        return bits.cardinality();
+    }
+
+    public boolean isEmpty() {
+        return bits.isEmpty();
+    }
+
+    public boolean contains(Object o) {
+        int id = findId(o);
+        return id >= 0 && bits.get(id);
+    }
+
+    public boolean add(Object o) {
+        int id = ids.getId((String) o);
+        if (bits.get(id)) {
+            return false;
+        }
+        bits.set(id);
+        return true;
+    }
+
+    public boolean remove(Object o) {
+        int id = findId(o);
+        if (id < 0 || !bits.get(id)) {
+            return false;
+        }
+        bits.clear(id);
+        return true;
+    }
+
+    public boolean addAll(Collection c) {
+        if (isCompatible(c)) {
+            int size = size();
+            bits.or(((ConfigurationSet) c).bits);
+            return size != size();
+        }
+        return super.addAll(c);
+    }
+
+    public boolean removeAll(Collection c) {
+        if (isCompatible(c)) {
+            int size = size();
+            bits.andNot(((ConfigurationSet) c).bits);
+            return size != size();
+        }
+        boolean modified = false;
+        for (Iterator it = c.iterator(); it.hasNext();) {
+            modified |= remove(it.next());
+        }
+        return modified;
+    }
+
+    public void clear() {
+        bits.clear();
+    }
+
+    public Iterator iterator() {
+        return new Iterator() {
+            private int next = bits.nextSetBit(0);
+
+            private int last = -1;
+
+            private int expectedSize = size();
+
+            public boolean hasNext() {
+                return next >= 0;
+            }
+
+            public Object next() {
+                if (next < 0) {
+                    throw new NoSuchElementException();
+                }
+                if (expectedSize != size()) {
+                    throw new ConcurrentModificationException();
+                }
+                last = next;
+                next = bits.nextSetBit(next + 1);
+                return ids.getName(last);
+            }
+
+            public void remove() {
+                if (last < 0) {
+                    throw new IllegalStateException();
+                }
+                bits.clear(last);
+                last = -1;
+                expectedSize--;
+            }
+        };
+    }
+
+    private boolean isCompatible(Collection c) {
+        return c instanceof ConfigurationSet && ((ConfigurationSet) c).ids == ids;
+    }
+
+    private int findId(Object o) {
+        if (o != null && !(o instanceof String)) {
+            return -1;
+        }
+        return ids.findId((String) o);
+    }
+}
@@ -0,0 +1,252 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  See the NOTICE file distributed with
+ *  this work for additional information regarding copyright ownership.
+ *  The ASF licenses this file to You under the Apache License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance with
+ *  the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package org.apache.ivy.core.resolve;
+
+import java.text.ParseException;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.apache.ivy.core.IvyContext;
+import org.apache.ivy.core.module.descriptor.DependencyDescriptor;
+import org.apache.ivy.core.module.id.ModuleId;
+import org.apache.ivy.core.module.id.ModuleRevisionId;
+import org.apache.ivy.plugins.resolver.ChainResolver;
+import org.apache.ivy.plugins.resolver.DependencyResolver;
+import org.apache.ivy.plugins.resolver.DualResolver;
+import org.apache.ivy.plugins.resolver.FileSystemResolver;
+import org.apache.ivy.plugins.resolver.IBiblioResolver;
+import org.apache.ivy.plugins.resolver.URLResolver;
+import org.apache.ivy.plugins.resolver.util.HasLatestStrategy;
+import org.apache.ivy.util.DaemonThreadFactory;
+import org.apache.ivy.util.Message;
+
+/**
+ * Fetches the module descriptors of the dependencies of a visited node concurrently, ahead of the
+ * regular depth first visit of the dependency graph done by the {@link ResolveEngine}.
+ * <p>
+ * The prefetch only warms the repository cache: each dependency is asked to its resolver with data
+ * sharing the resolver cache and the metrics of the resolve, and the result is dropped. The graph
+ * visit itself, including conflict resolution and eviction, still happens on the resolve thread in
+ * the usual order, and finds the descriptors in the cache instead of waiting on the network. Thus
+ * a parallel resolve produces exactly the same report as a serial one. Only the dependencies
+ * resolved by resolvers known to support concurrent lookups are prefetched, and a dependency whose
+ * prefetch has failed is not asked again by the resolve thread.
+ * </p>
+ * <p>
+ * At most one prefetch is done per requested revision during a resolve. The prefetches of the
+ * revisions of a module are done one after the other, and the resolve thread waits for the pending
+ * prefetches of a module before asking its resolver itself, so that the same module is never
+ * downloaded by two threads at the same time.
+ * </p>
+ */
+class DescriptorPrefetcher {
+    /**
+     * the failure recorded for a dependency which has not been found
+     */
+    private static final Object NOT_FOUND = new Object();
+
+    private ResolveEngine engine;
+
+    private ResolveData data;
+
+    private ExecutorService executor;
+
+    private Map/* <ModuleRevisionId, Future> */prefetched = new HashMap();
+
+    /**
+     * the last prefetch scheduled for each module
+     */
+    private Map/* <ModuleId, Future> */lastPrefetches = new HashMap();
+
+    /**
+     * the failed prefetches: the exception thrown by the resolver, or NOT_FOUND
+     */
+    private Map/* <ModuleRevisionId, Object> */failures = Collections
+            .synchronizedMap(new HashMap());
+
+    public DescriptorPrefetcher(ResolveEngine engine, ResolveData data, int threads) {
+        this.engine = engine;
+        this.data = data;
+        this.executor = Executors.newFixedThreadPool(threads, new DaemonThreadFactory("resolve"));
+    }
+
+    /**
+     * Schedules the fetch of the module descriptors of the given dependencies which have not been
+     * loaded yet.
+     *
+     * @param dependencies
+     *            the dependencies to prefetch, as a Collection of {@link VisitNode}
+     */
+    public void prefetch(Collection/* <VisitNode> */dependencies) {
+        for (Iterator iter = dependencies.iterator(); iter.hasNext();) {
+            VisitNode dep = (VisitNode) iter.next();
+            IvyNode node = dep.getNode();
+            if (node.isLoaded() || node.hasProblem()) {
+                continue;
+            }
+            DependencyDescriptor dd = dep.getDependencyDescriptor();
+            if (dd == null) {
+                continue;
+            }
+            ModuleRevisionId mrid = dd.getDependencyRevisionId();
+            if (prefetched.containsKey(mrid)) {
+                continue;
+            }
+            DependencyResolver resolver = engine.getSettings().getResolver(node.getId());
+            if (resolver == null || !isThreadSafe(resolver)) {
+                continue;
+            }
+            ModuleId mid = mrid.getModuleId();
+            Future prefetch = executor.submit(new PrefetchTask(resolver, dd,
+                    (Future) lastPrefetches.get(mid), new IvyContext(IvyContext.getContext())));
+            prefetched.put(mrid, prefetch);
+            lastPrefetches.put(mid, prefetch);
+        }
+    }
+
+    /**
+     * Asks the given resolver for the given dependency, once the prefetches of its module are
+     * done. If the prefetch of the dependency has failed, the resolver is not asked again and the
+     * failure is reported instead: null if the dependency has not been found, the exception thrown
+     * by the resolver otherwise.
+     */
+    public ResolvedModuleRevision getDependency(DependencyResolver resolver,
+            DependencyDescriptor dd, ResolveData data) throws ParseException {
+        ModuleRevisionId mrid = dd.getDependencyRevisionId();
+        await((Future) lastPrefetches.get(mrid.getModuleId()), mrid.getModuleId());
+        Object failure = failures.get(mrid);
+        if (failure == null) {
+            return resolver.getDependency(dd, data);
+        }
+        Message.debug("\tprefetch of " + mrid + " failed: not asked again to " + resolver);
+        if (failure == NOT_FOUND) {
+            return null;
+        } else if (failure instanceof ParseException) {
+            throw (ParseException) failure;
+        } else {
+            throw (RuntimeException) failure;
+        }
+    }
+
+    /**
+     * Tells whether the given resolver is known to support concurrent lookups: the file system,
+     * url and ibiblio resolvers, and the chain and dual resolvers made of them only, provided the
+     * chains don't have to replace the latest strategy of their resolvers.
+     */
+    static boolean isThreadSafe(DependencyResolver resolver) {
+        if (resolver.getClass() == ChainResolver.class) {
+            for (Iterator iter = ((ChainResolver) resolver).getResolvers().iterator(); iter
+                    .hasNext();) {
+                DependencyResolver r = (DependencyResolver) iter.next();
+                if (!isThreadSafe(r) || (r instanceof HasLatestStrategy
+                        && !"default".equals(((HasLatestStrategy) r).getLatest()))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        if (resolver.getClass() == DualResolver.class) {
+            DualResolver dual = (DualResolver) resolver;
+            return isThreadSafe(dual.getIvyResolver())
+                    && isThreadSafe(dual.getArtifactResolver());
+        }
+        return resolver.getClass() == FileSystemResolver.class
+                || resolver.getClass() == URLResolver.class
+                || resolver.getClass() == IBiblioResolver.class;
+    }
+
+    private static void await(Future f, Object id) {
+        if (f == null || f.isDone()) {
+            return;
+        }
+        try {
+            f.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            Message.debug("prefetch of " + id + " failed: " + e.getCause());
+        }
+    }
+
+    /**
+     * Stops all pending prefetch and releases the threads used.
+     */
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private class PrefetchTask implements Runnable {
+        private DependencyResolver resolver;
+
+        private DependencyDescriptor dd;
+
+        /**
+         * the prefetch of another revision of the same module scheduled before, null if none
+         */
+        private Future previous;
+
+        private IvyContext context;
+
+        public PrefetchTask(DependencyResolver resolver, DependencyDescriptor dd, Future previous,
+                IvyContext context) {
+            this.resolver = resolver;
+            this.dd = dd;
+            this.previous = previous;
+            this.context = context;
+        }
+
+        public void run() {
+            // the previous prefetch has been submitted first to the same pool, thus it is already
+            // running or done
+            await(previous, dd.getDependencyRevisionId().getModuleId());
+            IvyContext.pushContext(context);
+            ModuleRevisionId mrid = dd.getDependencyRevisionId();
+            try {
+                ResolveData lookupData = data.newLookupData();
+                context.setResolveData(lookupData);
+                Message.debug("prefetching " + mrid + " using " + resolver);
+                ResolvedModuleRevision module = resolver.getDependency(dd, lookupData);
+                if (module == null) {
+                    failures.put(mrid, NOT_FOUND);
+                } else {
+                    // as done by IvyNode, so that the module found in cache by the resolve thread
+                    // has the same resolvers as the one found in the repository
+                    module.getResolver()
+                            .getRepositoryCacheManager()
+                            .saveResolvers(module.getDescriptor(), module.getResolver().getName(),
+                                module.getArtifactResolver().getName());
+                }
+            } catch (ParseException e) {
+                failures.put(mrid, e);
+                Message.debug("prefetch of " + mrid + " failed: " + e);
+            } catch (RuntimeException e) {
+                failures.put(mrid, e);
+                Message.debug("prefetch of " + mrid + " failed: " + e);
+            } finally {
+                IvyContext.popContext();
+            }
+        }
+    }
+}
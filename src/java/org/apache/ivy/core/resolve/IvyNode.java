@@ -20,6 +20,7 @@ package org.apache.ivy.core.resolve;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
@@ -35,6 +36,7 @@ import java.util.regex.Pattern;
 
 import org.apache.ivy.core.IvyContext;
 import org.apache.ivy.core.LogOptions;
+import org.apache.ivy.core.event.EventManager;
 import org.apache.ivy.core.event.resolve.EndResolveDependencyEvent;
 import org.apache.ivy.core.event.resolve.StartResolveDependencyEvent;
 import org.apache.ivy.core.module.descriptor.Artifact;
@@ -95,18 +97,18 @@ public class IvyNode implements Comparable {
 
     private boolean searched = false;
 
-    private Collection confsToFetch = new HashSet();
+    private Collection confsToFetch;
 
-    private Collection fetchedConfigurations = new HashSet();
+    private Collection fetchedConfigurations;
 
-    private Collection loadedRootModuleConfs = new HashSet();
+    private Collection loadedRootModuleConfs;
 
     // //////// USAGE DATA
 
     private IvyNodeUsage usage = new IvyNodeUsage(this);
 
     // usage information merged from evicted nodes this node is "replacing"
-    private Map/* <ModuleRevisionId, IvyNodeUsage> */mergedUsages = new LinkedHashMap();
+    private Map/* <ModuleRevisionId, IvyNodeUsage> */mergedUsages = Collections.EMPTY_MAP;
 
     public IvyNode(ResolveData data, IvyNode parent, DependencyDescriptor dd) {
         id = dd.getDependencyRevisionId();
@@ -125,6 +127,9 @@ public class IvyNode implements Comparable {
     private void init(ResolveData data) {
         this.data = data;
         settings = data.getSettings();
+        confsToFetch = ConfigurationSet.newSet(data.getConfigurationIds());
+        fetchedConfigurations = ConfigurationSet.newSet(data.getConfigurationIds());
+        loadedRootModuleConfs = ConfigurationSet.newSet(data.getConfigurationIds());
         eviction = new IvyNodeEviction(this);
         callers = new IvyNodeCallers(this);
     }
@@ -164,13 +169,17 @@ public class IvyNode implements Comparable {
                     long start = System.currentTimeMillis();
                     ModuleRevisionId requestedRevisionId = dependencyDescriptor
                             .getDependencyRevisionId();
-                    data.getEventManager().fireIvyEvent(
-                        new StartResolveDependencyEvent(resolver, dependencyDescriptor,
-                                requestedRevisionId));
-                    module = resolver.getDependency(dependencyDescriptor, data);
-                    data.getEventManager().fireIvyEvent(
-                        new EndResolveDependencyEvent(resolver, dependencyDescriptor,
-                                requestedRevisionId, module, System.currentTimeMillis() - start));
+                    EventManager eventManager = data.getEventManager();
+                    if (eventManager.isIvyEventListened(StartResolveDependencyEvent.NAME)) {
+                        eventManager.fireIvyEvent(new StartResolveDependencyEvent(resolver,
+                                dependencyDescriptor, requestedRevisionId));
+                    }
+                    module = data.getDependency(resolver, dependencyDescriptor);
+                    if (eventManager.isIvyEventListened(EndResolveDependencyEvent.NAME)) {
+                        eventManager.fireIvyEvent(new EndResolveDependencyEvent(resolver,
+                                dependencyDescriptor, requestedRevisionId, module,
+                                System.currentTimeMillis() - start));
+                    }
 
                     if (module != null) {
                         module.getResolver()
@@ -741,6 +750,9 @@ public class IvyNode implements Comparable {
             IvyNodeUsage mergedUsage = (IvyNodeUsage) mergedUsages.get(node.getId());
             if (mergedUsage == null) {
                 mergedUsage = new IvyNodeUsage(node);
+                if (mergedUsages.isEmpty()) {
+                    mergedUsages = new LinkedHashMap();
+                }
                 mergedUsages.put(node.getId(), mergedUsage);
             }
             mergedUsage.updateDataFrom(node.getAllUsages(), rootModuleConf);
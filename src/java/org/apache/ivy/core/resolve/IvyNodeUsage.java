@@ -140,7 +140,8 @@ public class IvyNodeUsage {
     }
 
     protected void setRequiredConfs(IvyNode parent, String parentConf, Collection confs) {
-        requiredConfs.put(new NodeConf(parent, parentConf), new HashSet(confs));
+        requiredConfs.put(new NodeConf(parent, parentConf), ConfigurationSet.newSet(
+            getConfigurationIds(), confs));
     }
 
     /**
@@ -156,7 +157,7 @@ public class IvyNodeUsage {
     protected Set addAndGetConfigurations(String rootModuleConf) {
         Set depConfs = (Set) rootModuleConfs.get(rootModuleConf);
         if (depConfs == null) {
-            depConfs = new HashSet();
+            depConfs = ConfigurationSet.newSet(getConfigurationIds());
             rootModuleConfs.put(rootModuleConf, depConfs);
         }
         return depConfs;
@@ -198,7 +199,8 @@ public class IvyNodeUsage {
             if (toupdate != null) {
                 toupdate.addAll(set);
             } else {
-                to.put(key, new HashSet(set));
+                to.put(key, set instanceof ConfigurationSet ? ((ConfigurationSet) set).copy()
+                        : new HashSet(set));
             }
         }
     }
@@ -300,6 +302,10 @@ public class IvyNodeUsage {
         return node;
     }
 
+    private ConfigurationIds getConfigurationIds() {
+        return node.getData().getConfigurationIds();
+    }
+
     /**
      * Indicates if at least one depender has a transitive dependency descriptor for the given root
      * module conf.
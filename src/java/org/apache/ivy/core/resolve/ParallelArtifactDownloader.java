@@ -0,0 +1,179 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  See the NOTICE file distributed with
+ *  this work for additional information regarding copyright ownership.
+ *  The ASF licenses this file to You under the Apache License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance with
+ *  the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package org.apache.ivy.core.resolve;
+
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.apache.ivy.core.IvyContext;
+import org.apache.ivy.core.module.descriptor.Artifact;
+import org.apache.ivy.core.report.DownloadReport;
+import org.apache.ivy.plugins.resolver.DependencyResolver;
+import org.apache.ivy.util.DaemonThreadFactory;
+
+/**
+ * Downloads the artifacts of several modules concurrently, on behalf of
+ * {@link ResolveEngine#downloadArtifacts}.
+ * <p>
+ * Each module is downloaded by its artifact resolver on a worker thread, the number of modules
+ * downloaded at the same time by a single resolver being optionally limited, to avoid overloading
+ * a repository. The downloads of a resolver exceeding this limit wait in a queue of this resolver
+ * rather than in a worker thread, so that they don't delay the downloads of the other resolvers.
+ * The downloads themselves still go through the repository cache manager, and thus its lock
+ * strategy, and fire the usual download events.
+ * </p>
+ * <p>
+ * The caller is responsible for consuming the download reports in a deterministic order, so that
+ * the resolve report does not depend on the order in which downloads complete.
+ * </p>
+ */
+class ParallelArtifactDownloader {
+    private ExecutorService executor;
+
+    private int threadsPerResolver;
+
+    private Map/* <String, ResolverQueue> */resolverQueues = new HashMap();
+
+    /**
+     * @param threads
+     *            the maximum number of modules downloaded at the same time
+     * @param threadsPerResolver
+     *            the maximum number of modules downloaded at the same time by a single resolver, 0
+     *            or less for no other limit than <code>threads</code>
+     */
+    public ParallelArtifactDownloader(int threads, int threadsPerResolver) {
+        this.executor = Executors.newFixedThreadPool(threads, new DaemonThreadFactory("download"));
+        this.threadsPerResolver = threadsPerResolver;
+    }
+
+    /**
+     * Schedules the download of the given artifacts by the given resolver.
+     *
+     * @return a Future on the {@link DownloadReport} of the download, to be passed to
+     *         {@link #getReport(Future)}
+     */
+    public Future submit(final DependencyResolver resolver, final Artifact[] artifacts,
+            final DownloadOptions options) {
+        final IvyContext context = new IvyContext(IvyContext.getContext());
+        FutureTask download = new FutureTask(new Callable() {
+            public Object call() throws Exception {
+                IvyContext.pushContext(context);
+                try {
+                    return resolver.download(artifacts, options);
+                } finally {
+                    IvyContext.popContext();
+                }
+            }
+        });
+        if (threadsPerResolver <= 0) {
+            executor.execute(download);
+        } else {
+            getQueue(resolver).submit(download);
+        }
+        return download;
+    }
+
+    /**
+     * Waits for the given download to complete and returns its report. Exceptions raised by the
+     * resolver during the download are thrown back in the calling thread.
+     */
+    public DownloadReport getReport(Future download) {
+        try {
+            return (DownloadReport) download.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("operation interrupted");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw new RuntimeException(e.getCause().getMessage(), e.getCause());
+        }
+    }
+
+    /**
+     * Cancels all pending downloads and releases the threads used.
+     */
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private synchronized ResolverQueue getQueue(DependencyResolver resolver) {
+        ResolverQueue queue = (ResolverQueue) resolverQueues.get(resolver.getName());
+        if (queue == null) {
+            queue = new ResolverQueue();
+            resolverQueues.put(resolver.getName(), queue);
+        }
+        return queue;
+    }
+
+    /**
+     * The downloads of a resolver, at most <code>threadsPerResolver</code> of them being given to
+     * the workers at the same time.
+     */
+    private class ResolverQueue {
+        private int running;
+
+        private LinkedList/* <FutureTask> */pending = new LinkedList();
+
+        public synchronized void submit(FutureTask download) {
+            if (running < threadsPerResolver) {
+                running++;
+                execute(download);
+            } else {
+                pending.add(download);
+            }
+        }
+
+        private synchronized void done() {
+            if (pending.isEmpty()) {
+                running--;
+            } else {
+                execute((FutureTask) pending.removeFirst());
+            }
+        }
+
+        private void execute(final FutureTask download) {
+            try {
+                executor.execute(new Runnable() {
+                    public void run() {
+                        try {
+                            download.run();
+                        } finally {
+                            done();
+                        }
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                // shut down
+                download.cancel(false);
+            }
+        }
+    }
+}
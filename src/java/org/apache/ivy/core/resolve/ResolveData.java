@@ -17,21 +17,25 @@
  */
 package org.apache.ivy.core.resolve;
 
+import java.text.ParseException;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.concurrent.Future;
 
 import org.apache.ivy.core.event.EventManager;
 import org.apache.ivy.core.module.descriptor.DependencyDescriptor;
 import org.apache.ivy.core.module.descriptor.ModuleDescriptor;
 import org.apache.ivy.core.module.id.ModuleRevisionId;
 import org.apache.ivy.core.report.ConfigurationResolveReport;
+import org.apache.ivy.plugins.resolver.DependencyResolver;
 import org.apache.ivy.util.Message;
 
 public class ResolveData {
@@ -47,11 +51,27 @@ public class ResolveData {
 
     private ResolvedModuleRevision currentResolvedModuleRevision;
 
+    private DependencyDescriptor ivyFileLookupDependency;
+
+    private Future ivyFileLookup;
+
+    private DescriptorPrefetcher prefetcher;
+
+    private Map resolverCache; // data kept by the resolvers for the whole resolve
+
+    // ids of the configurations used by the nodes, null if they don't use compact sets
+    private ConfigurationIds configurationIds;
+
+    private ResolveMetrics metrics;
+
     public ResolveData(ResolveData data, boolean validate) {
         this(data.engine, new ResolveOptions(data.options).setValidate(validate), data.report,
                 data.visitData);
         setCurrentVisitNode(data.currentVisitNode);
         setCurrentResolvedModuleRevision(data.currentResolvedModuleRevision);
+        this.resolverCache = data.resolverCache;
+        this.configurationIds = data.configurationIds;
+        this.metrics = data.metrics;
     }
 
     public ResolveData(ResolveEngine engine, ResolveOptions options) {
@@ -69,12 +89,38 @@ public class ResolveData {
         this.report = report;
         this.visitData = visitData;
         this.options = options;
+        this.resolverCache = Collections.synchronizedMap(new HashMap());
+        this.configurationIds = options.isCompactNodes() ? new ConfigurationIds() : null;
+        this.metrics = new ResolveMetrics();
+    }
+
+    /**
+     * Returns new data for a lookup done outside of the visit of the dependency graph: it shares
+     * the options, the resolver cache and the metrics of this data, but none of its visit state.
+     */
+    ResolveData newLookupData() {
+        ResolveData data = new ResolveData(engine, options);
+        data.resolverCache = resolverCache;
+        data.configurationIds = configurationIds;
+        data.metrics = metrics;
+        return data;
     }
 
     public ConfigurationResolveReport getReport() {
         return report;
     }
 
+    ConfigurationIds getConfigurationIds() {
+        return configurationIds;
+    }
+
+    /**
+     * Returns the metrics in which the resolve using this data records where its time goes.
+     */
+    public ResolveMetrics getMetrics() {
+        return metrics;
+    }
+
     public IvyNode getNode(ModuleRevisionId mrid) {
         VisitData visitData = getVisitData(mrid);
         return visitData == null ? null : visitData.getNode();
@@ -257,6 +303,28 @@ public class ResolveData {
         return engine;
     }
 
+    /**
+     * Sets the prefetcher to use to fetch module descriptors concurrently during the visit of the
+     * dependency graph, or <code>null</code> for a serial visit.
+     */
+    void setPrefetcher(DescriptorPrefetcher prefetcher) {
+        this.prefetcher = prefetcher;
+    }
+
+    void prefetch(Collection/* <VisitNode> */dependencies) {
+        if (prefetcher != null) {
+            prefetcher.prefetch(dependencies);
+        }
+    }
+
+    ResolvedModuleRevision getDependency(DependencyResolver resolver, DependencyDescriptor dd)
+            throws ParseException {
+        if (prefetcher == null) {
+            return resolver.getDependency(dd, this);
+        }
+        return prefetcher.getDependency(resolver, dd, this);
+    }
+
     void blacklist(IvyNode node) {
         for (Iterator iter = visitData.entrySet().iterator(); iter.hasNext();) {
             Entry entry = (Entry) iter.next();
@@ -348,4 +416,38 @@ public class ResolveData {
     public ResolvedModuleRevision getCurrentResolvedModuleRevision() {
         return currentResolvedModuleRevision;
     }
+
+    /**
+     * Gives the resolver about to resolve the given dependency with this data the lookup of its
+     * ivy file made in advance by another thread, or forgets the lookup previously given.
+     * 
+     * @param lookup
+     *            the future result of the lookup, in a form known by the resolver, or
+     *            <code>null</code>
+     */
+    public void setIvyFileLookup(DependencyDescriptor dd, Future lookup) {
+        this.ivyFileLookupDependency = lookup == null ? null : dd;
+        this.ivyFileLookup = lookup;
+    }
+
+    /**
+     * Returns the lookup of the ivy file of the given dependency made in advance, or
+     * <code>null</code> if the resolver has to look for it by itself.
+     */
+    public Future getIvyFileLookup(DependencyDescriptor dd) {
+        return ivyFileLookupDependency == dd ? ivyFileLookup : null;
+    }
+
+    /**
+     * Returns a map in which resolvers can keep what they have read from their repositories for
+     * the duration of this resolve, so that it isn't read again for each module needing it.
+     * <p>
+     * The map is shared by the copies of this resolve data, and can be accessed concurrently.
+     * </p>
+     * 
+     * @return the map of data kept by the resolvers, never <code>null</code>
+     */
+    public Map getResolverCache() {
+        return resolverCache;
+    }
 }
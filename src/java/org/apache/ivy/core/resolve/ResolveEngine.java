@@ -20,6 +20,7 @@ package org.apache.ivy.core.resolve;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.lang.management.ManagementFactory;
 import java.net.URL;
 import java.text.ParseException;
 import java.util.ArrayList;
@@ -36,11 +37,17 @@ import java.util.ListIterator;
 import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
+import java.util.concurrent.Future;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
 
 import org.apache.ivy.Ivy;
 import org.apache.ivy.core.IvyContext;
 import org.apache.ivy.core.LogOptions;
 import org.apache.ivy.core.cache.ArtifactOrigin;
+import org.apache.ivy.core.cache.DefaultResolutionCacheManager;
 import org.apache.ivy.core.cache.ResolutionCacheManager;
 import org.apache.ivy.core.event.EventManager;
 import org.apache.ivy.core.event.download.PrepareDownloadEvent;
@@ -82,6 +89,8 @@ import org.apache.ivy.util.filter.Filter;
  * @see ResolveOptions
  */
 public class ResolveEngine {
+    private static final int DEFAULT_RESOLVE_THREADS = 4;
+
     private ResolveEngineSettings settings;
 
     private EventManager eventManager;
@@ -92,6 +101,11 @@ public class ResolveEngine {
 
     private DependencyResolver dictatorResolver;
 
+    private ResolveMetrics metrics = new ResolveMetrics();
+
+    // the name under which the metrics are registered in the platform MBean server, if any
+    private String metricsMBean;
+
     /**
      * Constructs a ResolveEngine.
      * 
@@ -204,7 +218,10 @@ public class ResolveEngine {
             throws ParseException, IOException {
         DependencyResolver oldDictator = getDictatorResolver();
         IvyContext context = IvyContext.getContext();
+        ResolveMetrics resolveMetrics = null;
         try {
+            registerMetricsMBean();
+
             String[] confs = options.getConfs(md);
             options.setConfs(confs);
 
@@ -231,6 +248,28 @@ public class ResolveEngine {
 
             ResolveData data = new ResolveData(this, options);
             context.setResolveData(data);
+            resolveMetrics = data.getMetrics();
+            resolveMetrics.addResolve();
+            report.setMetrics(resolveMetrics);
+
+            ResolveSnapshot snapshot = null;
+            if (ResolveSnapshot.isUsable(settings, options)) {
+                snapshot = new ResolveSnapshot(this, md, options);
+                ResolveReport restored = snapshot.restore(data);
+                if (restored != null) {
+                    if (options.getCheckIfChanged()) {
+                        restored.checkIfChanged();
+                    }
+                    restored.setResolveTime(System.currentTimeMillis() - start);
+                    restored.setMetrics(resolveMetrics);
+                    Message.verbose("\tresolve restored from snapshot ("
+                            + restored.getResolveTime() + "ms)");
+                    Message.sumupProblems();
+
+                    eventManager.fireIvyEvent(new EndResolveEvent(md, confs, restored));
+                    return restored;
+                }
+            }
 
             // resolve dependencies
             IvyNode[] dependencies = getDependencies(md, options, report);
@@ -339,7 +378,15 @@ public class ResolveEngine {
             }
 
             if (options.isOutputReport()) {
+                if (cacheManager instanceof DefaultResolutionCacheManager) {
+                    // any snapshot of a previous resolve is about to be out of date
+                    ((DefaultResolutionCacheManager) cacheManager).getResolveSnapshotInCache(
+                        options.getResolveId()).delete();
+                }
                 outputReport(report, cacheManager, options);
+                if (snapshot != null) {
+                    snapshot.save(report);
+                }
             }
 
             Message.verbose("\tresolve done (" + report.getResolveTime() + "ms resolve - "
@@ -356,6 +403,44 @@ public class ResolveEngine {
         } finally {
             context.setResolveData(null);
             setDictatorResolver(oldDictator);
+            if (resolveMetrics != null) {
+                metrics.add(resolveMetrics);
+            }
+        }
+    }
+
+    /**
+     * Returns the sum of the metrics of all the resolves done by this engine.
+     */
+    public ResolveMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Registers the metrics of this engine in the platform MBean server, under the name given by
+     * the ivy.resolve.metrics.mbean variable, unless another engine has registered its own under
+     * this name.
+     */
+    private synchronized void registerMetricsMBean() {
+        String name = settings.getVariable("ivy.resolve.metrics.mbean");
+        if (name == null || name.equals(metricsMBean)) {
+            return;
+        }
+        metricsMBean = name;
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName objectName = new ObjectName(name);
+            if (server.isRegistered(objectName)) {
+                // the metrics of another Ivy instance must not be replaced
+                Message.warn("impossible to register the resolve metrics as " + name
+                        + ": this name is already registered by another Ivy instance");
+                return;
+            }
+            server.registerMBean(metrics, objectName);
+            Message.verbose("resolve metrics registered as " + name);
+        } catch (JMException e) {
+            Message.warn("impossible to register the resolve metrics as " + name + ": "
+                    + e.getMessage());
         }
     }
 
@@ -382,51 +467,93 @@ public class ResolveEngine {
         eventManager.fireIvyEvent(new PrepareDownloadEvent((Artifact[]) report.getArtifacts()
                 .toArray(new Artifact[report.getArtifacts().size()])));
 
+        ParallelArtifactDownloader downloader = null;
+        Future[] downloads = null;
+        int downloadThreads = getIntVariable("ivy.download.threads", 1);
+        if (downloadThreads > 1) {
+            Message.verbose("\tdownloading artifacts using " + downloadThreads + " threads");
+            // downloads are all started upfront, but their reports are consumed below in the
+            // order of the dependencies, so that the resolve report is the same as when
+            // downloading sequentially
+            downloader = new ParallelArtifactDownloader(downloadThreads, getIntVariable(
+                "ivy.download.threads.per.resolver", 0));
+            downloads = new Future[dependencies.length];
+            for (int i = 0; i < dependencies.length; i++) {
+                if (isToDownload(dependencies[i])) {
+                    downloads[i] = downloader.submit(dependencies[i].getModuleRevision()
+                            .getArtifactResolver(), dependencies[i]
+                            .getSelectedArtifacts(artifactFilter), options);
+                }
+            }
+        }
+
         long totalSize = 0;
-        for (int i = 0; i < dependencies.length; i++) {
-            checkInterrupted();
-            // download artifacts required in all asked configurations
-            if (!dependencies[i].isCompletelyEvicted() && !dependencies[i].hasProblem()
-                    && dependencies[i].getModuleRevision() != null) {
-                DependencyResolver resolver = dependencies[i].getModuleRevision()
-                        .getArtifactResolver();
-                Artifact[] selectedArtifacts = dependencies[i].getSelectedArtifacts(artifactFilter);
-                DownloadReport dReport = resolver.download(selectedArtifacts, options);
-                ArtifactDownloadReport[] adrs = dReport.getArtifactsReports();
-                for (int j = 0; j < adrs.length; j++) {
-                    if (adrs[j].getDownloadStatus() == DownloadStatus.FAILED) {
-                        if (adrs[j].getArtifact().getExtraAttribute("ivy:merged") != null) {
-                            Message.warn("\tmerged artifact not found: " + adrs[j].getArtifact()
-                                    + ". It was required in "
-                                    + adrs[j].getArtifact().getExtraAttribute("ivy:merged"));
-                        } else {
-                            Message.warn("\t" + adrs[j]);
-                            resolver.reportFailure(adrs[j].getArtifact());
+        try {
+            for (int i = 0; i < dependencies.length; i++) {
+                checkInterrupted();
+                // download artifacts required in all asked configurations
+                if (isToDownload(dependencies[i])) {
+                    DependencyResolver resolver = dependencies[i].getModuleRevision()
+                            .getArtifactResolver();
+                    DownloadReport dReport;
+                    if (downloader == null) {
+                        Artifact[] selectedArtifacts = dependencies[i]
+                                .getSelectedArtifacts(artifactFilter);
+                        dReport = resolver.download(selectedArtifacts, options);
+                    } else {
+                        dReport = downloader.getReport(downloads[i]);
+                    }
+                    ArtifactDownloadReport[] adrs = dReport.getArtifactsReports();
+                    for (int j = 0; j < adrs.length; j++) {
+                        if (adrs[j].getDownloadStatus() == DownloadStatus.FAILED) {
+                            if (adrs[j].getArtifact().getExtraAttribute("ivy:merged") != null) {
+                                Message.warn("\tmerged artifact not found: "
+                                        + adrs[j].getArtifact() + ". It was required in "
+                                        + adrs[j].getArtifact().getExtraAttribute("ivy:merged"));
+                            } else {
+                                Message.warn("\t" + adrs[j]);
+                                resolver.reportFailure(adrs[j].getArtifact());
+                            }
+                        } else if (adrs[j].getDownloadStatus() == DownloadStatus.SUCCESSFUL) {
+                            totalSize += adrs[j].getSize();
                         }
-                    } else if (adrs[j].getDownloadStatus() == DownloadStatus.SUCCESSFUL) {
-                        totalSize += adrs[j].getSize();
                     }
-                }
-                // update concerned reports
-                String[] dconfs = dependencies[i].getRootModuleConfigurations();
-                for (int j = 0; j < dconfs.length; j++) {
-                    // the report itself is responsible to take into account only
-                    // artifacts required in its corresponding configuration
-                    // (as described by the Dependency object)
-                    if (dependencies[i].isEvicted(dconfs[j])
-                            || dependencies[i].isBlacklisted(dconfs[j])) {
-                        report.getConfigurationReport(dconfs[j]).addDependency(dependencies[i]);
-                    } else {
-                        report.getConfigurationReport(dconfs[j]).addDependency(dependencies[i],
-                            dReport);
+                    // update concerned reports
+                    String[] dconfs = dependencies[i].getRootModuleConfigurations();
+                    for (int j = 0; j < dconfs.length; j++) {
+                        // the report itself is responsible to take into account only
+                        // artifacts required in its corresponding configuration
+                        // (as described by the Dependency object)
+                        if (dependencies[i].isEvicted(dconfs[j])
+                                || dependencies[i].isBlacklisted(dconfs[j])) {
+                            report.getConfigurationReport(dconfs[j]).addDependency(
+                                dependencies[i]);
+                        } else {
+                            report.getConfigurationReport(dconfs[j]).addDependency(
+                                dependencies[i], dReport);
+                        }
                     }
                 }
             }
+        } finally {
+            if (downloader != null) {
+                downloader.shutdown();
+            }
         }
         report.setDownloadTime(System.currentTimeMillis() - start);
         report.setDownloadSize(totalSize);
     }
 
+    private int getIntVariable(String name, int defaultValue) {
+        String value = settings.getVariable(name);
+        return value == null ? defaultValue : Integer.parseInt(value);
+    }
+
+    private boolean isToDownload(IvyNode dependency) {
+        return !dependency.isCompletelyEvicted() && !dependency.hasProblem()
+                && dependency.getModuleRevision() != null;
+    }
+
     /**
      * Download an artifact to the cache. Not used internally, useful especially for IDE plugins
      * needing to download artifact one by one (for source or javadoc artifact, for instance).
@@ -562,77 +689,112 @@ public class ResolveEngine {
         try {
             options.setConfs(confs);
 
-            Date reportDate = new Date();
             ResolveData data = context.getResolveData();
             if (data == null) {
                 data = new ResolveData(this, options);
                 context.setResolveData(data);
             }
-            IvyNode rootNode = new IvyNode(data, md);
-
-            for (int i = 0; i < confs.length; i++) {
-                Message.verbose("resolving dependencies for configuration '" + confs[i] + "'");
-                // for each configuration we clear the cache of what's been fetched
-                fetchedSet.clear();
-
-                ConfigurationResolveReport confReport = null;
-                if (report != null) {
-                    confReport = report.getConfigurationReport(confs[i]);
-                    if (confReport == null) {
-                        confReport = new ConfigurationResolveReport(this, md, confs[i], reportDate,
-                                options);
-                        report.addReport(confs[i], confReport);
-                    }
-                }
-                // we reuse the same resolve data with a new report for each conf
-                data.setReport(confReport);
-
-                // update the root module conf we are about to fetch
-                VisitNode root = new VisitNode(data, rootNode, null, confs[i], null);
-                root.setRequestedConf(confs[i]);
-                rootNode.updateConfsToFetch(Collections.singleton(confs[i]));
-
-                // go fetch !
-                boolean fetched = false;
-                while (!fetched) {
-                    try {
-                        fetchDependencies(root, confs[i], false);
-                        fetched = true;
-                    } catch (RestartResolveProcess restart) {
-                        Message.verbose("====================================================");
-                        Message.verbose("=           RESTARTING RESOLVE PROCESS");
-                        Message.verbose("= " + restart.getMessage());
-                        Message.verbose("====================================================");
-                        fetchedSet.clear();
-                    }
+            DescriptorPrefetcher prefetcher = null;
+            if (isParallelResolve(options)) {
+                int threads = getIntVariable("ivy.resolve.threads", DEFAULT_RESOLVE_THREADS);
+                Message.verbose("\tprefetching module descriptors using " + threads + " threads");
+                prefetcher = new DescriptorPrefetcher(this, data, threads);
+                data.setPrefetcher(prefetcher);
+            }
+            long start = System.nanoTime();
+            try {
+                return doGetDependencies(md, confs, options, report, data);
+            } finally {
+                data.getMetrics().addPhase(ResolveMetrics.GRAPH_WALK, System.nanoTime() - start);
+                if (prefetcher != null) {
+                    data.setPrefetcher(null);
+                    prefetcher.shutdown();
                 }
+            }
+        } finally {
+            IvyContext.popContext();
+        }
+    }
 
-                // clean data
-                for (Iterator iter = data.getNodes().iterator(); iter.hasNext();) {
-                    IvyNode dep = (IvyNode) iter.next();
-                    dep.clean();
+    private boolean isParallelResolve(ResolveOptions options) {
+        if (!options.isParallel()
+                && !Boolean.valueOf(settings.getVariable("ivy.resolve.parallel")).booleanValue()) {
+            return false;
+        }
+        if (options.isRefresh() || options.isUseCacheOnly()) {
+            // prefetching only warms the cache, which is of no use if it is bypassed or if only
+            // the cache is used
+            Message.verbose("\tparallel resolve disabled: refresh or useCacheOnly is set");
+            return false;
+        }
+        return getIntVariable("ivy.resolve.threads", DEFAULT_RESOLVE_THREADS) > 1;
+    }
+
+    private IvyNode[] doGetDependencies(ModuleDescriptor md, String[] confs,
+            ResolveOptions options, ResolveReport report, ResolveData data) {
+        Date reportDate = new Date();
+        IvyNode rootNode = new IvyNode(data, md);
+
+        for (int i = 0; i < confs.length; i++) {
+            Message.verbose("resolving dependencies for configuration '" + confs[i] + "'");
+            // for each configuration we clear the cache of what's been fetched
+            fetchedSet.clear();
+
+            ConfigurationResolveReport confReport = null;
+            if (report != null) {
+                confReport = report.getConfigurationReport(confs[i]);
+                if (confReport == null) {
+                    confReport = new ConfigurationResolveReport(this, md, confs[i], reportDate,
+                            options);
+                    report.addReport(confs[i], confReport);
                 }
             }
-
-            // prune and reverse sort fectched dependencies
-            Collection nodes = data.getNodes();
-            // use a Set to avoid duplicates, linked to preserve order
-            Collection dependencies = new LinkedHashSet(nodes.size());
-            for (Iterator iter = nodes.iterator(); iter.hasNext();) {
-                IvyNode node = (IvyNode) iter.next();
-                if (node != null && !node.isRoot() && !node.isCompletelyBlacklisted()) {
-                    dependencies.add(node);
+            // we reuse the same resolve data with a new report for each conf
+            data.setReport(confReport);
+
+            // update the root module conf we are about to fetch
+            VisitNode root = new VisitNode(data, rootNode, null, confs[i], null);
+            root.setRequestedConf(confs[i]);
+            rootNode.updateConfsToFetch(Collections.singleton(confs[i]));
+
+            // go fetch !
+            boolean fetched = false;
+            while (!fetched) {
+                try {
+                    fetchDependencies(root, confs[i], false);
+                    fetched = true;
+                } catch (RestartResolveProcess restart) {
+                    Message.verbose("====================================================");
+                    Message.verbose("=           RESTARTING RESOLVE PROCESS");
+                    Message.verbose("= " + restart.getMessage());
+                    Message.verbose("====================================================");
+                    fetchedSet.clear();
                 }
             }
-            List sortedDependencies = sortEngine.sortNodes(dependencies, SortOptions.SILENT);
-            Collections.reverse(sortedDependencies);
 
-            handleTransiviteEviction(md, confs, data, sortedDependencies);
+            // clean data
+            for (Iterator iter = data.getNodes().iterator(); iter.hasNext();) {
+                IvyNode dep = (IvyNode) iter.next();
+                dep.clean();
+            }
+        }
 
-            return (IvyNode[]) dependencies.toArray(new IvyNode[dependencies.size()]);
-        } finally {
-            IvyContext.popContext();
+        // prune and reverse sort fectched dependencies
+        Collection nodes = data.getNodes();
+        // use a Set to avoid duplicates, linked to preserve order
+        Collection dependencies = new LinkedHashSet(nodes.size());
+        for (Iterator iter = nodes.iterator(); iter.hasNext();) {
+            IvyNode node = (IvyNode) iter.next();
+            if (node != null && !node.isRoot() && !node.isCompletelyBlacklisted()) {
+                dependencies.add(node);
+            }
         }
+        List sortedDependencies = sortEngine.sortNodes(dependencies, SortOptions.SILENT);
+        Collections.reverse(sortedDependencies);
+
+        handleTransiviteEviction(md, confs, data, sortedDependencies);
+
+        return (IvyNode[]) dependencies.toArray(new IvyNode[dependencies.size()]);
     }
 
     private void handleTransiviteEviction(ModuleDescriptor md, String[] confs, ResolveData data,
@@ -794,6 +956,7 @@ public class ResolveEngine {
         // now we can actually resolve this configuration dependencies
         if (!isDependenciesFetched(node.getNode(), conf) && node.isTransitive()) {
             Collection/* <VisitNode> */dependencies = node.getDependencies(conf);
+            node.getNode().getData().prefetch(dependencies);
             for (Iterator iter = dependencies.iterator(); iter.hasNext();) {
                 VisitNode dep = (VisitNode) iter.next();
                 dep.useRealNode(); // the node may have been resolved to another real one while
@@ -853,7 +1016,10 @@ public class ResolveEngine {
     }
 
     private void resolveConflict(VisitNode node, String conf) {
+        long start = System.nanoTime();
         resolveConflict(node, node.getParent(), conf, Collections.EMPTY_SET);
+        node.getNode().getData().getMetrics()
+                .addPhase(ResolveMetrics.CONFLICT_RESOLUTION, System.nanoTime() - start);
     }
 
     /**
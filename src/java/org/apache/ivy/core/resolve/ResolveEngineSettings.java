@@ -17,6 +17,8 @@
  */
 package org.apache.ivy.core.resolve;
 
+import java.util.Collection;
+
 import org.apache.ivy.core.module.id.ModuleId;
 import org.apache.ivy.core.module.id.ModuleRevisionId;
 import org.apache.ivy.plugins.conflict.ConflictManager;
@@ -38,6 +40,12 @@ public interface ResolveEngineSettings extends ResolverSettings {
 
     ConflictManager getConflictManager(ModuleId mid);
 
+    ConflictManager getDefaultConflictManager();
+
+    DependencyResolver getDefaultResolver();
+
+    Collection/* <DependencyResolver> */getResolvers();
+
     boolean logModuleWhenFound();
 
     boolean logResolvedRevision();
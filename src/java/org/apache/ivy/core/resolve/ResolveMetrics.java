@@ -0,0 +1,370 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  See the NOTICE file distributed with
+ *  this work for additional information regarding copyright ownership.
+ *  The ASF licenses this file to You under the Apache License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance with
+ *  the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package org.apache.ivy.core.resolve;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.apache.ivy.core.IvyContext;
+
+/**
+ * Tells where the time of resolves goes: how long each phase of the resolves took, and what each
+ * resolver has found and downloaded.
+ * <p>
+ * Each resolve records its metrics in the instance held by its {@link ResolveData}, which is also
+ * available from its report, and the {@link ResolveEngine} sums the metrics of all its resolves.
+ * The code which has no access to the resolve data, like the url handlers, uses the static
+ * {@link #record(String, long)} method, which finds the resolve in progress in the
+ * {@link IvyContext} and does nothing out of a resolve.
+ * </p>
+ * <p>
+ * Phases may be nested: the conflict resolutions are part of the graph walk, and the network
+ * requests are part of the phase which has issued them.
+ * </p>
+ */
+public class ResolveMetrics implements ResolveMetricsMBean {
+    /**
+     * The visit of the dependency graph, which includes the search and parsing of the module
+     * descriptors, but not the download of the artifacts.
+     */
+    public static final String GRAPH_WALK = "graph-walk";
+
+    public static final String CONFLICT_RESOLUTION = "conflict-resolution";
+
+    /**
+     * The parsing of the module descriptors found in the cache or downloaded, not the ones kept in
+     * memory.
+     */
+    public static final String DESCRIPTOR_PARSE = "descriptor-parse";
+
+    /**
+     * The search of the module descriptors and artifacts in the repository cache.
+     */
+    public static final String CACHE_LOOKUP = "cache-lookup";
+
+    /**
+     * The requests of the url handlers asking for the existence, size or date of resources.
+     */
+    public static final String NETWORK_HEAD = "network-head";
+
+    /**
+     * The requests of the url handlers downloading resources.
+     */
+    public static final String NETWORK_GET = "network-get";
+
+    /**
+     * The check of the checksums of the downloaded files, including the wait for the checksum
+     * files when they are fetched while the files are downloaded.
+     */
+    public static final String CHECKSUM = "checksum";
+
+    private static final String[] PHASES = new String[] {GRAPH_WALK, CONFLICT_RESOLUTION,
+            DESCRIPTOR_PARSE, CACHE_LOOKUP, NETWORK_HEAD, NETWORK_GET, CHECKSUM};
+
+    private static final long NANOS_PER_MILLI = 1000000L;
+
+    private int resolves;
+
+    // Map (String phase -> long[] {count, nanoseconds}), in the order of PHASES
+    private Map phases = new LinkedHashMap();
+
+    // Map (String resolverName -> ResolverMetrics)
+    private Map resolvers = new TreeMap();
+
+    public ResolveMetrics() {
+        clear();
+    }
+
+    /**
+     * Returns the metrics of the resolve in progress in the current thread, or <code>null</code>
+     * if there is none.
+     */
+    public static ResolveMetrics getCurrent() {
+        ResolveData data = IvyContext.getContext().getResolveData();
+        return data == null ? null : data.getMetrics();
+    }
+
+    /**
+     * Records that the given phase has been run since the given time in the metrics of the
+     * resolve in progress in the current thread, if any.
+     * 
+     * @param phase
+     *            the name of the phase
+     * @param start
+     *            the value of {@link System#nanoTime()} when the phase started
+     */
+    public static void record(String phase, long start) {
+        ResolveMetrics metrics = getCurrent();
+        if (metrics != null) {
+            metrics.addPhase(phase, System.nanoTime() - start);
+        }
+    }
+
+    public synchronized void addPhase(String phase, long nanos) {
+        long[] phaseMetrics = (long[]) phases.get(phase);
+        if (phaseMetrics == null) {
+            phaseMetrics = new long[2];
+            phases.put(phase, phaseMetrics);
+        }
+        phaseMetrics[0]++;
+        phaseMetrics[1] += nanos;
+    }
+
+    synchronized void addResolve() {
+        resolves++;
+    }
+
+    public synchronized void addCacheHit(String resolver) {
+        getResolverMetrics(resolver).cacheHits++;
+    }
+
+    /**
+     * Records a search of a module by the given resolver in its repository.
+     * 
+     * @param resolver
+     *            the name of the resolver
+     * @param found
+     *            true if the module has been found
+     * @param nanos
+     *            the time taken by the search, in nanoseconds
+     */
+    public synchronized void addLookup(String resolver, boolean found, long nanos) {
+        ResolverMetrics resolverMetrics = getResolverMetrics(resolver);
+        if (found) {
+            resolverMetrics.found++;
+        } else {
+            resolverMetrics.notFound++;
+        }
+        resolverMetrics.lookupNanos += nanos;
+    }
+
+    public synchronized void addDownload(String resolver, long bytes, long millis) {
+        ResolverMetrics resolverMetrics = getResolverMetrics(resolver);
+        resolverMetrics.downloads++;
+        resolverMetrics.downloadedBytes += bytes;
+        resolverMetrics.downloadMillis += millis;
+    }
+
+    private ResolverMetrics getResolverMetrics(String resolver) {
+        ResolverMetrics resolverMetrics = (ResolverMetrics) resolvers.get(resolver);
+        if (resolverMetrics == null) {
+            resolverMetrics = new ResolverMetrics();
+            resolvers.put(resolver, resolverMetrics);
+        }
+        return resolverMetrics;
+    }
+
+    /**
+     * Adds the metrics of the given instance to this one.
+     */
+    public void add(ResolveMetrics metrics) {
+        // copied first so that the two instances are never locked at the same time
+        ResolveMetrics other = metrics.copy();
+        synchronized (this) {
+            resolves += other.resolves;
+            for (Iterator it = other.phases.entrySet().iterator(); it.hasNext();) {
+                Map.Entry entry = (Map.Entry) it.next();
+                long[] otherPhase = (long[]) entry.getValue();
+                long[] phaseMetrics = (long[]) phases.get(entry.getKey());
+                if (phaseMetrics == null) {
+                    phases.put(entry.getKey(), otherPhase);
+                } else {
+                    phaseMetrics[0] += otherPhase[0];
+                    phaseMetrics[1] += otherPhase[1];
+                }
+            }
+            for (Iterator it = other.resolvers.entrySet().iterator(); it.hasNext();) {
+                Map.Entry entry = (Map.Entry) it.next();
+                getResolverMetrics((String) entry.getKey()).add(
+                    (ResolverMetrics) entry.getValue());
+            }
+        }
+    }
+
+    private synchronized ResolveMetrics copy() {
+        ResolveMetrics copy = new ResolveMetrics();
+        copy.resolves = resolves;
+        copy.phases.clear();
+        for (Iterator it = phases.entrySet().iterator(); it.hasNext();) {
+            Map.Entry entry = (Map.Entry) it.next();
+            copy.phases.put(entry.getKey(), ((long[]) entry.getValue()).clone());
+        }
+        for (Iterator it = resolvers.entrySet().iterator(); it.hasNext();) {
+            Map.Entry entry = (Map.Entry) it.next();
+            copy.getResolverMetrics((String) entry.getKey()).add(
+                (ResolverMetrics) entry.getValue());
+        }
+        return copy;
+    }
+
+    public synchronized int getResolves() {
+        return resolves;
+    }
+
+    public synchronized String[] getPhases() {
+        return (String[]) phases.keySet().toArray(new String[phases.size()]);
+    }
+
+    public synchronized long getPhaseCount(String phase) {
+        long[] phaseMetrics = (long[]) phases.get(phase);
+        return phaseMetrics == null ? 0 : phaseMetrics[0];
+    }
+
+    public synchronized long getPhaseTime(String phase) {
+        long[] phaseMetrics = (long[]) phases.get(phase);
+        return phaseMetrics == null ? 0 : phaseMetrics[1] / NANOS_PER_MILLI;
+    }
+
+    public synchronized String[] getResolvers() {
+        return (String[]) resolvers.keySet().toArray(new String[resolvers.size()]);
+    }
+
+    public long getCacheHits(String resolver) {
+        return findResolverMetrics(resolver).cacheHits;
+    }
+
+    public long getFound(String resolver) {
+        return findResolverMetrics(resolver).found;
+    }
+
+    public long getNotFound(String resolver) {
+        return findResolverMetrics(resolver).notFound;
+    }
+
+    public long getLookupTime(String resolver) {
+        return findResolverMetrics(resolver).lookupNanos / NANOS_PER_MILLI;
+    }
+
+    public long getDownloads(String resolver) {
+        return findResolverMetrics(resolver).downloads;
+    }
+
+    public long getDownloadedBytes(String resolver) {
+        return findResolverMetrics(resolver).downloadedBytes;
+    }
+
+    public long getDownloadTime(String resolver) {
+        return findResolverMetrics(resolver).downloadMillis;
+    }
+
+    /**
+     * Returns a copy of the metrics of the given resolver, empty if it hasn't been used.
+     */
+    private synchronized ResolverMetrics findResolverMetrics(String resolver) {
+        ResolverMetrics copy = new ResolverMetrics();
+        ResolverMetrics resolverMetrics = (ResolverMetrics) resolvers.get(resolver);
+        if (resolverMetrics != null) {
+            copy.add(resolverMetrics);
+        }
+        return copy;
+    }
+
+    public synchronized String toJson() {
+        StringBuffer json = new StringBuffer();
+        json.append("{\n  \"resolves\": ").append(resolves).append(",\n  \"phases\": {");
+        for (Iterator it = phases.entrySet().iterator(); it.hasNext();) {
+            Map.Entry entry = (Map.Entry) it.next();
+            long[] phaseMetrics = (long[]) entry.getValue();
+            json.append("\n    ");
+            appendJsonString(json, (String) entry.getKey());
+            json.append(": {\"count\": ").append(phaseMetrics[0]).append(", \"time\": ")
+                    .append(phaseMetrics[1] / NANOS_PER_MILLI).append("}");
+            json.append(it.hasNext() ? "," : "\n  ");
+        }
+        json.append("},\n  \"resolvers\": {");
+        for (Iterator it = resolvers.entrySet().iterator(); it.hasNext();) {
+            Map.Entry entry = (Map.Entry) it.next();
+            ResolverMetrics resolverMetrics = (ResolverMetrics) entry.getValue();
+            json.append("\n    ");
+            appendJsonString(json, (String) entry.getKey());
+            json.append(": {\"cacheHits\": ").append(resolverMetrics.cacheHits)
+                    .append(", \"found\": ").append(resolverMetrics.found)
+                    .append(", \"notFound\": ").append(resolverMetrics.notFound)
+                    .append(", \"lookupTime\": ")
+                    .append(resolverMetrics.lookupNanos / NANOS_PER_MILLI)
+                    .append(", \"downloads\": ").append(resolverMetrics.downloads)
+                    .append(", \"downloadedBytes\": ").append(resolverMetrics.downloadedBytes)
+                    .append(", \"downloadTime\": ").append(resolverMetrics.downloadMillis)
+                    .append("}");
+            json.append(it.hasNext() ? "," : "\n  ");
+        }
+        json.append("}\n}\n");
+        return json.toString();
+    }
+
+    private static void appendJsonString(StringBuffer json, String value) {
+        json.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                json.append('\\').append(c);
+            } else if (c < ' ') {
+                String hex = Integer.toHexString(c);
+                json.append("\\u").append("0000".substring(hex.length())).append(hex);
+            } else {
+                json.append(c);
+            }
+        }
+        json.append('"');
+    }
+
+    public synchronized void reset() {
+        clear();
+    }
+
+    private void clear() {
+        resolves = 0;
+        phases.clear();
+        for (int i = 0; i < PHASES.length; i++) {
+            phases.put(PHASES[i], new long[2]);
+        }
+        resolvers.clear();
+    }
+
+    public String toString() {
+        return toJson();
+    }
+
+    private static final class ResolverMetrics {
+        private long cacheHits;
+
+        private long found;
+
+        private long notFound;
+
+        private long lookupNanos;
+
+        private long downloads;
+
+        private long downloadedBytes;
+
+        private long downloadMillis;
+
+        void add(ResolverMetrics other) {
+            cacheHits += other.cacheHits;
+            found += other.found;
+            notFound += other.notFound;
+            lookupNanos += other.lookupNanos;
+            downloads += other.downloads;
+            downloadedBytes += other.downloadedBytes;
+            downloadMillis += other.downloadMillis;
+        }
+    }
+}
@@ -0,0 +1,98 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  See the NOTICE file distributed with
+ *  this work for additional information regarding copyright ownership.
+ *  The ASF licenses this file to You under the Apache License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance with
+ *  the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package org.apache.ivy.core.resolve;
+
+/**
+ * The management interface of the {@link ResolveMetrics}, under which the metrics of all the
+ * resolves of an Ivy instance can be registered in an MBean server, by setting the
+ * ivy.resolve.metrics.mbean variable to the object name to use.
+ */
+public interface ResolveMetricsMBean {
+    /**
+     * Returns the number of resolves whose metrics have been recorded.
+     */
+    int getResolves();
+
+    /**
+     * Returns the names of the phases whose time is measured.
+     */
+    String[] getPhases();
+
+    /**
+     * Returns the number of times the given phase has been run.
+     */
+    long getPhaseCount(String phase);
+
+    /**
+     * Returns the time spent in the given phase, in milliseconds.
+     */
+    long getPhaseTime(String phase);
+
+    /**
+     * Returns the names of the resolvers which have been used, in alphabetical order.
+     */
+    String[] getResolvers();
+
+    /**
+     * Returns the number of modules the given resolver has found in the cache.
+     */
+    long getCacheHits(String resolver);
+
+    /**
+     * Returns the number of modules the given resolver has found in its repository.
+     */
+    long getFound(String resolver);
+
+    /**
+     * Returns the number of modules the given resolver has searched in its repository without
+     * finding them.
+     */
+    long getNotFound(String resolver);
+
+    /**
+     * Returns the time spent by the given resolver to search modules in its repository, in
+     * milliseconds.
+     */
+    long getLookupTime(String resolver);
+
+    /**
+     * Returns the number of files, module descriptors included, downloaded by the given
+     * resolver.
+     */
+    long getDownloads(String resolver);
+
+    /**
+     * Returns the number of bytes downloaded by the given resolver.
+     */
+    long getDownloadedBytes(String resolver);
+
+    /**
+     * Returns the time spent by the given resolver to download files, in milliseconds.
+     */
+    long getDownloadTime(String resolver);
+
+    /**
+     * Returns all the metrics as a JSON object.
+     */
+    String toJson();
+
+    /**
+     * Forgets all the metrics recorded so far.
+     */
+    void reset();
+}
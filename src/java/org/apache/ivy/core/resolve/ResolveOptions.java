@@ -120,6 +120,24 @@ public class ResolveOptions extends LogOptions {
      **/
     private boolean checkIfChanged = false;
 
+    /**
+     * True if module descriptors should be fetched concurrently during the resolve, false to use
+     * the setting configured in the settings.
+     */
+    private boolean parallel = false;
+
+    /**
+     * True if the nodes of the dependency graph should store their configurations in compact sets,
+     * iterated in the order in which the configurations are first used during the resolve.
+     */
+    private boolean compactNodes = false;
+
+    /**
+     * True if the result of a previous identical resolve stored in the resolution cache should be
+     * used when available, instead of resolving the dependencies again.
+     */
+    private boolean useSnapshot = false;
+
     public ResolveOptions() {
     }
 
@@ -138,6 +156,9 @@ public class ResolveOptions extends LogOptions {
         artifactFilter = options.artifactFilter;
         resolveId = options.resolveId;
         checkIfChanged = options.checkIfChanged;
+        parallel = options.parallel;
+        compactNodes = options.compactNodes;
+        useSnapshot = options.useSnapshot;
     }
 
     public Filter getArtifactFilter() {
@@ -300,6 +321,33 @@ public class ResolveOptions extends LogOptions {
         return checkIfChanged;
     }
 
+    public ResolveOptions setParallel(boolean parallel) {
+        this.parallel = parallel;
+        return this;
+    }
+
+    public boolean isParallel() {
+        return parallel;
+    }
+
+    public ResolveOptions setCompactNodes(boolean compactNodes) {
+        this.compactNodes = compactNodes;
+        return this;
+    }
+
+    public boolean isCompactNodes() {
+        return compactNodes;
+    }
+
+    public ResolveOptions setUseSnapshot(boolean useSnapshot) {
+        this.useSnapshot = useSnapshot;
+        return this;
+    }
+
+    public boolean isUseSnapshot() {
+        return useSnapshot;
+    }
+
     public static String getDefaultResolveId(ModuleDescriptor md) {
         ModuleId module = md.getModuleRevisionId().getModuleId();
         return getDefaultResolveId(module);
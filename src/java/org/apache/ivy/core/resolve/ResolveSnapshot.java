@@ -0,0 +1,421 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  See the NOTICE file distributed with
+ *  this work for additional information regarding copyright ownership.
+ *  The ASF licenses this file to You under the Apache License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance with
+ *  the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package org.apache.ivy.core.resolve;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeMap;
+
+import org.apache.ivy.core.cache.DefaultRepositoryCacheManager;
+import org.apache.ivy.core.cache.DefaultResolutionCacheManager;
+import org.apache.ivy.core.cache.RepositoryCacheManager;
+import org.apache.ivy.core.cache.ResolutionCacheManager;
+import org.apache.ivy.core.module.descriptor.DefaultModuleDescriptor;
+import org.apache.ivy.core.module.descriptor.DependencyDescriptor;
+import org.apache.ivy.core.module.descriptor.ModuleDescriptor;
+import org.apache.ivy.core.module.id.ModuleRevisionId;
+import org.apache.ivy.core.report.ArtifactDownloadReport;
+import org.apache.ivy.core.report.ConfigurationResolveReport;
+import org.apache.ivy.core.report.DownloadStatus;
+import org.apache.ivy.core.report.MetadataArtifactDownloadReport;
+import org.apache.ivy.core.report.ResolveReport;
+import org.apache.ivy.core.resolve.IvyNodeCallers.Caller;
+import org.apache.ivy.core.settings.IvySettings;
+import org.apache.ivy.plugins.report.XmlReportParser;
+import org.apache.ivy.plugins.resolver.AbstractPatternsBasedResolver;
+import org.apache.ivy.plugins.resolver.AbstractResolver;
+import org.apache.ivy.plugins.resolver.ChainResolver;
+import org.apache.ivy.plugins.resolver.DependencyResolver;
+import org.apache.ivy.plugins.resolver.DualResolver;
+import org.apache.ivy.plugins.version.VersionMatcher;
+import org.apache.ivy.util.ChecksumHelper;
+import org.apache.ivy.util.Message;
+import org.apache.ivy.util.filter.FilterHelper;
+import org.apache.ivy.util.url.URLHandlerRegistry;
+
+/**
+ * The snapshot of a resolve, allowing to restore its report from the reports stored in the
+ * resolution cache by a previous identical resolve, instead of resolving the dependencies again.
+ * <p>
+ * A snapshot is a fingerprint of everything the result of a resolve depends on: the module
+ * descriptor resolved, the resolve options, and the part of the settings used to resolve
+ * (resolvers, conflict manager, version matcher, settings and properties files). It is stored in
+ * the resolution cache next to the reports of the resolve, and is valid as long as the fingerprint
+ * is the same, the reports and the artifacts they reference are still in the cache, and the TTL
+ * of the dynamic revisions found in the resolved graph has not expired. Resolves involving modules
+ * checked in the repository at each resolve (changing revisions, or resolvers checking modified
+ * metadata) are never snapshotted.
+ * </p>
+ * <p>
+ * The report of a restored resolve is built from the configuration reports in cache, without
+ * parsing any dependency descriptor: its nodes only give access to their ids and to the reports of
+ * their artifacts, and evicted modules are not part of it.
+ * </p>
+ */
+class ResolveSnapshot {
+    private static final String FINGERPRINT = "fingerprint";
+
+    private static final String EXPIRATION = "expiration";
+
+    private ResolveEngine engine;
+
+    private ResolveEngineSettings settings;
+
+    private ModuleDescriptor md;
+
+    private ResolveOptions options;
+
+    private String fingerprint;
+
+    /**
+     * Returns <code>true</code> if a snapshot can be used for a resolve with the given options:
+     * snapshots are only used when asked and for resolves producing reports for all artifacts, and
+     * are only stored by the {@link DefaultResolutionCacheManager}.
+     */
+    public static boolean isUsable(ResolveEngineSettings settings, ResolveOptions options) {
+        return options.isUseSnapshot() && !options.isRefresh() && options.isDownload()
+                && options.isOutputReport()
+                && options.getArtifactFilter() == FilterHelper.NO_FILTER
+                && settings.getResolutionCacheManager() instanceof DefaultResolutionCacheManager;
+    }
+
+    public ResolveSnapshot(ResolveEngine engine, ModuleDescriptor md, ResolveOptions options) {
+        this.engine = engine;
+        this.settings = engine.getSettings();
+        this.md = md;
+        this.options = options;
+    }
+
+    /**
+     * Restores the report of the resolve from the resolution cache.
+     *
+     * @return the restored report, or <code>null</code> if the snapshot of the resolve is missing
+     *         or out of date
+     */
+    public ResolveReport restore(ResolveData data) throws IOException, ParseException {
+        ResolutionCacheManager cacheManager = settings.getResolutionCacheManager();
+        File snapshotFile = getSnapshotFile();
+        if (!snapshotFile.exists()) {
+            Message.verbose("\tno resolve snapshot for " + options.getResolveId());
+            return null;
+        }
+        Properties snapshot = new Properties();
+        FileInputStream in = new FileInputStream(snapshotFile);
+        try {
+            snapshot.load(in);
+        } finally {
+            in.close();
+        }
+        if (!getFingerprint().equals(snapshot.getProperty(FINGERPRINT))) {
+            Message.verbose("\tresolve snapshot out of date for " + options.getResolveId());
+            return null;
+        }
+        String expiration = snapshot.getProperty(EXPIRATION);
+        if (expiration != null && System.currentTimeMillis() > Long.parseLong(expiration)) {
+            Message.verbose("\tresolve snapshot expired for " + options.getResolveId());
+            return null;
+        }
+
+        ResolveReport report = new ResolveReport(md, options.getResolveId());
+        Map/* <ModuleRevisionId, IvyNode> */nodes = new LinkedHashMap();
+        Set/* <Artifact> */artifacts = new LinkedHashSet();
+        String[] confs = options.getConfs();
+        for (int i = 0; i < confs.length; i++) {
+            File reportFile = cacheManager.getConfigurationResolveReportInCache(
+                options.getResolveId(), confs[i]);
+            if (!reportFile.exists()) {
+                Message.verbose("\tresolve snapshot incomplete: no report for " + confs[i]);
+                return null;
+            }
+            XmlReportParser parser = new XmlReportParser();
+            parser.parse(cacheManager, options.getResolveId(), confs[i]);
+            if (parser.hasError()) {
+                return null;
+            }
+
+            Map/* <ModuleRevisionId, List<ArtifactDownloadReport>> */adrsByModule = new LinkedHashMap();
+            ArtifactDownloadReport[] adrs = parser.getArtifactReports();
+            for (int j = 0; j < adrs.length; j++) {
+                if (adrs[j].getLocalFile() == null || !adrs[j].getLocalFile().exists()) {
+                    Message.verbose("\tresolve snapshot out of date: " + adrs[j].getArtifact()
+                            + " not found in cache");
+                    return null;
+                }
+                if (adrs[j].getDownloadStatus() == DownloadStatus.SUCCESSFUL) {
+                    // the artifact is now in cache
+                    adrs[j].setDownloadStatus(DownloadStatus.NO);
+                }
+                ModuleRevisionId mrid = adrs[j].getArtifact().getModuleRevisionId();
+                List moduleAdrs = (List) adrsByModule.get(mrid);
+                if (moduleAdrs == null) {
+                    moduleAdrs = new ArrayList();
+                    adrsByModule.put(mrid, moduleAdrs);
+                }
+                moduleAdrs.add(adrs[j]);
+                artifacts.add(adrs[j].getArtifact());
+            }
+
+            ConfigurationResolveReport confReport = new ConfigurationResolveReport(engine, md,
+                    confs[i], new Date(), options);
+            ModuleRevisionId[] mrids = parser.getRealDependencyRevisionIds();
+            for (int j = 0; j < mrids.length; j++) {
+                IvyNode node = (IvyNode) nodes.get(mrids[j]);
+                if (node == null) {
+                    MetadataArtifactDownloadReport madr = parser
+                            .getMetadataArtifactReport(mrids[j]);
+                    node = new IvyNode(data, DefaultModuleDescriptor.newBasicInstance(mrids[j],
+                        madr == null ? null : madr.getArtifact().getPublicationDate()));
+                    nodes.put(mrids[j], node);
+                }
+                List moduleAdrs = (List) adrsByModule.get(mrids[j]);
+                confReport.restoreDependency(node, moduleAdrs == null ? new ArrayList()
+                        : moduleAdrs);
+            }
+            report.addReport(confs[i], confReport);
+        }
+        report.restoreDependencies(new ArrayList(nodes.values()), new ArrayList(artifacts));
+        return report;
+    }
+
+    private File getSnapshotFile() {
+        return ((DefaultResolutionCacheManager) settings.getResolutionCacheManager())
+                .getResolveSnapshotInCache(options.getResolveId());
+    }
+
+    /**
+     * Stores the snapshot of the given report, if it can be restored later.
+     */
+    public void save(ResolveReport report) throws IOException, ParseException {
+        if (report.hasError()) {
+            return;
+        }
+        long expiration = getExpiration(report);
+        if (expiration <= System.currentTimeMillis()) {
+            Message.verbose("\tno resolve snapshot stored for " + options.getResolveId()
+                    + ": dependencies have to be checked at each resolve");
+            return;
+        }
+        Properties snapshot = new Properties();
+        snapshot.setProperty(FINGERPRINT, getFingerprint());
+        if (expiration != Long.MAX_VALUE) {
+            snapshot.setProperty(EXPIRATION, String.valueOf(expiration));
+        }
+        FileOutputStream out = new FileOutputStream(getSnapshotFile());
+        try {
+            snapshot.store(out, md.getResolvedModuleRevisionId() + " resolve snapshot");
+        } finally {
+            out.close();
+        }
+    }
+
+    /**
+     * Returns the time until which the result of the resolve may be reused, which is limited by
+     * the TTL of the dynamic revisions asked in the resolved graph. Returns 0 when the graph
+     * contains modules checked in the repository at each resolve: changing revisions, revisions
+     * matching the changing pattern of a resolver or of its cache, or modules of a resolver
+     * checking the modification of their metadata.
+     */
+    private long getExpiration(ResolveReport report) {
+        long now = System.currentTimeMillis();
+        long expiration = Long.MAX_VALUE;
+        VersionMatcher versionMatcher = settings.getVersionMatcher();
+        for (Iterator it = report.getDependencies().iterator(); it.hasNext();) {
+            IvyNode node = (IvyNode) it.next();
+            if (node.getModuleRevision() == null) {
+                continue;
+            }
+            RepositoryCacheManager cacheManager = node.getModuleRevision().getResolver()
+                    .getRepositoryCacheManager();
+            Caller[] callers = node.getAllRealCallers();
+            for (int i = 0; i < callers.length; i++) {
+                DependencyDescriptor dd = callers[i].getDependencyDescriptor();
+                if (dd == null) {
+                    continue;
+                }
+                ModuleRevisionId askedMrid = dd.getDependencyRevisionId();
+                if (isCheckedAtEachResolve(settings.getResolver(askedMrid), dd)
+                        || isCheckedAtEachResolve(node.getModuleRevision().getResolver(), dd)) {
+                    return 0;
+                }
+                if (versionMatcher.isDynamic(askedMrid)) {
+                    long ttl = cacheManager instanceof DefaultRepositoryCacheManager ? ((DefaultRepositoryCacheManager) cacheManager)
+                            .getTTL(askedMrid) : 0;
+                    expiration = Math.min(expiration, ttl > Long.MAX_VALUE - now ? Long.MAX_VALUE
+                            : now + ttl);
+                }
+            }
+        }
+        return expiration;
+    }
+
+    private boolean isCheckedAtEachResolve(DependencyResolver resolver, DependencyDescriptor dd) {
+        if (resolver == null) {
+            return false;
+        }
+        if (!(resolver instanceof AbstractResolver)
+                || ((AbstractResolver) resolver).isCheckedAtEachResolve(dd)) {
+            return true;
+        }
+        if (resolver instanceof ChainResolver) {
+            for (Iterator it = ((ChainResolver) resolver).getResolvers().iterator(); it
+                    .hasNext();) {
+                if (isCheckedAtEachResolve((DependencyResolver) it.next(), dd)) {
+                    return true;
+                }
+            }
+        }
+        if (resolver instanceof DualResolver) {
+            DualResolver dual = (DualResolver) resolver;
+            return isCheckedAtEachResolve(dual.getIvyResolver(), dd)
+                    || isCheckedAtEachResolve(dual.getArtifactResolver(), dd);
+        }
+        return false;
+    }
+
+    private String getFingerprint() throws IOException, ParseException {
+        if (fingerprint == null) {
+            MessageDigest digest;
+            try {
+                digest = MessageDigest.getInstance("SHA-1");
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException("SHA-1 not supported: " + e.getMessage());
+            }
+            // the resolved ivy file is written by each resolve, and is a canonical form of the
+            // module descriptor
+            ResolutionCacheManager cacheManager = settings.getResolutionCacheManager();
+            cacheManager.saveResolvedModuleDescriptor(md);
+            update(digest, cacheManager.getResolvedIvyFileInCache(md.getResolvedModuleRevisionId()));
+            update(digest, describeOptions());
+            update(digest, describeSettings());
+            fingerprint = ChecksumHelper.byteArrayToHexString(digest.digest());
+        }
+        return fingerprint;
+    }
+
+    private String describeOptions() {
+        return "confs=" + Arrays.asList(options.getConfs()) + "\ntransitive="
+                + options.isTransitive() + "\nuseCacheOnly=" + options.isUseCacheOnly()
+                + "\nresolveMode=" + options.getResolveMode() + "\nrevision="
+                + options.getRevision() + "\ndate=" + options.getDate() + "\n";
+    }
+
+    private String describeSettings() throws IOException {
+        StringBuffer sb = new StringBuffer();
+        List/* <URL> */settingsFiles = new ArrayList();
+        if (settings instanceof IvySettings) {
+            settingsFiles.addAll(((IvySettings) settings).getSettingsFiles());
+        } else if (settings.getVariable("ivy.settings.file") != null) {
+            settingsFiles.add(new File(settings.getVariable("ivy.settings.file")).toURI().toURL());
+        }
+        for (Iterator it = settingsFiles.iterator(); it.hasNext();) {
+            describeSettingsFile(sb, (URL) it.next());
+        }
+        sb.append("conflictManager=").append(settings.getDefaultConflictManager().getName())
+                .append('\n');
+        sb.append("versionMatcher=").append(settings.getVersionMatcher().getName()).append('\n');
+        sb.append("defaultResolver=").append(settings.getDefaultResolver().getName())
+                .append('\n');
+        Map/* <String, DependencyResolver> */resolvers = new TreeMap();
+        for (Iterator it = settings.getResolvers().iterator(); it.hasNext();) {
+            DependencyResolver resolver = (DependencyResolver) it.next();
+            resolvers.put(resolver.getName(), resolver);
+        }
+        for (Iterator it = resolvers.values().iterator(); it.hasNext();) {
+            describeResolver(sb, (DependencyResolver) it.next());
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Describes a settings or properties file by the checksum of its content, or by its last
+     * modification date when it isn't a local file.
+     */
+    private void describeSettingsFile(StringBuffer sb, URL settingsFile) throws IOException {
+        sb.append("settings=").append(settingsFile.toExternalForm()).append(' ');
+        File file = null;
+        if ("file".equals(settingsFile.getProtocol())) {
+            try {
+                file = new File(new URI(settingsFile.toExternalForm()));
+            } catch (URISyntaxException e) {
+                // unexpected, try to get the best of it
+                file = new File(settingsFile.getPath());
+            }
+        }
+        if (file != null && file.isFile()) {
+            sb.append(ChecksumHelper.computeAsString(file, "sha1"));
+        } else {
+            sb.append(URLHandlerRegistry.getDefault().getLastModified(settingsFile));
+        }
+        sb.append('\n');
+    }
+
+    private void describeResolver(StringBuffer sb, DependencyResolver resolver) {
+        sb.append("resolver=").append(resolver.getName()).append(' ')
+                .append(resolver.getClass().getName()).append('\n');
+        if (resolver instanceof AbstractPatternsBasedResolver) {
+            AbstractPatternsBasedResolver patternsResolver = (AbstractPatternsBasedResolver) resolver;
+            sb.append("\tivys=").append(patternsResolver.getIvyPatterns()).append('\n');
+            sb.append("\tartifacts=").append(patternsResolver.getArtifactPatterns()).append('\n');
+        }
+        if (resolver instanceof ChainResolver) {
+            for (Iterator it = ((ChainResolver) resolver).getResolvers().iterator(); it
+                    .hasNext();) {
+                sb.append('\t');
+                describeResolver(sb, (DependencyResolver) it.next());
+            }
+        }
+    }
+
+    private static void update(MessageDigest digest, String text)
+            throws UnsupportedEncodingException {
+        digest.update(text.getBytes("UTF-8"));
+    }
+
+    private static void update(MessageDigest digest, File file) throws IOException {
+        InputStream in = new FileInputStream(file);
+        try {
+            byte[] buffer = new byte[4096];
+            int len;
+            while ((len = in.read(buffer)) > 0) {
+                digest.update(buffer, 0, len);
+            }
+        } finally {
+            in.close();
+        }
+    }
+}
@@ -0,0 +1,201 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  See the NOTICE file distributed with
+ *  this work for additional information regarding copyright ownership.
+ *  The ASF licenses this file to You under the Apache License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance with
+ *  the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package org.apache.ivy.core.retrieve;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.apache.ivy.core.IvyContext;
+import org.apache.ivy.util.DaemonThreadFactory;
+import org.apache.ivy.util.FileUtil;
+import org.apache.ivy.util.Message;
+
+/**
+ * Retrieves files on behalf of {@link RetrieveEngine}, according to a retrieve strategy of
+ * {@link RetrieveOptions}, and optionally on several threads.
+ * <p>
+ * When the links asked by the strategy can't be created, for instance because the destination
+ * isn't on the same file system as the cache, the files are copied with the
+ * {@link RetrieveOptions#STRATEGY_TRANSFER transfer} strategy instead. After such a failure,
+ * links are not tried anymore for the other files, the reason being most likely the same.
+ * Directories, like unpacked artifacts, are always copied.
+ * </p>
+ */
+class FileRetriever {
+    private final String strategy;
+
+    private volatile boolean linkFailed;
+
+    private ExecutorService executor;
+
+    /**
+     * @param strategy
+     *            the retrieve strategy to use
+     * @param threads
+     *            the maximum number of files retrieved at the same time
+     */
+    public FileRetriever(String strategy, int threads) {
+        if (!RetrieveOptions.STRATEGY_COPY.equals(strategy)
+                && !RetrieveOptions.STRATEGY_TRANSFER.equals(strategy)
+                && !RetrieveOptions.STRATEGY_HARDLINK.equals(strategy)
+                && !RetrieveOptions.STRATEGY_REFLINK.equals(strategy)) {
+            throw new IllegalArgumentException("unknown retrieve strategy '" + strategy + "'");
+        }
+        this.strategy = strategy;
+        if ((RetrieveOptions.STRATEGY_HARDLINK.equals(strategy) && !FileUtil.isHardlinkSupported())
+                || (RetrieveOptions.STRATEGY_REFLINK.equals(strategy) && !FileUtil
+                        .isReflinkSupported())) {
+            linkFailed = true;
+            Message.verbose("\t" + strategy + " isn't supported, falling back to "
+                    + RetrieveOptions.STRATEGY_TRANSFER);
+        }
+        if (threads > 1) {
+            this.executor = Executors.newFixedThreadPool(threads,
+                new DaemonThreadFactory("retrieve"));
+        }
+    }
+
+    /**
+     * Returns true if the files are retrieved by {@link #submit(File, File)} on other threads.
+     */
+    public boolean isConcurrent() {
+        return executor != null;
+    }
+
+    /**
+     * Retrieves the given file, overwriting the destination if it exists.
+     * 
+     * @return the strategy actually used
+     */
+    public String retrieve(File src, File dest) throws IOException {
+        if (src.isDirectory()) {
+            FileUtil.copy(src, dest, null, true);
+            return RetrieveOptions.STRATEGY_COPY;
+        }
+        if (RetrieveOptions.STRATEGY_COPY.equals(strategy)) {
+            copy(src, dest, false);
+            return RetrieveOptions.STRATEGY_COPY;
+        }
+        if (!RetrieveOptions.STRATEGY_TRANSFER.equals(strategy) && !linkFailed) {
+            try {
+                // the links replace the destination instead of writing it
+                if (RetrieveOptions.STRATEGY_HARDLINK.equals(strategy)) {
+                    FileUtil.hardlink(src, dest, true);
+                } else {
+                    FileUtil.reflink(src, dest, true);
+                }
+                return strategy;
+            } catch (IOException e) {
+                linkFailed = true;
+                Message.verbose("\t" + strategy + " failed, falling back to "
+                        + RetrieveOptions.STRATEGY_TRANSFER + ": " + e.getMessage());
+            }
+        }
+        copy(src, dest, true);
+        return RetrieveOptions.STRATEGY_TRANSFER;
+    }
+
+    /**
+     * Copies the given file. An existing destination isn't written: it may be a hard link to a file
+     * of the cache, made by a previous retrieve. The file is copied next to it instead, and then
+     * renamed over it.
+     */
+    private void copy(File src, File dest, boolean transfer) throws IOException {
+        if (!dest.exists()) {
+            doCopy(src, dest, transfer);
+            return;
+        }
+        File temp = File.createTempFile(dest.getName(), ".part", dest.getParentFile());
+        try {
+            doCopy(src, temp, transfer);
+            // renaming over an existing file fails on some platforms
+            if (!temp.renameTo(dest) && !(dest.delete() && temp.renameTo(dest))) {
+                throw new IOException("impossible to move " + temp + " to " + dest);
+            }
+        } finally {
+            if (temp.exists()) {
+                temp.delete();
+            }
+        }
+    }
+
+    private void doCopy(File src, File dest, boolean transfer) throws IOException {
+        if (transfer) {
+            FileUtil.transferCopy(src, dest, true);
+        } else {
+            FileUtil.copy(src, dest, null, true);
+        }
+    }
+
+    /**
+     * Schedules the retrieve of the given file on another thread.
+     * 
+     * @return a Future on the strategy used, to be passed to {@link #getStrategy(Future)}
+     */
+    public Future submit(final File src, final File dest) {
+        final IvyContext context = new IvyContext(IvyContext.getContext());
+        return executor.submit(new Callable() {
+            public Object call() throws Exception {
+                IvyContext.pushContext(context);
+                try {
+                    return retrieve(src, dest);
+                } finally {
+                    IvyContext.popContext();
+                }
+            }
+        });
+    }
+
+    /**
+     * Waits for the given retrieve to complete and returns the strategy it used. Exceptions raised
+     * during the retrieve are thrown back in the calling thread.
+     */
+    public String getStrategy(Future retrieve) throws IOException {
+        try {
+            return (String) retrieve.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("operation interrupted");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw new RuntimeException(e.getCause().getMessage(), e.getCause());
+        }
+    }
+
+    /**
+     * Cancels all pending retrieves and releases the threads used.
+     */
+    public void shutdown() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+}
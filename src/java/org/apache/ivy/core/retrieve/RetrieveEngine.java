@@ -31,10 +31,12 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Future;
 
 import org.apache.ivy.core.IvyContext;
 import org.apache.ivy.core.IvyPatternHelper;
 import org.apache.ivy.core.LogOptions;
+import org.apache.ivy.core.cache.DefaultResolutionCacheManager;
 import org.apache.ivy.core.cache.ResolutionCacheManager;
 import org.apache.ivy.core.event.EventManager;
 import org.apache.ivy.core.event.retrieve.EndRetrieveArtifactEvent;
@@ -127,6 +129,23 @@ public class RetrieveEngine {
             // for sync)
             Collection targetIvysStructure = new HashSet(); // same for ivy files
 
+            RetrieveManifest manifest = null;
+            if (options.isUseManifest() && getCache() instanceof DefaultResolutionCacheManager) {
+                String destination = settings.resolveFile(destFilePattern).getAbsolutePath();
+                if (destIvyPattern != null) {
+                    destination += File.pathSeparator
+                            + settings.resolveFile(destIvyPattern).getAbsolutePath();
+                }
+                manifest = new RetrieveManifest(
+                        ((DefaultResolutionCacheManager) getCache()).getRetrieveManifestInCache(
+                            options.getResolveId(), destination), destination);
+                Message.verbose("\tretrieve manifest "
+                        + (manifest.isLoaded() ? "found" : "not found"));
+            }
+            // with a manifest, sync only deletes the files known to be stale
+            boolean computeTargetStructure = options.isSync()
+                    && (manifest == null || !manifest.isLoaded());
+
             if (options.isMakeSymlinksInMass()) {
                 // The HashMap is of "destToSrc" because src could go two places, but dest can only
                 // come from one
@@ -134,7 +153,8 @@ public class RetrieveEngine {
             }
 
             // do retrieve
-            long totalCopiedSize = 0;
+            // List<Object[] {ArtifactDownloadReport, File archive, File destFile}>
+            List toRetrieve = new ArrayList();
             for (Iterator iter = artifactsToCopy.keySet().iterator(); iter.hasNext();) {
                 ArtifactDownloadReport artifact = (ArtifactDownloadReport) iter.next();
                 File archive = artifact.getLocalFile();
@@ -146,55 +166,91 @@ public class RetrieveEngine {
                     continue;
                 }
                 Set dest = (Set) artifactsToCopy.get(artifact);
-                Message.verbose("\tretrieving " + archive);
                 for (Iterator it2 = dest.iterator(); it2.hasNext();) {
                     IvyContext.getContext().checkInterrupted();
                     File destFile = settings.resolveFile((String) it2.next());
-                    if (!settings.isCheckUpToDate() || !upToDate(archive, destFile, options)) {
-                        Message.verbose("\t\tto " + destFile);
-                        if (this.eventManager != null) {
-                            // There is no unitary event for the mass sym linking.
-                            // skip the event declaration.
-                            if (!options.isMakeSymlinksInMass()) {
-                                this.eventManager.fireIvyEvent(new StartRetrieveArtifactEvent(
-                                        artifact, destFile));
-                            }
-                        }
-                        if (options.isMakeSymlinksInMass()) {
-                            if (FileUtil.prepareCopy(archive, destFile, true)) {
-                                destToSrcMap.put(destFile, archive);
-                            }
-                        } else if (options.isMakeSymlinks()) {
-                            FileUtil.symlink(archive, destFile, null, true);
-                        } else {
-                            FileUtil.copy(archive, destFile, null, true);
-                        }
-                        if (this.eventManager != null) {
-                            // There is no unitary event for the mass sym linking.
-                            // skip the event declaration.
-                            if (!options.isMakeSymlinksInMass()) {
-                                this.eventManager.fireIvyEvent(new EndRetrieveArtifactEvent(
-                                        artifact, destFile));
-                            }
-                        }
-                        totalCopiedSize += FileUtil.getFileLength(destFile);
-                        report.addCopiedFile(destFile, artifact);
+                    if (!settings.isCheckUpToDate()
+                            || !upToDate(archive, destFile, options, manifest)) {
+                        toRetrieve.add(new Object[] {artifact, archive, destFile});
                     } else {
-                        Message.verbose("\t\tto " + destFile + " [NOT REQUIRED]");
+                        Message.verbose("\t\t" + archive + " to " + destFile + " [NOT REQUIRED]");
                         report.addUpToDateFile(destFile, artifact);
+                        if (computeTargetStructure) {
+                            addToTargetStructure(artifact, destFile, fileRetrieveRoot,
+                                targetArtifactsStructure, ivyRetrieveRoot, targetIvysStructure);
+                        }
                     }
+                }
+            }
 
-                    if ("ivy".equals(artifact.getType())) {
-                        targetIvysStructure
-                                .addAll(FileUtil.getPathFiles(ivyRetrieveRoot, destFile));
+            FileRetriever retriever = null;
+            Future[] retrieves = null;
+            if (!options.isMakeSymlinks() && !options.isMakeSymlinksInMass()) {
+                retriever = new FileRetriever(options.getStrategy(), options.getThreads());
+                Message.verbose("\tretrieve strategy: " + options.getStrategy());
+                if (retriever.isConcurrent()) {
+                    Message.verbose("\tretrieving files using " + options.getThreads()
+                            + " threads");
+                    // the files are all submitted upfront, but the events and the report are
+                    // produced below in the same order as when retrieving sequentially
+                    retrieves = new Future[toRetrieve.size()];
+                    for (int i = 0; i < retrieves.length; i++) {
+                        Object[] file = (Object[]) toRetrieve.get(i);
+                        retrieves[i] = retriever.submit((File) file[1], (File) file[2]);
+                    }
+                }
+            }
+
+            long totalCopiedSize = 0;
+            try {
+                for (int i = 0; i < toRetrieve.size(); i++) {
+                    IvyContext.getContext().checkInterrupted();
+                    Object[] file = (Object[]) toRetrieve.get(i);
+                    ArtifactDownloadReport artifact = (ArtifactDownloadReport) file[0];
+                    File archive = (File) file[1];
+                    File destFile = (File) file[2];
+                    Message.verbose("\t\t" + archive + " to " + destFile);
+                    if (this.eventManager != null) {
+                        // There is no unitary event for the mass sym linking.
+                        // skip the event declaration.
+                        if (!options.isMakeSymlinksInMass()
+                                && eventManager
+                                        .isIvyEventListened(StartRetrieveArtifactEvent.NAME)) {
+                            this.eventManager.fireIvyEvent(new StartRetrieveArtifactEvent(
+                                    artifact, destFile));
+                        }
+                    }
+                    String strategy = RetrieveOptions.STRATEGY_SYMLINK;
+                    if (options.isMakeSymlinksInMass()) {
+                        if (FileUtil.prepareCopy(archive, destFile, true)) {
+                            destToSrcMap.put(destFile, archive);
+                        }
+                    } else if (options.isMakeSymlinks()) {
+                        FileUtil.symlink(archive, destFile, null, true);
+                    } else if (retrieves != null) {
+                        strategy = retriever.getStrategy(retrieves[i]);
                     } else {
-                        Iterator destFiles = FileUtil.listAll(destFile, Collections.EMPTY_LIST)
-                                .iterator();
-                        while (destFiles.hasNext()) {
-                            targetArtifactsStructure.addAll(FileUtil.getPathFiles(fileRetrieveRoot,
-                                (File) destFiles.next()));
+                        strategy = retriever.retrieve(archive, destFile);
+                    }
+                    if (this.eventManager != null) {
+                        // There is no unitary event for the mass sym linking.
+                        // skip the event declaration.
+                        if (!options.isMakeSymlinksInMass()
+                                && eventManager.isIvyEventListened(EndRetrieveArtifactEvent.NAME)) {
+                            this.eventManager.fireIvyEvent(new EndRetrieveArtifactEvent(
+                                    artifact, destFile));
                         }
                     }
+                    totalCopiedSize += FileUtil.getFileLength(destFile);
+                    report.addCopiedFile(destFile, artifact, strategy);
+                    if (computeTargetStructure) {
+                        addToTargetStructure(artifact, destFile, fileRetrieveRoot,
+                            targetArtifactsStructure, ivyRetrieveRoot, targetIvysStructure);
+                    }
+                }
+            } finally {
+                if (retriever != null) {
+                    retriever.shutdown();
                 }
             }
 
@@ -203,7 +259,20 @@ public class RetrieveEngine {
                 FileUtil.symlinkInMass(destToSrcMap, true);
             }
 
-            if (options.isSync()) {
+            if (manifest != null) {
+                for (Iterator iter = toRetrieve.iterator(); iter.hasNext();) {
+                    Object[] file = (Object[]) iter.next();
+                    manifest.record((File) file[1], (File) file[2]);
+                }
+            }
+
+            if (options.isSync() && !computeTargetStructure) {
+                Message.verbose("\tsyncing using the retrieve manifest...");
+                Collection stale = manifest.getStaleTargets();
+                for (Iterator iter = stale.iterator(); iter.hasNext();) {
+                    deleteStaleTarget((File) iter.next(), fileRetrieveRoot, ivyRetrieveRoot);
+                }
+            } else if (options.isSync()) {
                 Message.verbose("\tsyncing...");
 
                 String[] ignorableFilenames = settings.getIgnorableFilenames();
@@ -226,6 +295,9 @@ public class RetrieveEngine {
                     }
                 }
             }
+            if (manifest != null) {
+                manifest.save();
+            }
             long elapsedTime = System.currentTimeMillis() - start;
             String msg = "\t"
                     + report.getNbrArtifactsCopied()
@@ -250,6 +322,24 @@ public class RetrieveEngine {
         }
     }
 
+    /**
+     * Adds the paths of the given retrieved file to the paths which should be present at the end
+     * of the retrieve, which are used to sync the retrieve directories.
+     */
+    private void addToTargetStructure(ArtifactDownloadReport artifact, File destFile,
+            File fileRetrieveRoot, Collection targetArtifactsStructure, File ivyRetrieveRoot,
+            Collection targetIvysStructure) {
+        if ("ivy".equals(artifact.getType())) {
+            targetIvysStructure.addAll(FileUtil.getPathFiles(ivyRetrieveRoot, destFile));
+        } else {
+            Iterator destFiles = FileUtil.listAll(destFile, Collections.EMPTY_LIST).iterator();
+            while (destFiles.hasNext()) {
+                targetArtifactsStructure.addAll(FileUtil.getPathFiles(fileRetrieveRoot,
+                    (File) destFiles.next()));
+            }
+        }
+    }
+
     private String[] getConfs(ModuleRevisionId mrid, RetrieveOptions options) throws IOException {
         String[] confs = options.getConfs();
         if (confs == null || (confs.length == 1 && "*".equals(confs[0]))) {
@@ -324,9 +414,7 @@ public class RetrieveEngine {
         for (int i = 0; i < confs.length; i++) {
             final String conf = confs[i];
 
-            File report = cacheManager.getConfigurationResolveReportInCache(options.getResolveId(),
-                conf);
-            parser.parse(report);
+            parser.parse(cacheManager, options.getResolveId(), conf);
 
             Collection artifacts = new ArrayList(Arrays.asList(parser.getArtifactReports()));
             if (destIvyPattern != null) {
@@ -442,6 +530,62 @@ public class RetrieveEngine {
         return artifactsToCopy;
     }
 
+    /**
+     * Deletes a file retrieved by a previous retrieve which isn't retrieved anymore, along with
+     * the directories it leaves empty under the retrieve roots.
+     */
+    private void deleteStaleTarget(File file, File fileRetrieveRoot, File ivyRetrieveRoot) {
+        if (file.exists()) {
+            Message.verbose("\t\tdeleting " + file);
+            FileUtil.forceDelete(file);
+        }
+        File root = isInDirectory(file, fileRetrieveRoot) ? fileRetrieveRoot : ivyRetrieveRoot;
+        if (root == null || !isInDirectory(file, root)) {
+            return;
+        }
+        for (File dir = file.getParentFile(); dir != null && !dir.equals(root); dir = dir
+                .getParentFile()) {
+            String[] children = dir.list();
+            if (children == null || children.length > 0) {
+                break;
+            }
+            Message.verbose("\t\tdeleting " + dir);
+            dir.delete();
+        }
+    }
+
+    private static boolean isInDirectory(File file, File dir) {
+        if (dir == null) {
+            return false;
+        }
+        String dirPath = dir.getAbsolutePath() + File.separator;
+        return file.getAbsolutePath().startsWith(dirPath);
+    }
+
+    /**
+     * Checks if the given target is up to date, according to the manifest of the previous retrieve
+     * when the overwrite mode depends on the source and the target, and the target is known there
+     * to be unchanged, or else according to the overwrite mode. Up to date targets are kept in the
+     * manifest.
+     */
+    private boolean upToDate(File source, File target, RetrieveOptions options,
+            RetrieveManifest manifest) {
+        if (manifest == null) {
+            return upToDate(source, target, options);
+        }
+        String overwriteMode = options.getOverwriteMode();
+        boolean comparingFiles = RetrieveOptions.OVERWRITEMODE_NEWER.equals(overwriteMode)
+                || RetrieveOptions.OVERWRITEMODE_DIFFERENT.equals(overwriteMode);
+        if (manifest.isLoaded() && comparingFiles && manifest.isUpToDate(source, target)) {
+            return true;
+        }
+        if (upToDate(source, target, options)) {
+            manifest.record(source, target);
+            return true;
+        }
+        return false;
+    }
+
     private boolean upToDate(File source, File target, RetrieveOptions options) {
         if (!target.exists()) {
             return false;
@@ -0,0 +1,189 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  See the NOTICE file distributed with
+ *  this work for additional information regarding copyright ownership.
+ *  The ASF licenses this file to You under the Apache License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance with
+ *  the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package org.apache.ivy.core.retrieve;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Properties;
+
+import org.apache.ivy.util.Message;
+
+/**
+ * The manifest of the files written by a retrieve, allowing the next retrieve to the same
+ * destination to know which files are still up to date, and which files it should delete when
+ * synchronizing the destination, without walking the destination directories.
+ * <p>
+ * For each retrieved file, the manifest records the path, size and modification date of its
+ * source, along with the size and modification date of the retrieved file. A retrieved file with
+ * the modification date of its source is known to be up to date as long as it is retrieved from
+ * the same source, and neither the source nor the retrieved file has been modified since.
+ * Otherwise the overwrite mode of the retrieve decides whether it is up to date.
+ * </p>
+ * <p>
+ * The manifest is stored in the resolution cache, and is identified by the resolve id and the
+ * destination patterns of the retrieve.
+ * </p>
+ */
+class RetrieveManifest {
+    private static final String DESTINATION = "destination";
+
+    private static final String TARGET_PREFIX = "target.";
+
+    private final File file;
+
+    private final String destination;
+
+    private final boolean loaded;
+
+    /**
+     * the entries of the previous retrieve, by target path
+     */
+    private final Map/* <String, String> */previous = new HashMap();
+
+    /**
+     * the entries of the current retrieve, by target path
+     */
+    private final Map/* <String, String> */current = new HashMap();
+
+    /**
+     * @param file
+     *            the file in which the manifest is stored
+     * @param destination
+     *            the destination patterns of the retrieve
+     */
+    public RetrieveManifest(File file, String destination) {
+        this.file = file;
+        this.destination = destination;
+        this.loaded = load();
+    }
+
+    private boolean load() {
+        if (!file.exists()) {
+            return false;
+        }
+        Properties props = new Properties();
+        try {
+            FileInputStream in = new FileInputStream(file);
+            try {
+                props.load(in);
+            } finally {
+                in.close();
+            }
+        } catch (IOException e) {
+            Message.verbose("\timpossible to read retrieve manifest " + file + ": " + e);
+            return false;
+        }
+        if (!destination.equals(props.getProperty(DESTINATION))) {
+            // another destination with the same hash
+            return false;
+        }
+        for (Iterator it = props.entrySet().iterator(); it.hasNext();) {
+            Map.Entry entry = (Map.Entry) it.next();
+            String key = (String) entry.getKey();
+            if (key.startsWith(TARGET_PREFIX)) {
+                previous.put(key.substring(TARGET_PREFIX.length()), entry.getValue());
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns true if a manifest of a previous retrieve to the same destination has been found.
+     */
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    /**
+     * Returns true if the given target has been retrieved from the given source by the previous
+     * retrieve, and if none of them has been modified since, according to their recorded size and
+     * modification date. Only a target with the modification date of its source can be up to
+     * date, since any other is up to date or not depending on the overwrite mode. If so, the
+     * target is kept in the manifest of the current retrieve.
+     */
+    public boolean isUpToDate(File source, File target) {
+        if (source.lastModified() != target.lastModified()) {
+            return false;
+        }
+        String key = target.getAbsolutePath();
+        String entry = (String) previous.get(key);
+        if (entry == null || !entry.equals(toEntry(source, target))) {
+            return false;
+        }
+        current.put(key, entry);
+        return true;
+    }
+
+    /**
+     * Records that the given target has been retrieved from the given source. Must be called once
+     * the target has been written.
+     */
+    public void record(File source, File target) {
+        current.put(target.getAbsolutePath(), toEntry(source, target));
+    }
+
+    /**
+     * Returns the targets of the previous retrieve which have not been retrieved nor found up to
+     * date by the current one.
+     */
+    public Collection/* <File> */getStaleTargets() {
+        Collection stale = new ArrayList();
+        for (Iterator it = previous.keySet().iterator(); it.hasNext();) {
+            String target = (String) it.next();
+            if (!current.containsKey(target)) {
+                stale.add(new File(target));
+            }
+        }
+        return stale;
+    }
+
+    /**
+     * Stores the manifest of the current retrieve, unless it is the same as the previous one.
+     */
+    public void save() throws IOException {
+        if (loaded && previous.equals(current)) {
+            return;
+        }
+        Properties props = new Properties();
+        props.setProperty(DESTINATION, destination);
+        for (Iterator it = current.entrySet().iterator(); it.hasNext();) {
+            Map.Entry entry = (Map.Entry) it.next();
+            props.setProperty(TARGET_PREFIX + entry.getKey(), (String) entry.getValue());
+        }
+        file.getParentFile().mkdirs();
+        FileOutputStream out = new FileOutputStream(file);
+        try {
+            props.store(out, null);
+        } finally {
+            out.close();
+        }
+    }
+
+    private static String toEntry(File source, File target) {
+        // the source path comes last, since it may contain any character
+        return source.length() + "," + source.lastModified() + "," + target.length() + ","
+                + target.lastModified() + "," + source.getAbsolutePath();
+    }
+}
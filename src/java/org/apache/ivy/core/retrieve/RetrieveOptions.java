@@ -35,6 +35,36 @@ public class RetrieveOptions extends LogOptions {
 
     public static final String OVERWRITEMODE_DIFFERENT = "different";
 
+    /**
+     * Retrieve strategy copying the files through a buffer, notifying copy progress.
+     */
+    public static final String STRATEGY_COPY = "copy";
+
+    /**
+     * Retrieve strategy copying the files with file channels, letting the operating system
+     * transfer the content.
+     */
+    public static final String STRATEGY_TRANSFER = "transfer";
+
+    /**
+     * Retrieve strategy creating hard links to the files of the cache, falling back to
+     * {@link #STRATEGY_TRANSFER} when they can't be created. The retrieved files must then never
+     * be modified in place, as the files of the cache would be modified too.
+     */
+    public static final String STRATEGY_HARDLINK = "hardlink";
+
+    /**
+     * Retrieve strategy creating copy-on-write clones of the files of the cache, falling back to
+     * {@link #STRATEGY_TRANSFER} when the file system doesn't support them.
+     */
+    public static final String STRATEGY_REFLINK = "reflink";
+
+    /**
+     * Strategy reported for the files retrieved as symbolic links, which are asked with
+     * {@link #setMakeSymlinks(boolean)} or {@link #setMakeSymlinksInMass(boolean)}.
+     */
+    public static final String STRATEGY_SYMLINK = "symlink";
+
     /**
      * The names of configurations to retrieve. If the array consists only of '*', then all
      * configurations of the module will be retrieved.
@@ -83,6 +113,22 @@ public class RetrieveOptions extends LogOptions {
      */
     private boolean makeSymlinksInMass = false;
 
+    /**
+     * How the files are retrieved when no symbolic link is asked.
+     */
+    private String strategy = STRATEGY_COPY;
+
+    /**
+     * The number of files retrieved at the same time.
+     */
+    private int threads = 1;
+
+    /**
+     * True if a manifest of the retrieved files should be kept in the resolution cache, to know
+     * which files are up to date and which files are stale at the next retrieve.
+     */
+    private boolean useManifest = false;
+
     /**
      * The id used to store the resolve information.
      */
@@ -104,6 +150,9 @@ public class RetrieveOptions extends LogOptions {
         this.useOrigin = options.useOrigin;
         this.makeSymlinks = options.makeSymlinks;
         this.makeSymlinksInMass = options.makeSymlinksInMass;
+        this.strategy = options.strategy;
+        this.threads = options.threads;
+        this.useManifest = options.useManifest;
         this.resolveId = options.resolveId;
         this.mapper = options.mapper;
     }
@@ -171,6 +220,49 @@ public class RetrieveOptions extends LogOptions {
         return this;
     }
 
+    public String getStrategy() {
+        return strategy == null ? STRATEGY_COPY : strategy;
+    }
+
+    /**
+     * Sets how the files are retrieved when no symbolic link is asked, one of
+     * {@link #STRATEGY_COPY}, {@link #STRATEGY_TRANSFER}, {@link #STRATEGY_HARDLINK} and
+     * {@link #STRATEGY_REFLINK}.
+     */
+    public RetrieveOptions setStrategy(String strategy) {
+        this.strategy = strategy;
+        return this;
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+
+    /**
+     * Sets the number of files retrieved at the same time when no symbolic link is asked, 1 to
+     * retrieve them one after the other.
+     */
+    public RetrieveOptions setThreads(int threads) {
+        this.threads = threads;
+        return this;
+    }
+
+    public boolean isUseManifest() {
+        return useManifest;
+    }
+
+    /**
+     * Sets if the retrieve should keep a manifest of the retrieved files in the resolution cache.
+     * With a manifest, a file is up to date if it has been retrieved from the same source by the
+     * previous retrieve to the same destination, and neither of them has been modified since. The
+     * synchronisation of the destination then only deletes the files retrieved by the previous
+     * retrieve which aren't retrieved anymore, instead of all the files which aren't retrieved.
+     */
+    public RetrieveOptions setUseManifest(boolean useManifest) {
+        this.useManifest = useManifest;
+        return this;
+    }
+
     public boolean isSync() {
         return sync;
     }
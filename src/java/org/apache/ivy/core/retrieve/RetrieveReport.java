@@ -34,6 +34,8 @@ public class RetrieveReport {
 
     private Map/* <File, ArtifactDownloadReport> */downloadReport = new HashMap();
 
+    private Map/* <File, String> */strategies = new HashMap();
+
     private File retrieveRoot;
 
     /**
@@ -60,6 +62,15 @@ public class RetrieveReport {
         downloadReport.put(file, report);
     }
 
+    /**
+     * Records a copied file along with the strategy which has actually been used to retrieve it,
+     * one of the <code>STRATEGY_*</code> constants of {@link RetrieveOptions}.
+     */
+    public void addCopiedFile(File file, ArtifactDownloadReport report, String strategy) {
+        addCopiedFile(file, report);
+        strategies.put(file, strategy);
+    }
+
     public void addUpToDateFile(File file, ArtifactDownloadReport report) {
         upToDateFiles.add(file);
         downloadReport.put(file, report);
@@ -92,6 +103,15 @@ public class RetrieveReport {
         return result;
     }
 
+    /**
+     * Returns the strategy which has been used to retrieve the given copied file, as one of the
+     * <code>STRATEGY_*</code> constants of {@link RetrieveOptions}, or <code>null</code> if the
+     * file hasn't been copied or if the strategy used is unknown.
+     */
+    public String getRetrieveStrategy(File file) {
+        return (String) strategies.get(file);
+    }
+
     /**
      * Get the mapping between the copied files and their corresponding download report
      */
@@ -76,6 +76,7 @@ import org.apache.ivy.plugins.latest.LatestLexicographicStrategy;
 import org.apache.ivy.plugins.latest.LatestRevisionStrategy;
 import org.apache.ivy.plugins.latest.LatestStrategy;
 import org.apache.ivy.plugins.latest.LatestTimeStrategy;
+import org.apache.ivy.plugins.lock.BlockingFileLockStrategy;
 import org.apache.ivy.plugins.lock.CreateFileLockStrategy;
 import org.apache.ivy.plugins.lock.LockStrategy;
 import org.apache.ivy.plugins.lock.NIOFileLockStrategy;
@@ -148,8 +149,8 @@ public class IvySettings implements SortEngineSettings, PublishEngineSettings, P
     // Map (String matcherName -> Matcher)
     private Map matchers = new HashMap();
 
-    // Map (String outputterName -> ReportOutputter)
-    private Map reportOutputters = new HashMap();
+    // Map (String outputterName -> ReportOutputter), in registration order
+    private Map reportOutputters = new LinkedHashMap();
 
     // Map (String matcherName -> VersionMatcher)
     private Map versionMatchers = new HashMap();
@@ -216,6 +217,8 @@ public class IvySettings implements SortEngineSettings, PublishEngineSettings, P
 
     private String defaultResolveMode = ResolveOptions.RESOLVEMODE_DEFAULT;
 
+    private List/* <URL> */settingsFiles = new ArrayList();
+
     private PackingRegistry packingRegistry = new PackingRegistry();
 
     public IvySettings() {
@@ -262,6 +265,7 @@ public class IvySettings implements SortEngineSettings, PublishEngineSettings, P
         addLockStrategy("no-lock", new NoLockStrategy());
         addLockStrategy("artifact-lock", new CreateFileLockStrategy(debugLocking()));
         addLockStrategy("artifact-lock-nio", new NIOFileLockStrategy(debugLocking()));
+        addLockStrategy("artifact-lock-blocking", new BlockingFileLockStrategy(debugLocking()));
 
         addConflictManager("latest-revision", new LatestConflictManager("latest-revision",
                 latestRevisionStrategy));
@@ -551,6 +555,7 @@ public class IvySettings implements SortEngineSettings, PublishEngineSettings, P
 
     public synchronized void loadProperties(URL url, boolean overwrite) throws IOException {
         loadProperties(url.openStream(), overwrite);
+        addSettingsFile(url);
     }
 
     public synchronized void loadProperties(File file) throws IOException {
@@ -559,6 +564,7 @@ public class IvySettings implements SortEngineSettings, PublishEngineSettings, P
 
     public synchronized void loadProperties(File file, boolean overwrite) throws IOException {
         loadProperties(new FileInputStream(file), overwrite);
+        addSettingsFile(file.toURI().toURL());
     }
 
     private void loadProperties(InputStream stream, boolean overwrite) throws IOException {
@@ -984,6 +990,21 @@ public class IvySettings implements SortEngineSettings, PublishEngineSettings, P
         this.defaultResolveMode = defaultResolveMode;
     }
 
+    /**
+     * Records a settings or properties file loaded in these settings.
+     */
+    public synchronized void addSettingsFile(URL settingsFile) {
+        settingsFiles.add(settingsFile);
+    }
+
+    /**
+     * Returns the URLs of the settings and properties files loaded in these settings, included
+     * ones as well, in the order they were loaded.
+     */
+    public synchronized List/* <URL> */getSettingsFiles() {
+        return new ArrayList(settingsFiles);
+    }
+
     public synchronized void addConfigured(ConflictManager cm) {
         addConflictManager(cm.getName(), cm);
     }
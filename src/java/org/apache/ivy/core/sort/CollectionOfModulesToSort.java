@@ -60,7 +60,7 @@ class CollectionOfModulesToSort implements Iterable<ModuleInSort> {
         this.modulesByModuleId = new HashMap<ModuleId, Collection<ModuleInSort>>();
         moduleDescriptors = new ArrayList<ModuleInSort>(modulesToSort.size());
         for (ModuleDescriptor md : modulesToSort) {
-            ModuleInSort mdInSort = new ModuleInSort(md);
+            ModuleInSort mdInSort = new ModuleInSort(md, moduleDescriptors.size());
             moduleDescriptors.add(mdInSort);
             addToModulesByModuleId(md, mdInSort);
         }
@@ -84,6 +84,37 @@ class CollectionOfModulesToSort implements Iterable<ModuleInSort> {
         return moduleDescriptors.size();
     }
 
+    /**
+     * Returns the module at the given position in this collection.
+     */
+    public ModuleInSort get(int index) {
+        return moduleDescriptors.get(index);
+    }
+
+    /**
+     * Finds the modules of this collection each module of this collection depends on, once for
+     * all, and stores their positions in the modules.
+     */
+    public void linkDependencies() {
+        int[] buffer = new int[16];
+        for (ModuleInSort mdInSort : moduleDescriptors) {
+            DependencyDescriptor[] descriptors = mdInSort.getDependencies();
+            if (buffer.length < descriptors.length) {
+                buffer = new int[descriptors.length];
+            }
+            int count = 0;
+            for (int i = 0; i < descriptors.length; i++) {
+                ModuleInSort dependency = getModuleDescriptorDependency(descriptors[i]);
+                if (dependency != null) {
+                    buffer[count++] = dependency.getIndex();
+                }
+            }
+            int[] dependencies = new int[count];
+            System.arraycopy(buffer, 0, dependencies, 0, count);
+            mdInSort.setDependencyIndexes(dependencies);
+        }
+    }
+
     /**
      * Find a matching module descriptor in the list of module to sort.
      * 
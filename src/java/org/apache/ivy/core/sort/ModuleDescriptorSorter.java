@@ -17,12 +17,13 @@
  */
 package org.apache.ivy.core.sort;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
-import java.util.LinkedList;
 import java.util.List;
 
-import org.apache.ivy.core.module.descriptor.DependencyDescriptor;
 import org.apache.ivy.core.module.descriptor.ModuleDescriptor;
+import org.apache.ivy.core.module.id.ModuleRevisionId;
 import org.apache.ivy.plugins.circular.CircularDependencyException;
 import org.apache.ivy.plugins.circular.CircularDependencyStrategy;
 import org.apache.ivy.plugins.version.VersionMatcher;
@@ -30,17 +31,24 @@ import org.apache.ivy.util.Message;
 
 /**
  * Inner helper class for sorting ModuleDescriptors.<br>
- * ModuleDescriptorSorter use CollectionOfModulesToSort to find the dependencies of the modules, and
- * use ModuleInSort to store some temporary values attached to the modules to sort.
+ * ModuleDescriptorSorter use CollectionOfModulesToSort to find the dependencies of the modules
+ * once for all, and then sorts the modules with Tarjan's strongly connected components algorithm,
+ * run iteratively so that the depth of the dependency graph is not limited by the stack size.
+ * <p>
+ * The strongly connected components are found dependencies first, which gives the sorted order.
+ * The modules of a component, i.e. of a loop, are sorted from the last visited to the first one.
+ * Each loop found through the dependencies of a module currently visited is reported to the
+ * circular dependency strategy.
+ * </p>
  * 
  * @see ModuleInSort
  * @see CollectionOfModulesToSort
  */
 public class ModuleDescriptorSorter {
 
-    private final CollectionOfModulesToSort moduleDescriptors;
+    private static final int UNVISITED = -1;
 
-    private final List<ModuleDescriptor> sorted = new LinkedList<ModuleDescriptor>();
+    private final CollectionOfModulesToSort moduleDescriptors;
 
     private final CircularDependencyStrategy circularDepStrategy;
 
@@ -53,53 +61,100 @@ public class ModuleDescriptorSorter {
     }
 
     /**
-     * Iterates over all modules calling sortModuleDescriptorsHelp.
+     * Sorts the modules, from the less dependent to the more dependent.
      * 
      * @return sorted module
      * @throws CircularDependencyException
      */
     public List<ModuleDescriptor> sortModuleDescriptors() throws CircularDependencyException {
-        Message.debug("Nbr of module to sort : " + moduleDescriptors.size());
-        for (ModuleInSort m : moduleDescriptors) {
-            sortModuleDescriptorsHelp(m, m);
+        int size = moduleDescriptors.size();
+        Message.debug("Nbr of module to sort : " + size);
+        moduleDescriptors.linkDependencies();
+
+        List<ModuleDescriptor> sorted = new ArrayList<ModuleDescriptor>(size);
+        int[] visitIndex = new int[size];
+        Arrays.fill(visitIndex, UNVISITED);
+        int[] lowLink = new int[size];
+        boolean[] inComponentStack = new boolean[size];
+        int[] componentStack = new int[size];
+        int componentStackSize = 0;
+        // the modules currently visited, each one depending on the previous one
+        int[] path = new int[size];
+        int[] pathPosition = new int[size];
+        int[] nextDependency = new int[size];
+        int pathSize = 0;
+        int visited = 0;
+
+        for (int root = 0; root < size; root++) {
+            if (visitIndex[root] != UNVISITED) {
+                continue;
+            }
+            visitIndex[root] = visited;
+            lowLink[root] = visited++;
+            componentStack[componentStackSize++] = root;
+            inComponentStack[root] = true;
+            pathPosition[root] = pathSize;
+            nextDependency[pathSize] = 0;
+            path[pathSize++] = root;
+
+            while (pathSize > 0) {
+                int current = path[pathSize - 1];
+                int[] dependencies = moduleDescriptors.get(current).getDependencyIndexes();
+                if (nextDependency[pathSize - 1] < dependencies.length) {
+                    int dependency = dependencies[nextDependency[pathSize - 1]++];
+                    if (visitIndex[dependency] == UNVISITED) {
+                        visitIndex[dependency] = visited;
+                        lowLink[dependency] = visited++;
+                        componentStack[componentStackSize++] = dependency;
+                        inComponentStack[dependency] = true;
+                        pathPosition[dependency] = pathSize;
+                        nextDependency[pathSize] = 0;
+                        path[pathSize++] = dependency;
+                    } else if (inComponentStack[dependency]) {
+                        if (pathPosition[dependency] != UNVISITED) {
+                            reportLoop(path, pathSize, pathPosition[dependency]);
+                        }
+                        lowLink[current] = Math.min(lowLink[current], visitIndex[dependency]);
+                    }
+                    continue;
+                }
+
+                // all the dependencies of the current module have been visited
+                pathSize--;
+                pathPosition[current] = UNVISITED;
+                if (pathSize > 0) {
+                    int caller = path[pathSize - 1];
+                    lowLink[caller] = Math.min(lowLink[caller], lowLink[current]);
+                }
+                if (lowLink[current] == visitIndex[current]) {
+                    int member;
+                    do {
+                        member = componentStack[--componentStackSize];
+                        inComponentStack[member] = false;
+                        sorted.add(moduleDescriptors.get(member).getSortedModuleDescriptor());
+                    } while (member != current);
+                }
+            }
         }
         return sorted;
     }
 
     /**
-     * If current module has already been added to list, returns, Otherwise invokes
-     * sortModuleDescriptorsHelp for all dependencies contained within set of moduleDescriptors.
-     * Then finally adds self to list of sorted.<br/>
-     * When a loop is detected by a recursive call, the moduleDescriptors are not added immediately
-     * added to the sorted list. They are added as loop dependencies of the root, and will be added
-     * to the sorted list only when the root itself will be added.
-     * 
-     * @param current
-     *            Current module to add to sorted list.
-     * @throws CircularDependencyException
+     * Reports the loop made by the modules of the path from the given position to its end, the
+     * last module depending on the first one.
      */
-    private void sortModuleDescriptorsHelp(ModuleInSort current, ModuleInSort caller)
+    private void reportLoop(int[] path, int pathSize, int loopStart)
             throws CircularDependencyException {
-        // if already sorted return
-        if (current.isProcessed()) {
-            return;
-        }
-        if (current.checkLoop(caller, circularDepStrategy)) {
-            return;
+        ModuleRevisionId[] mrids = new ModuleRevisionId[pathSize - loopStart + 1];
+        mrids[0] = getModuleRevisionId(path[loopStart]);
+        for (int i = 1; i < mrids.length - 1; i++) {
+            mrids[i] = getModuleRevisionId(path[pathSize - i]);
         }
-        DependencyDescriptor[] descriptors = current.getDependencies();
-        Message.debug("Sort dependencies of : " + current.toString()
-                + " / Number of dependencies = " + descriptors.length);
-        current.setCaller(caller);
-        for (int i = 0; i < descriptors.length; i++) {
-            ModuleInSort child = moduleDescriptors.getModuleDescriptorDependency(descriptors[i]);
-            if (child != null) {
-                sortModuleDescriptorsHelp(child, current);
-            }
-        }
-        current.endOfCall();
-        Message.debug("Sort done for : " + current.toString());
-        current.addToSortedListIfRequired(sorted);
+        mrids[mrids.length - 1] = mrids[0];
+        circularDepStrategy.handleCircularDependency(mrids);
     }
 
+    private ModuleRevisionId getModuleRevisionId(int index) {
+        return moduleDescriptors.get(index).getSortedModuleDescriptor().getModuleRevisionId();
+    }
 }
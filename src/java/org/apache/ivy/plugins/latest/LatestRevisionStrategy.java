@@ -17,10 +17,13 @@
  */
 package org.apache.ivy.plugins.latest;
 
+import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.ivy.core.IvyContext;
 import org.apache.ivy.core.module.id.ModuleRevisionId;
@@ -28,62 +31,170 @@ import org.apache.ivy.plugins.version.VersionMatcher;
 
 public class LatestRevisionStrategy extends ComparatorLatestStrategy {
     /**
-     * Compares two ModuleRevisionId by their revision. Revisions are compared using an algorithm
-     * inspired by PHP version_compare one.
+     * The maximum number of parsed revisions kept by a strategy.
      */
-    final class MridComparator implements Comparator {
-        public int compare(Object o1, Object o2) {
-            String rev1 = ((ModuleRevisionId) o1).getRevision();
-            String rev2 = ((ModuleRevisionId) o2).getRevision();
+    private static final int MAX_PARSED_REVISIONS = 10000;
+
+    /**
+     * A revision split in parts, as compared by the {@link MridComparator}.
+     * <p>
+     * Revisions are split on '.', '_', '-' and '+' characters, and between letters and digits. The
+     * value of numeric parts and the special meaning of the other ones are computed once, so that
+     * comparing parsed revisions neither allocates nor uses regular expressions.
+     * </p>
+     */
+    static final class ParsedRevision {
+        private final String[] parts;
 
-            rev1 = rev1.replaceAll("([a-zA-Z])(\\d)", "$1.$2");
-            rev1 = rev1.replaceAll("(\\d)([a-zA-Z])", "$1.$2");
-            rev2 = rev2.replaceAll("([a-zA-Z])(\\d)", "$1.$2");
-            rev2 = rev2.replaceAll("(\\d)([a-zA-Z])", "$1.$2");
+        /**
+         * the value of each numeric part, or -1 if the part is not numeric or too large to fit in
+         * a long
+         */
+        private final long[] numbers;
 
-            String[] parts1 = rev1.split("[\\._\\-\\+]");
-            String[] parts2 = rev2.split("[\\._\\-\\+]");
+        private final boolean[] numeric;
 
+        private final Integer[] specialMeanings;
+
+        ParsedRevision(String revision, Map specialMeanings) {
+            parts = split(revision);
+            numbers = new long[parts.length];
+            numeric = new boolean[parts.length];
+            this.specialMeanings = new Integer[parts.length];
+            for (int i = 0; i < parts.length; i++) {
+                numeric[i] = isNumber(parts[i]);
+                numbers[i] = numeric[i] && parts[i].length() < 19 ? Long.parseLong(parts[i]) : -1;
+                if (!numeric[i]) {
+                    this.specialMeanings[i] = (Integer) specialMeanings.get(parts[i]
+                            .toLowerCase(Locale.US));
+                }
+            }
+        }
+
+        int compareTo(ParsedRevision other) {
             int i = 0;
-            for (; i < parts1.length && i < parts2.length; i++) {
-                if (parts1[i].equals(parts2[i])) {
+            for (; i < parts.length && i < other.parts.length; i++) {
+                if (parts[i].equals(other.parts[i])) {
                     continue;
                 }
-                boolean is1Number = isNumber(parts1[i]);
-                boolean is2Number = isNumber(parts2[i]);
-                if (is1Number && !is2Number) {
+                if (numeric[i] && !other.numeric[i]) {
                     return 1;
                 }
-                if (is2Number && !is1Number) {
+                if (other.numeric[i] && !numeric[i]) {
                     return -1;
                 }
-                if (is1Number && is2Number) {
-                    return Long.valueOf(parts1[i]).compareTo(Long.valueOf(parts2[i]));
+                if (numeric[i] && other.numeric[i]) {
+                    return compareNumbers(i, other);
                 }
                 // both are strings, we compare them taking into account special meaning
-                Map specialMeanings = getSpecialMeanings();
-                Integer sm1 = (Integer) specialMeanings.get(parts1[i].toLowerCase(Locale.US));
-                Integer sm2 = (Integer) specialMeanings.get(parts2[i].toLowerCase(Locale.US));
+                Integer sm1 = specialMeanings[i];
+                Integer sm2 = other.specialMeanings[i];
                 if (sm1 != null) {
-                    sm2 = sm2 == null ? new Integer(0) : sm2;
-                    return sm1.compareTo(sm2);
+                    return compare(sm1.intValue(), sm2 == null ? 0 : sm2.intValue());
                 }
                 if (sm2 != null) {
-                    return new Integer(0).compareTo(sm2);
+                    return compare(0, sm2.intValue());
                 }
-                return parts1[i].compareTo(parts2[i]);
+                return parts[i].compareTo(other.parts[i]);
             }
-            if (i < parts1.length) {
-                return isNumber(parts1[i]) ? 1 : -1;
+            if (i < parts.length) {
+                return numeric[i] ? 1 : -1;
             }
-            if (i < parts2.length) {
-                return isNumber(parts2[i]) ? -1 : 1;
+            if (i < other.parts.length) {
+                return other.numeric[i] ? -1 : 1;
             }
             return 0;
         }
 
-        private boolean isNumber(String str) {
-            return str.matches("\\d+");
+        private int compareNumbers(int i, ParsedRevision other) {
+            if (numbers[i] >= 0 && other.numbers[i] >= 0) {
+                return compare(numbers[i], other.numbers[i]);
+            }
+            // at least one number doesn't fit in a long, compare their digits
+            String n1 = stripLeadingZeros(parts[i]);
+            String n2 = stripLeadingZeros(other.parts[i]);
+            if (n1.length() != n2.length()) {
+                return n1.length() < n2.length() ? -1 : 1;
+            }
+            return n1.compareTo(n2);
+        }
+
+        private static int compare(long l1, long l2) {
+            return l1 < l2 ? -1 : (l1 == l2 ? 0 : 1);
+        }
+
+        private static String stripLeadingZeros(String number) {
+            int i = 0;
+            while (i < number.length() - 1 && number.charAt(i) == '0') {
+                i++;
+            }
+            return number.substring(i);
+        }
+
+        private static boolean isNumber(String str) {
+            if (str.length() == 0) {
+                return false;
+            }
+            for (int i = 0; i < str.length(); i++) {
+                if (!isDigit(str.charAt(i))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private static boolean isDigit(char c) {
+            return c >= '0' && c <= '9';
+        }
+
+        private static boolean isLetter(char c) {
+            return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+        }
+
+        private static boolean isSeparator(char c) {
+            return c == '.' || c == '_' || c == '-' || c == '+';
+        }
+
+        /**
+         * Splits the revision the same way as String.split would do on the revision with a '.'
+         * inserted between letters and digits, including the removal of trailing empty parts.
+         */
+        private static String[] split(String revision) {
+            if (revision.length() == 0) {
+                return new String[] {revision};
+            }
+            List parts = new ArrayList();
+            int start = 0;
+            for (int i = 0; i < revision.length(); i++) {
+                char c = revision.charAt(i);
+                if (isSeparator(c)) {
+                    parts.add(revision.substring(start, i));
+                    start = i + 1;
+                } else if (i > start) {
+                    char previous = revision.charAt(i - 1);
+                    if ((isLetter(previous) && isDigit(c)) || (isDigit(previous) && isLetter(c))) {
+                        parts.add(revision.substring(start, i));
+                        start = i;
+                    }
+                }
+            }
+            parts.add(revision.substring(start));
+            int size = parts.size();
+            while (size > 0 && ((String) parts.get(size - 1)).length() == 0) {
+                size--;
+            }
+            return (String[]) parts.subList(0, size).toArray(new String[size]);
+        }
+    }
+
+    /**
+     * Compares two ModuleRevisionId by their revision. Revisions are compared using an algorithm
+     * inspired by PHP version_compare one.
+     */
+    final class MridComparator implements Comparator {
+        public int compare(Object o1, Object o2) {
+            return parse(((ModuleRevisionId) o1).getRevision()).compareTo(
+                parse(((ModuleRevisionId) o2).getRevision()));
         }
     }
 
@@ -162,6 +273,8 @@ public class LatestRevisionStrategy extends ComparatorLatestStrategy {
 
     private final Comparator mridComparator = new MridComparator();
 
+    private final Map/* <String, ParsedRevision> */parsedRevisions = new ConcurrentHashMap();
+
     private final Comparator artifactInfoComparator = new ArtifactInfoComparator();
 
     private Map specialMeanings = null;
@@ -176,6 +289,24 @@ public class LatestRevisionStrategy extends ComparatorLatestStrategy {
     public void addConfiguredSpecialMeaning(SpecialMeaning meaning) {
         meaning.validate();
         getSpecialMeanings().put(meaning.getName().toLowerCase(Locale.US), meaning.getValue());
+        // parsed revisions hold the special meaning of their parts
+        parsedRevisions.clear();
+    }
+
+    /**
+     * Returns the given revision parsed for comparison. Parsed revisions are cached, the special
+     * meanings being thus expected to be configured before any comparison.
+     */
+    ParsedRevision parse(String revision) {
+        ParsedRevision parsed = (ParsedRevision) parsedRevisions.get(revision);
+        if (parsed == null) {
+            if (parsedRevisions.size() >= MAX_PARSED_REVISIONS) {
+                parsedRevisions.clear();
+            }
+            parsed = new ParsedRevision(revision, getSpecialMeanings());
+            parsedRevisions.put(revision, parsed);
+        }
+        return parsed;
     }
 
     public synchronized Map getSpecialMeanings() {
@@ -194,5 +325,6 @@ public class LatestRevisionStrategy extends ComparatorLatestStrategy {
 
     public void setUsedefaultspecialmeanings(boolean usedefaultspecialmeanings) {
         this.usedefaultspecialmeanings = usedefaultspecialmeanings;
+        parsedRevisions.clear();
     }
 }
@@ -0,0 +1,340 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  See the NOTICE file distributed with
+ *  this work for additional information regarding copyright ownership.
+ *  The ASF licenses this file to You under the Apache License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance with
+ *  the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package org.apache.ivy.plugins.lock;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileLock;
+import java.nio.channels.FileLockInterruptionException;
+import java.nio.channels.OverlappingFileLockException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.apache.ivy.core.module.descriptor.Artifact;
+import org.apache.ivy.util.Message;
+
+/**
+ * An artifact lock strategy which waits for the locks instead of polling them.
+ * <p>
+ * Threads of the same process are excluded by in-process locks, spread on a fixed number of
+ * stripes so that locking different files doesn't contend on a single monitor: a thread waiting
+ * for a file locked by another thread is woken up as soon as the lock is released. Processes are
+ * excluded with a {@link FileLock} on the lock file, acquired with a blocking
+ * {@link java.nio.channels.FileChannel#lock()} when another process holds it. The timeout only
+ * applies to the wait for the other threads of the process, the wait for another process is only
+ * stopped by interrupting the waiting thread.
+ * </p>
+ * <p>
+ * The strategy counts the locks it acquires, how many of them had to wait, and the time spent
+ * waiting.
+ * </p>
+ */
+public class BlockingFileLockStrategy extends AbstractLockStrategy {
+    private static final long DEFAULT_TIMEOUT = 2 * 60 * 1000;
+
+    private static final int NB_STRIPES = 64;
+
+    /**
+     * Stripes must be static: file locks are held by the entire process, so the in-process locks
+     * must be shared by all the instances of the strategy.
+     */
+    private static final Stripe[] STRIPES = new Stripe[NB_STRIPES];
+
+    static {
+        for (int i = 0; i < STRIPES.length; i++) {
+            STRIPES[i] = new Stripe();
+        }
+    }
+
+    private long timeout = DEFAULT_TIMEOUT;
+
+    private final AtomicLong acquiredLocks = new AtomicLong();
+
+    private final AtomicLong contendedLocks = new AtomicLong();
+
+    private final AtomicLong waitTime = new AtomicLong();
+
+    public BlockingFileLockStrategy() {
+        this(false);
+    }
+
+    public BlockingFileLockStrategy(boolean debugLocking) {
+        super(debugLocking);
+        setName("artifact-lock-blocking");
+    }
+
+    public long getTimeout() {
+        return timeout;
+    }
+
+    /**
+     * Sets the maximum time, in milliseconds, to wait for a lock held by another thread of the
+     * process.
+     */
+    public void setTimeout(long timeout) {
+        this.timeout = timeout;
+    }
+
+    public boolean lockArtifact(Artifact artifact, File artifactFileToDownload)
+            throws InterruptedException {
+        return acquireLock(new File(artifactFileToDownload.getAbsolutePath() + ".lck"));
+    }
+
+    public void unlockArtifact(Artifact artifact, File artifactFileToDownload) {
+        releaseLock(new File(artifactFileToDownload.getAbsolutePath() + ".lck"));
+    }
+
+    /**
+     * Returns the number of locks acquired with this strategy, reentrant ones included.
+     */
+    public long getAcquiredLocks() {
+        return acquiredLocks.get();
+    }
+
+    /**
+     * Returns the number of lock attempts which had to wait for another thread or another process,
+     * whether they eventually acquired the lock or not.
+     */
+    public long getContendedLocks() {
+        return contendedLocks.get();
+    }
+
+    /**
+     * Returns the total time, in milliseconds, spent waiting for locks held by other threads or
+     * processes.
+     */
+    public long getWaitTime() {
+        return TimeUnit.NANOSECONDS.toMillis(waitTime.get());
+    }
+
+    protected boolean acquireLock(File file) throws InterruptedException {
+        Thread currentThread = Thread.currentThread();
+        if (isDebugLocking()) {
+            debugLocking("acquiring lock on " + file);
+        }
+        long start = System.nanoTime();
+        boolean contended = false;
+        Stripe stripe = getStripe(file);
+        Holder holder;
+        stripe.lock.lock();
+        try {
+            long remaining = TimeUnit.MILLISECONDS.toNanos(timeout);
+            holder = (Holder) stripe.holders.get(file);
+            while (holder != null && holder.owner != currentThread) {
+                if (!contended) {
+                    contended = true;
+                    if (isDebugLocking()) {
+                        debugLocking("waiting for " + holder.owner + " to release the lock on "
+                                + file);
+                    }
+                }
+                if (remaining <= 0) {
+                    record(start, contended, false);
+                    if (isDebugLocking()) {
+                        debugLocking("timeout while waiting for the lock on " + file);
+                    }
+                    return false;
+                }
+                remaining = stripe.released.awaitNanos(remaining);
+                holder = (Holder) stripe.holders.get(file);
+            }
+            if (holder != null) {
+                holder.count++;
+                record(start, contended, true);
+                if (isDebugLocking()) {
+                    debugLocking("reentrant lock acquired on " + file + " - hold locks = "
+                            + holder.count);
+                }
+                return true;
+            }
+            // claims the file in the process, the file lock is acquired out of the stripe lock
+            holder = new Holder(currentThread);
+            stripe.holders.put(file, holder);
+        } finally {
+            stripe.lock.unlock();
+        }
+
+        boolean locked = false;
+        try {
+            locked = lockFile(file, holder);
+            if (holder.contended) {
+                contended = true;
+            }
+            return locked;
+        } finally {
+            if (!locked) {
+                release(stripe, file);
+            }
+            record(start, contended, locked);
+            if (locked && isDebugLocking()) {
+                debugLocking("lock acquired on " + file + " in "
+                        + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + "ms");
+            }
+        }
+    }
+
+    protected void releaseLock(File file) {
+        if (isDebugLocking()) {
+            debugLocking("releasing lock on " + file);
+        }
+        Stripe stripe = getStripe(file);
+        Holder holder;
+        stripe.lock.lock();
+        try {
+            holder = (Holder) stripe.holders.get(file);
+            if (holder == null || holder.owner != Thread.currentThread()) {
+                throw new IllegalStateException("lock on " + file
+                        + " not held by the current thread");
+            }
+            holder.count--;
+            if (holder.count > 0) {
+                if (isDebugLocking()) {
+                    debugLocking("reentrant lock released on " + file + " - hold locks = "
+                            + holder.count);
+                }
+                return;
+            }
+        } finally {
+            stripe.lock.unlock();
+        }
+        try {
+            holder.fileLock.release();
+        } catch (IOException e) {
+            Message.error("problem while releasing lock on " + file + ": " + e.getMessage());
+        } finally {
+            closeQuietly(holder.raf);
+            release(stripe, file);
+        }
+        if (isDebugLocking()) {
+            debugLocking("lock released on " + file);
+        }
+    }
+
+    /**
+     * Locks the given file against the other processes, waiting for them to release it if needed.
+     */
+    private boolean lockFile(File file, Holder holder) throws InterruptedException {
+        if (!file.getParentFile().exists() && !file.getParentFile().mkdirs()
+                && !file.getParentFile().exists()) {
+            Message.verbose("impossible to create the directory of the lock file " + file);
+            return false;
+        }
+        RandomAccessFile raf = null;
+        try {
+            // this must not be closed until unlock
+            raf = new RandomAccessFile(file, "rw");
+            FileLock fileLock = raf.getChannel().tryLock();
+            if (fileLock == null) {
+                holder.contended = true;
+                if (isDebugLocking()) {
+                    debugLocking("waiting for another process to release the lock on " + file);
+                }
+                fileLock = raf.getChannel().lock();
+            }
+            holder.raf = raf;
+            holder.fileLock = fileLock;
+            return true;
+        } catch (FileLockInterruptionException e) {
+            closeQuietly(raf);
+            throw new InterruptedException("interrupted while waiting for the lock on " + file);
+        } catch (OverlappingFileLockException e) {
+            // the file is locked in this process by something else than this strategy
+            closeQuietly(raf);
+            Message.verbose("file already locked by another lock strategy: " + file);
+            return false;
+        } catch (IOException e) {
+            closeQuietly(raf);
+            Message.verbose("file lock failed due to an exception: " + e.getMessage() + " ("
+                    + file + ")");
+            return false;
+        }
+    }
+
+    private static void release(Stripe stripe, File file) {
+        stripe.lock.lock();
+        try {
+            stripe.holders.remove(file);
+            stripe.released.signalAll();
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    private void record(long start, boolean contended, boolean acquired) {
+        if (acquired) {
+            acquiredLocks.incrementAndGet();
+        }
+        if (contended) {
+            contendedLocks.incrementAndGet();
+            waitTime.addAndGet(System.nanoTime() - start);
+        }
+    }
+
+    private static Stripe getStripe(File file) {
+        int h = file.hashCode();
+        h ^= (h >>> 20) ^ (h >>> 12);
+        h ^= (h >>> 7) ^ (h >>> 4);
+        return STRIPES[h & (NB_STRIPES - 1)];
+    }
+
+    private static void closeQuietly(RandomAccessFile raf) {
+        if (raf != null) {
+            try {
+                raf.close();
+            } catch (IOException e) {
+                // ignored
+            }
+        }
+    }
+
+    private static void debugLocking(String msg) {
+        Message.info(Thread.currentThread() + " " + System.currentTimeMillis() + " " + msg);
+    }
+
+    private static final class Stripe {
+        private final ReentrantLock lock = new ReentrantLock();
+
+        private final Condition released = lock.newCondition();
+
+        private final Map/* <File, Holder> */holders = new HashMap();
+    }
+
+    /**
+     * The lock held on a file by a thread of the process.
+     */
+    private static final class Holder {
+        private final Thread owner;
+
+        private int count = 1;
+
+        private boolean contended;
+
+        private RandomAccessFile raf;
+
+        private FileLock fileLock;
+
+        Holder(Thread owner) {
+            this.owner = owner;
+        }
+    }
+}
@@ -18,12 +18,36 @@
 
 package org.apache.ivy.plugins.matcher;
 
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
 /**
- * An abstract implementation of the pattern matcher providing base template methods
+ * An abstract implementation of the pattern matcher providing base template methods.
+ * <p>
+ * Matchers are immutable and may be shared, so the matchers created by an instance are kept in a
+ * bounded cache, to avoid compiling the same expression again each time a rule is evaluated.
+ * </p>
  */
 public abstract class AbstractPatternMatcher implements PatternMatcher {
+    /**
+     * The default maximum number of matchers kept in the cache of a pattern matcher.
+     */
+    public static final int DEFAULT_CACHE_SIZE = 1000;
+
     private final String name;
 
+    private final int cacheSize;
+
+    private final Map/* <String, Matcher> */cache = new ConcurrentHashMap();
+
+    private final AtomicLong hits = new AtomicLong();
+
+    private final AtomicLong misses = new AtomicLong();
+
+    private final AtomicLong evictions = new AtomicLong();
+
     /**
      * Create a new instance of a pattern matcher
      * 
@@ -31,7 +55,20 @@ public abstract class AbstractPatternMatcher implements PatternMatcher {
      *            the name of the pattern matcher. Never null.
      */
     public AbstractPatternMatcher(/* @NotNull */String name) {
+        this(name, DEFAULT_CACHE_SIZE);
+    }
+
+    /**
+     * Create a new instance of a pattern matcher
+     * 
+     * @param name
+     *            the name of the pattern matcher. Never null.
+     * @param cacheSize
+     *            the maximum number of matchers kept in cache, 0 to disable the cache.
+     */
+    protected AbstractPatternMatcher(/* @NotNull */String name, int cacheSize) {
         this.name = name;
+        this.cacheSize = cacheSize;
     }
 
     public/* @NotNull */Matcher getMatcher(/* @NotNull */String expression) {
@@ -41,7 +78,35 @@ public abstract class AbstractPatternMatcher implements PatternMatcher {
         if (ANY_EXPRESSION.equals(expression)) {
             return AnyMatcher.INSTANCE;
         }
-        return newMatcher(expression);
+        if (cacheSize <= 0) {
+            return newMatcher(expression);
+        }
+        Matcher matcher = (Matcher) cache.get(expression);
+        if (matcher != null) {
+            hits.incrementAndGet();
+            return matcher;
+        }
+        misses.incrementAndGet();
+        matcher = newMatcher(expression);
+        if (cache.size() >= cacheSize) {
+            evict();
+        }
+        cache.put(expression, matcher);
+        return matcher;
+    }
+
+    /**
+     * Removes about a quarter of the cached matchers. The cache is not ordered, so the evicted
+     * matchers are not necessarily the least recently used ones, but expressions used over and over
+     * quickly come back.
+     */
+    private void evict() {
+        int toEvict = Math.max(1, cacheSize / 4);
+        for (Iterator it = cache.keySet().iterator(); it.hasNext() && toEvict > 0; toEvict--) {
+            it.next();
+            it.remove();
+            evictions.incrementAndGet();
+        }
     }
 
     public/* @NotNull */String getName() {
@@ -57,6 +122,45 @@ public abstract class AbstractPatternMatcher implements PatternMatcher {
      */
     protected abstract/* @NotNull */Matcher newMatcher(/* @NotNull */String expression);
 
+    /**
+     * Returns the number of calls to {@link #getMatcher(String)} which found the matcher in cache.
+     */
+    public long getCacheHits() {
+        return hits.get();
+    }
+
+    /**
+     * Returns the number of calls to {@link #getMatcher(String)} which had to create a new matcher,
+     * when the cache is enabled.
+     */
+    public long getCacheMisses() {
+        return misses.get();
+    }
+
+    /**
+     * Returns the number of matchers removed from the cache to keep it under its maximum size.
+     */
+    public long getCacheEvictions() {
+        return evictions.get();
+    }
+
+    /**
+     * Returns the number of matchers currently in cache.
+     */
+    public int getCacheSize() {
+        return cache.size();
+    }
+
+    /**
+     * Empties the cache of matchers and resets its statistics.
+     */
+    public void clearCache() {
+        cache.clear();
+        hits.set(0);
+        misses.set(0);
+        evictions.set(0);
+    }
+
     public String toString() {
         return getName();
     }
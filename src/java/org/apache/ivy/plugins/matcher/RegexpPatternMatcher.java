@@ -28,12 +28,6 @@ import java.util.regex.PatternSyntaxException;
 public final/* @Immutable */class RegexpPatternMatcher extends AbstractPatternMatcher {
     public static final RegexpPatternMatcher INSTANCE = new RegexpPatternMatcher();
 
-    /*
-     * NOTE: Regexp compiler does ~200K compilation/s - If necessary look into using ThreadLocal
-     * Pattern to cut on useless object creation - If expression are reused over and over a LRU
-     * cache could make sense
-     */
-
     public RegexpPatternMatcher() {
         super(REGEXP);
     }
@@ -0,0 +1,46 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  See the NOTICE file distributed with
+ *  this work for additional information regarding copyright ownership.
+ *  The ASF licenses this file to You under the Apache License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance with
+ *  the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package org.apache.ivy.plugins.parser.m2;
+
+import java.util.List;
+
+/**
+ * An element of a pom, as seen by the {@link PomReader}. It is either backed by a DOM element, or
+ * built while streaming the pom by the {@link PomStreamingParser}.
+ */
+interface PomElement {
+    /**
+     * Returns the qualified name of the element.
+     */
+    String getName();
+
+    /**
+     * Returns the concatenation of the text and CDATA nodes directly contained in the element.
+     */
+    String getText();
+
+    /**
+     * Returns the first child element with the given name, or <code>null</code> if there is none.
+     */
+    PomElement getFirstChild(String name);
+
+    /**
+     * Returns all the child elements, in document order.
+     */
+    List/* <PomElement> */getChildren();
+}
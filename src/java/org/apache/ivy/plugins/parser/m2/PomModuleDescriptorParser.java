@@ -60,8 +60,8 @@ import org.xml.sax.SAXException;
  * The configurations used in the generated module descriptor mimics the behavior defined by maven 2
  * scopes, as documented here:<br/>
  * http://maven.apache.org/guides/introduction/introduction-to-dependency-mechanism.html The
- * PomModuleDescriptorParser use a PomDomReader to read the pom, and the PomModuleDescriptorBuilder
- * to write the ivy module descriptor using the info read by the PomDomReader.
+ * PomModuleDescriptorParser use a PomReader to read the pom, and the PomModuleDescriptorBuilder to
+ * write the ivy module descriptor using the info read by the PomReader.
  */
 public final class PomModuleDescriptorParser implements ModuleDescriptorParser {
 
@@ -71,9 +71,24 @@ public final class PomModuleDescriptorParser implements ModuleDescriptorParser {
         return INSTANCE;
     }
 
+    private boolean useStreamingReader = Boolean.getBoolean("ivy.pom.streaming");
+
     private PomModuleDescriptorParser() {
     }
 
+    /**
+     * Returns <code>true</code> if poms are read in a single streaming pass, keeping only the
+     * elements used to build the module descriptor, instead of being loaded as a DOM tree.
+     * Defaults to the value of the <code>ivy.pom.streaming</code> system property.
+     */
+    public boolean isUseStreamingReader() {
+        return useStreamingReader;
+    }
+
+    public void setUseStreamingReader(boolean useStreamingReader) {
+        this.useStreamingReader = useStreamingReader;
+    }
+
     public void toIvyFile(InputStream is, Resource res, File destFile, ModuleDescriptor md)
             throws ParseException, IOException {
         try {
@@ -115,7 +130,7 @@ public final class PomModuleDescriptorParser implements ModuleDescriptorParser {
                 ivySettings);
 
         try {
-            PomReader domReader = new PomReader(descriptorURL, res);
+            PomReader domReader = new PomReader(descriptorURL, res, useStreamingReader);
             domReader.setProperty("parent.version", domReader.getParentVersion());
             domReader.setProperty("parent.groupId", domReader.getParentGroupId());
             domReader.setProperty("project.parent.version", domReader.getParentVersion());
@@ -49,7 +49,8 @@ import org.xml.sax.SAXException;
 import org.xml.sax.SAXParseException;
 
 /**
- * Provides the method to read some data out of the DOM tree of a pom file.
+ * Provides the method to read some data out of a pom file, either from its DOM tree or from the
+ * elements kept while streaming it with the {@link PomStreamingParser}.
  */
 public class PomReader {
 
@@ -109,17 +110,31 @@ public class PomReader {
 
     private HashMap properties = new HashMap();
 
-    private final Element projectElement;
+    private final PomElement projectElement;
 
-    private final Element parentElement;
+    private final PomElement parentElement;
 
     public PomReader(URL descriptorURL, Resource res) throws IOException, SAXException {
+        this(descriptorURL, res, false);
+    }
+
+    /**
+     * @param descriptorURL
+     *            the url of the pom to read
+     * @param res
+     *            the resource of the pom, used in error messages
+     * @param streaming
+     *            <code>true</code> to read the pom in a single streaming pass, keeping only the
+     *            elements used by this reader, <code>false</code> to build its whole DOM tree
+     */
+    public PomReader(URL descriptorURL, Resource res, boolean streaming) throws IOException,
+            SAXException {
         InputStream stream = new AddDTDFilterInputStream(URLHandlerRegistry.getDefault()
                 .openStream(descriptorURL));
         InputSource source = new InputSource(stream);
         source.setSystemId(XMLHelper.toSystemId(descriptorURL));
         try {
-            Document pomDomDoc = XMLHelper.parseToDom(source, new EntityResolver() {
+            EntityResolver entityResolver = new EntityResolver() {
                 public InputSource resolveEntity(String publicId, String systemId)
                         throws SAXException, IOException {
                     if ((systemId != null) && systemId.endsWith("m2-entities.ent")) {
@@ -128,12 +143,18 @@ public class PomReader {
                     }
                     return null;
                 }
-            });
-            projectElement = pomDomDoc.getDocumentElement();
-            if (!PROJECT.equals(projectElement.getNodeName())
-                    && !MODEL.equals(projectElement.getNodeName())) {
-                throw new SAXParseException("project must be the root tag", res.getName(),
-                        res.getName(), 0, 0);
+            };
+            if (streaming) {
+                projectElement = PomStreamingParser.parse(source, entityResolver, res.getName());
+            } else {
+                Document pomDomDoc = XMLHelper.parseToDom(source, entityResolver);
+                Element documentElement = pomDomDoc.getDocumentElement();
+                if (!PROJECT.equals(documentElement.getNodeName())
+                        && !MODEL.equals(documentElement.getNodeName())) {
+                    throw new SAXParseException("project must be the root tag", res.getName(),
+                            res.getName(), 0, 0);
+                }
+                projectElement = new DomPomElement(documentElement);
             }
             parentElement = getFirstChildElement(projectElement, PARENT);
         } finally {
@@ -233,15 +254,14 @@ public class PomReader {
     }
 
     public License[] getLicenses() {
-        Element licenses = getFirstChildElement(projectElement, LICENSES);
+        PomElement licenses = getFirstChildElement(projectElement, LICENSES);
         if (licenses == null) {
             return new License[0];
         }
-        licenses.normalize();
         List/* <License> */lics = new ArrayList();
         for (Iterator it = getAllChilds(licenses).iterator(); it.hasNext();) {
-            Element license = (Element) it.next();
-            if (LICENSE.equals(license.getNodeName())) {
+            PomElement license = (PomElement) it.next();
+            if (LICENSE.equals(license.getName())) {
                 String name = getFirstChildText(license, LICENSE_NAME);
                 String url = getFirstChildText(license, LICENSE_URL);
 
@@ -262,8 +282,8 @@ public class PomReader {
     }
 
     public ModuleRevisionId getRelocation() {
-        Element distrMgt = getFirstChildElement(projectElement, DISTRIBUTION_MGT);
-        Element relocation = getFirstChildElement(distrMgt, RELOCATION);
+        PomElement distrMgt = getFirstChildElement(projectElement, DISTRIBUTION_MGT);
+        PomElement relocation = getFirstChildElement(distrMgt, RELOCATION);
         if (relocation == null) {
             return null;
         } else {
@@ -278,44 +298,38 @@ public class PomReader {
     }
 
     public List /* <PomDependencyData> */getDependencies() {
-        Element dependenciesElement = getFirstChildElement(projectElement, DEPENDENCIES);
+        PomElement dependenciesElement = getFirstChildElement(projectElement, DEPENDENCIES);
         LinkedList dependencies = new LinkedList();
-        if (dependenciesElement != null) {
-            NodeList childs = dependenciesElement.getChildNodes();
-            for (int i = 0; i < childs.getLength(); i++) {
-                Node node = childs.item(i);
-                if (node instanceof Element && DEPENDENCY.equals(node.getNodeName())) {
-                    dependencies.add(new PomDependencyData((Element) node));
-                }
+        for (Iterator it = getAllChilds(dependenciesElement).iterator(); it.hasNext();) {
+            PomElement node = (PomElement) it.next();
+            if (DEPENDENCY.equals(node.getName())) {
+                dependencies.add(new PomDependencyData(node));
             }
         }
         return dependencies;
     }
 
     public List /* <PomDependencyMgt> */getDependencyMgt() {
-        Element dependenciesElement = getFirstChildElement(projectElement, DEPENDENCY_MGT);
+        PomElement dependenciesElement = getFirstChildElement(projectElement, DEPENDENCY_MGT);
         dependenciesElement = getFirstChildElement(dependenciesElement, DEPENDENCIES);
         LinkedList dependencies = new LinkedList();
-        if (dependenciesElement != null) {
-            NodeList childs = dependenciesElement.getChildNodes();
-            for (int i = 0; i < childs.getLength(); i++) {
-                Node node = childs.item(i);
-                if (node instanceof Element && DEPENDENCY.equals(node.getNodeName())) {
-                    dependencies.add(new PomDependencyMgtElement((Element) node));
-                }
+        for (Iterator it = getAllChilds(dependenciesElement).iterator(); it.hasNext();) {
+            PomElement node = (PomElement) it.next();
+            if (DEPENDENCY.equals(node.getName())) {
+                dependencies.add(new PomDependencyMgtElement(node));
             }
         }
         return dependencies;
     }
 
     public class PomDependencyMgtElement implements PomDependencyMgt {
-        private final Element depElement;
+        private final PomElement depElement;
 
         public PomDependencyMgtElement(PomDependencyMgtElement copyFrom) {
             this(copyFrom.depElement);
         }
 
-        PomDependencyMgtElement(Element depElement) {
+        PomDependencyMgtElement(PomElement depElement) {
             this.depElement = depElement;
         }
 
@@ -355,18 +369,15 @@ public class PomReader {
         }
 
         public List /* <ModuleId> */getExcludedModules() {
-            Element exclusionsElement = getFirstChildElement(depElement, EXCLUSIONS);
+            PomElement exclusionsElement = getFirstChildElement(depElement, EXCLUSIONS);
             LinkedList exclusions = new LinkedList();
-            if (exclusionsElement != null) {
-                NodeList childs = exclusionsElement.getChildNodes();
-                for (int i = 0; i < childs.getLength(); i++) {
-                    Node node = childs.item(i);
-                    if (node instanceof Element && EXCLUSION.equals(node.getNodeName())) {
-                        String groupId = getFirstChildText((Element) node, GROUP_ID);
-                        String artifactId = getFirstChildText((Element) node, ARTIFACT_ID);
-                        if ((groupId != null) && (artifactId != null)) {
-                            exclusions.add(ModuleId.newInstance(groupId, artifactId));
-                        }
+            for (Iterator it = getAllChilds(exclusionsElement).iterator(); it.hasNext();) {
+                PomElement node = (PomElement) it.next();
+                if (EXCLUSION.equals(node.getName())) {
+                    String groupId = getFirstChildText(node, GROUP_ID);
+                    String artifactId = getFirstChildText(node, ARTIFACT_ID);
+                    if ((groupId != null) && (artifactId != null)) {
+                        exclusions.add(ModuleId.newInstance(groupId, artifactId));
                     }
                 }
             }
@@ -377,28 +388,25 @@ public class PomReader {
     public List /* <PomPluginElement> */getPlugins() {
         LinkedList plugins = new LinkedList();
 
-        Element buildElement = getFirstChildElement(projectElement, "build");
+        PomElement buildElement = getFirstChildElement(projectElement, "build");
         if (buildElement == null) {
             return plugins;
         }
 
-        Element pluginsElement = getFirstChildElement(buildElement, PLUGINS);
-        if (pluginsElement != null) {
-            NodeList childs = pluginsElement.getChildNodes();
-            for (int i = 0; i < childs.getLength(); i++) {
-                Node node = childs.item(i);
-                if (node instanceof Element && PLUGIN.equals(node.getNodeName())) {
-                    plugins.add(new PomPluginElement((Element) node));
-                }
+        PomElement pluginsElement = getFirstChildElement(buildElement, PLUGINS);
+        for (Iterator it = getAllChilds(pluginsElement).iterator(); it.hasNext();) {
+            PomElement node = (PomElement) it.next();
+            if (PLUGIN.equals(node.getName())) {
+                plugins.add(new PomPluginElement(node));
             }
         }
         return plugins;
     }
 
     public class PomPluginElement implements PomDependencyMgt {
-        private Element pluginElement;
+        private PomElement pluginElement;
 
-        PomPluginElement(Element pluginElement) {
+        PomPluginElement(PomElement pluginElement) {
             this.pluginElement = pluginElement;
         }
 
@@ -427,13 +435,13 @@ public class PomReader {
     }
 
     public class PomDependencyData extends PomDependencyMgtElement {
-        private final Element depElement;
+        private final PomElement depElement;
 
         public PomDependencyData(PomDependencyData copyFrom) {
             this(copyFrom.depElement);
         }
 
-        PomDependencyData(Element depElement) {
+        PomDependencyData(PomElement depElement) {
             super(depElement);
             this.depElement = depElement;
         }
@@ -454,8 +462,8 @@ public class PomReader {
         }
 
         public boolean isOptional() {
-            Element e = getFirstChildElement(depElement, OPTIONAL);
-            return (e != null) && "true".equalsIgnoreCase(getTextContent(e));
+            PomElement e = getFirstChildElement(depElement, OPTIONAL);
+            return (e != null) && "true".equalsIgnoreCase(e.getText());
         }
 
     }
@@ -465,13 +473,10 @@ public class PomReader {
      */
     public Map/* <String,String> */getPomProperties() {
         Map pomProperties = new HashMap();
-        Element propsEl = getFirstChildElement(projectElement, PROPERTIES);
-        if (propsEl != null) {
-            propsEl.normalize();
-        }
+        PomElement propsEl = getFirstChildElement(projectElement, PROPERTIES);
         for (Iterator it = getAllChilds(propsEl).iterator(); it.hasNext();) {
-            Element prop = (Element) it.next();
-            pomProperties.put(prop.getNodeName(), getTextContent(prop));
+            PomElement prop = (PomElement) it.next();
+            pomProperties.put(prop.getName(), prop.getText());
         }
         return pomProperties;
     }
@@ -484,61 +489,85 @@ public class PomReader {
         }
     }
 
-    private static String getTextContent(Element element) {
-        StringBuffer result = new StringBuffer();
-
-        NodeList childNodes = element.getChildNodes();
-        for (int i = 0; i < childNodes.getLength(); i++) {
-            Node child = childNodes.item(i);
-
-            switch (child.getNodeType()) {
-                case Node.CDATA_SECTION_NODE:
-                case Node.TEXT_NODE:
-                    result.append(child.getNodeValue());
-                    break;
-                default:
-                    break;
-            }
-        }
-
-        return result.toString();
-    }
-
-    private static String getFirstChildText(Element parentElem, String name) {
-        Element node = getFirstChildElement(parentElem, name);
+    private static String getFirstChildText(PomElement parentElem, String name) {
+        PomElement node = getFirstChildElement(parentElem, name);
         if (node != null) {
-            return getTextContent(node);
+            return node.getText();
         } else {
             return null;
         }
     }
 
-    private static Element getFirstChildElement(Element parentElem, String name) {
+    private static PomElement getFirstChildElement(PomElement parentElem, String name) {
         if (parentElem == null) {
             return null;
         }
-        NodeList childs = parentElem.getChildNodes();
-        for (int i = 0; i < childs.getLength(); i++) {
-            Node node = childs.item(i);
-            if (node instanceof Element && name.equals(node.getNodeName())) {
-                return (Element) node;
-            }
+        return parentElem.getFirstChild(name);
+    }
+
+    private static List/* <PomElement> */getAllChilds(PomElement parent) {
+        if (parent == null) {
+            return Collections.EMPTY_LIST;
         }
-        return null;
+        return parent.getChildren();
     }
 
-    private static List/* <Element> */getAllChilds(Element parent) {
-        List r = new LinkedList();
-        if (parent != null) {
-            NodeList childs = parent.getChildNodes();
+    /**
+     * A {@link PomElement} backed by a DOM element.
+     */
+    private static final class DomPomElement implements PomElement {
+        private final Element element;
+
+        private DomPomElement(Element element) {
+            this.element = element;
+        }
+
+        public String getName() {
+            return element.getNodeName();
+        }
+
+        public String getText() {
+            StringBuffer result = new StringBuffer();
+
+            NodeList childNodes = element.getChildNodes();
+            for (int i = 0; i < childNodes.getLength(); i++) {
+                Node child = childNodes.item(i);
+
+                switch (child.getNodeType()) {
+                    case Node.CDATA_SECTION_NODE:
+                    case Node.TEXT_NODE:
+                        result.append(child.getNodeValue());
+                        break;
+                    default:
+                        break;
+                }
+            }
+
+            return result.toString();
+        }
+
+        public PomElement getFirstChild(String name) {
+            NodeList childs = element.getChildNodes();
+            for (int i = 0; i < childs.getLength(); i++) {
+                Node node = childs.item(i);
+                if (node instanceof Element && name.equals(node.getNodeName())) {
+                    return new DomPomElement((Element) node);
+                }
+            }
+            return null;
+        }
+
+        public List getChildren() {
+            List r = new LinkedList();
+            NodeList childs = element.getChildNodes();
             for (int i = 0; i < childs.getLength(); i++) {
                 Node node = childs.item(i);
                 if (node instanceof Element) {
-                    r.add(node);
+                    r.add(new DomPomElement((Element) node));
                 }
             }
+            return r;
         }
-        return r;
     }
 
     private static final class AddDTDFilterInputStream extends FilterInputStream {
@@ -0,0 +1,260 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  See the NOTICE file distributed with
+ *  this work for additional information regarding copyright ownership.
+ *  The ASF licenses this file to You under the Apache License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance with
+ *  the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package org.apache.ivy.plugins.parser.m2;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+
+import javax.xml.parsers.ParserConfigurationException;
+
+import org.apache.ivy.util.XMLHelper;
+import org.xml.sax.Attributes;
+import org.xml.sax.EntityResolver;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.SAXParseException;
+import org.xml.sax.helpers.DefaultHandler;
+
+/**
+ * Reads a pom in a single streaming pass, keeping only the elements used by the {@link PomReader}:
+ * the coordinates of the project and of its parent, its properties, licenses and relocation, its
+ * dependencies, dependency management and build plugins. All the other elements, and the text of
+ * the elements which are not leaves, are skipped as they are read, so that the memory used does
+ * not depend on the size of the sections of the pom Ivy doesn't care about.
+ */
+final class PomStreamingParser {
+    private static final Spec PROJECT_SPEC = new Spec();
+
+    static {
+        Spec coordinates = new Spec().leaves(new String[] {"groupId", "artifactId", "version"});
+
+        Spec exclusions = new Spec().child("exclusion",
+            new Spec().leaves(new String[] {"groupId", "artifactId"}));
+        Spec dependency = new Spec().leaves(
+            new String[] {"groupId", "artifactId", "version", "scope", "classifier", "type",
+                    "optional"}).child("exclusions", exclusions);
+        Spec dependencies = new Spec().child("dependency", dependency);
+
+        PROJECT_SPEC
+                .leaves(
+                    new String[] {"groupId", "artifactId", "version", "packaging", "url",
+                            "description"})
+                .child("parent", coordinates)
+                .child("licenses",
+                    new Spec().child("license", new Spec().leaves(new String[] {"name", "url"})))
+                .child("distributionManagement", new Spec().child("relocation", coordinates))
+                .child("dependencies", dependencies)
+                .child("dependencyManagement", new Spec().child("dependencies", dependencies))
+                .child("build", new Spec().child("plugins", new Spec().child("plugin", coordinates)))
+                .child("properties", new Spec().anyLeaf());
+    }
+
+    /**
+     * Parses the given pom and returns its root element.
+     *
+     * @param source
+     *            the pom to parse
+     * @param entityResolver
+     *            the resolver to use for the external entities of the pom
+     * @param resourceName
+     *            the name of the pom, used in error messages
+     */
+    static PomElement parse(InputSource source, EntityResolver entityResolver,
+            String resourceName) throws IOException, SAXException {
+        Handler handler = new Handler(entityResolver, resourceName);
+        try {
+            XMLHelper.parse(source, null, handler, null);
+        } catch (ParserConfigurationException e) {
+            throw new SAXException(e);
+        }
+        if (handler.root == null) {
+            throw new SAXParseException("project must be the root tag", resourceName,
+                    resourceName, 0, 0);
+        }
+        return handler.root;
+    }
+
+    private PomStreamingParser() {
+    }
+
+    /**
+     * Describes which children of an element are kept.
+     */
+    private static final class Spec {
+        private static final Spec LEAF = new Spec();
+
+        static {
+            LEAF.text = true;
+        }
+
+        private Map/* <String, Spec> */children = new HashMap();
+
+        private Spec anyChild;
+
+        private boolean text;
+
+        Spec child(String name, Spec spec) {
+            children.put(name, spec);
+            return this;
+        }
+
+        Spec leaves(String[] names) {
+            for (int i = 0; i < names.length; i++) {
+                children.put(names[i], LEAF);
+            }
+            return this;
+        }
+
+        Spec anyLeaf() {
+            anyChild = LEAF;
+            return this;
+        }
+
+        Spec getChild(String name) {
+            Spec spec = (Spec) children.get(name);
+            return spec == null ? anyChild : spec;
+        }
+    }
+
+    private static final class StreamedElement implements PomElement {
+        private final String name;
+
+        private final Spec spec;
+
+        private List/* <PomElement> */children;
+
+        private StringBuffer text;
+
+        StreamedElement(String name, Spec spec) {
+            this.name = name;
+            this.spec = spec;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public String getText() {
+            return text == null ? "" : text.toString();
+        }
+
+        public PomElement getFirstChild(String childName) {
+            if (children != null) {
+                for (Iterator it = children.iterator(); it.hasNext();) {
+                    PomElement child = (PomElement) it.next();
+                    if (childName.equals(child.getName())) {
+                        return child;
+                    }
+                }
+            }
+            return null;
+        }
+
+        public List getChildren() {
+            return children == null ? Collections.EMPTY_LIST : children;
+        }
+
+        void addChild(PomElement child) {
+            if (children == null) {
+                children = new ArrayList();
+            }
+            children.add(child);
+        }
+
+        void appendText(char[] ch, int start, int length) {
+            if (text == null) {
+                text = new StringBuffer(length);
+            }
+            text.append(ch, start, length);
+        }
+    }
+
+    private static final class Handler extends DefaultHandler {
+        private final EntityResolver entityResolver;
+
+        private final String resourceName;
+
+        private StreamedElement root;
+
+        private LinkedList/* <StreamedElement> */stack = new LinkedList();
+
+        /**
+         * the number of elements currently opened which are skipped
+         */
+        private int skipped;
+
+        Handler(EntityResolver entityResolver, String resourceName) {
+            this.entityResolver = entityResolver;
+            this.resourceName = resourceName;
+        }
+
+        public InputSource resolveEntity(String publicId, String systemId) throws IOException,
+                SAXException {
+            return entityResolver.resolveEntity(publicId, systemId);
+        }
+
+        public void startElement(String uri, String localName, String qName,
+                Attributes attributes) throws SAXException {
+            if (skipped > 0) {
+                skipped++;
+                return;
+            }
+            if (stack.isEmpty()) {
+                if (!"project".equals(qName) && !"model".equals(qName)) {
+                    throw new SAXParseException("project must be the root tag", resourceName,
+                            resourceName, 0, 0);
+                }
+                root = new StreamedElement(qName, PROJECT_SPEC);
+                stack.addLast(root);
+                return;
+            }
+            StreamedElement parent = (StreamedElement) stack.getLast();
+            Spec spec = parent.spec.getChild(qName);
+            if (spec == null) {
+                skipped++;
+                return;
+            }
+            StreamedElement element = new StreamedElement(qName, spec);
+            parent.addChild(element);
+            stack.addLast(element);
+        }
+
+        public void endElement(String uri, String localName, String qName) {
+            if (skipped > 0) {
+                skipped--;
+            } else {
+                stack.removeLast();
+            }
+        }
+
+        public void characters(char[] ch, int start, int length) {
+            if (skipped == 0 && !stack.isEmpty()) {
+                StreamedElement element = (StreamedElement) stack.getLast();
+                if (element.spec.text) {
+                    element.appendText(ch, start, length);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,424 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  See the NOTICE file distributed with
+ *  this work for additional information regarding copyright ownership.
+ *  The ASF licenses this file to You under the Apache License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance with
+ *  the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package org.apache.ivy.plugins.parser.xml;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.ivy.util.Message;
+import org.xml.sax.Attributes;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.SAXParseException;
+import org.xml.sax.helpers.AttributesImpl;
+import org.xml.sax.helpers.DefaultHandler;
+
+/**
+ * A compact binary form of an ivy file, made of the SAX events of the file, so that the module
+ * descriptor can be built again by the {@link XmlModuleDescriptorParser.Parser} without XML
+ * parsing nor schema validation.
+ * <p>
+ * The file starts with a header holding the format version, the last modified date and the length
+ * of the ivy file it has been recorded from, and whether the ivy file has been validated. The file
+ * is ignored if any of them doesn't match. Each string is written only once, later occurrences
+ * referencing it by its index.
+ * </p>
+ * <p>
+ * Since the events are recorded before any variable substitution, the module descriptor built from
+ * them always reflects the current settings.
+ * </p>
+ */
+final class BinaryDescriptorFile {
+    private static final int MAGIC = 0x49564442; // IVDB
+
+    private static final int VERSION = 1;
+
+    private static final int END = 0;
+
+    private static final int START_ELEMENT = 1;
+
+    private static final int END_ELEMENT = 2;
+
+    private static final int CHARACTERS = 3;
+
+    private static final int START_PREFIX_MAPPING = 4;
+
+    private static final int END_PREFIX_MAPPING = 5;
+
+    /**
+     * maximum number of characters written in a single event, so that the modified UTF-8 form of
+     * the text fits in the 64k limit of DataOutput.writeUTF
+     */
+    private static final int MAX_TEXT_CHUNK = 16 * 1024;
+
+    private static final int BUFFER_SIZE = 8 * 1024;
+
+    private BinaryDescriptorFile() {
+    }
+
+    /**
+     * Sends the events stored in the given binary file to the given handler.
+     *
+     * @param binaryFile
+     *            the binary file to read
+     * @param ivyFile
+     *            the ivy file the binary file has been recorded from
+     * @param validated
+     *            <code>true</code> if the ivy file must have been validated
+     * @param handler
+     *            the handler receiving the events
+     * @return <code>false</code> if the binary file doesn't exist or is not up to date, in which
+     *         case no event has been sent to the handler
+     */
+    static boolean replay(File binaryFile, File ivyFile, boolean validated, DefaultHandler handler)
+            throws IOException, SAXException {
+        if (!binaryFile.exists()) {
+            return false;
+        }
+        DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(
+                binaryFile), BUFFER_SIZE));
+        try {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION
+                    || in.readLong() != ivyFile.lastModified() || in.readLong() != ivyFile.length()) {
+                return false;
+            }
+            if (!in.readBoolean() && validated) {
+                // recorded without validation
+                return false;
+            }
+            // the whole file is loaded before any event is sent, so that a truncated file is
+            // detected before the handler is used
+            List/* <Object> */events = read(in);
+            handler.startDocument();
+            for (int i = 0; i < events.size();) {
+                int event = ((Integer) events.get(i++)).intValue();
+                switch (event) {
+                    case START_ELEMENT:
+                        handler.startElement((String) events.get(i), (String) events.get(i + 1),
+                            (String) events.get(i + 2), (Attributes) events.get(i + 3));
+                        i += 4;
+                        break;
+                    case END_ELEMENT:
+                        handler.endElement((String) events.get(i), (String) events.get(i + 1),
+                            (String) events.get(i + 2));
+                        i += 3;
+                        break;
+                    case CHARACTERS:
+                        char[] text = ((String) events.get(i++)).toCharArray();
+                        handler.characters(text, 0, text.length);
+                        break;
+                    case START_PREFIX_MAPPING:
+                        handler.startPrefixMapping((String) events.get(i),
+                            (String) events.get(i + 1));
+                        i += 2;
+                        break;
+                    default:
+                        handler.endPrefixMapping((String) events.get(i++));
+                        break;
+                }
+            }
+            handler.endDocument();
+            return true;
+        } catch (EOFException e) {
+            Message.verbose("truncated binary descriptor: " + binaryFile);
+            return false;
+        } finally {
+            in.close();
+        }
+    }
+
+    private static List/* <Object> */read(DataInputStream in) throws IOException {
+        List/* <String> */strings = new ArrayList();
+        List/* <Object> */events = new ArrayList();
+        while (true) {
+            int event = in.readByte();
+            switch (event) {
+                case END:
+                    return events;
+                case START_ELEMENT:
+                    events.add(new Integer(event));
+                    events.add(readString(in, strings));
+                    events.add(readString(in, strings));
+                    events.add(readString(in, strings));
+                    AttributesImpl attributes = new AttributesImpl();
+                    int length = readInt(in);
+                    for (int i = 0; i < length; i++) {
+                        attributes.addAttribute(readString(in, strings), readString(in, strings),
+                            readString(in, strings), readString(in, strings),
+                            readString(in, strings));
+                    }
+                    events.add(attributes);
+                    break;
+                case END_ELEMENT:
+                    events.add(new Integer(event));
+                    events.add(readString(in, strings));
+                    events.add(readString(in, strings));
+                    events.add(readString(in, strings));
+                    break;
+                case CHARACTERS:
+                    events.add(new Integer(event));
+                    events.add(readString(in, strings));
+                    break;
+                case START_PREFIX_MAPPING:
+                    events.add(new Integer(event));
+                    events.add(readString(in, strings));
+                    events.add(readString(in, strings));
+                    break;
+                case END_PREFIX_MAPPING:
+                    events.add(new Integer(event));
+                    events.add(readString(in, strings));
+                    break;
+                default:
+                    throw new IOException("invalid binary descriptor event: " + event);
+            }
+        }
+    }
+
+    private static String readString(DataInputStream in, List/* <String> */strings)
+            throws IOException {
+        int index = readInt(in);
+        if (index == 0) {
+            String s = in.readUTF();
+            strings.add(s);
+            return s;
+        }
+        if (index > strings.size()) {
+            throw new IOException("invalid binary descriptor string reference: " + index);
+        }
+        return (String) strings.get(index - 1);
+    }
+
+    private static int readInt(InputStream in) throws IOException {
+        // CheckStyle:MagicNumber| OFF
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            int b = in.read();
+            if (b == -1) {
+                throw new EOFException();
+            }
+            value |= (b & 0x7f) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("invalid binary descriptor integer");
+        // CheckStyle:MagicNumber| ON
+    }
+
+    /**
+     * A handler forwarding the events to another handler while recording them, so that they can
+     * be written in a binary file once the ivy file has been parsed.
+     */
+    static final class Recorder extends DefaultHandler {
+        private final DefaultHandler delegate;
+
+        private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+        private final DataOutputStream out = new DataOutputStream(bytes);
+
+        private final Map/* <String, Integer> */strings = new HashMap();
+
+        private boolean failed;
+
+        Recorder(DefaultHandler delegate) {
+            this.delegate = delegate;
+        }
+
+        /**
+         * Writes the recorded events in the given file, unless an error has been reported while
+         * parsing.
+         *
+         * @param binaryFile
+         *            the file to write
+         * @param ivyFile
+         *            the ivy file which has been parsed
+         * @param validated
+         *            <code>true</code> if the ivy file has been validated
+         */
+        void write(File binaryFile, File ivyFile, boolean validated) {
+            if (failed) {
+                return;
+            }
+            File part = new File(binaryFile.getPath() + ".part");
+            try {
+                out.writeByte(END);
+                OutputStream os = new BufferedOutputStream(new FileOutputStream(part),
+                        BUFFER_SIZE);
+                try {
+                    DataOutputStream header = new DataOutputStream(os);
+                    header.writeInt(MAGIC);
+                    header.writeInt(VERSION);
+                    header.writeLong(ivyFile.lastModified());
+                    header.writeLong(ivyFile.length());
+                    header.writeBoolean(validated);
+                    bytes.writeTo(header);
+                    header.flush();
+                } finally {
+                    os.close();
+                }
+                binaryFile.delete();
+                if (!part.renameTo(binaryFile)) {
+                    part.delete();
+                }
+            } catch (IOException e) {
+                Message.verbose("impossible to write binary descriptor " + binaryFile + ": " + e);
+                part.delete();
+            }
+        }
+
+        public void startDocument() throws SAXException {
+            delegate.startDocument();
+        }
+
+        public void endDocument() throws SAXException {
+            delegate.endDocument();
+        }
+
+        public void startPrefixMapping(String prefix, String uri) throws SAXException {
+            try {
+                out.writeByte(START_PREFIX_MAPPING);
+                writeString(prefix);
+                writeString(uri);
+            } catch (IOException e) {
+                failed = true;
+            }
+            delegate.startPrefixMapping(prefix, uri);
+        }
+
+        public void endPrefixMapping(String prefix) throws SAXException {
+            try {
+                out.writeByte(END_PREFIX_MAPPING);
+                writeString(prefix);
+            } catch (IOException e) {
+                failed = true;
+            }
+            delegate.endPrefixMapping(prefix);
+        }
+
+        public void startElement(String uri, String localName, String qName,
+                Attributes attributes) throws SAXException {
+            try {
+                out.writeByte(START_ELEMENT);
+                writeString(uri);
+                writeString(localName);
+                writeString(qName);
+                writeInt(attributes.getLength());
+                for (int i = 0; i < attributes.getLength(); i++) {
+                    writeString(attributes.getURI(i));
+                    writeString(attributes.getLocalName(i));
+                    writeString(attributes.getQName(i));
+                    writeString(attributes.getType(i));
+                    writeString(attributes.getValue(i));
+                }
+            } catch (IOException e) {
+                failed = true;
+            }
+            delegate.startElement(uri, localName, qName, attributes);
+        }
+
+        public void endElement(String uri, String localName, String qName) throws SAXException {
+            try {
+                out.writeByte(END_ELEMENT);
+                writeString(uri);
+                writeString(localName);
+                writeString(qName);
+            } catch (IOException e) {
+                failed = true;
+            }
+            delegate.endElement(uri, localName, qName);
+        }
+
+        public void characters(char[] ch, int start, int length) throws SAXException {
+            try {
+                for (int i = 0; i < length; i += MAX_TEXT_CHUNK) {
+                    out.writeByte(CHARACTERS);
+                    writeString(new String(ch, start + i, Math.min(MAX_TEXT_CHUNK, length - i)));
+                }
+            } catch (IOException e) {
+                failed = true;
+            }
+            delegate.characters(ch, start, length);
+        }
+
+        public InputSource resolveEntity(String publicId, String systemId) throws IOException,
+                SAXException {
+            return delegate.resolveEntity(publicId, systemId);
+        }
+
+        public void ignorableWhitespace(char[] ch, int start, int length) throws SAXException {
+            delegate.ignorableWhitespace(ch, start, length);
+        }
+
+        public void processingInstruction(String target, String data) throws SAXException {
+            delegate.processingInstruction(target, data);
+        }
+
+        public void warning(SAXParseException e) throws SAXException {
+            delegate.warning(e);
+        }
+
+        public void error(SAXParseException e) throws SAXException {
+            failed = true;
+            delegate.error(e);
+        }
+
+        public void fatalError(SAXParseException e) throws SAXException {
+            failed = true;
+            delegate.fatalError(e);
+        }
+
+        private void writeString(String s) throws IOException {
+            if (s == null) {
+                // not expected from a SAX parser, recorded as an empty string
+                s = "";
+            }
+            Integer index = (Integer) strings.get(s);
+            if (index != null) {
+                writeInt(index.intValue());
+            } else {
+                writeInt(0);
+                out.writeUTF(s);
+                strings.put(s, new Integer(strings.size() + 1));
+            }
+        }
+
+        private void writeInt(int value) throws IOException {
+            // CheckStyle:MagicNumber| OFF
+            while ((value & ~0x7f) != 0) {
+                out.writeByte((value & 0x7f) | 0x80);
+                value >>>= 7;
+            }
+            out.writeByte(value);
+            // CheckStyle:MagicNumber| ON
+        }
+    }
+}
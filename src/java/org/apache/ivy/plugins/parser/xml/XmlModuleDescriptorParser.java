@@ -120,6 +120,34 @@ public class XmlModuleDescriptorParser extends AbstractModuleDescriptorParser {
         return parser.getModuleDescriptor();
     }
 
+    /**
+     * Parses an ivy file of the local file system, using a binary form of its content when it is
+     * up to date. Otherwise the ivy file is parsed, and its binary form is written for the next
+     * time. This is meant for the ivy files which are parsed over and over, like the ones of the
+     * repository cache.
+     * 
+     * @param ivySettings
+     *            the settings to use during parsing
+     * @param ivyFile
+     *            the ivy file to parse
+     * @param binaryFile
+     *            the file storing the binary form of the ivy file
+     * @param validate
+     *            <code>true</code> to validate the ivy file
+     * @return the module descriptor
+     */
+    public ModuleDescriptor parseDescriptor(ParserSettings ivySettings, File ivyFile,
+            File binaryFile, boolean validate) throws ParseException, IOException {
+        URL xmlURL = ivyFile.toURI().toURL();
+        Parser parser = newParser(ivySettings);
+        parser.setValidate(validate);
+        parser.setResource(new URLResource(xmlURL));
+        parser.setInput(xmlURL);
+        parser.setBinaryInput(ivyFile, binaryFile);
+        parser.parse();
+        return parser.getModuleDescriptor();
+    }
+
     /** Used for test purpose */
     ModuleDescriptor parseDescriptor(ParserSettings ivySettings, InputStream descriptor,
             Resource res, boolean validate) throws ParseException, IOException {
@@ -221,6 +249,10 @@ public class XmlModuleDescriptorParser extends AbstractModuleDescriptorParser {
 
         private InputStream descriptorInput;
 
+        private File ivyFile;
+
+        private File binaryFile;
+
         /* Parsing state */
         private int state = State.NONE;
 
@@ -257,6 +289,15 @@ public class XmlModuleDescriptorParser extends AbstractModuleDescriptorParser {
             this.descriptorURL = descriptorURL;
         }
 
+        /**
+         * Makes the parser use the binary form of the given ivy file stored in the binary file
+         * when it is up to date, and write it otherwise.
+         */
+        public void setBinaryInput(File ivyFile, File binaryFile) {
+            this.ivyFile = ivyFile;
+            this.binaryFile = binaryFile;
+        }
+
         public void setValidate(boolean validate) {
             this.validate = validate;
         }
@@ -264,7 +305,14 @@ public class XmlModuleDescriptorParser extends AbstractModuleDescriptorParser {
         public void parse() throws ParseException, IOException {
             try {
                 URL schemaURL = validate ? getSchemaURL() : null;
-                if (descriptorURL != null) {
+                if (binaryFile != null) {
+                    if (!BinaryDescriptorFile.replay(binaryFile, ivyFile, validate, this)) {
+                        BinaryDescriptorFile.Recorder recorder = new BinaryDescriptorFile.Recorder(
+                                this);
+                        XMLHelper.parse(descriptorURL, schemaURL, recorder);
+                        recorder.write(binaryFile, ivyFile, validate);
+                    }
+                } else if (descriptorURL != null) {
                     XMLHelper.parse(descriptorURL, schemaURL, this);
                 } else {
                     XMLHelper.parse(descriptorInput, schemaURL, this, null);
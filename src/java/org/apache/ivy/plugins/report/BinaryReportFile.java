@@ -0,0 +1,396 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  See the NOTICE file distributed with
+ *  this work for additional information regarding copyright ownership.
+ *  The ASF licenses this file to You under the Apache License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance with
+ *  the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package org.apache.ivy.plugins.report;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.ivy.core.cache.ArtifactOrigin;
+import org.apache.ivy.core.module.descriptor.ModuleDescriptor;
+import org.apache.ivy.core.module.id.ModuleId;
+import org.apache.ivy.core.module.id.ModuleRevisionId;
+import org.apache.ivy.core.report.ArtifactDownloadReport;
+import org.apache.ivy.core.report.ConfigurationResolveReport;
+import org.apache.ivy.core.report.MetadataArtifactDownloadReport;
+import org.apache.ivy.core.resolve.IvyNode;
+import org.apache.ivy.core.resolve.IvyNodeEviction.EvictionData;
+import org.apache.ivy.util.DateUtil;
+import org.apache.ivy.util.Message;
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.AttributesImpl;
+import org.xml.sax.helpers.DefaultHandler;
+
+/**
+ * A compact binary form of a configuration resolve report, holding only the elements and
+ * attributes of the xml report read by the {@link XmlReportParser}, so that they can be sent to
+ * the parser without parsing the xml report again.
+ * <p>
+ * The file starts with a header holding the format version, the last modified date and the length
+ * of the xml report written along with it. The file is ignored if any of them doesn't match. Each
+ * string is written only once, later occurrences referencing it by its index.
+ * </p>
+ */
+final class BinaryReportFile {
+    private static final int MAGIC = 0x49564252; // IVBR
+
+    private static final int VERSION = 1;
+
+    private static final int END = 0;
+
+    private static final int START_ELEMENT = 1;
+
+    private static final int END_ELEMENT = 2;
+
+    private static final int BUFFER_SIZE = 8 * 1024;
+
+    private final DataOutputStream out;
+
+    private final Map/* <String, Integer> */strings = new HashMap();
+
+    private BinaryReportFile(DataOutputStream out) {
+        this.out = out;
+    }
+
+    /**
+     * Writes the binary form of the given report.
+     *
+     * @param report
+     *            the report to write
+     * @param xmlReport
+     *            the xml report already written for the same configuration
+     * @param binaryReport
+     *            the file to write
+     */
+    static void write(ConfigurationResolveReport report, File xmlReport, File binaryReport)
+            throws IOException {
+        File part = new File(binaryReport.getPath() + ".part");
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                new FileOutputStream(part), BUFFER_SIZE));
+        try {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(xmlReport.lastModified());
+            out.writeLong(xmlReport.length());
+            new BinaryReportFile(out).writeReport(report);
+            out.writeByte(END);
+        } finally {
+            out.close();
+        }
+        binaryReport.delete();
+        if (!part.renameTo(binaryReport)) {
+            part.delete();
+            throw new IOException("impossible to rename " + part + " to " + binaryReport);
+        }
+    }
+
+    /**
+     * Sends the elements stored in the given binary report to the given handler.
+     *
+     * @param binaryReport
+     *            the binary report to read
+     * @param xmlReport
+     *            the xml report the binary report has been written with
+     * @param handler
+     *            the handler receiving the elements
+     * @return <code>false</code> if the binary report doesn't exist or is not up to date, in which
+     *         case nothing has been sent to the handler
+     */
+    static boolean replay(File binaryReport, File xmlReport, DefaultHandler handler)
+            throws IOException, SAXException {
+        if (!binaryReport.exists()) {
+            return false;
+        }
+        DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(
+                binaryReport), BUFFER_SIZE));
+        try {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION
+                    || in.readLong() != xmlReport.lastModified()
+                    || in.readLong() != xmlReport.length()) {
+                return false;
+            }
+            // the whole file is loaded before any element is sent, so that a truncated file is
+            // detected before the handler is used
+            List/* <Object> */events = read(in);
+            handler.startDocument();
+            for (int i = 0; i < events.size();) {
+                if (events.get(i) instanceof AttributesImpl) {
+                    String qName = (String) events.get(i + 1);
+                    handler.startElement("", qName, qName, (AttributesImpl) events.get(i));
+                    i += 2;
+                } else {
+                    String qName = (String) events.get(i++);
+                    handler.endElement("", qName, qName);
+                }
+            }
+            handler.endDocument();
+            return true;
+        } catch (EOFException e) {
+            Message.verbose("truncated binary report: " + binaryReport);
+            return false;
+        } finally {
+            in.close();
+        }
+    }
+
+    private static List/* <Object> */read(DataInputStream in) throws IOException {
+        List/* <String> */strings = new ArrayList();
+        List/* <Object> */events = new ArrayList();
+        while (true) {
+            int event = in.readByte();
+            switch (event) {
+                case END:
+                    return events;
+                case START_ELEMENT:
+                    String qName = readString(in, strings);
+                    AttributesImpl attributes = new AttributesImpl();
+                    int length = readInt(in);
+                    for (int i = 0; i < length; i++) {
+                        String name = readString(in, strings);
+                        attributes.addAttribute("", name, name, "CDATA",
+                            readString(in, strings));
+                    }
+                    events.add(attributes);
+                    events.add(qName);
+                    break;
+                case END_ELEMENT:
+                    events.add(readString(in, strings));
+                    break;
+                default:
+                    throw new IOException("invalid binary report event: " + event);
+            }
+        }
+    }
+
+    private static String readString(DataInputStream in, List/* <String> */strings)
+            throws IOException {
+        int index = readInt(in);
+        if (index == 0) {
+            String s = in.readUTF();
+            strings.add(s);
+            return s;
+        }
+        if (index > strings.size()) {
+            throw new IOException("invalid binary report string reference: " + index);
+        }
+        return (String) strings.get(index - 1);
+    }
+
+    private static int readInt(InputStream in) throws IOException {
+        // CheckStyle:MagicNumber| OFF
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            int b = in.read();
+            if (b == -1) {
+                throw new EOFException();
+            }
+            value |= (b & 0x7f) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("invalid binary report integer");
+        // CheckStyle:MagicNumber| ON
+    }
+
+    /*
+     * The elements and attributes written below are the ones of the XmlReportWriter read by the
+     * XmlReportParser, with the same values.
+     */
+
+    private void writeReport(ConfigurationResolveReport report) throws IOException {
+        ModuleRevisionId mrid = report.getModuleDescriptor().getModuleRevisionId();
+        startElement("ivy-report", new String[0]);
+        List/* <String> */info = new ArrayList();
+        add(info, "organisation", String.valueOf(mrid.getOrganisation()));
+        add(info, "module", String.valueOf(mrid.getName()));
+        add(info, "revision", String.valueOf(mrid.getRevision()));
+        add(info, "branch", mrid.getBranch());
+        addExtraAttributes(info, mrid.getExtraAttributes());
+        startElement("info", info);
+        endElement("info");
+
+        startElement("dependencies", new String[0]);
+        List dependencies = new ArrayList(report.getModuleRevisionIds());
+        for (Iterator iter = report.getModuleIds().iterator(); iter.hasNext();) {
+            ModuleId mid = (ModuleId) iter.next();
+            startElement("module", new String[] {"organisation",
+                    String.valueOf(mid.getOrganisation()), "name", String.valueOf(mid.getName())});
+            for (Iterator it2 = report.getNodes(mid).iterator(); it2.hasNext();) {
+                writeRevision(report, dependencies, (IvyNode) it2.next());
+            }
+            endElement("module");
+        }
+        endElement("dependencies");
+        endElement("ivy-report");
+    }
+
+    private void writeRevision(ConfigurationResolveReport report, List dependencies, IvyNode dep)
+            throws IOException {
+        ModuleDescriptor md = null;
+        if (dep.getModuleRevision() != null) {
+            md = dep.getModuleRevision().getDescriptor();
+        }
+        List/* <String> */revision = new ArrayList();
+        add(revision, "name", String.valueOf(dep.getResolvedId().getRevision()));
+        add(revision, "branch", dep.getResolvedId().getBranch());
+        if (dep.isLoaded()) {
+            add(revision, "pubdate", DateUtil.format(new Date(dep.getPublication())));
+        }
+        if (dep.isEvicted(report.getConfiguration())) {
+            EvictionData ed = dep.getEvictedData(report.getConfiguration());
+            add(revision, "evicted", ed.getConflictManager() != null ? String.valueOf(ed
+                    .getConflictManager()) : "transitive");
+        }
+        if (dep.hasProblem()) {
+            add(revision, "error", String.valueOf(dep.getProblem().getMessage()));
+        }
+        addExtraAttributes(revision, md != null ? md.getExtraAttributes() : dep.getResolvedId()
+                .getExtraAttributes());
+        if (dep.getDescriptor() != null) {
+            add(revision, "default", String.valueOf(dep.getDescriptor().isDefault()));
+        }
+        add(revision, "position", String.valueOf(dependencies.indexOf(dep.getResolvedId())));
+        startElement("revision", revision);
+
+        if (dep.getModuleRevision() != null) {
+            MetadataArtifactDownloadReport madr = dep.getModuleRevision().getReport();
+            List/* <String> */metadata = new ArrayList();
+            add(metadata, "status", String.valueOf(madr.getDownloadStatus()));
+            add(metadata, "details", String.valueOf(madr.getDownloadDetails()));
+            add(metadata, "size", String.valueOf(madr.getSize()));
+            add(metadata, "time", String.valueOf(madr.getDownloadTimeMillis()));
+            if (madr.getLocalFile() != null) {
+                add(metadata, "location", madr.getLocalFile().getAbsolutePath());
+            }
+            add(metadata, "searched", String.valueOf(madr.isSearched()));
+            if (madr.getOriginalLocalFile() != null) {
+                add(metadata, "original-local-location", madr.getOriginalLocalFile()
+                        .getAbsolutePath());
+            }
+            ArtifactOrigin origin = madr.getArtifactOrigin();
+            if (origin != null) {
+                add(metadata, "origin-is-local", String.valueOf(origin.isLocal()));
+                add(metadata, "origin-location", String.valueOf(origin.getLocation()));
+            }
+            startElement("metadata-artifact", metadata);
+            endElement("metadata-artifact");
+        }
+
+        startElement("artifacts", new String[0]);
+        ArtifactDownloadReport[] adr = report.getDownloadReports(dep.getResolvedId());
+        for (int i = 0; i < adr.length; i++) {
+            List/* <String> */artifact = new ArrayList();
+            add(artifact, "name", String.valueOf(adr[i].getName()));
+            add(artifact, "type", String.valueOf(adr[i].getType()));
+            add(artifact, "ext", String.valueOf(adr[i].getExt()));
+            addExtraAttributes(artifact, adr[i].getArtifact().getExtraAttributes());
+            add(artifact, "status", String.valueOf(adr[i].getDownloadStatus()));
+            add(artifact, "details", String.valueOf(adr[i].getDownloadDetails()));
+            add(artifact, "size", String.valueOf(adr[i].getSize()));
+            add(artifact, "time", String.valueOf(adr[i].getDownloadTimeMillis()));
+            if (adr[i].getLocalFile() != null) {
+                add(artifact, "location", adr[i].getLocalFile().getAbsolutePath());
+            }
+            if (adr[i].getUnpackedLocalFile() != null) {
+                add(artifact, "unpackedFile", adr[i].getUnpackedLocalFile().getAbsolutePath());
+            }
+            startElement("artifact", artifact);
+            ArtifactOrigin origin = adr[i].getArtifactOrigin();
+            if (origin != null) {
+                startElement("origin-location", new String[] {"is-local",
+                        String.valueOf(origin.isLocal()), "location",
+                        String.valueOf(origin.getLocation())});
+                endElement("origin-location");
+            }
+            endElement("artifact");
+        }
+        endElement("artifacts");
+        endElement("revision");
+    }
+
+    private static void add(List/* <String> */attributes, String name, String value) {
+        if (value != null) {
+            attributes.add(name);
+            attributes.add(value);
+        }
+    }
+
+    private static void addExtraAttributes(List/* <String> */attributes, Map extraAttributes) {
+        for (Iterator it = extraAttributes.entrySet().iterator(); it.hasNext();) {
+            Map.Entry entry = (Map.Entry) it.next();
+            add(attributes, "extra-" + entry.getKey(), String.valueOf(entry.getValue()));
+        }
+    }
+
+    private void startElement(String qName, List/* <String> */attributes) throws IOException {
+        startElement(qName, (String[]) attributes.toArray(new String[attributes.size()]));
+    }
+
+    /**
+     * @param attributes
+     *            the names and values of the attributes of the element, alternately
+     */
+    private void startElement(String qName, String[] attributes) throws IOException {
+        out.writeByte(START_ELEMENT);
+        writeString(qName);
+        writeInt(attributes.length / 2);
+        for (int i = 0; i < attributes.length; i++) {
+            writeString(attributes[i]);
+        }
+    }
+
+    private void endElement(String qName) throws IOException {
+        out.writeByte(END_ELEMENT);
+        writeString(qName);
+    }
+
+    private void writeString(String s) throws IOException {
+        Integer index = (Integer) strings.get(s);
+        if (index != null) {
+            writeInt(index.intValue());
+        } else {
+            writeInt(0);
+            out.writeUTF(s);
+            strings.put(s, new Integer(strings.size() + 1));
+        }
+    }
+
+    private void writeInt(int value) throws IOException {
+        // CheckStyle:MagicNumber| OFF
+        while ((value & ~0x7f) != 0) {
+            out.writeByte((value & 0x7f) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+        // CheckStyle:MagicNumber| ON
+    }
+}
@@ -0,0 +1,73 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  See the NOTICE file distributed with
+ *  this work for additional information regarding copyright ownership.
+ *  The ASF licenses this file to You under the Apache License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance with
+ *  the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package org.apache.ivy.plugins.report;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.apache.ivy.core.cache.DefaultResolutionCacheManager;
+import org.apache.ivy.core.cache.ResolutionCacheManager;
+import org.apache.ivy.core.report.ConfigurationResolveReport;
+import org.apache.ivy.core.report.ResolveReport;
+import org.apache.ivy.core.resolve.ResolveOptions;
+import org.apache.ivy.util.Message;
+
+/**
+ * A Report outputter writing a binary form of the xml reports to the resolution cache, read
+ * instead of the xml reports by the tasks using the reports of a previous resolve.
+ * <p>
+ * It must be run after the {@link XmlReportOutputter}: a binary report is only used while the xml
+ * report it has been written with hasn't changed. Binary reports are only written to the
+ * {@link DefaultResolutionCacheManager}.
+ * </p>
+ */
+public class BinaryReportOutputter implements ReportOutputter {
+    public String getName() {
+        return BINARY;
+    }
+
+    public void output(ResolveReport report, ResolutionCacheManager cacheMgr, ResolveOptions options)
+            throws IOException {
+        String[] confs = report.getConfigurations();
+        for (int i = 0; i < confs.length; i++) {
+            output(report.getConfigurationReport(confs[i]), report.getResolveId(), cacheMgr);
+        }
+    }
+
+    public void output(ConfigurationResolveReport report, String resolveId,
+            ResolutionCacheManager cacheMgr) throws IOException {
+        if (!(cacheMgr instanceof DefaultResolutionCacheManager)) {
+            return;
+        }
+        File xmlReport = cacheMgr.getConfigurationResolveReportInCache(resolveId,
+            report.getConfiguration());
+        File binaryReport = ((DefaultResolutionCacheManager) cacheMgr)
+                .getConfigurationResolveBinaryReportInCache(resolveId, report.getConfiguration());
+        if (!xmlReport.exists()) {
+            binaryReport.delete();
+            return;
+        }
+        try {
+            BinaryReportFile.write(report, xmlReport, binaryReport);
+        } catch (IOException e) {
+            // the xml report will be used instead
+            Message.verbose("impossible to write binary report " + binaryReport + ": " + e);
+            binaryReport.delete();
+        }
+    }
+}
@@ -0,0 +1,59 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  See the NOTICE file distributed with
+ *  this work for additional information regarding copyright ownership.
+ *  The ASF licenses this file to You under the Apache License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance with
+ *  the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package org.apache.ivy.plugins.report;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+
+import org.apache.ivy.core.cache.DefaultResolutionCacheManager;
+import org.apache.ivy.core.cache.ResolutionCacheManager;
+import org.apache.ivy.core.report.ResolveReport;
+import org.apache.ivy.core.resolve.ResolveMetrics;
+import org.apache.ivy.core.resolve.ResolveOptions;
+
+/**
+ * A Report outputter writing the metrics of the resolve to the resolution cache, as a JSON object
+ * telling how long each phase of the resolve took and what each resolver has found and
+ * downloaded. The metrics are only written to the {@link DefaultResolutionCacheManager}.
+ * 
+ * @see ResolveMetrics
+ */
+public class MetricsReportOutputter implements ReportOutputter {
+    public String getName() {
+        return METRICS;
+    }
+
+    public void output(ResolveReport report, ResolutionCacheManager cacheMgr, ResolveOptions options)
+            throws IOException {
+        ResolveMetrics metrics = report.getMetrics();
+        if (metrics == null || !(cacheMgr instanceof DefaultResolutionCacheManager)) {
+            return;
+        }
+        File metricsFile = ((DefaultResolutionCacheManager) cacheMgr)
+                .getResolveMetricsInCache(report.getResolveId());
+        Writer writer = new OutputStreamWriter(new FileOutputStream(metricsFile), "UTF-8");
+        try {
+            writer.write(metrics.toJson());
+        } finally {
+            writer.close();
+        }
+    }
+}
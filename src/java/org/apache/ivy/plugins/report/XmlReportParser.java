@@ -18,6 +18,8 @@
 package org.apache.ivy.plugins.report;
 
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStream;
 import java.text.ParseException;
 import java.util.ArrayList;
 import java.util.Date;
@@ -27,10 +29,9 @@ import java.util.Map;
 import java.util.SortedMap;
 import java.util.TreeMap;
 
-import javax.xml.parsers.SAXParser;
-import javax.xml.parsers.SAXParserFactory;
-
 import org.apache.ivy.core.cache.ArtifactOrigin;
+import org.apache.ivy.core.cache.DefaultResolutionCacheManager;
+import org.apache.ivy.core.cache.ResolutionCacheManager;
 import org.apache.ivy.core.module.descriptor.Artifact;
 import org.apache.ivy.core.module.descriptor.DefaultArtifact;
 import org.apache.ivy.core.module.id.ModuleRevisionId;
@@ -38,8 +39,11 @@ import org.apache.ivy.core.report.ArtifactDownloadReport;
 import org.apache.ivy.core.report.DownloadStatus;
 import org.apache.ivy.core.report.MetadataArtifactDownloadReport;
 import org.apache.ivy.util.DateUtil;
+import org.apache.ivy.util.Message;
+import org.apache.ivy.util.XMLHelper;
 import org.apache.ivy.util.extendable.ExtendableItemHelper;
 import org.xml.sax.Attributes;
+import org.xml.sax.InputSource;
 import org.xml.sax.SAXException;
 import org.xml.sax.helpers.DefaultHandler;
 
@@ -245,8 +249,18 @@ public class XmlReportParser {
         }
 
         public void parse() throws Exception {
-            SAXParser saxParser = SAXParserFactory.newInstance().newSAXParser();
-            saxParser.parse(report, new XmlReportParserHandler());
+            InputStream in = new FileInputStream(report);
+            try {
+                InputSource source = new InputSource(in);
+                source.setSystemId(XMLHelper.toSystemId(report.toURI().toURL()));
+                XMLHelper.parse(source, null, new XmlReportParserHandler(), null);
+            } finally {
+                in.close();
+            }
+        }
+
+        public boolean replay(File binaryReport) throws Exception {
+            return BinaryReportFile.replay(binaryReport, report, new XmlReportParserHandler());
         }
 
         private static boolean parseBoolean(String str) {
@@ -297,6 +311,50 @@ public class XmlReportParser {
         }
     }
 
+    /**
+     * Parses the given report, reading its binary form instead when it is up to date.
+     *
+     * @param report
+     *            the xml report to parse
+     * @param binaryReport
+     *            the binary form of the report, as written by the {@link BinaryReportOutputter},
+     *            or <code>null</code> if there is none
+     */
+    public void parse(File report, File binaryReport) throws ParseException {
+        if (binaryReport == null) {
+            parse(report);
+            return;
+        }
+        if (!report.exists()) {
+            throw new IllegalStateException("Report file '" + report.getAbsolutePath()
+                    + "' does not exist.");
+        }
+
+        parser = new SaxXmlReportParser(report);
+        try {
+            if (parser.replay(binaryReport)) {
+                return;
+            }
+        } catch (Exception e) {
+            Message.verbose("impossible to read binary report " + binaryReport + ": " + e);
+        }
+        parse(report);
+    }
+
+    /**
+     * Parses the report of the given configuration of the given resolve stored in the given
+     * resolution cache, reading its binary form instead when the cache keeps an up to date one.
+     */
+    public void parse(ResolutionCacheManager cacheMgr, String resolveId, String conf)
+            throws ParseException {
+        File binaryReport = null;
+        if (cacheMgr instanceof DefaultResolutionCacheManager) {
+            binaryReport = ((DefaultResolutionCacheManager) cacheMgr)
+                    .getConfigurationResolveBinaryReportInCache(resolveId, conf);
+        }
+        parse(cacheMgr.getConfigurationResolveReportInCache(resolveId, conf), binaryReport);
+    }
+
     public Artifact[] getArtifacts() {
         return parser.getArtifacts().toArray(new Artifact[parser.getArtifacts().size()]);
     }
@@ -24,13 +24,19 @@ import java.util.Arrays;
 import javax.swing.event.EventListenerList;
 
 import org.apache.ivy.core.module.descriptor.Artifact;
+import org.apache.ivy.util.CopyProgressEvent;
+import org.apache.ivy.util.CopyProgressListener;
 
 public abstract class AbstractRepository implements Repository {
     private EventListenerList listeners = new EventListenerList();
 
     private String name;
 
-    private TransferEvent evt;
+    /**
+     * the event of the current transfer of each thread, null if there was no listener when it was
+     * initiated
+     */
+    private ThreadLocal/* <TransferEvent> */transferEvent = new ThreadLocal();
 
     public void addTransferListener(TransferListener listener) {
         listeners.add(TransferListener.class, listener);
@@ -45,16 +51,30 @@ public abstract class AbstractRepository implements Repository {
     }
 
     protected void fireTransferInitiated(Resource res, int requestType) {
-        evt = new TransferEvent(this, res, TransferEvent.TRANSFER_INITIATED, requestType);
+        if (listeners.getListenerCount() == 0) {
+            transferEvent.set(null);
+            return;
+        }
+        TransferEvent evt = new TransferEvent(this, res, TransferEvent.TRANSFER_INITIATED,
+                requestType);
+        transferEvent.set(evt);
         fireTransferEvent(evt);
     }
 
     protected void fireTransferStarted() {
+        TransferEvent evt = (TransferEvent) transferEvent.get();
+        if (evt == null) {
+            return;
+        }
         evt.setEventType(TransferEvent.TRANSFER_STARTED);
         fireTransferEvent(evt);
     }
 
     protected void fireTransferStarted(long totalLength) {
+        TransferEvent evt = (TransferEvent) transferEvent.get();
+        if (evt == null) {
+            return;
+        }
         evt.setEventType(TransferEvent.TRANSFER_STARTED);
         evt.setTotalLength(totalLength);
         evt.setTotalLengthSet(true);
@@ -62,6 +82,10 @@ public abstract class AbstractRepository implements Repository {
     }
 
     protected void fireTransferProgress(long length) {
+        TransferEvent evt = (TransferEvent) transferEvent.get();
+        if (evt == null) {
+            return;
+        }
         evt.setEventType(TransferEvent.TRANSFER_PROGRESS);
         evt.setLength(length);
         if (!evt.isTotalLengthSet()) {
@@ -71,6 +95,10 @@ public abstract class AbstractRepository implements Repository {
     }
 
     protected void fireTransferCompleted() {
+        TransferEvent evt = (TransferEvent) transferEvent.get();
+        if (evt == null) {
+            return;
+        }
         evt.setEventType(TransferEvent.TRANSFER_COMPLETED);
         if (evt.getTotalLength() > 0 && !evt.isTotalLengthSet()) {
             evt.setTotalLengthSet(true);
@@ -79,6 +107,10 @@ public abstract class AbstractRepository implements Repository {
     }
 
     protected void fireTransferCompleted(long totalLength) {
+        TransferEvent evt = (TransferEvent) transferEvent.get();
+        if (evt == null) {
+            return;
+        }
         evt.setEventType(TransferEvent.TRANSFER_COMPLETED);
         evt.setTotalLength(totalLength);
         evt.setTotalLengthSet(true);
@@ -86,11 +118,19 @@ public abstract class AbstractRepository implements Repository {
     }
 
     protected void fireTransferError() {
+        TransferEvent evt = (TransferEvent) transferEvent.get();
+        if (evt == null) {
+            return;
+        }
         evt.setEventType(TransferEvent.TRANSFER_ERROR);
         fireTransferEvent(evt);
     }
 
     protected void fireTransferError(Exception ex) {
+        TransferEvent evt = (TransferEvent) transferEvent.get();
+        if (evt == null) {
+            return;
+        }
         evt.setEventType(TransferEvent.TRANSFER_ERROR);
         evt.setException(ex);
         fireTransferEvent(evt);
@@ -125,6 +165,54 @@ public abstract class AbstractRepository implements Repository {
         return getName();
     }
 
+    /**
+     * Fetches the given resource like {@link #get(String, File)}, notifying in addition the given
+     * listener of the progress of the copy. Repositories which don't copy the resource themselves
+     * don't notify the listener at all.
+     * 
+     * @param source
+     *            the resource to fetch
+     * @param destination
+     *            the file where the resource will be downloaded
+     * @param listener
+     *            the listener to notify, may be <code>null</code>
+     */
+    public void get(String source, File destination, CopyProgressListener listener)
+            throws IOException {
+        get(source, destination);
+    }
+
+    /**
+     * Returns a listener notifying the given listeners one after the other.
+     * 
+     * @param first
+     *            the first listener to notify. Must not be <code>null</code>.
+     * @param second
+     *            the second listener to notify, may be <code>null</code>
+     */
+    protected static CopyProgressListener chain(final CopyProgressListener first,
+            final CopyProgressListener second) {
+        if (second == null) {
+            return first;
+        }
+        return new CopyProgressListener() {
+            public void start(CopyProgressEvent evt) {
+                first.start(evt);
+                second.start(evt);
+            }
+
+            public void progress(CopyProgressEvent evt) {
+                first.progress(evt);
+                second.progress(evt);
+            }
+
+            public void end(CopyProgressEvent evt) {
+                first.end(evt);
+                second.end(evt);
+            }
+        };
+    }
+
     public void put(Artifact artifact, File source, String destination, boolean overwrite)
             throws IOException {
         put(source, destination, overwrite);
@@ -27,9 +27,13 @@ public class RepositoryCopyProgressListener implements CopyProgressListener {
         this.repository = repository;
     }
 
-    private Long totalLength = null;
+    /**
+     * the total length of the current copy of each thread, null if unknown
+     */
+    private ThreadLocal/* <Long> */totalLength = new ThreadLocal();
 
     public void start(CopyProgressEvent evt) {
+        Long totalLength = getTotalLength();
         if (totalLength != null) {
             repository.fireTransferStarted(totalLength.longValue());
         } else {
@@ -47,10 +51,10 @@ public class RepositoryCopyProgressListener implements CopyProgressListener {
     }
 
     public Long getTotalLength() {
-        return totalLength;
+        return (Long) totalLength.get();
     }
 
     public void setTotalLength(Long totalLength) {
-        this.totalLength = totalLength;
+        this.totalLength.set(totalLength);
     }
 }
@@ -0,0 +1,36 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  See the NOTICE file distributed with
+ *  this work for additional information regarding copyright ownership.
+ *  The ASF licenses this file to You under the Apache License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance with
+ *  the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package org.apache.ivy.plugins.repository;
+
+/**
+ * Resource for which the repository may provide an entity tag, i.e. an opaque identifier of its
+ * content which changes whenever the content changes, like the HTTP ETag header.
+ * <p>
+ * The cache stores the entity tag of the downloaded resources, so that a resource whose entity tag
+ * has not changed is known to be up to date even when its last modified date is not reliable.
+ * </p>
+ */
+public interface TaggedResource extends Resource {
+
+    /**
+     * @return the entity tag of this resource, or <code>null</code> if the repository doesn't
+     *         provide one.
+     */
+    public String getETag();
+
+}
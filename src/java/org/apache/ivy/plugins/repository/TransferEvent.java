@@ -151,6 +151,32 @@ public class TransferEvent extends IvyEvent {
         this.totalLength = length;
     }
 
+    private TransferEvent(TransferEvent evt) {
+        super(evt.getName());
+        addAttributes(evt.getAttributes());
+        this.resource = evt.resource;
+        this.eventType = evt.eventType;
+        this.requestType = evt.requestType;
+        this.exception = evt.exception;
+        this.localFile = evt.localFile;
+        this.repository = evt.repository;
+        this.length = evt.length;
+        this.totalLength = evt.totalLength;
+        this.isTotalLengthSet = evt.isTotalLengthSet;
+        this.timeTracking = evt.timeTracking.clone();
+    }
+
+    /**
+     * Returns a copy of this event in its current state. Repositories update and fire again the
+     * same event all along a transfer, so listeners using the event after having been notified
+     * should use a copy.
+     * 
+     * @return a copy of this event
+     */
+    public TransferEvent copy() {
+        return new TransferEvent(this);
+    }
+
     private static String getName(int eventType) {
         switch (eventType) {
             case TRANSFER_INITIATED:
@@ -27,6 +27,7 @@ import org.apache.ivy.plugins.repository.RepositoryCopyProgressListener;
 import org.apache.ivy.plugins.repository.Resource;
 import org.apache.ivy.plugins.repository.TransferEvent;
 import org.apache.ivy.util.Checks;
+import org.apache.ivy.util.CopyProgressListener;
 import org.apache.ivy.util.FileUtil;
 
 public class FileRepository extends AbstractRepository {
@@ -49,13 +50,18 @@ public class FileRepository extends AbstractRepository {
     }
 
     public void get(String source, File destination) throws IOException {
+        get(source, destination, null);
+    }
+
+    public void get(String source, File destination, CopyProgressListener listener)
+            throws IOException {
         fireTransferInitiated(getResource(source), TransferEvent.REQUEST_GET);
-        copy(getFile(source), destination, true);
+        copy(getFile(source), destination, true, listener);
     }
 
     public void put(File source, String destination, boolean overwrite) throws IOException {
         fireTransferInitiated(getResource(destination), TransferEvent.REQUEST_PUT);
-        copy(source, getFile(destination), overwrite);
+        copy(source, getFile(destination), overwrite, null);
     }
 
     public void move(File src, File dest) throws IOException {
@@ -70,10 +76,12 @@ public class FileRepository extends AbstractRepository {
         }
     }
 
-    private void copy(File src, File destination, boolean overwrite) throws IOException {
+    private void copy(File src, File destination, boolean overwrite,
+            CopyProgressListener listener) throws IOException {
         try {
             getProgressListener().setTotalLength(new Long(src.length()));
-            if (!FileUtil.copy(src, destination, getProgressListener(), overwrite)) {
+            if (!FileUtil.copy(src, destination, chain(getProgressListener(), listener),
+                overwrite)) {
                 if (!overwrite && destination.exists()) {
                     throw new IOException("file copy not done from " + src + " to " + destination
                             + ": destination already exists and overwrite is false");
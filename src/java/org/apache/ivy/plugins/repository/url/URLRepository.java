@@ -20,6 +20,7 @@ package org.apache.ivy.plugins.repository.url;
 import java.io.File;
 import java.io.IOException;
 import java.net.URI;
+import java.net.MalformedURLException;
 import java.net.URISyntaxException;
 import java.net.URL;
 import java.util.ArrayList;
@@ -33,13 +34,19 @@ import org.apache.ivy.plugins.repository.AbstractRepository;
 import org.apache.ivy.plugins.repository.RepositoryCopyProgressListener;
 import org.apache.ivy.plugins.repository.Resource;
 import org.apache.ivy.plugins.repository.TransferEvent;
+import org.apache.ivy.util.CopyProgressListener;
 import org.apache.ivy.util.FileUtil;
 import org.apache.ivy.util.url.ApacheURLLister;
+import org.apache.ivy.util.url.ConditionalURLHandler;
+import org.apache.ivy.util.url.URLHandler;
+import org.apache.ivy.util.url.URLHandler.URLInfo;
+import org.apache.ivy.util.url.URLHandlerDispatcher;
+import org.apache.ivy.util.url.URLHandlerRegistry;
 
 public class URLRepository extends AbstractRepository {
     private RepositoryCopyProgressListener progress = new RepositoryCopyProgressListener(this);
 
-    private Map resourcesCache = new HashMap();
+    private Map resourcesCache = Collections.synchronizedMap(new HashMap());
 
     public Resource getResource(String source) throws IOException {
         Resource res = (Resource) resourcesCache.get(source);
@@ -51,6 +58,11 @@ public class URLRepository extends AbstractRepository {
     }
 
     public void get(String source, File destination) throws IOException {
+        get(source, destination, null);
+    }
+
+    public void get(String source, File destination, CopyProgressListener listener)
+            throws IOException {
         fireTransferInitiated(getResource(source), TransferEvent.REQUEST_GET);
         try {
             Resource res = getResource(source);
@@ -58,7 +70,7 @@ public class URLRepository extends AbstractRepository {
             if (totalLength > 0) {
                 progress.setTotalLength(new Long(totalLength));
             }
-            FileUtil.copy(new URL(source), destination, progress);
+            FileUtil.copy(new URL(source), destination, chain(progress, listener));
         } catch (IOException ex) {
             fireTransferError(ex);
             throw ex;
@@ -70,6 +82,67 @@ public class URLRepository extends AbstractRepository {
         }
     }
 
+    /**
+     * Tells whether {@link #getIfModified(String, File, String, long)} downloads the given source
+     * with a conditional request, which is the case only for http urls whose url handler supports
+     * it. Otherwise the source is always downloaded, and it's cheaper to check its last
+     * modification date first.
+     */
+    public boolean isConditional(String source) {
+        URL url;
+        try {
+            url = new URL(source);
+        } catch (MalformedURLException e) {
+            return false;
+        }
+        if (!"http".equals(url.getProtocol()) && !"https".equals(url.getProtocol())) {
+            return false;
+        }
+        URLHandler handler = URLHandlerRegistry.getDefault();
+        if (handler instanceof URLHandlerDispatcher) {
+            handler = ((URLHandlerDispatcher) handler).getHandler(url.getProtocol());
+        }
+        return handler instanceof ConditionalURLHandler;
+    }
+
+    /**
+     * Downloads the given source to the given file, unless it has not been modified since it was
+     * previously downloaded with the given entity tag or last modification date. When the url
+     * handler can't send conditional requests, the source is always downloaded.
+     * 
+     * @param eTag
+     *            the entity tag of the previous download, <code>null</code> if unknown
+     * @param lastModified
+     *            the last modification date of the previous download, 0 if unknown
+     * @return the information sent with the downloaded content, or <code>null</code> if the source
+     *         has not been modified
+     */
+    public URLInfo getIfModified(String source, File destination, String eTag, long lastModified)
+            throws IOException {
+        URLHandler handler = URLHandlerRegistry.getDefault();
+        if (!(handler instanceof ConditionalURLHandler)) {
+            // the dispatcher downloads unconditionally with handlers unable to do otherwise
+            URLHandlerDispatcher dispatcher = new URLHandlerDispatcher();
+            dispatcher.setDefault(handler);
+            handler = dispatcher;
+        }
+        fireTransferInitiated(getResource(source), TransferEvent.REQUEST_GET);
+        try {
+            URLInfo info = ((ConditionalURLHandler) handler).downloadIfModified(new URL(source),
+                destination, eTag, lastModified, progress);
+            if (info == null) {
+                fireTransferCompleted(0);
+            }
+            return info;
+        } catch (IOException ex) {
+            fireTransferError(ex);
+            throw ex;
+        } catch (RuntimeException ex) {
+            fireTransferError(ex);
+            throw ex;
+        }
+    }
+
     public void put(File source, String destination, boolean overwrite) throws IOException {
         if (!overwrite && getResource(destination).exists()) {
             throw new IOException("destination file exists and overwrite == false");
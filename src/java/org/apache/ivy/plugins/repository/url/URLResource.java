@@ -26,10 +26,12 @@ import java.net.URL;
 
 import org.apache.ivy.plugins.repository.LocalizableResource;
 import org.apache.ivy.plugins.repository.Resource;
+import org.apache.ivy.plugins.repository.TaggedResource;
+import org.apache.ivy.util.url.URLHandler;
 import org.apache.ivy.util.url.URLHandler.URLInfo;
 import org.apache.ivy.util.url.URLHandlerRegistry;
 
-public class URLResource implements LocalizableResource {
+public class URLResource implements LocalizableResource, TaggedResource {
     private URL url;
 
     private boolean init = false;
@@ -40,6 +42,10 @@ public class URLResource implements LocalizableResource {
 
     private boolean exists;
 
+    private boolean notFound;
+
+    private String eTag;
+
     public URLResource(URL url) {
         this.url = url;
     }
@@ -69,6 +75,8 @@ public class URLResource implements LocalizableResource {
         contentLength = info.getContentLength();
         lastModified = info.getLastModified();
         exists = info.isReachable();
+        notFound = info == URLHandler.NOT_FOUND;
+        eTag = info.getETag();
         init = true;
     }
 
@@ -86,6 +94,24 @@ public class URLResource implements LocalizableResource {
         return exists;
     }
 
+    /**
+     * Returns true if this resource is known not to exist, e.g. because an http server answered
+     * 404, and false if it exists or if it's unknown whether it exists, e.g. after a server error.
+     */
+    public boolean isNotFound() {
+        if (!init) {
+            init();
+        }
+        return notFound;
+    }
+
+    public String getETag() {
+        if (!init) {
+            init();
+        }
+        return eTag;
+    }
+
     public URL getURL() {
         return url;
     }
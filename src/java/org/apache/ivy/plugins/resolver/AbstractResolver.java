@@ -29,6 +29,7 @@ import org.apache.ivy.core.RelativeUrlResolver;
 import org.apache.ivy.core.cache.ArtifactOrigin;
 import org.apache.ivy.core.cache.CacheDownloadOptions;
 import org.apache.ivy.core.cache.CacheMetadataOptions;
+import org.apache.ivy.core.cache.DefaultRepositoryCacheManager;
 import org.apache.ivy.core.cache.DownloadListener;
 import org.apache.ivy.core.cache.RepositoryCacheManager;
 import org.apache.ivy.core.cache.ResolutionCacheManager;
@@ -426,6 +427,26 @@ public abstract class AbstractResolver implements DependencyResolver, HasLatestS
         initLatestStrategyFromSettings();
     }
 
+    /**
+     * Indicates if the module asked by the given dependency descriptor is checked in the
+     * repository by this resolver each time it is resolved, because it is changing, because its
+     * revision matches the changing pattern of this resolver or of its cache, or because the
+     * modification of its metadata is checked. Returns true when this can't be known, with a cache
+     * other than the default one.
+     */
+    public boolean isCheckedAtEachResolve(DependencyDescriptor dd) {
+        RepositoryCacheManager cacheManager = getRepositoryCacheManager();
+        if (!(cacheManager instanceof DefaultRepositoryCacheManager)) {
+            return true;
+        }
+        CacheMetadataOptions options = new CacheMetadataOptions();
+        options.setChangingMatcherName(getChangingMatcherName());
+        options.setChangingPattern(getChangingPattern());
+        options.setCheckmodified(checkmodified);
+        return ((DefaultRepositoryCacheManager) cacheManager).isCheckedAtEachResolve(dd,
+            dd.getDependencyRevisionId(), options);
+    }
+
     protected CacheMetadataOptions getCacheOptions(ResolveData data) {
         return (CacheMetadataOptions) new CacheMetadataOptions()
                 .setChangingMatcherName(getChangingMatcherName())
@@ -464,7 +485,8 @@ public abstract class AbstractResolver implements DependencyResolver, HasLatestS
     private DownloadListener getDownloadListener(final DownloadOptions options) {
         return new DownloadListener() {
             public void needArtifact(RepositoryCacheManager cache, Artifact artifact) {
-                if (eventManager != null) {
+                if (eventManager != null
+                        && eventManager.isIvyEventListened(NeedArtifactEvent.NAME)) {
                     eventManager
                             .fireIvyEvent(new NeedArtifactEvent(AbstractResolver.this, artifact));
                 }
@@ -477,7 +499,8 @@ public abstract class AbstractResolver implements DependencyResolver, HasLatestS
                 } else {
                     Message.info("downloading " + rres.getResource() + " ...");
                 }
-                if (eventManager != null) {
+                if (eventManager != null
+                        && eventManager.isIvyEventListened(StartArtifactDownloadEvent.NAME)) {
                     eventManager.fireIvyEvent(new StartArtifactDownloadEvent(AbstractResolver.this,
                             artifact, origin));
                 }
@@ -485,7 +508,8 @@ public abstract class AbstractResolver implements DependencyResolver, HasLatestS
 
             public void endArtifactDownload(RepositoryCacheManager cache, Artifact artifact,
                     ArtifactDownloadReport adr, File archiveFile) {
-                if (eventManager != null) {
+                if (eventManager != null
+                        && eventManager.isIvyEventListened(EndArtifactDownloadEvent.NAME)) {
                     eventManager.fireIvyEvent(new EndArtifactDownloadEvent(AbstractResolver.this,
                             artifact, adr, archiveFile));
                 }
@@ -36,6 +36,14 @@ import java.util.List;
 import java.util.ListIterator;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.ivy.core.IvyContext;
 import org.apache.ivy.core.IvyPatternHelper;
@@ -56,6 +64,7 @@ import org.apache.ivy.core.report.MetadataArtifactDownloadReport;
 import org.apache.ivy.core.resolve.DownloadOptions;
 import org.apache.ivy.core.resolve.IvyNode;
 import org.apache.ivy.core.resolve.ResolveData;
+import org.apache.ivy.core.resolve.ResolveMetrics;
 import org.apache.ivy.core.resolve.ResolvedModuleRevision;
 import org.apache.ivy.core.search.ModuleEntry;
 import org.apache.ivy.core.search.OrganisationEntry;
@@ -77,7 +86,11 @@ import org.apache.ivy.plugins.resolver.util.ResolvedResource;
 import org.apache.ivy.plugins.resolver.util.ResourceMDParser;
 import org.apache.ivy.plugins.version.VersionMatcher;
 import org.apache.ivy.util.Checks;
+import org.apache.ivy.util.ChecksumCopyProgressListener;
 import org.apache.ivy.util.ChecksumHelper;
+import org.apache.ivy.util.CopyProgressListener;
+import org.apache.ivy.util.DaemonThreadFactory;
+import org.apache.ivy.util.FileUtil;
 import org.apache.ivy.util.HostUtil;
 import org.apache.ivy.util.Message;
 
@@ -129,6 +142,17 @@ public abstract class BasicResolver extends AbstractResolver {
 
     public static final SimpleDateFormat DATE_FORMAT = new SimpleDateFormat("yyyyMMddHHmmss");
 
+    /**
+     * the maximum number of threads fetching checksum files while artifacts are downloaded, a
+     * checksum file for which no thread is free being fetched by the downloading thread itself
+     */
+    private static final int CHECKSUM_FETCHER_THREADS = 4;
+
+    /**
+     * the time after which an idle checksum fetching thread ends, in milliseconds
+     */
+    private static final long CHECKSUM_FETCHER_KEEP_ALIVE = 1000;
+
     private String workspaceName;
 
     /**
@@ -138,9 +162,22 @@ public abstract class BasicResolver extends AbstractResolver {
      */
     private boolean envDependent = true;
 
-    private List ivyattempts = new ArrayList();
+    /**
+     * the attempts logged by each thread, since several threads may resolve dependencies or
+     * download artifacts with this resolver at the same time
+     */
+    private ThreadLocal/* <Attempts> */attempts = new ThreadLocal() {
+        protected Object initialValue() {
+            return new Attempts();
+        }
+    };
 
-    private Map artattempts = new HashMap();
+    /**
+     * the attempts logged by the last download of each artifact, so that failures can be reported
+     * by another thread than the one which has downloaded them
+     */
+    private Map/* <Artifact, List<String>> */downloadattempts = Collections
+            .synchronizedMap(new HashMap());
 
     private boolean checkconsistency = true;
 
@@ -150,6 +187,11 @@ public abstract class BasicResolver extends AbstractResolver {
 
     private String checksums = null;
 
+    /**
+     * the threads fetching the checksum files of this resolver, created when first needed
+     */
+    private ThreadPoolExecutor checksumFetcher;
+
     private URLRepository extartifactrep = new URLRepository(); // used only to download
 
     // external artifacts
@@ -177,6 +219,8 @@ public abstract class BasicResolver extends AbstractResolver {
     public ResolvedModuleRevision getDependency(DependencyDescriptor dd, ResolveData data)
             throws ParseException {
         IvyContext context = IvyContext.pushNewCopyContext();
+        long start = System.nanoTime();
+        Future/* <IvyFileLookup> */ivyFileLookup = data.getIvyFileLookup(dd);
         try {
             ResolvedModuleRevision mr = data.getCurrentResolvedModuleRevision();
             if (mr != null) {
@@ -217,6 +261,7 @@ public abstract class BasicResolver extends AbstractResolver {
                             + "): but we are in force mode, let's try to find one ourself");
                 } else {
                     Message.verbose("\t" + getName() + ": revision in cache: " + systemMrid);
+                    data.getMetrics().addCacheHit(getName());
                     return checkLatest(systemDd, checkForcedResolvedModuleRevision(rmr), data);
                 }
             }
@@ -227,7 +272,7 @@ public abstract class BasicResolver extends AbstractResolver {
 
             checkInterrupted();
 
-            ResolvedResource ivyRef = findIvyFileRef(nsDd, data);
+            ResolvedResource ivyRef = findIvyFileRef(nsDd, data, ivyFileLookup);
             checkInterrupted();
 
             // get module descriptor
@@ -275,7 +320,12 @@ public abstract class BasicResolver extends AbstractResolver {
                         throw new UnresolvedDependencyException();
                     }
                 }
+                if (rmr.getReport().isDownloaded()) {
+                    data.getMetrics().addDownload(getName(), rmr.getReport().getSize(),
+                        rmr.getReport().getDownloadTimeMillis());
+                }
                 if (!rmr.getReport().isDownloaded() && rmr.getReport().getLocalFile() != null) {
+                    data.getMetrics().addLookup(getName(), true, System.nanoTime() - start);
                     return checkLatest(systemDd, checkForcedResolvedModuleRevision(rmr), data);
                 } else {
                     nsMd = rmr.getDescriptor();
@@ -311,8 +361,10 @@ public abstract class BasicResolver extends AbstractResolver {
                 cacheModuleDescriptor(systemMd, systemMrid, ivyRef, rmr);
             }
 
+            data.getMetrics().addLookup(getName(), true, System.nanoTime() - start);
             return checkLatest(systemDd, checkForcedResolvedModuleRevision(rmr), data);
         } catch (UnresolvedDependencyException ex) {
+            data.getMetrics().addLookup(getName(), false, System.nanoTime() - start);
             if (ex.getMessage().length() > 0) {
                 if (ex.isError()) {
                     Message.error(ex.getMessage());
@@ -326,6 +378,68 @@ public abstract class BasicResolver extends AbstractResolver {
         }
     }
 
+    /**
+     * Returns a task looking for the ivy file of the given dependency as
+     * {@link #getDependency(DependencyDescriptor, ResolveData)} would, without resolving nor
+     * caching anything, so that it can be run in advance by another thread. Its result is used
+     * when the dependency is resolved with data to which it has been given by
+     * {@link ResolveData#setIvyFileLookup(DependencyDescriptor, Future)}, unless it is
+     * <code>null</code>.
+     */
+    Callable/* <IvyFileLookup> */newIvyFileLookup(final DependencyDescriptor dd,
+            final ResolveData data) {
+        return new Callable() {
+            public Object call() {
+                IvyContext context = IvyContext.pushNewCopyContext();
+                try {
+                    DependencyDescriptor systemDd = dd;
+                    if (isForce()) {
+                        systemDd = dd.clone(ModuleRevisionId.newInstance(
+                            dd.getDependencyRevisionId(), "latest.integration"));
+                    }
+                    context.setDependencyDescriptor(systemDd);
+                    context.setResolveData(data);
+                    clearIvyAttempts();
+                    ResolvedResource ivyRef = findIvyFileRef(fromSystem(systemDd), data);
+                    return new IvyFileLookup(ivyRef, new ArrayList(getAttempts().ivyattempts));
+                } finally {
+                    IvyContext.popContext();
+                }
+            }
+        };
+    }
+
+    /**
+     * Returns the ivy file found by the given lookup made in advance, or looks for it if there is
+     * no such lookup.
+     */
+    private ResolvedResource findIvyFileRef(DependencyDescriptor dd, ResolveData data,
+            Future/* <IvyFileLookup> */ivyFileLookup) {
+        if (ivyFileLookup != null) {
+            IvyFileLookup lookup;
+            try {
+                lookup = (IvyFileLookup) ivyFileLookup.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                checkInterrupted();
+                throw new RuntimeException("interrupted while looking for " + dd, e);
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof RuntimeException) {
+                    throw (RuntimeException) cause;
+                } else if (cause instanceof Error) {
+                    throw (Error) cause;
+                }
+                throw new RuntimeException(cause.toString(), cause);
+            }
+            if (lookup != null) {
+                getAttempts().ivyattempts.addAll(lookup.attempts);
+                return lookup.ivyRef;
+            }
+        }
+        return findIvyFileRef(dd, data);
+    }
+
     protected boolean shouldReturnResolvedModule(DependencyDescriptor dd, ResolvedModuleRevision mr) {
         // a resolved module revision has already been found by a prior dependency resolver
         // let's see if it should be returned and bypass this resolver
@@ -766,16 +880,17 @@ public abstract class BasicResolver extends AbstractResolver {
     }
 
     protected void clearIvyAttempts() {
-        ivyattempts.clear();
+        getAttempts().ivyattempts.clear();
         clearArtifactAttempts();
     }
 
     protected void logIvyAttempt(String attempt) {
-        ivyattempts.add(attempt);
+        getAttempts().ivyattempts.add(attempt);
         Message.verbose("\t\ttried " + attempt);
     }
 
     protected void logArtifactAttempt(Artifact art, String attempt) {
+        Map artattempts = getAttempts().artattempts;
         List attempts = (List) artattempts.get(art);
         if (attempts == null) {
             attempts = new ArrayList();
@@ -785,6 +900,10 @@ public abstract class BasicResolver extends AbstractResolver {
         Message.verbose("\t\ttried " + attempt);
     }
 
+    private Attempts getAttempts() {
+        return (Attempts) attempts.get();
+    }
+
     protected void logAttempt(String attempt) {
         Artifact currentArtifact = (Artifact) IvyContext.getContext().get(getName() + ".artifact");
         if (currentArtifact != null) {
@@ -796,16 +915,17 @@ public abstract class BasicResolver extends AbstractResolver {
 
     public void reportFailure() {
         Message.warn("==== " + getName() + ": tried");
-        for (ListIterator iter = ivyattempts.listIterator(); iter.hasNext();) {
+        Attempts attempts = getAttempts();
+        for (ListIterator iter = attempts.ivyattempts.listIterator(); iter.hasNext();) {
             String m = (String) iter.next();
             Message.warn("  " + m);
         }
-        for (Iterator iter = artattempts.keySet().iterator(); iter.hasNext();) {
+        for (Iterator iter = attempts.artattempts.keySet().iterator(); iter.hasNext();) {
             Artifact art = (Artifact) iter.next();
-            List attempts = (List) artattempts.get(art);
-            if (attempts != null) {
+            List artAttempts = (List) attempts.artattempts.get(art);
+            if (artAttempts != null) {
                 Message.warn("  -- artifact " + art + ":");
-                for (ListIterator iterator = attempts.listIterator(); iterator.hasNext();) {
+                for (ListIterator iterator = artAttempts.listIterator(); iterator.hasNext();) {
                     String m = (String) iterator.next();
                     Message.warn("  " + m);
                 }
@@ -815,7 +935,10 @@ public abstract class BasicResolver extends AbstractResolver {
 
     public void reportFailure(Artifact art) {
         Message.warn("==== " + getName() + ": tried");
-        List attempts = (List) artattempts.get(art);
+        List attempts = (List) getAttempts().artattempts.get(art);
+        if (attempts == null) {
+            attempts = (List) downloadattempts.get(art);
+        }
         if (attempts != null) {
             for (ListIterator iter = attempts.listIterator(); iter.hasNext();) {
                 String m = (String) iter.next();
@@ -833,9 +956,19 @@ public abstract class BasicResolver extends AbstractResolver {
 
         clearArtifactAttempts();
         DownloadReport dr = new DownloadReport();
+        ResolveMetrics metrics = ResolveMetrics.getCurrent();
         for (int i = 0; i < artifacts.length; i++) {
             ArtifactDownloadReport adr = cacheManager.download(artifacts[i],
                 artifactResourceResolver, downloader, getCacheDownloadOptions(options));
+            List attempts = (List) getAttempts().artattempts.get(artifacts[i]);
+            if (attempts == null) {
+                downloadattempts.remove(artifacts[i]);
+            } else {
+                downloadattempts.put(artifacts[i], new ArrayList(attempts));
+            }
+            if (metrics != null && adr.isDownloaded()) {
+                metrics.addDownload(getName(), adr.getSize(), adr.getDownloadTimeMillis());
+            }
             if (DownloadStatus.FAILED == adr.getDownloadStatus()) {
                 if (!ArtifactDownloadReport.MISSING_ARTIFACT.equals(adr.getDownloadDetails())) {
                     Message.warn("\t" + adr);
@@ -854,7 +987,7 @@ public abstract class BasicResolver extends AbstractResolver {
     }
 
     protected void clearArtifactAttempts() {
-        artattempts.clear();
+        getAttempts().artattempts.clear();
     }
 
     public ArtifactDownloadReport download(final ArtifactOrigin origin, DownloadOptions options) {
@@ -977,55 +1110,129 @@ public abstract class BasicResolver extends AbstractResolver {
         return null;
     }
 
-    protected long getAndCheck(Resource resource, File dest) throws IOException {
-        long size = get(resource, dest);
-        String[] checksums = getChecksumAlgorithms();
-        boolean checked = false;
-        for (int i = 0; i < checksums.length && !checked; i++) {
-            checked = check(resource, dest, checksums[i]);
-        }
-        return size;
-    }
-
     /**
-     * Checks the given resource checksum if a checksum resource exists.
+     * Downloads the given resource and checks it against the first checksum found for it, the
+     * checksums of the resource being computed while it is downloaded.
      * 
      * @param resource
-     *            the resource to check
+     *            the resource to download
      * @param dest
-     *            the file where the resource has been downloaded
-     * @param algorithm
-     *            the checksum algorithm to use
-     * @return true if the checksum has been successfully checked, false if the checksum wasn't
-     *         available
+     *            the file where the resource has to be downloaded
+     * @return the size of the downloaded file
      * @throws IOException
-     *             if a checksum exist but do not match the downloaded file checksum
+     *             if the download fails, or if a checksum exists but do not match the downloaded
+     *             file checksum
      */
-    private boolean check(Resource resource, File dest, String algorithm) throws IOException {
-        if (!ChecksumHelper.isKnownAlgorithm(algorithm)) {
-            throw new IllegalArgumentException("Unknown checksum algorithm: " + algorithm);
+    protected long getAndCheck(Resource resource, File dest) throws IOException {
+        final String[] algorithms = getChecksumAlgorithms();
+        for (int i = 0; i < algorithms.length; i++) {
+            if (!ChecksumHelper.isKnownAlgorithm(algorithms[i])) {
+                throw new IllegalArgumentException("Unknown checksum algorithm: "
+                        + algorithms[i]);
+            }
+        }
+        if (algorithms.length == 0) {
+            return get(resource, dest);
+        }
+
+        final Resource res = resource;
+        FutureTask expected = new FutureTask(new Callable() {
+            public Object call() throws IOException {
+                return getChecksumFile(res, algorithms);
+            }
+        });
+        if (resource instanceof URLResource) {
+            // the checksum file is fetched while the resource itself is downloaded, which is
+            // restricted to url resources since the connections of the other repositories may
+            // not be usable by several threads
+            getChecksumFetcher().execute(expected);
         }
 
-        Resource csRes = resource.clone(resource.getName() + "." + algorithm);
-        if (csRes.exists()) {
-            Message.debug(algorithm + " file found for " + resource + ": checking...");
-            File csFile = File.createTempFile("ivytmp", algorithm);
+        ChecksumCopyProgressListener listener = new ChecksumCopyProgressListener(algorithms);
+        long size;
+        try {
+            size = get(resource, dest, listener);
+        } catch (IOException ex) {
+            expected.cancel(true);
+            throw ex;
+        }
+        long start = System.nanoTime();
+        try {
+            // run now if it hasn't been submitted, or has been discarded for lack of threads
+            expected.run();
+            String[] checksumFile;
             try {
-                get(csRes, csFile);
+                checksumFile = (String[]) expected.get();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new IOException("interrupted while fetching checksums of " + resource);
+            } catch (ExecutionException ex) {
+                if (ex.getCause() instanceof IOException) {
+                    throw (IOException) ex.getCause();
+                }
+                throw new RuntimeException(ex.getCause());
+            }
+
+            if (checksumFile != null) {
+                String algorithm = checksumFile[0];
+                String computed = listener.getChecksum(algorithm);
+                if (computed == null) {
+                    // the repository hasn't notified the listener of the download
+                    computed = ChecksumHelper.computeAsString(dest, algorithm);
+                }
                 try {
-                    ChecksumHelper.check(dest, csFile, algorithm);
+                    ChecksumHelper.check(computed, checksumFile[1], algorithm);
                     Message.verbose(algorithm + " OK for " + resource);
-                    return true;
                 } catch (IOException ex) {
                     dest.delete();
                     throw ex;
                 }
-            } finally {
-                csFile.delete();
             }
-        } else {
-            return false;
+        } finally {
+            ResolveMetrics.record(ResolveMetrics.CHECKSUM, start);
+        }
+        return size;
+    }
+
+    /**
+     * Returns the threads fetching the checksum files of this resolver. They end once idle, so
+     * that the resolver doesn't need to be shut down, and a task for which no thread is free is
+     * discarded, to be run by the downloading thread.
+     */
+    private synchronized Executor getChecksumFetcher() {
+        if (checksumFetcher == null) {
+            checksumFetcher = new ThreadPoolExecutor(0, CHECKSUM_FETCHER_THREADS,
+                    CHECKSUM_FETCHER_KEEP_ALIVE, TimeUnit.MILLISECONDS, new SynchronousQueue(),
+                    new DaemonThreadFactory("checksum"), new ThreadPoolExecutor.DiscardPolicy());
         }
+        return checksumFetcher;
+    }
+
+    /**
+     * Returns the algorithm and the content of the first checksum file found for the given
+     * resource, or <code>null</code> if there is none.
+     */
+    private String[] getChecksumFile(Resource resource, String[] algorithms) throws IOException {
+        for (int i = 0; i < algorithms.length; i++) {
+            Resource csRes = resource.clone(resource.getName() + "." + algorithms[i]);
+            if (csRes.exists()) {
+                Message.debug(algorithms[i] + " file found for " + resource + ": checking...");
+                String content;
+                if (csRes instanceof URLResource) {
+                    content = FileUtil.readEntirely(csRes.openStream());
+                } else {
+                    File csFile = File.createTempFile("ivytmp", algorithms[i]);
+                    try {
+                        get(csRes, csFile);
+                        content = FileUtil.readEntirely(csFile);
+                    } finally {
+                        csFile.delete();
+                    }
+                }
+                return new String[] {algorithms[i], content};
+            }
+        }
+        return null;
     }
 
     protected ResolvedResource getArtifactRef(Artifact artifact, Date date) {
@@ -1065,6 +1272,15 @@ public abstract class BasicResolver extends AbstractResolver {
 
     protected abstract long get(Resource resource, File dest) throws IOException;
 
+    /**
+     * Downloads the given resource like {@link #get(Resource, File)}, notifying the given listener
+     * of the progress of the copy if the underlying repository supports it.
+     */
+    protected long get(Resource resource, File dest, CopyProgressListener listener)
+            throws IOException {
+        return get(resource, dest);
+    }
+
     public boolean isCheckconsistency() {
         return checkconsistency;
     }
@@ -1161,4 +1377,20 @@ public abstract class BasicResolver extends AbstractResolver {
         }
     };
 
+    private static class Attempts {
+        private List/* <String> */ivyattempts = new ArrayList();
+
+        private Map/* <Artifact, List<String>> */artattempts = new HashMap();
+    }
+
+    private static class IvyFileLookup {
+        private final ResolvedResource ivyRef;
+
+        private final List/* <String> */attempts;
+
+        public IvyFileLookup(ResolvedResource ivyRef, List/* <String> */attempts) {
+            this.ivyRef = ivyRef;
+            this.attempts = attempts;
+        }
+    }
 }
@@ -28,7 +28,16 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.ivy.core.IvyContext;
 import org.apache.ivy.core.cache.ArtifactOrigin;
 import org.apache.ivy.core.module.descriptor.Artifact;
 import org.apache.ivy.core.module.descriptor.DependencyDescriptor;
@@ -43,6 +52,7 @@ import org.apache.ivy.plugins.latest.ArtifactInfo;
 import org.apache.ivy.plugins.latest.LatestStrategy;
 import org.apache.ivy.plugins.resolver.util.HasLatestStrategy;
 import org.apache.ivy.plugins.resolver.util.ResolvedResource;
+import org.apache.ivy.util.DaemonThreadFactory;
 import org.apache.ivy.util.Message;
 import org.apache.ivy.util.StringUtils;
 
@@ -67,12 +77,26 @@ public class ChainResolver extends AbstractResolver {
 
     }
 
+    /**
+     * the time after which an idle lookup thread ends, in milliseconds
+     */
+    private static final long LOOKUP_KEEP_ALIVE = 1000;
+
     private boolean returnFirst = false;
 
     private List chain = new ArrayList();
 
     private boolean dual;
 
+    private boolean concurrent = false;
+
+    private int threads = 0;
+
+    /**
+     * the threads asking the resolvers of this chain concurrently, created when first needed
+     */
+    private ExecutorService lookupExecutor;
+
     public void add(DependencyResolver resolver) {
         chain.add(resolver);
     }
@@ -91,29 +115,45 @@ public class ChainResolver extends AbstractResolver {
             mr = findModuleInCache(dd, data, true);
             if (mr != null) {
                 Message.verbose(getName() + ": module revision found in cache: " + mr.getId());
+                data.getMetrics().addCacheHit(getName());
                 mr = forcedRevision(mr);
             }
         }
 
-        for (Iterator iter = chain.iterator(); iter.hasNext();) {
-            DependencyResolver resolver = (DependencyResolver) iter.next();
-            LatestStrategy oldLatest = setLatestIfRequired(resolver, getLatestStrategy());
-            try {
-                ResolvedModuleRevision previouslyResolved = mr;
-                data.setCurrentResolvedModuleRevision(previouslyResolved);
-                mr = resolver.getDependency(dd, data);
-                if (mr != previouslyResolved && isReturnFirst()) {
-                    mr = forcedRevision(mr);
+        // the ivy files are looked for in advance by all the resolvers at once, but the
+        // resolvers still resolve the dependency one after the other, so that only the selected
+        // module revision is cached
+        ConcurrentLookup lookup = mr == null ? newIvyFileLookup(dd, data) : null;
+        try {
+            for (int i = 0; i < chain.size(); i++) {
+                DependencyResolver resolver = (DependencyResolver) chain.get(i);
+                LatestStrategy oldLatest = setLatestIfRequired(resolver, getLatestStrategy());
+                if (lookup != null && resolver instanceof BasicResolver) {
+                    data.setIvyFileLookup(dd, lookup.getFuture(i));
                 }
-            } catch (Exception ex) {
-                Message.verbose("problem occurred while resolving " + dd + " with " + resolver, ex);
-                errors.add(ex);
-            } finally {
-                if (oldLatest != null) {
-                    setLatest(resolver, oldLatest);
+                try {
+                    ResolvedModuleRevision previouslyResolved = mr;
+                    data.setCurrentResolvedModuleRevision(previouslyResolved);
+                    mr = resolver.getDependency(dd, data);
+                    if (mr != previouslyResolved && isReturnFirst()) {
+                        mr = forcedRevision(mr);
+                    }
+                } catch (Exception ex) {
+                    Message.verbose("problem occurred while resolving " + dd + " with "
+                            + resolver, ex);
+                    errors.add(ex);
+                } finally {
+                    if (oldLatest != null) {
+                        setLatest(resolver, oldLatest);
+                    }
+                    data.setIvyFileLookup(dd, null);
                 }
+                checkInterrupted();
+            }
+        } finally {
+            if (lookup != null) {
+                lookup.finish();
             }
-            checkInterrupted();
         }
         if (mr == null && !errors.isEmpty()) {
             if (errors.size() == 1) {
@@ -143,6 +183,55 @@ public class ChainResolver extends AbstractResolver {
         return resolvedRevision(mr);
     }
 
+    /**
+     * Returns the lookups of the ivy file of the dependency by the resolvers of the chain, to be
+     * made concurrently, or <code>null</code> if the resolvers must look for it by themselves.
+     * <p>
+     * The ivy files are looked for in advance only when the version matcher doesn't need to parse
+     * them to select the revision, since a parsed ivy file would be cached by every resolver, and
+     * only by the resolvers whose latest strategy isn't replaced by the one of the chain while
+     * they resolve the dependency.
+     * </p>
+     */
+    private ConcurrentLookup newIvyFileLookup(DependencyDescriptor dd, ResolveData data) {
+        ModuleRevisionId mrid = dd.getDependencyRevisionId();
+        if (!isConcurrentLookup()
+                || getSettings().getVersionMatcher().needModuleDescriptor(mrid, mrid)) {
+            return null;
+        }
+        List calls = new ArrayList();
+        for (Iterator iter = chain.iterator(); iter.hasNext();) {
+            DependencyResolver resolver = (DependencyResolver) iter.next();
+            String latestName = getLatestStrategyName(resolver);
+            if (resolver instanceof BasicResolver
+                    && (latestName == null || "default".equals(latestName))) {
+                calls.add(((BasicResolver) resolver).newIvyFileLookup(dd, new ResolveData(data,
+                        data.isValidate())));
+            } else {
+                calls.add(null);
+            }
+        }
+        return new ConcurrentLookup(calls);
+    }
+
+    /**
+     * Returns the threads asking the resolvers of this chain concurrently, at most
+     * {@link #getThreads()} or one per resolver. They end once idle, so that the chain doesn't
+     * need to be shut down, and a call for which no thread is free is made by the calling thread.
+     */
+    private synchronized ExecutorService getLookupExecutor() {
+        if (lookupExecutor == null) {
+            lookupExecutor = new ThreadPoolExecutor(0, threads > 0 ? threads : chain.size(),
+                    LOOKUP_KEEP_ALIVE, TimeUnit.MILLISECONDS, new SynchronousQueue(),
+                    new DaemonThreadFactory("chain"), new ThreadPoolExecutor.CallerRunsPolicy());
+        }
+        return lookupExecutor;
+    }
+
+    private boolean isConcurrentLookup() {
+        return isConcurrent() && chain.size() > 1;
+    }
+
     private ResolvedModuleRevision resolvedRevision(ResolvedModuleRevision mr) {
         if (isDual() && mr != null) {
             return new ResolvedModuleRevision(mr.getResolver(), this, mr.getDescriptor(),
@@ -172,7 +261,19 @@ public class ChainResolver extends AbstractResolver {
         }
     }
 
-    public ResolvedResource findIvyFileRef(DependencyDescriptor dd, ResolveData data) {
+    public ResolvedResource findIvyFileRef(final DependencyDescriptor dd, final ResolveData data) {
+        if (isConcurrentLookup()) {
+            List calls = new ArrayList();
+            for (Iterator iter = chain.iterator(); iter.hasNext();) {
+                final DependencyResolver resolver = (DependencyResolver) iter.next();
+                calls.add(new Callable() {
+                    public Object call() {
+                        return resolver.findIvyFileRef(dd, data);
+                    }
+                });
+            }
+            return (ResolvedResource) new ConcurrentLookup(calls).getFirst(null);
+        }
         for (Iterator iter = chain.iterator(); iter.hasNext();) {
             DependencyResolver resolver = (DependencyResolver) iter.next();
             ResolvedResource result = resolver.findIvyFileRef(dd, data);
@@ -271,17 +372,55 @@ public class ChainResolver extends AbstractResolver {
         this.returnFirst = returnFirst;
     }
 
+    /**
+     * Returns true if the resolvers of this chain are asked concurrently when looking for a module
+     * or an artifact.
+     */
+    public boolean isConcurrent() {
+        return concurrent;
+    }
+
+    public void setConcurrent(boolean concurrent) {
+        this.concurrent = concurrent;
+    }
+
+    /**
+     * Returns the maximum number of resolvers asked at the same time by a concurrent lookup, or 0
+     * if all the resolvers of the chain are asked at once.
+     */
+    public int getThreads() {
+        return threads;
+    }
+
+    public void setThreads(int threads) {
+        this.threads = threads;
+    }
+
     public void dumpSettings() {
         Message.verbose("\t" + getName() + " [chain] " + chain);
         Message.debug("\t\treturn first: " + isReturnFirst());
         Message.debug("\t\tdual: " + isDual());
+        Message.debug("\t\tconcurrent: " + isConcurrent()
+                + (isConcurrent() && threads > 0 ? " (" + threads + " threads)" : ""));
         for (Iterator iter = chain.iterator(); iter.hasNext();) {
             DependencyResolver r = (DependencyResolver) iter.next();
             Message.debug("\t\t-> " + r.getName());
         }
     }
 
-    public boolean exists(Artifact artifact) {
+    public boolean exists(final Artifact artifact) {
+        if (isConcurrentLookup()) {
+            List calls = new ArrayList();
+            for (Iterator iter = chain.iterator(); iter.hasNext();) {
+                final DependencyResolver resolver = (DependencyResolver) iter.next();
+                calls.add(new Callable() {
+                    public Object call() {
+                        return Boolean.valueOf(resolver.exists(artifact));
+                    }
+                });
+            }
+            return new ConcurrentLookup(calls).getFirst(Boolean.FALSE) != null;
+        }
         for (Iterator iter = chain.iterator(); iter.hasNext();) {
             DependencyResolver resolver = (DependencyResolver) iter.next();
             if (resolver.exists(artifact)) {
@@ -291,7 +430,21 @@ public class ChainResolver extends AbstractResolver {
         return false;
     }
 
-    public ArtifactOrigin locate(Artifact artifact) {
+    public ArtifactOrigin locate(final Artifact artifact) {
+        if (isConcurrentLookup()) {
+            List calls = new ArrayList();
+            for (Iterator iter = chain.iterator(); iter.hasNext();) {
+                final DependencyResolver resolver = (DependencyResolver) iter.next();
+                calls.add(new Callable() {
+                    public Object call() {
+                        ArtifactOrigin origin = resolver.locate(artifact);
+                        return ArtifactOrigin.isUnknown(origin) ? null : origin;
+                    }
+                });
+            }
+            ArtifactOrigin origin = (ArtifactOrigin) new ConcurrentLookup(calls).getFirst(null);
+            return origin == null ? ArtifactOrigin.unkwnown(artifact) : origin;
+        }
         for (Iterator iter = chain.iterator(); iter.hasNext();) {
             DependencyResolver resolver = (DependencyResolver) iter.next();
             ArtifactOrigin origin = resolver.locate(artifact);
@@ -346,4 +499,125 @@ public class ChainResolver extends AbstractResolver {
         return dual;
     }
 
+    /**
+     * Calls the resolvers of the chain concurrently, with at most {@link #getThreads()} calls in
+     * progress, and gives access to their results in the order of the chain.
+     * <p>
+     * The results must be read in the order of the chain. The calls are made in the context of the
+     * thread which created the lookup. A <code>null</code> call stands for a resolver which isn't
+     * called, whose result is <code>null</code>.
+     * </p>
+     */
+    private final class ConcurrentLookup {
+        private final Callable[] calls;
+
+        private final Future[] futures;
+
+        private final boolean[] skipped;
+
+        private final int window;
+
+        private int submitted;
+
+        public ConcurrentLookup(List/* <Callable> */calls) {
+            this.calls = (Callable[]) calls.toArray(new Callable[calls.size()]);
+            this.futures = new Future[this.calls.length];
+            this.skipped = new boolean[this.calls.length];
+            this.window = threads > 0 ? threads : this.calls.length;
+        }
+
+        /**
+         * Returns the future result of the call at the given index, whose value is
+         * <code>null</code> if the call has been cancelled before it started.
+         */
+        public Future getFuture(int index) {
+            submit(index + window);
+            return futures[index];
+        }
+
+        /**
+         * Returns the result of the call at the given index, waiting for it if needed.
+         */
+        public Object get(int index) throws Exception {
+            submit(index + window);
+            try {
+                return futures[index].get();
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof Exception) {
+                    throw (Exception) cause;
+                }
+                throw (Error) cause;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                finish();
+                checkInterrupted();
+                throw new RuntimeException("interrupted while waiting for "
+                        + chain.get(index), e);
+            }
+        }
+
+        /**
+         * Returns the first result in the order of the chain which is neither <code>null</code>
+         * nor equal to the given value, or <code>null</code> if there is no such result. The
+         * failures of the calls are logged and ignored.
+         */
+        public Object getFirst(Object ignored) {
+            try {
+                for (int i = 0; i < calls.length; i++) {
+                    try {
+                        Object result = get(i);
+                        if (result != null && !result.equals(ignored)) {
+                            return result;
+                        }
+                    } catch (Exception ex) {
+                        Message.verbose("problem occurred while calling " + chain.get(i), ex);
+                    }
+                }
+                return null;
+            } finally {
+                finish();
+            }
+        }
+
+        /**
+         * Cancels the calls which haven't started yet. The calls in progress aren't waited for.
+         */
+        public synchronized void finish() {
+            Arrays.fill(skipped, true);
+        }
+
+        private void submit(int end) {
+            for (; submitted < Math.min(end, calls.length); submitted++) {
+                final int index = submitted;
+                if (calls[index] == null) {
+                    futures[index] = new FutureTask(new Callable() {
+                        public Object call() {
+                            return null;
+                        }
+                    });
+                    ((FutureTask) futures[index]).run();
+                    continue;
+                }
+                final IvyContext context = new IvyContext(IvyContext.getContext());
+                futures[index] = getLookupExecutor().submit(new Callable() {
+                    public Object call() throws Exception {
+                        if (isSkipped(index)) {
+                            return null;
+                        }
+                        IvyContext.pushContext(context);
+                        try {
+                            return calls[index].call();
+                        } finally {
+                            IvyContext.popContext();
+                        }
+                    }
+                });
+            }
+        }
+
+        private synchronized boolean isSkipped(int index) {
+            return skipped[index];
+        }
+    }
 }
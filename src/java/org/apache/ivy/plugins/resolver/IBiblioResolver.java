@@ -18,6 +18,7 @@
 package org.apache.ivy.plugins.resolver;
 
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.text.ParseException;
@@ -31,13 +32,19 @@ import java.util.Map;
 
 import javax.xml.parsers.ParserConfigurationException;
 
+import org.apache.ivy.core.IvyContext;
 import org.apache.ivy.core.IvyPatternHelper;
 import org.apache.ivy.core.cache.ArtifactOrigin;
+import org.apache.ivy.core.cache.CacheResourceOptions;
+import org.apache.ivy.core.cache.DefaultRepositoryCacheManager;
+import org.apache.ivy.core.cache.RepositoryCacheManager;
 import org.apache.ivy.core.module.descriptor.Artifact;
 import org.apache.ivy.core.module.descriptor.DefaultArtifact;
 import org.apache.ivy.core.module.descriptor.DependencyDescriptor;
 import org.apache.ivy.core.module.id.ModuleRevisionId;
+import org.apache.ivy.core.report.ArtifactDownloadReport;
 import org.apache.ivy.core.report.DownloadReport;
+import org.apache.ivy.core.report.DownloadStatus;
 import org.apache.ivy.core.resolve.DownloadOptions;
 import org.apache.ivy.core.resolve.ResolveData;
 import org.apache.ivy.core.resolve.ResolvedModuleRevision;
@@ -88,6 +95,8 @@ public class IBiblioResolver extends URLResolver {
     }
 
     public ResolvedResource findIvyFileRef(DependencyDescriptor dd, ResolveData data) {
+        // the ivy file may be looked for before the dependency is resolved
+        ensureConfigured(getSettings());
         if (isM2compatible() && isUsepoms()) {
             ModuleRevisionId mrid = dd.getDependencyRevisionId();
             mrid = convertM2IdForResourceSearch(mrid);
@@ -162,51 +171,61 @@ public class IBiblioResolver extends URLResolver {
         }
 
         if (shouldUseMavenMetadata(getWholePattern())) {
-            InputStream metadataStream = null;
-            try {
-                String metadataLocation = IvyPatternHelper.substitute(root
-                        + "[organisation]/[module]/[revision]/maven-metadata.xml", mrid);
-                Resource metadata = getRepository().getResource(metadataLocation);
-                if (metadata.exists()) {
-                    metadataStream = metadata.openStream();
-                    final StringBuffer timestamp = new StringBuffer();
-                    final StringBuffer buildNumer = new StringBuffer();
-                    XMLHelper.parse(metadataStream, null, new ContextualSAXHandler() {
-                        public void endElement(String uri, String localName, String qName)
-                                throws SAXException {
-                            if ("metadata/versioning/snapshot/timestamp".equals(getContext())) {
-                                timestamp.append(getText());
-                            }
-                            if ("metadata/versioning/snapshot/buildNumber".equals(getContext())) {
-                                buildNumer.append(getText());
-                            }
-                            super.endElement(uri, localName, qName);
+            String metadataLocation = IvyPatternHelper.substitute(root
+                    + "[organisation]/[module]/[revision]/maven-metadata.xml", mrid);
+            Map resolverCache = getResolverCache();
+            if (resolverCache != null && resolverCache.containsKey(metadataLocation)) {
+                return (String) resolverCache.get(metadataLocation);
+            }
+            String rev = findSnapshotVersion(mrid, metadataLocation);
+            if (resolverCache != null) {
+                resolverCache.put(metadataLocation, rev);
+            }
+            return rev;
+        }
+        return null;
+    }
+
+    private String findSnapshotVersion(ModuleRevisionId mrid, String metadataLocation) {
+        InputStream metadataStream = null;
+        try {
+            metadataStream = openMavenMetadata(getRepository(), metadataLocation, mrid);
+            if (metadataStream != null) {
+                final StringBuffer timestamp = new StringBuffer();
+                final StringBuffer buildNumer = new StringBuffer();
+                XMLHelper.parse(metadataStream, null, new ContextualSAXHandler() {
+                    public void endElement(String uri, String localName, String qName)
+                            throws SAXException {
+                        if ("metadata/versioning/snapshot/timestamp".equals(getContext())) {
+                            timestamp.append(getText());
+                        }
+                        if ("metadata/versioning/snapshot/buildNumber".equals(getContext())) {
+                            buildNumer.append(getText());
                         }
-                    }, null);
-                    if (timestamp.length() > 0) {
-                        // we have found a timestamp, so this is a snapshot unique version
-                        String rev = mrid.getRevision();
-                        rev = rev.substring(0, rev.length() - "SNAPSHOT".length());
-                        rev = rev + timestamp.toString() + "-" + buildNumer.toString();
-
-                        return rev;
+                        super.endElement(uri, localName, qName);
                     }
-                } else {
-                    Message.verbose("\tmaven-metadata not available: " + metadata);
+                }, null);
+                if (timestamp.length() > 0) {
+                    // we have found a timestamp, so this is a snapshot unique version
+                    String rev = mrid.getRevision();
+                    rev = rev.substring(0, rev.length() - "SNAPSHOT".length());
+                    rev = rev + timestamp.toString() + "-" + buildNumer.toString();
+
+                    return rev;
                 }
-            } catch (IOException e) {
-                Message.verbose("impossible to access maven metadata file, ignored", e);
-            } catch (SAXException e) {
-                Message.verbose("impossible to parse maven metadata file, ignored", e);
-            } catch (ParserConfigurationException e) {
-                Message.verbose("impossible to parse maven metadata file, ignored", e);
-            } finally {
-                if (metadataStream != null) {
-                    try {
-                        metadataStream.close();
-                    } catch (IOException e) {
-                        // ignored
-                    }
+            }
+        } catch (IOException e) {
+            Message.verbose("impossible to access maven metadata file, ignored", e);
+        } catch (SAXException e) {
+            Message.verbose("impossible to parse maven metadata file, ignored", e);
+        } catch (ParserConfigurationException e) {
+            Message.verbose("impossible to parse maven metadata file, ignored", e);
+        } finally {
+            if (metadataStream != null) {
+                try {
+                    metadataStream.close();
+                } catch (IOException e) {
+                    // ignored
                 }
             }
         }
@@ -350,7 +369,8 @@ public class IBiblioResolver extends URLResolver {
                 String metadataLocation = pattern.substring(0,
                     pattern.lastIndexOf(partiallyResolvedM2PerModulePattern))
                         + "maven-metadata.xml";
-                List revs = listRevisionsWithMavenMetadata(getRepository(), metadataLocation);
+                List revs = listRevisionsWithMavenMetadata(getRepository(), metadataLocation,
+                    null);
                 if (revs != null) {
                     return (String[]) revs.toArray(new String[revs.size()]);
                 }
@@ -388,8 +408,10 @@ public class IBiblioResolver extends URLResolver {
     protected ResolvedResource[] listResources(Repository repository, ModuleRevisionId mrid,
             String pattern, Artifact artifact) {
         if (shouldUseMavenMetadata(pattern)) {
-            List revs = listRevisionsWithMavenMetadata(repository, mrid.getModuleId()
+            String metadataLocation = IvyPatternHelper.substituteTokens(root
+                    + "[organisation]/[module]/maven-metadata.xml", mrid.getModuleId()
                     .getAttributes());
+            List revs = listRevisionsWithMavenMetadata(repository, metadataLocation, mrid);
             if (revs != null) {
                 Message.debug("\tfound revs: " + revs);
                 List rres = new ArrayList();
@@ -435,18 +457,37 @@ public class IBiblioResolver extends URLResolver {
     private List listRevisionsWithMavenMetadata(Repository repository, Map tokenValues) {
         String metadataLocation = IvyPatternHelper.substituteTokens(root
                 + "[organisation]/[module]/maven-metadata.xml", tokenValues);
-        return listRevisionsWithMavenMetadata(repository, metadataLocation);
+        String org = (String) tokenValues.get(IvyPatternHelper.ORGANISATION_KEY);
+        String module = (String) tokenValues.get(IvyPatternHelper.MODULE_KEY);
+        ModuleRevisionId mrid = org == null || module == null ? null : ModuleRevisionId
+                .newInstance(org, module, (String) tokenValues.get(IvyPatternHelper.REVISION_KEY));
+        return listRevisionsWithMavenMetadata(repository, metadataLocation, mrid);
     }
 
-    private List listRevisionsWithMavenMetadata(Repository repository, String metadataLocation) {
+    /**
+     * Lists the revisions found in the maven-metadata.xml at the given location. Once read, the
+     * revisions are kept for the rest of the resolve, so that all the dependencies on the same
+     * module use the same listing.
+     * 
+     * @param mrid
+     *            the module revision for which revisions are listed, used to find the time to live
+     *            of the cached metadata. May be <code>null</code> if it isn't known.
+     * @return the revisions, or <code>null</code> if the metadata isn't available
+     */
+    private List listRevisionsWithMavenMetadata(Repository repository, String metadataLocation,
+            ModuleRevisionId mrid) {
+        Map resolverCache = getResolverCache();
+        if (resolverCache != null && resolverCache.containsKey(metadataLocation)) {
+            List revs = (List) resolverCache.get(metadataLocation);
+            return revs == null ? null : new ArrayList(revs);
+        }
         List revs = null;
         InputStream metadataStream = null;
         try {
-            Resource metadata = repository.getResource(metadataLocation);
-            if (metadata.exists()) {
-                Message.verbose("\tlisting revisions from maven-metadata: " + metadata);
+            metadataStream = openMavenMetadata(repository, metadataLocation, mrid);
+            if (metadataStream != null) {
+                Message.verbose("\tlisting revisions from maven-metadata: " + metadataLocation);
                 final List metadataRevs = new ArrayList();
-                metadataStream = metadata.openStream();
                 XMLHelper.parse(metadataStream, null, new ContextualSAXHandler() {
                     public void endElement(String uri, String localName, String qName)
                             throws SAXException {
@@ -457,8 +498,6 @@ public class IBiblioResolver extends URLResolver {
                     }
                 }, null);
                 revs = metadataRevs;
-            } else {
-                Message.verbose("\tmaven-metadata not available: " + metadata);
             }
         } catch (IOException e) {
             Message.verbose("impossible to access maven metadata file, ignored", e);
@@ -475,9 +514,59 @@ public class IBiblioResolver extends URLResolver {
                 }
             }
         }
+        if (resolverCache != null) {
+            resolverCache.put(metadataLocation, revs == null ? null : new ArrayList(revs));
+        }
         return revs;
     }
 
+    /**
+     * Opens the maven-metadata.xml found at the given location, or returns <code>null</code> if
+     * it isn't available.
+     * <p>
+     * Remote metadata are read from the repository cache, where they are downloaded again only if
+     * the time to live of the module has expired and a conditional request tells that the remote
+     * file has changed. Local metadata are read directly.
+     * </p>
+     */
+    private InputStream openMavenMetadata(Repository repository, String metadataLocation,
+            ModuleRevisionId mrid) throws IOException {
+        Resource metadata = repository.getResource(metadataLocation);
+        if (metadata.isLocal()) {
+            if (metadata.exists()) {
+                return metadata.openStream();
+            }
+            Message.verbose("\tmaven-metadata not available: " + metadata);
+            return null;
+        }
+        CacheResourceOptions options = new CacheResourceOptions();
+        RepositoryCacheManager cacheManager = getRepositoryCacheManager();
+        if (cacheManager instanceof DefaultRepositoryCacheManager) {
+            DefaultRepositoryCacheManager cache = (DefaultRepositoryCacheManager) cacheManager;
+            options.setTtl(mrid == null ? cache.getDefaultTTL() : cache.getTTL(mrid));
+        }
+        ResolveData data = IvyContext.getContext().getResolveData();
+        if (data != null) {
+            options.setForce(data.getOptions().isRefresh());
+        }
+        ArtifactDownloadReport report = cacheManager.downloadRepositoryResource(metadata,
+            "maven-metadata", "maven-metadata", "xml", options, repository);
+        if (report.getDownloadStatus() == DownloadStatus.FAILED) {
+            Message.verbose("\tmaven-metadata not available: " + metadata);
+            return null;
+        }
+        return new FileInputStream(report.getLocalFile());
+    }
+
+    /**
+     * Returns the map in which the maven metadata read during the current resolve are kept, or
+     * <code>null</code> if there is no resolve in progress.
+     */
+    private Map getResolverCache() {
+        ResolveData data = IvyContext.getContext().getResolveData();
+        return data == null ? null : data.getResolverCache();
+    }
+
     protected void findTokenValues(Collection names, List patterns, Map tokenValues, String token) {
         if (IvyPatternHelper.REVISION_KEY.equals(token)) {
             if (shouldUseMavenMetadata(getWholePattern())) {
@@ -29,7 +29,10 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 
+import org.apache.ivy.core.IvyContext;
 import org.apache.ivy.core.IvyPatternHelper;
+import org.apache.ivy.core.cache.DefaultRepositoryCacheManager;
+import org.apache.ivy.core.cache.RepositoryCacheManager;
 import org.apache.ivy.core.event.EventManager;
 import org.apache.ivy.core.module.descriptor.Artifact;
 import org.apache.ivy.core.module.descriptor.DefaultArtifact;
@@ -37,17 +40,20 @@ import org.apache.ivy.core.module.descriptor.ModuleDescriptor;
 import org.apache.ivy.core.module.id.ModuleRevisionId;
 import org.apache.ivy.core.report.DownloadReport;
 import org.apache.ivy.core.resolve.DownloadOptions;
+import org.apache.ivy.core.resolve.ResolveData;
 import org.apache.ivy.plugins.parser.ModuleDescriptorParser;
 import org.apache.ivy.plugins.parser.ModuleDescriptorParserRegistry;
 import org.apache.ivy.plugins.repository.AbstractRepository;
 import org.apache.ivy.plugins.repository.Repository;
 import org.apache.ivy.plugins.repository.Resource;
+import org.apache.ivy.plugins.repository.url.URLResource;
 import org.apache.ivy.plugins.resolver.util.ResolvedResource;
 import org.apache.ivy.plugins.resolver.util.ResolverHelper;
 import org.apache.ivy.plugins.resolver.util.ResourceMDParser;
 import org.apache.ivy.plugins.signer.SignatureGenerator;
 import org.apache.ivy.plugins.version.VersionMatcher;
 import org.apache.ivy.util.ChecksumHelper;
+import org.apache.ivy.util.CopyProgressListener;
 import org.apache.ivy.util.FileUtil;
 import org.apache.ivy.util.Message;
 
@@ -94,6 +100,13 @@ public class RepositoryResolver extends AbstractPatternsBasedResolver {
                 Message.debug("\t trying " + resourceName);
                 logAttempt(resourceName);
                 Resource res = repository.getResource(resourceName);
+                // local resources are cheap enough to check, and often published by the build
+                boolean recordMissing = !versionMatcher.isDynamic(mrid) && !res.isLocal();
+                if (recordMissing && isKnownMissing(mrid, resourceName)) {
+                    Message.debug("\t" + name + ": resource known to be missing for " + mrid
+                            + ": res=" + res);
+                    return null;
+                }
                 boolean reachable = res.exists();
                 if (reachable) {
                     String revision;
@@ -124,6 +137,15 @@ public class RepositoryResolver extends AbstractPatternsBasedResolver {
                 } else {
                     Message.debug("\t" + name + ": resource not reachable for " + mrid + ": res="
                             + res);
+                    // only a definite not found is recorded, not a failure to access the
+                    // repository
+                    if (recordMissing && res instanceof URLResource
+                            && ((URLResource) res).isNotFound()) {
+                        DefaultRepositoryCacheManager cache = getMissingResourcesCache();
+                        if (cache != null) {
+                            cache.saveMissing(toCachedId(mrid), name, resourceName);
+                        }
+                    }
                     return null;
                 }
             } else {
@@ -138,6 +160,38 @@ public class RepositoryResolver extends AbstractPatternsBasedResolver {
         }
     }
 
+    private boolean isKnownMissing(ModuleRevisionId mrid, String resourceName) {
+        DefaultRepositoryCacheManager cache = getMissingResourcesCache();
+        if (cache == null) {
+            return false;
+        }
+        ResolveData data = IvyContext.getContext().getResolveData();
+        if (data != null && data.getOptions().isRefresh()) {
+            return false;
+        }
+        return cache.isMissing(toCachedId(mrid), getName(), resourceName);
+    }
+
+    /**
+     * Returns the cache in which the resources found missing are recorded, or <code>null</code>
+     * if the cache of this resolver can't record them.
+     */
+    private DefaultRepositoryCacheManager getMissingResourcesCache() {
+        RepositoryCacheManager cache = getRepositoryCacheManager();
+        if (cache instanceof DefaultRepositoryCacheManager) {
+            return (DefaultRepositoryCacheManager) cache;
+        }
+        return null;
+    }
+
+    /**
+     * Returns the id under which the missing resources of the given module revision, as searched
+     * in the repository, are recorded in the cache.
+     */
+    private ModuleRevisionId toCachedId(ModuleRevisionId mrid) {
+        return toSystem(isM2compatible() ? convertM2ResourceSearchIdToNormal(mrid) : mrid);
+    }
+
     private ResolvedResource findDynamicResourceUsingPattern(ResourceMDParser rmdparser,
             ModuleRevisionId mrid, String pattern, Artifact artifact, Date date) {
         String name = getName();
@@ -185,12 +239,21 @@ public class RepositoryResolver extends AbstractPatternsBasedResolver {
     }
 
     protected long get(Resource resource, File dest) throws IOException {
+        return get(resource, dest, null);
+    }
+
+    protected long get(Resource resource, File dest, CopyProgressListener listener)
+            throws IOException {
         Message.verbose("\t" + getName() + ": downloading " + resource.getName());
         Message.debug("\t\tto " + dest);
         if (dest.getParentFile() != null) {
             dest.getParentFile().mkdirs();
         }
-        repository.get(resource.getName(), dest);
+        if (listener != null && repository instanceof AbstractRepository) {
+            ((AbstractRepository) repository).get(resource.getName(), dest, listener);
+        } else {
+            repository.get(resource.getName(), dest);
+        }
         return dest.length();
     }
 
@@ -213,6 +276,10 @@ public class RepositoryResolver extends AbstractPatternsBasedResolver {
         String dest = getDestination(destPattern, artifact, mrid);
 
         put(artifact, src, dest, overwrite);
+        DefaultRepositoryCacheManager cache = getMissingResourcesCache();
+        if (cache != null) {
+            cache.removeMissing(toCachedId(mrid), getName(), dest);
+        }
         Message.info("\tpublished " + artifact.getName() + " to "
                 + hidePassword(repository.standardize(dest)));
     }
@@ -41,6 +41,8 @@ public abstract class AbstractTrigger implements Trigger {
 
     private String matcher = PatternMatcher.EXACT;
 
+    private boolean async = false;
+
     public Filter getEventFilter() {
         if (filter == null) {
             filter = createFilter();
@@ -80,4 +82,18 @@ public abstract class AbstractTrigger implements Trigger {
         this.matcher = matcher;
     }
 
+    public boolean isAsync() {
+        return async;
+    }
+
+    /**
+     * Sets whether this trigger should be performed in a thread of its own, so that the operation
+     * firing the event doesn't wait for it.
+     * 
+     * @since 2.5
+     */
+    public void setAsync(boolean async) {
+        this.async = async;
+    }
+
 }
@@ -0,0 +1,98 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  See the NOTICE file distributed with
+ *  this work for additional information regarding copyright ownership.
+ *  The ASF licenses this file to You under the Apache License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance with
+ *  the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package org.apache.ivy.util;
+
+import java.security.MessageDigest;
+
+/**
+ * A {@link CopyProgressListener} computing checksums of the copied bytes, so that a copied file
+ * doesn't have to be read again to compute its checksums.
+ * <p>
+ * The checksums are available only once a whole copy has been notified to the listener, i.e. if
+ * the copy has been done by {@link FileUtil#copy(java.io.InputStream, java.io.OutputStream,
+ * CopyProgressListener)} or any other copy notifying the listener of every copied buffer.
+ * </p>
+ */
+public class ChecksumCopyProgressListener implements CopyProgressListener {
+    private final String[] algorithms;
+
+    private final MessageDigest[] digests;
+
+    private long digested;
+
+    /**
+     * the computed checksums, set only once a whole copy has been notified
+     */
+    private String[] checksums;
+
+    /**
+     * @param algorithms
+     *            the checksum algorithms to compute, as accepted by
+     *            {@link ChecksumHelper#isKnownAlgorithm(String)}
+     */
+    public ChecksumCopyProgressListener(String[] algorithms) {
+        this.algorithms = algorithms.clone();
+        this.digests = new MessageDigest[algorithms.length];
+        for (int i = 0; i < algorithms.length; i++) {
+            digests[i] = ChecksumHelper.getMessageDigest(algorithms[i]);
+        }
+    }
+
+    public void start(CopyProgressEvent evt) {
+        // the copy may be restarted from the beginning, after a failed attempt
+        for (int i = 0; i < digests.length; i++) {
+            digests[i].reset();
+        }
+        digested = 0;
+        checksums = null;
+    }
+
+    public void progress(CopyProgressEvent evt) {
+        if (evt.getReadBytes() > 0) {
+            for (int i = 0; i < digests.length; i++) {
+                digests[i].update(evt.getBuffer(), 0, evt.getReadBytes());
+            }
+            digested += evt.getReadBytes();
+        }
+    }
+
+    public void end(CopyProgressEvent evt) {
+        if (digested == evt.getTotalReadBytes()) {
+            checksums = new String[digests.length];
+            for (int i = 0; i < digests.length; i++) {
+                checksums[i] = ChecksumHelper.byteArrayToHexString(digests[i].digest());
+            }
+        }
+    }
+
+    /**
+     * Returns the checksum of the copied bytes computed with the given algorithm, or
+     * <code>null</code> if it isn't one of the algorithms of this listener or if the listener
+     * hasn't been notified of a whole copy.
+     */
+    public String getChecksum(String algorithm) {
+        if (checksums != null) {
+            for (int i = 0; i < algorithms.length; i++) {
+                if (algorithms[i].equals(algorithm)) {
+                    return checksums[i];
+                }
+            }
+        }
+        return null;
+    }
+}
@@ -53,9 +53,27 @@ public final class ChecksumHelper {
      *             if an IO problem occur whle reading files or if the checksum is not compliant
      */
     public static void check(File dest, File checksumFile, String algorithm) throws IOException {
-        String csFileContent = FileUtil
-                .readEntirely(new BufferedReader(new FileReader(checksumFile))).trim()
-                .toLowerCase(Locale.US);
+        String csFileContent = FileUtil.readEntirely(new BufferedReader(new FileReader(
+                checksumFile)));
+        check(computeAsString(dest, algorithm), csFileContent, algorithm);
+    }
+
+    /**
+     * Checks an already computed checksum against the content of a checksum file, and throws an
+     * IOException if the checksum is not compliant
+     * 
+     * @param computed
+     *            the checksum computed on the file to test
+     * @param checksumFileContent
+     *            the content of the file containing the expected checksum
+     * @param algorithm
+     *            the checksum algorithm used
+     * @throws IOException
+     *             if the checksum is not compliant
+     */
+    public static void check(String computed, String checksumFileContent, String algorithm)
+            throws IOException {
+        String csFileContent = checksumFileContent.trim().toLowerCase(Locale.US);
         String expected;
         if (csFileContent.indexOf(' ') > -1
                 && (csFileContent.startsWith("md") || csFileContent.startsWith("sha"))) {
@@ -83,7 +101,7 @@ public final class ChecksumHelper {
             }
         }
 
-        String computed = computeAsString(dest, algorithm).trim().toLowerCase(Locale.US);
+        computed = computed.trim().toLowerCase(Locale.US);
         if (!expected.equals(computed)) {
             throw new IOException("invalid " + algorithm + ": expected=" + expected + " computed="
                     + computed);
@@ -116,7 +134,7 @@ public final class ChecksumHelper {
         return algorithms.containsKey(algorithm);
     }
 
-    private static MessageDigest getMessageDigest(String algorithm) {
+    static MessageDigest getMessageDigest(String algorithm) {
         String mdAlgorithm = (String) algorithms.get(algorithm);
         if (mdAlgorithm == null) {
             throw new IllegalArgumentException("unknown algorithm " + algorithm);
@@ -28,7 +28,10 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.OutputStream;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
 import java.net.URL;
+import java.nio.channels.FileChannel;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
@@ -65,6 +68,33 @@ public final class FileUtil {
 
     private static final Pattern ALLOWED_PATH_PATTERN = Pattern.compile("[\\w-./\\\\:~ %\\(\\)]+");
 
+    /**
+     * File.toPath() and Files.createLink(Path, Path), available since Java 7 only
+     */
+    private static final Method[] CREATE_LINK_METHODS = findCreateLinkMethods();
+
+    /**
+     * whether hard links and copy-on-write clones can be made by commands, detected once when first
+     * needed
+     */
+    private static Boolean lnSupported;
+
+    private static Boolean reflinkSupported;
+
+    private static Method[] findCreateLinkMethods() {
+        try {
+            Class pathClass = Class.forName("java.nio.file.Path");
+            return new Method[] {
+                    File.class.getMethod("toPath", new Class[0]),
+                    Class.forName("java.nio.file.Files").getMethod("createLink",
+                        new Class[] {pathClass, pathClass})};
+        } catch (ClassNotFoundException e) {
+            return null;
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+
     public static void symlinkInMass(Map/* <File, File> */destToSrcMap, boolean overwrite)
             throws IOException {
 
@@ -173,6 +203,224 @@ public final class FileUtil {
         }
     }
 
+    /**
+     * Returns true if {@link #hardlink(File, File, boolean)} can create hard links, with the Java 7
+     * API or else the ln command. The links may still fail, for instance across file systems.
+     */
+    public static boolean isHardlinkSupported() {
+        if (CREATE_LINK_METHODS != null) {
+            return true;
+        }
+        synchronized (FileUtil.class) {
+            if (lnSupported == null) {
+                lnSupported = Boolean.valueOf(probe(new String[] {"ln"}));
+            }
+            return lnSupported.booleanValue();
+        }
+    }
+
+    /**
+     * Returns true if {@link #reflink(File, File, boolean)} can be attempted, i.e. if the cp
+     * command supports the --reflink option. The clones may still fail on file systems without
+     * copy-on-write support.
+     */
+    public static boolean isReflinkSupported() {
+        synchronized (FileUtil.class) {
+            if (reflinkSupported == null) {
+                // auto falls back to a copy on any file system, only the option is checked
+                reflinkSupported = Boolean.valueOf(probe(new String[] {"cp", "--reflink=auto"}));
+            }
+            return reflinkSupported.booleanValue();
+        }
+    }
+
+    /**
+     * Returns true if the given command succeeds with a temporary file and a destination as last
+     * arguments.
+     */
+    private static boolean probe(String[] command) {
+        File src = null;
+        File dest = null;
+        try {
+            src = File.createTempFile("ivy", ".probe");
+            dest = new File(src.getPath() + ".dest");
+            String[] args = new String[command.length + 2];
+            System.arraycopy(command, 0, args, 0, command.length);
+            args[command.length] = src.getAbsolutePath();
+            args[command.length + 1] = dest.getAbsolutePath();
+            exec(args, "error running " + command[0]);
+            return dest.exists();
+        } catch (IOException e) {
+            Message.verbose(StringUtils.join(command, " ") + " isn't supported: "
+                    + e.getMessage());
+            return false;
+        } finally {
+            if (src != null) {
+                src.delete();
+            }
+            if (dest != null) {
+                dest.delete();
+            }
+        }
+    }
+
+    /**
+     * Creates a hard link to the given file. Unlike {@link #symlink(File, File,
+     * CopyProgressListener, boolean)}, this method doesn't fall back to a copy: an IOException is
+     * thrown if the link can't be created, for instance because the destination isn't on the same
+     * file system as the source, or because the source is a directory.
+     * 
+     * @return true if the link has been created, false if the destination already exists and
+     *         overwrite is false
+     */
+    public static boolean hardlink(File src, File dest, boolean overwrite) throws IOException {
+        if (src.isDirectory()) {
+            throw new IOException("impossible to hard link a directory: " + src);
+        }
+        if (!isHardlinkSupported()) {
+            throw new IOException("hard links aren't supported");
+        }
+        if (!prepareLink(src, dest, overwrite)) {
+            return false;
+        }
+        if (CREATE_LINK_METHODS != null) {
+            try {
+                CREATE_LINK_METHODS[1].invoke(null, new Object[] {
+                        CREATE_LINK_METHODS[0].invoke(dest, new Object[0]),
+                        CREATE_LINK_METHODS[0].invoke(src, new Object[0])});
+            } catch (InvocationTargetException e) {
+                IOException ioe = new IOException("error hard linking " + src + " to " + dest
+                        + ": " + e.getCause());
+                ioe.initCause(e.getCause());
+                throw ioe;
+            } catch (IllegalAccessException e) {
+                throw new IOException("error hard linking " + src + " to " + dest + ": " + e);
+            }
+        } else {
+            exec(new String[] {"ln", src.getAbsolutePath(), dest.getAbsolutePath()},
+                "error hard linking " + src + " to " + dest);
+        }
+        if (!dest.exists()) {
+            throw new IOException("error hard linking: " + dest + " doesn't exists");
+        }
+        return true;
+    }
+
+    /**
+     * Creates a copy-on-write clone of the given file, sharing its data blocks with the source
+     * until one of them is modified. This needs a file system supporting it (like btrfs, xfs or
+     * zfs) and the GNU cp command: an IOException is thrown when the clone can't be made.
+     * 
+     * @return true if the clone has been created, false if the destination already exists and
+     *         overwrite is false
+     */
+    public static boolean reflink(File src, File dest, boolean overwrite) throws IOException {
+        if (src.isDirectory()) {
+            throw new IOException("impossible to reflink a directory: " + src);
+        }
+        if (!isReflinkSupported()) {
+            throw new IOException("cp --reflink isn't supported");
+        }
+        if (!prepareLink(src, dest, overwrite)) {
+            return false;
+        }
+        exec(new String[] {"cp", "--reflink=always", src.getAbsolutePath(),
+                dest.getAbsolutePath()}, "error cloning " + src + " to " + dest);
+        if (!dest.exists()) {
+            throw new IOException("error cloning: " + dest + " doesn't exists");
+        }
+        dest.setLastModified(src.lastModified());
+        return true;
+    }
+
+    /**
+     * Prepares the destination of a link, which unlike a copy can't reuse an existing file.
+     */
+    private static boolean prepareLink(File src, File dest, boolean overwrite) throws IOException {
+        if (!prepareCopy(src, dest, overwrite)) {
+            return false;
+        }
+        if (dest.exists() && !dest.delete()) {
+            throw new IOException("impossible to delete " + dest);
+        }
+        return true;
+    }
+
+    private static void exec(String[] command, String errorMessage) throws IOException {
+        Message.verbose("executing '" + StringUtils.join(command, " ") + "'");
+        Process process = Runtime.getRuntime().exec(command);
+        try {
+            if (process.waitFor() != 0) {
+                BufferedReader br = new BufferedReader(new InputStreamReader(
+                        process.getErrorStream()));
+
+                StringBuffer error = new StringBuffer();
+                String line;
+                while ((line = br.readLine()) != null) {
+                    error.append(line);
+                    error.append('\n');
+                }
+
+                throw new IOException(errorMessage + ":\n" + error);
+            }
+        } catch (InterruptedException x) {
+            process.destroy();
+            Thread.currentThread().interrupt();
+            throw new IOException(errorMessage + ": interrupted");
+        }
+    }
+
+    /**
+     * Copies a file like {@link #copy(File, File, CopyProgressListener, boolean)}, but using
+     * {@link FileChannel#transferTo(long, long, java.nio.channels.WritableByteChannel)}, which
+     * lets the operating system copy the content without going through a buffer in the heap. No
+     * copy progress is notified.
+     */
+    public static boolean transferCopy(File src, File dest, boolean overwrite) throws IOException {
+        if (!prepareCopy(src, dest, overwrite)) {
+            return false;
+        }
+        if (src.isDirectory()) {
+            return deepCopy(src, dest, null, overwrite);
+        }
+        FileInputStream in = new FileInputStream(src);
+        try {
+            FileOutputStream out = new FileOutputStream(dest);
+            try {
+                FileChannel srcChannel = in.getChannel();
+                FileChannel destChannel = out.getChannel();
+                long size = srcChannel.size();
+                long position = 0;
+                while (position < size) {
+                    if (Thread.currentThread().isInterrupted()) {
+                        throw new IOException("transfer interrupted");
+                    }
+                    long transferred = srcChannel.transferTo(position, size - position,
+                        destChannel);
+                    if (transferred <= 0) {
+                        // the source has been truncated, reported by the size check below
+                        break;
+                    }
+                    position += transferred;
+                }
+            } finally {
+                out.close();
+            }
+        } finally {
+            in.close();
+        }
+        long srcLen = src.length();
+        long destLen = dest.length();
+        if (srcLen != destLen) {
+            dest.delete();
+            throw new IOException("size of source file " + src.toString() + "(" + srcLen
+                    + ") differs from size of dest file " + dest.toString() + "(" + destLen
+                    + ") - please retry");
+        }
+        dest.setLastModified(src.lastModified());
+        return true;
+    }
+
     public static boolean copy(File src, File dest, CopyProgressListener l) throws IOException {
         return copy(src, dest, l, false);
     }
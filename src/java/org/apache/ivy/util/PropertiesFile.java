@@ -31,6 +31,14 @@ public class PropertiesFile extends Properties {
 
     private String header;
 
+    /**
+     * Creates an empty PropertiesFile, for subclasses loading and saving their data elsewhere than
+     * in a properties file.
+     */
+    protected PropertiesFile(String header) {
+        this.header = header;
+    }
+
     public PropertiesFile(File file, String header) {
         this.file = file;
         this.header = header;
@@ -0,0 +1,197 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  See the NOTICE file distributed with
+ *  this work for additional information regarding copyright ownership.
+ *  The ASF licenses this file to You under the Apache License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance with
+ *  the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package org.apache.ivy.util;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+
+/**
+ * A thread safe pool of canonical instances, which does not prevent them from being garbage
+ * collected.
+ * <p>
+ * Instances are spread among a fixed number of segments, each one being a hash table of weak
+ * references to the instances themselves. Looking up an instance already interned takes no lock
+ * and allocates nothing; adding an instance only locks the segment it belongs to. Contrary to a
+ * WeakHashMap mapping instances to weak references to themselves, only one object is kept per
+ * interned instance.
+ * </p>
+ * <p>
+ * Chains of entries are never modified once published, so that readers always see a consistent
+ * chain: removing or rehashing entries copies the chains instead.
+ * </p>
+ */
+public final class WeakInterner {
+    private static final int SEGMENTS = 16;
+
+    private static final int SEGMENT_SHIFT = 28;
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    private final Segment[] segments = new Segment[SEGMENTS];
+
+    public WeakInterner() {
+        for (int i = 0; i < segments.length; i++) {
+            segments[i] = new Segment();
+        }
+    }
+
+    /**
+     * Returns the interned instance equal to the given object if any, or interns the given object
+     * and returns it.
+     *
+     * @param o
+     *            the object to intern. Must not be <code>null</code>.
+     * @return the canonical instance equal to <code>o</code>
+     */
+    public Object intern(Object o) {
+        int hash = spread(o.hashCode());
+        return segments[hash >>> SEGMENT_SHIFT].intern(o, hash);
+    }
+
+    /**
+     * Returns the number of interned instances. Instances which have been garbage collected may
+     * still be counted until their segment is updated.
+     */
+    public int size() {
+        int size = 0;
+        for (int i = 0; i < segments.length; i++) {
+            size += segments[i].count;
+        }
+        return size;
+    }
+
+    /**
+     * Applies a supplemental hash function, so that the upper bits used to select the segment
+     * depend on all the bits of the hash code.
+     */
+    private static int spread(int h) {
+        // CheckStyle:MagicNumber| OFF
+        h += (h << 15) ^ 0xffffcd7d;
+        h ^= (h >>> 10);
+        h += (h << 3);
+        h ^= (h >>> 6);
+        h += (h << 2) + (h << 14);
+        return h ^ (h >>> 16);
+        // CheckStyle:MagicNumber| ON
+    }
+
+    private static final class Entry extends WeakReference {
+        private final int hash;
+
+        private final Entry next;
+
+        Entry(Object referent, int hash, Entry next, ReferenceQueue queue) {
+            super(referent, queue);
+            this.hash = hash;
+            this.next = next;
+        }
+    }
+
+    private static final class Segment {
+        private volatile Entry[] table = new Entry[INITIAL_CAPACITY];
+
+        /**
+         * the number of entries, including the ones whose referent has been collected; only
+         * updated under the segment lock
+         */
+        private volatile int count;
+
+        private final ReferenceQueue queue = new ReferenceQueue();
+
+        Object intern(Object o, int hash) {
+            Object r = get(table, o, hash);
+            if (r != null) {
+                return r;
+            }
+            synchronized (this) {
+                expungeStaleEntries();
+                Entry[] tab = table;
+                r = get(tab, o, hash);
+                if (r != null) {
+                    return r;
+                }
+                if (count >= tab.length - (tab.length >>> 2)) {
+                    tab = rehash(tab);
+                }
+                int index = hash & (tab.length - 1);
+                tab[index] = new Entry(o, hash, tab[index], queue);
+                count++;
+                // volatile write publishing the new entry to readers
+                table = tab;
+                return o;
+            }
+        }
+
+        private static Object get(Entry[] tab, Object o, int hash) {
+            for (Entry e = tab[hash & (tab.length - 1)]; e != null; e = e.next) {
+                if (e.hash == hash) {
+                    Object r = e.get();
+                    if (r != null && r.equals(o)) {
+                        return r;
+                    }
+                }
+            }
+            return null;
+        }
+
+        private Entry[] rehash(Entry[] tab) {
+            Entry[] newTab = new Entry[tab.length * 2];
+            int newCount = 0;
+            for (int i = 0; i < tab.length; i++) {
+                for (Entry e = tab[i]; e != null; e = e.next) {
+                    Object r = e.get();
+                    if (r != null) {
+                        int index = e.hash & (newTab.length - 1);
+                        newTab[index] = new Entry(r, e.hash, newTab[index], queue);
+                        newCount++;
+                    }
+                }
+            }
+            count = newCount;
+            return newTab;
+        }
+
+        private void expungeStaleEntries() {
+            Entry stale;
+            while ((stale = (Entry) queue.poll()) != null) {
+                Entry[] tab = table;
+                int index = stale.hash & (tab.length - 1);
+                Entry first = tab[index];
+                for (Entry e = first; e != null; e = e.next) {
+                    if (e == stale) {
+                        // copy the entries before the stale one, dropping the collected ones
+                        Entry newFirst = stale.next;
+                        int removed = 1;
+                        for (Entry p = first; p != stale; p = p.next) {
+                            Object r = p.get();
+                            if (r == null) {
+                                removed++;
+                            } else {
+                                newFirst = new Entry(r, p.hash, newFirst, queue);
+                            }
+                        }
+                        tab[index] = newFirst;
+                        count -= removed;
+                        table = tab;
+                        break;
+                    }
+                }
+            }
+        }
+    }
+}
@@ -22,63 +22,152 @@ import java.io.InputStream;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.net.URL;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.ParserConfigurationException;
 import javax.xml.parsers.SAXParser;
 import javax.xml.parsers.SAXParserFactory;
+import javax.xml.transform.stream.StreamSource;
+import javax.xml.validation.Schema;
+import javax.xml.validation.SchemaFactory;
 
 import org.apache.ivy.util.url.URLHandlerRegistry;
 import org.w3c.dom.Document;
 import org.xml.sax.EntityResolver;
 import org.xml.sax.InputSource;
 import org.xml.sax.SAXException;
-import org.xml.sax.SAXNotRecognizedException;
 import org.xml.sax.ext.LexicalHandler;
 import org.xml.sax.helpers.DefaultHandler;
 
 public abstract class XMLHelper {
 
-    static final String JAXP_SCHEMA_LANGUAGE = "http://java.sun.com/xml/jaxp/properties/schemaLanguage";
-
-    static final String JAXP_SCHEMA_SOURCE = "http://java.sun.com/xml/jaxp/properties/schemaSource";
-
     static final String XERCES_LOAD_EXTERNAL_DTD = "http://apache.org/xml/features/nonvalidating/load-external-dtd";
 
     static final String XML_NAMESPACE_PREFIXES = "http://xml.org/sax/features/namespace-prefixes";
 
     static final String W3C_XML_SCHEMA = "http://www.w3.org/2001/XMLSchema";
 
+    static final String LEXICAL_HANDLER = "http://xml.org/sax/properties/lexical-handler";
+
+    /**
+     * the maximum number of idle parsers kept for each parser configuration
+     */
+    private static final int MAX_POOLED_PARSERS = 16;
+
     private static boolean canUseSchemaValidation = true;
 
     private static Boolean canDisableExternalDtds = null;
 
-    private static SAXParser newSAXParser(URL schema, InputStream schemaStream,
-            boolean loadExternalDtds) throws ParserConfigurationException, SAXException {
+    /**
+     * the compiled schemas, by schema url; compiled schemas are immutable and thread safe
+     */
+    private static final Map/* <String, Schema> */SCHEMAS = new ConcurrentHashMap();
+
+    /**
+     * idle parsers, by parser configuration; SAX parsers are not thread safe, so a parser is
+     * removed from the pool while in use
+     */
+    private static final Map/* <String, LinkedList<SAXParser>> */PARSERS = new HashMap();
+
+    private static SAXParser newSAXParser(URL schema, boolean loadExternalDtds)
+            throws ParserConfigurationException, SAXException, IOException {
         SAXParserFactory parserFactory = SAXParserFactory.newInstance();
         parserFactory.setNamespaceAware(true);
-        parserFactory.setValidating(canUseSchemaValidation && (schema != null));
         if (!loadExternalDtds && canDisableExternalDtds(parserFactory)) {
             parserFactory.setFeature(XERCES_LOAD_EXTERNAL_DTD, false);
         }
+        if (canUseSchemaValidation && (schema != null)) {
+            Schema compiledSchema = getSchema(schema);
+            if (compiledSchema != null) {
+                try {
+                    parserFactory.setSchema(compiledSchema);
+                } catch (UnsupportedOperationException ex) {
+                    Message.warn("problem while setting the schema on SAXParserFactory... "
+                            + "XML validation will not be done", ex);
+                    canUseSchemaValidation = false;
+                }
+            }
+        }
         SAXParser parser = parserFactory.newSAXParser();
+        parser.getXMLReader().setFeature(XML_NAMESPACE_PREFIXES, true);
+        return parser;
+    }
 
-        if (canUseSchemaValidation && (schema != null)) {
+    /**
+     * Returns the compiled schema found at the given url, compiling it on first use, or
+     * <code>null</code> if schemas are not supported.
+     */
+    private static Schema getSchema(URL schema) throws SAXException, IOException {
+        String key = schema.toExternalForm();
+        Schema compiledSchema = (Schema) SCHEMAS.get(key);
+        if (compiledSchema != null) {
+            return compiledSchema;
+        }
+        SchemaFactory schemaFactory;
+        try {
+            schemaFactory = SchemaFactory.newInstance(W3C_XML_SCHEMA);
+        } catch (IllegalArgumentException ex) {
+            Message.warn("no W3C XML Schema implementation available... "
+                    + "XML validation will not be done", ex);
+            canUseSchemaValidation = false;
+            return null;
+        }
+        InputStream schemaStream = URLHandlerRegistry.getDefault().openStream(schema);
+        try {
+            compiledSchema = schemaFactory.newSchema(new StreamSource(schemaStream,
+                    toSystemId(schema)));
+        } finally {
             try {
-                parser.setProperty(JAXP_SCHEMA_LANGUAGE, W3C_XML_SCHEMA);
-                parser.setProperty(JAXP_SCHEMA_SOURCE, schemaStream);
-            } catch (SAXNotRecognizedException ex) {
-                Message.warn("problem while setting JAXP validating property on SAXParser... "
-                        + "XML validation will not be done", ex);
-                canUseSchemaValidation = false;
-                parserFactory.setValidating(false);
-                parser = parserFactory.newSAXParser();
+                schemaStream.close();
+            } catch (IOException ex) {
+                // ignored
             }
         }
+        // several threads may compile the same schema concurrently, any result will do
+        SCHEMAS.put(key, compiledSchema);
+        return compiledSchema;
+    }
 
-        parser.getXMLReader().setFeature(XML_NAMESPACE_PREFIXES, true);
-        return parser;
+    private static String getParserKey(URL schema, boolean loadExternalDtds) {
+        return (canUseSchemaValidation && (schema != null) ? schema.toExternalForm() : "")
+                + (loadExternalDtds ? "|dtd" : "|nodtd");
+    }
+
+    private static SAXParser borrowSAXParser(String key, URL schema, boolean loadExternalDtds)
+            throws ParserConfigurationException, SAXException, IOException {
+        synchronized (PARSERS) {
+            LinkedList pool = (LinkedList) PARSERS.get(key);
+            if (pool != null && !pool.isEmpty()) {
+                return (SAXParser) pool.removeFirst();
+            }
+        }
+        return newSAXParser(schema, loadExternalDtds);
+    }
+
+    private static void returnSAXParser(String key, SAXParser parser) {
+        try {
+            // drops the handlers and properties set for the last parse
+            parser.reset();
+            parser.getXMLReader().setFeature(XML_NAMESPACE_PREFIXES, true);
+        } catch (Exception ex) {
+            // this parser can't be reused
+            return;
+        }
+        synchronized (PARSERS) {
+            LinkedList pool = (LinkedList) PARSERS.get(key);
+            if (pool == null) {
+                pool = new LinkedList();
+                PARSERS.put(key, pool);
+            }
+            if (pool.size() < MAX_POOLED_PARSERS) {
+                pool.addFirst(parser);
+            }
+        }
     }
 
     private static boolean canDisableExternalDtds(SAXParserFactory parserFactory) {
@@ -142,16 +231,12 @@ public abstract class XMLHelper {
     public static void parse(InputSource xmlStream, URL schema, DefaultHandler handler,
             LexicalHandler lHandler, boolean loadExternalDtds) throws SAXException, IOException,
             ParserConfigurationException {
-        InputStream schemaStream = null;
+        String key = getParserKey(schema, loadExternalDtds);
+        SAXParser parser = borrowSAXParser(key, schema, loadExternalDtds);
         try {
-            if (schema != null) {
-                schemaStream = URLHandlerRegistry.getDefault().openStream(schema);
-            }
-            SAXParser parser = XMLHelper.newSAXParser(schema, schemaStream, loadExternalDtds);
-
             if (lHandler != null) {
                 try {
-                    parser.setProperty("http://xml.org/sax/properties/lexical-handler", lHandler);
+                    parser.setProperty(LEXICAL_HANDLER, lHandler);
                 } catch (SAXException ex) {
                     Message.warn("problem while setting the lexical handler property on SAXParser",
                         ex);
@@ -161,13 +246,7 @@ public abstract class XMLHelper {
 
             parser.parse(xmlStream, handler);
         } finally {
-            if (schemaStream != null) {
-                try {
-                    schemaStream.close();
-                } catch (IOException ex) {
-                    // ignored
-                }
-            }
+            returnSAXParser(key, parser);
         }
     }
 
@@ -93,6 +93,14 @@ public abstract class AbstractURLHandler implements URLHandler {
         }
     }
 
+    /**
+     * Returns true if the given http status tells that the target of a request doesn't exist,
+     * rather than that it couldn't be accessed.
+     */
+    protected boolean isNotFound(int status) {
+        return status == HttpURLConnection.HTTP_NOT_FOUND || status == HttpURLConnection.HTTP_GONE;
+    }
+
     public void setRequestMethod(int requestMethod) {
         AbstractURLHandler.requestMethod = requestMethod;
     }
@@ -110,7 +110,7 @@ public class ApacheURLLister {
 
         URLHandler urlHandler = URLHandlerRegistry.getDefault();
         URLInfo urlInfo = urlHandler.getURLInfo(url);
-        if (urlInfo == URLHandler.UNAVAILABLE) {
+        if (urlInfo == URLHandler.UNAVAILABLE || urlInfo == URLHandler.NOT_FOUND) {
             return urlList; // not found => return empty list
         }
         // here, urlInfo is valid
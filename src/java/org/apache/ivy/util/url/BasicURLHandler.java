@@ -25,11 +25,13 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.net.HttpURLConnection;
+import java.net.URISyntaxException;
 import java.net.URL;
 import java.net.URLConnection;
 import java.net.UnknownHostException;
 
 import org.apache.ivy.Ivy;
+import org.apache.ivy.core.resolve.ResolveMetrics;
 import org.apache.ivy.util.CopyProgressListener;
 import org.apache.ivy.util.FileUtil;
 import org.apache.ivy.util.Message;
@@ -37,13 +39,15 @@ import org.apache.ivy.util.Message;
 /**
  * 
  */
-public class BasicURLHandler extends AbstractURLHandler {
+public class BasicURLHandler extends AbstractURLHandler implements ConditionalURLHandler {
 
     private static final int BUFFER_SIZE = 64 * 1024;
 
     private static final class HttpStatus {
         static final int SC_OK = 200;
 
+        static final int SC_NOT_MODIFIED = 304;
+
         static final int SC_PROXY_AUTHENTICATION_REQUIRED = 407;
 
         private HttpStatus() {
@@ -60,6 +64,7 @@ public class BasicURLHandler extends AbstractURLHandler {
             IvyAuthenticator.install();
         }
 
+        long start = System.nanoTime();
         URLConnection con = null;
         try {
             url = normalizeToURL(url);
@@ -73,12 +78,15 @@ public class BasicURLHandler extends AbstractURLHandler {
                 if (checkStatusCode(url, httpCon)) {
                     String bodyCharset = getCharSetFromContentType(con.getContentType());
                     return new URLInfo(true, httpCon.getContentLength(), con.getLastModified(),
-                            bodyCharset);
+                            bodyCharset, con.getHeaderField("ETag"));
+                }
+                if (isNotFound(httpCon.getResponseCode())) {
+                    return NOT_FOUND;
                 }
             } else {
                 int contentLength = con.getContentLength();
                 if (contentLength <= 0) {
-                    return UNAVAILABLE;
+                    return isMissingFile(url) ? NOT_FOUND : UNAVAILABLE;
                 } else {
                     // TODO: not HTTP... maybe we *don't* want to default to ISO-8559-1 here?
                     String bodyCharset = getCharSetFromContentType(con.getContentType());
@@ -93,6 +101,7 @@ public class BasicURLHandler extends AbstractURLHandler {
             Message.error("Server access error at url " + url, e);
         } finally {
             disconnect(con);
+            ResolveMetrics.record(ResolveMetrics.NETWORK_HEAD, start);
         }
         return UNAVAILABLE;
     }
@@ -127,6 +136,17 @@ public class BasicURLHandler extends AbstractURLHandler {
         return charSet;
     }
 
+    private static boolean isMissingFile(URL url) {
+        if (!"file".equals(url.getProtocol())) {
+            return false;
+        }
+        try {
+            return !new File(url.toURI()).exists();
+        } catch (URISyntaxException e) {
+            return !new File(url.getPath()).exists();
+        }
+    }
+
     private boolean checkStatusCode(URL url, HttpURLConnection con) throws IOException {
         int status = con.getResponseCode();
         if (status == HttpStatus.SC_OK) {
@@ -155,6 +175,7 @@ public class BasicURLHandler extends AbstractURLHandler {
             IvyAuthenticator.install();
         }
 
+        long start = System.nanoTime();
         URLConnection conn = null;
         try {
             url = normalizeToURL(url);
@@ -180,23 +201,40 @@ public class BasicURLHandler extends AbstractURLHandler {
             return new ByteArrayInputStream(outStream.toByteArray());
         } finally {
             disconnect(conn);
+            ResolveMetrics.record(ResolveMetrics.NETWORK_GET, start);
         }
     }
 
     public void download(URL src, File dest, CopyProgressListener l) throws IOException {
+        downloadIfModified(src, dest, null, 0, l);
+    }
+
+    public URLInfo downloadIfModified(URL src, File dest, String eTag, long lastModified,
+            CopyProgressListener l) throws IOException {
         // Install the IvyAuthenticator
         if ("http".equals(src.getProtocol()) || "https".equals(src.getProtocol())) {
             IvyAuthenticator.install();
         }
 
+        long start = System.nanoTime();
         URLConnection srcConn = null;
         try {
             src = normalizeToURL(src);
             srcConn = src.openConnection();
             srcConn.setRequestProperty("User-Agent", getUserAgent());
             srcConn.setRequestProperty("Accept-Encoding", "gzip,deflate");
+            if (eTag != null) {
+                srcConn.setRequestProperty("If-None-Match", eTag);
+            }
+            if (lastModified > 0) {
+                srcConn.setIfModifiedSince(lastModified);
+            }
             if (srcConn instanceof HttpURLConnection) {
                 HttpURLConnection httpCon = (HttpURLConnection) srcConn;
+                if ((eTag != null || lastModified > 0)
+                        && httpCon.getResponseCode() == HttpStatus.SC_NOT_MODIFIED) {
+                    return null;
+                }
                 if (!checkStatusCode(src, httpCon)) {
                     throw new IOException("The HTTP response code for " + src
                             + " did not indicate a success." + " See log for more detail.");
@@ -220,12 +258,16 @@ public class BasicURLHandler extends AbstractURLHandler {
             }
 
             // update modification date
-            long lastModified = srcConn.getLastModified();
-            if (lastModified > 0) {
-                dest.setLastModified(lastModified);
+            long srcLastModified = srcConn.getLastModified();
+            if (srcLastModified > 0) {
+                dest.setLastModified(srcLastModified);
             }
+            return new URLInfo(true, dest.length(), srcLastModified,
+                    getCharSetFromContentType(srcConn.getContentType()),
+                    srcConn.getHeaderField("ETag"));
         } finally {
             disconnect(srcConn);
+            ResolveMetrics.record(ResolveMetrics.NETWORK_GET, start);
         }
     }
 
@@ -0,0 +1,50 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  See the NOTICE file distributed with
+ *  this work for additional information regarding copyright ownership.
+ *  The ASF licenses this file to You under the Apache License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance with
+ *  the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package org.apache.ivy.util.url;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+
+import org.apache.ivy.util.CopyProgressListener;
+
+/**
+ * An {@link URLHandler} able to download a resource only if it has been modified since a previous
+ * download, with a conditional request (If-None-Match and If-Modified-Since for HTTP).
+ */
+public interface ConditionalURLHandler extends URLHandler {
+    /**
+     * Downloads the target of the given url to the given file, unless it has not been modified
+     * since it was previously downloaded with the given entity tag or last modification date.
+     * 
+     * @param src
+     *            the url to download
+     * @param dest
+     *            the file to which the target of the url is downloaded
+     * @param eTag
+     *            the entity tag of the previous download, <code>null</code> if unknown
+     * @param lastModified
+     *            the last modification date of the previous download, 0 if unknown
+     * @param l
+     *            the listener notified of the progress of the download, may be <code>null</code>
+     * @return the information sent with the downloaded content, or <code>null</code> if the target
+     *         of the url has not been modified, in which case the file is left untouched
+     */
+    public URLInfo downloadIfModified(URL src, File dest, String eTag, long lastModified,
+            CopyProgressListener l) throws IOException;
+}
@@ -27,6 +27,7 @@ import java.net.UnknownHostException;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
+import java.util.Date;
 import java.util.List;
 import java.util.Locale;
 
@@ -48,7 +49,10 @@ import org.apache.commons.httpclient.methods.HeadMethod;
 import org.apache.commons.httpclient.methods.PutMethod;
 import org.apache.commons.httpclient.methods.RequestEntity;
 import org.apache.commons.httpclient.params.HttpMethodParams;
+import org.apache.commons.httpclient.util.DateUtil;
+import org.apache.commons.httpclient.util.IdleConnectionTimeoutThread;
 import org.apache.ivy.Ivy;
+import org.apache.ivy.core.resolve.ResolveMetrics;
 import org.apache.ivy.util.CopyProgressListener;
 import org.apache.ivy.util.FileUtil;
 import org.apache.ivy.util.HostUtil;
@@ -57,10 +61,19 @@ import org.apache.ivy.util.Message;
 /**
  *
  */
-public class HttpClientHandler extends AbstractURLHandler {
+public class HttpClientHandler extends AbstractURLHandler implements ConditionalURLHandler {
     private static final SimpleDateFormat LAST_MODIFIED_FORMAT = new SimpleDateFormat(
             "EEE, d MMM yyyy HH:mm:ss z", Locale.US);
 
+    private static final int MAX_CONNECTIONS_PER_HOST = 4;
+
+    private static final int MAX_TOTAL_CONNECTIONS = 20;
+
+    /**
+     * the time after which idle connections are closed, in milliseconds
+     */
+    private static final long IDLE_TIMEOUT = 30000;
+
     // proxy configuration: obtain from system properties
     private int proxyPort;
 
@@ -95,21 +108,37 @@ public class HttpClientHandler extends AbstractURLHandler {
     }
 
     public InputStream openStream(URL url) throws IOException {
-        GetMethod get = doGet(url, 0);
-        if (!checkStatusCode(url, get)) {
-            get.releaseConnection();
-            throw new IOException("The HTTP response code for " + url
-                    + " did not indicate a success." + " See log for more detail.");
-        }
+        // only the time needed to get the response is measured, not the one to read its body
+        long start = System.nanoTime();
+        try {
+            GetMethod get = doGet(url, 0);
+            if (!checkStatusCode(url, get)) {
+                get.releaseConnection();
+                throw new IOException("The HTTP response code for " + url
+                        + " did not indicate a success." + " See log for more detail.");
+            }
 
-        Header encoding = get.getResponseHeader("Content-Encoding");
-        return getDecodingInputStream(encoding == null ? null : encoding.getValue(),
-            get.getResponseBodyAsStream());
+            Header encoding = get.getResponseHeader("Content-Encoding");
+            return getDecodingInputStream(encoding == null ? null : encoding.getValue(),
+                get.getResponseBodyAsStream());
+        } finally {
+            ResolveMetrics.record(ResolveMetrics.NETWORK_GET, start);
+        }
     }
 
     public void download(URL src, File dest, CopyProgressListener l) throws IOException {
-        GetMethod get = doGet(src, 0);
+        downloadIfModified(src, dest, null, 0, l);
+    }
+
+    public URLInfo downloadIfModified(URL src, File dest, String eTag, long lastModified,
+            CopyProgressListener l) throws IOException {
+        long start = System.nanoTime();
+        GetMethod get = doGet(src, 0, eTag, lastModified);
         try {
+            if ((eTag != null || lastModified > 0)
+                    && get.getStatusCode() == HttpStatus.SC_NOT_MODIFIED) {
+                return null;
+            }
             // We can only figure the content we got is want we want if the status is success.
             if (!checkStatusCode(src, get)) {
                 throw new IOException("The HTTP response code for " + src
@@ -120,9 +149,14 @@ public class HttpClientHandler extends AbstractURLHandler {
             InputStream is = getDecodingInputStream(encoding == null ? null : encoding.getValue(),
                 get.getResponseBodyAsStream());
             FileUtil.copy(is, dest, l);
-            dest.setLastModified(getLastModified(get));
+            long srcLastModified = getLastModified(get);
+            dest.setLastModified(srcLastModified);
+            Header srcETag = get.getResponseHeader("etag");
+            return new URLInfo(true, dest.length(), srcLastModified, get.getResponseCharSet(),
+                    srcETag == null ? null : srcETag.getValue());
         } finally {
             get.releaseConnection();
+            ResolveMetrics.record(ResolveMetrics.NETWORK_GET, start);
         }
     }
 
@@ -146,6 +180,7 @@ public class HttpClientHandler extends AbstractURLHandler {
     }
 
     public URLInfo getURLInfo(URL url, int timeout) {
+        long start = System.nanoTime();
         HttpMethodBase method = null;
         try {
             if (getRequestMethod() == URLHandler.REQUEST_METHOD_HEAD) {
@@ -154,8 +189,12 @@ public class HttpClientHandler extends AbstractURLHandler {
                 method = doGet(url, timeout);
             }
             if (checkStatusCode(url, method)) {
+                Header eTag = method.getResponseHeader("etag");
                 return new URLInfo(true, getResponseContentLength(method), getLastModified(method),
-                        method.getRequestCharSet());
+                        method.getRequestCharSet(), eTag == null ? null : eTag.getValue());
+            }
+            if (isNotFound(method.getStatusCode())) {
+                return NOT_FOUND;
             }
         } catch (HttpException e) {
             Message.error("HttpClientHandler: " + e.getMessage() + ":" + e.getReasonCode() + "="
@@ -173,6 +212,7 @@ public class HttpClientHandler extends AbstractURLHandler {
             if (method != null) {
                 method.releaseConnection();
             }
+            ResolveMetrics.record(ResolveMetrics.NETWORK_HEAD, start);
         }
         return UNAVAILABLE;
     }
@@ -205,7 +245,10 @@ public class HttpClientHandler extends AbstractURLHandler {
         if (header != null) {
             String lastModified = header.getValue();
             try {
-                return LAST_MODIFIED_FORMAT.parse(lastModified).getTime();
+                // the format isn't thread safe, and the handler is used by several threads
+                synchronized (LAST_MODIFIED_FORMAT) {
+                    return LAST_MODIFIED_FORMAT.parse(lastModified).getTime();
+                }
             } catch (ParseException e) {
                 // ignored
             }
@@ -247,62 +290,91 @@ public class HttpClientHandler extends AbstractURLHandler {
     }
 
     private GetMethod doGet(URL url, int timeout) throws IOException {
+        return doGet(url, timeout, null, 0);
+    }
+
+    private GetMethod doGet(URL url, int timeout, String eTag, long lastModified)
+            throws IOException {
         HttpClient client = getClient();
-        client.setTimeout(timeout);
 
         GetMethod get = new GetMethod(normalizeToString(url));
+        // the timeout is set on the request, the client being shared
+        get.getParams().setSoTimeout(timeout);
         get.setDoAuthentication(useAuthentication(url) || useProxyAuthentication());
         get.setRequestHeader("Accept-Encoding", "gzip,deflate");
+        if (eTag != null) {
+            get.setRequestHeader("If-None-Match", eTag);
+        }
+        if (lastModified > 0) {
+            get.setRequestHeader("If-Modified-Since", DateUtil.formatDate(new Date(lastModified)));
+        }
         client.executeMethod(get);
         return get;
     }
 
     private HeadMethod doHead(URL url, int timeout) throws IOException {
         HttpClient client = getClient();
-        client.setTimeout(timeout);
 
         HeadMethod head = new HeadMethod(normalizeToString(url));
+        head.getParams().setSoTimeout(timeout);
         head.setDoAuthentication(useAuthentication(url) || useProxyAuthentication());
         client.executeMethod(head);
         return head;
     }
 
+    /**
+     * Returns the client shared by all the handlers, whose connections are kept open between
+     * requests and used by all the threads.
+     */
     private HttpClient getClient() {
-        if (httpClient == null) {
-            final MultiThreadedHttpConnectionManager connManager = new MultiThreadedHttpConnectionManager();
-            httpClient = new HttpClient(connManager);
+        synchronized (HttpClientHandler.class) {
+            if (httpClient == null) {
+                httpClient = newClient();
+            }
+            return httpClient;
+        }
+    }
 
-            Runtime.getRuntime().addShutdownHook(new Thread(new Runnable() {
-                public void run() {
-                    connManager.shutdown();
-                }
-            }));
-
-            List authPrefs = new ArrayList(3);
-            authPrefs.add(AuthPolicy.DIGEST);
-            authPrefs.add(AuthPolicy.BASIC);
-            authPrefs.add(AuthPolicy.NTLM); // put it at the end to give less priority (IVY-213)
-            httpClient.getParams().setParameter(AuthPolicy.AUTH_SCHEME_PRIORITY, authPrefs);
-
-            if (useProxy()) {
-                httpClient.getHostConfiguration().setProxy(proxyHost, proxyPort);
-                if (useProxyAuthentication()) {
-                    httpClient.getState().setProxyCredentials(
-                        new AuthScope(proxyHost, proxyPort, AuthScope.ANY_REALM),
-                        createCredentials(proxyUserName, proxyPasswd));
-                }
+    private HttpClient newClient() {
+        final MultiThreadedHttpConnectionManager connManager = new MultiThreadedHttpConnectionManager();
+        connManager.getParams().setDefaultMaxConnectionsPerHost(MAX_CONNECTIONS_PER_HOST);
+        connManager.getParams().setMaxTotalConnections(MAX_TOTAL_CONNECTIONS);
+        final IdleConnectionTimeoutThread idleConnectionCloser = new IdleConnectionTimeoutThread();
+        idleConnectionCloser.setConnectionTimeout(IDLE_TIMEOUT);
+        idleConnectionCloser.addConnectionManager(connManager);
+        idleConnectionCloser.start();
+        HttpClient client = new HttpClient(connManager);
+
+        Runtime.getRuntime().addShutdownHook(new Thread(new Runnable() {
+            public void run() {
+                idleConnectionCloser.shutdown();
+                connManager.shutdown();
             }
+        }));
 
-            // user-agent
-            httpClient.getParams().setParameter(HttpMethodParams.USER_AGENT,
-                getUserAgent());
+        List authPrefs = new ArrayList(3);
+        authPrefs.add(AuthPolicy.DIGEST);
+        authPrefs.add(AuthPolicy.BASIC);
+        authPrefs.add(AuthPolicy.NTLM); // put it at the end to give less priority (IVY-213)
+        client.getParams().setParameter(AuthPolicy.AUTH_SCHEME_PRIORITY, authPrefs);
 
-            // authentication
-            httpClient.getParams().setParameter(CredentialsProvider.PROVIDER,
-                new IvyCredentialsProvider());
+        if (useProxy()) {
+            client.getHostConfiguration().setProxy(proxyHost, proxyPort);
+            if (useProxyAuthentication()) {
+                client.getState().setProxyCredentials(
+                    new AuthScope(proxyHost, proxyPort, AuthScope.ANY_REALM),
+                    createCredentials(proxyUserName, proxyPasswd));
+            }
         }
 
-        return httpClient;
+        // user-agent
+        client.getParams().setParameter(HttpMethodParams.USER_AGENT,
+            getUserAgent());
+
+        // authentication
+        client.getParams().setParameter(CredentialsProvider.PROVIDER,
+            new IvyCredentialsProvider());
+        return client;
     }
 
     private boolean useProxy() {
@@ -50,6 +50,8 @@ public interface URLHandler {
 
         private String bodyCharset;
 
+        private String eTag;
+
         protected URLInfo(boolean available, long contentLength, long lastModified) {
             this(available, contentLength, lastModified, null);
         }
@@ -62,6 +64,12 @@ public interface URLHandler {
             this.bodyCharset = bodyCharset;
         }
 
+        protected URLInfo(boolean available, long contentLength, long lastModified,
+                String bodyCharset, String eTag) {
+            this(available, contentLength, lastModified, bodyCharset);
+            this.eTag = eTag;
+        }
+
         public boolean isReachable() {
             return available;
         }
@@ -77,10 +85,25 @@ public interface URLHandler {
         public String getBodyCharset() {
             return bodyCharset;
         }
+
+        /**
+         * Returns the entity tag sent by the server for the target of the url, or
+         * <code>null</code> if there is none.
+         */
+        public String getETag() {
+            return eTag;
+        }
     }
 
     public static final URLInfo UNAVAILABLE = new URLInfo(false, 0, 0);
 
+    /**
+     * The URLInfo of a target known not to exist, e.g. for which an http server answered 404, as
+     * opposed to {@link #UNAVAILABLE} which is also returned when it's unknown whether the target
+     * exists, after a server error or a network failure.
+     */
+    public static final URLInfo NOT_FOUND = new URLInfo(false, 0, 0);
+
     /**
      * Please prefer getURLInfo when several infos are needed.
      * 
@@ -142,24 +165,25 @@ public interface URLHandler {
 
     /**
      * Returns the URLInfo of the given url or a {@link #UNAVAILABLE} instance, if the url is not
-     * reachable.
+     * reachable, or {@link #NOT_FOUND} if its target is known not to exist.
      * 
      * @param url
      *            The url from which information is retrieved.
-     * @return The URLInfo extracted from the given url, or {@link #UNAVAILABLE} when the url is not
-     *         available.
+     * @return The URLInfo extracted from the given url, or {@link #UNAVAILABLE} or
+     *         {@link #NOT_FOUND} when the url is not available.
      */
     public URLInfo getURLInfo(URL url);
 
     /**
-     * never returns null, return UNAVAILABLE when url is not reachable
+     * never returns null, return UNAVAILABLE when url is not reachable, or NOT_FOUND when its
+     * target is known not to exist
      * 
      * @param url
      *            The url from which information is retrieved.
      * @param timeout
      *            The timeout in milliseconds.
-     * @return The URLInfo extracted from the given url, or {@link #UNAVAILABLE} when the url is not
-     *         available.
+     * @return The URLInfo extracted from the given url, or {@link #UNAVAILABLE} or
+     *         {@link #NOT_FOUND} when the url is not available.
      */
     public URLInfo getURLInfo(URL url, int timeout);
 
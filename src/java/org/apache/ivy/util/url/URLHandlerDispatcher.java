@@ -30,7 +30,7 @@ import org.apache.ivy.util.CopyProgressListener;
 /**
  * This class is used to dispatch downloading requests
  */
-public class URLHandlerDispatcher implements URLHandler {
+public class URLHandlerDispatcher implements ConditionalURLHandler {
     private Map handlers = new HashMap();
 
     private URLHandler defaultHandler = new BasicURLHandler();
@@ -78,6 +78,17 @@ public class URLHandlerDispatcher implements URLHandler {
         getHandler(src.getProtocol()).download(src, dest, l);
     }
 
+    public URLInfo downloadIfModified(URL src, File dest, String eTag, long lastModified,
+            CopyProgressListener l) throws IOException {
+        URLHandler handler = getHandler(src.getProtocol());
+        if (handler instanceof ConditionalURLHandler) {
+            return ((ConditionalURLHandler) handler).downloadIfModified(src, dest, eTag,
+                lastModified, l);
+        }
+        handler.download(src, dest, l);
+        return new URLInfo(true, dest.length(), dest.lastModified());
+    }
+
     public void upload(File src, URL dest, CopyProgressListener l) throws IOException {
         getHandler(dest.getProtocol()).upload(src, dest, l);
     }
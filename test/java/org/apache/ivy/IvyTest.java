@@ -18,10 +18,17 @@
 package org.apache.ivy;
 
 import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 
 import junit.framework.TestCase;
 
 import org.apache.ivy.core.IvyContext;
+import org.apache.ivy.core.event.IvyEvent;
+import org.apache.ivy.core.event.IvyEventFilter;
+import org.apache.ivy.core.event.IvyListener;
+import org.apache.ivy.core.event.resolve.EndResolveEvent;
 import org.apache.ivy.core.report.ResolveReport;
 import org.apache.ivy.core.resolve.ResolveOptions;
 import org.apache.ivy.core.settings.IvySettings;
@@ -89,6 +96,29 @@ public class IvyTest extends TestCase {
                 .getContext().getIvy() == ivy);
     }
 
+    public void testResolveFlushesAsyncListeners() throws Exception {
+        Ivy ivy = Ivy.newInstance();
+        ivy.configure(new File("test/repositories/ivysettings.xml"));
+        final List events = Collections.synchronizedList(new ArrayList());
+        ivy.getEventManager().addIvyListener(new IvyListener() {
+            public void progress(IvyEvent event) {
+                try {
+                    Thread.sleep(100);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                events.add(event);
+            }
+        }, new IvyEventFilter(EndResolveEvent.NAME, null, null), true);
+
+        ResolveReport report = ivy.resolve(new File(
+                "test/repositories/1/org1/mod1.1/ivys/ivy-1.0.xml"),
+            getResolveOptions(ivy, new String[] {"*"}));
+        assertFalse(report.hasError());
+        assertEquals(1, events.size());
+        assertTrue(events.get(0) instanceof EndResolveEvent);
+    }
+
     private ResolveOptions getResolveOptions(Ivy ivy, String[] confs) {
         return getResolveOptions(ivy.getSettings(), confs);
     }
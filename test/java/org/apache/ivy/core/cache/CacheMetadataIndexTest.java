@@ -0,0 +1,167 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  See the NOTICE file distributed with
+ *  this work for additional information regarding copyright ownership.
+ *  The ASF licenses this file to You under the Apache License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance with
+ *  the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package org.apache.ivy.core.cache;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.util.Date;
+import java.util.Properties;
+
+import junit.framework.TestCase;
+
+import org.apache.ivy.Ivy;
+import org.apache.ivy.core.module.descriptor.Artifact;
+import org.apache.ivy.core.module.descriptor.DefaultArtifact;
+import org.apache.ivy.core.module.id.ModuleRevisionId;
+import org.apache.ivy.util.FileUtil;
+import org.apache.ivy.util.PropertiesFile;
+
+public class CacheMetadataIndexTest extends TestCase {
+    private File dir;
+
+    private CacheMetadataIndex index;
+
+    protected void setUp() throws Exception {
+        dir = new File("build/test/cache-index");
+        FileUtil.forceDelete(dir);
+        index = CacheMetadataIndex.getInstance(new File(dir, "ivydata.idx"));
+    }
+
+    protected void tearDown() throws Exception {
+        index.close();
+        FileUtil.forceDelete(dir);
+    }
+
+    public void testPutGet() throws Exception {
+        assertNull(index.get("org/mod/ivydata-1.0.properties"));
+
+        index.put("org/mod/ivydata-1.0.properties", props("resolver", "r1"));
+        index.put("org/mod/ivydata-2.0.properties", props("resolver", "r2"));
+        index.put("org/mod/ivydata-1.0.properties", props("resolver", "r3"));
+
+        assertEquals(props("resolver", "r3"), index.get("org/mod/ivydata-1.0.properties"));
+        assertEquals(props("resolver", "r2"), index.get("org/mod/ivydata-2.0.properties"));
+
+        // reopen the file
+        index.close();
+        assertEquals(props("resolver", "r3"), index.get("org/mod/ivydata-1.0.properties"));
+        assertEquals(props("resolver", "r2"), index.get("org/mod/ivydata-2.0.properties"));
+    }
+
+    public void testCompact() throws Exception {
+        for (int i = 0; i < 100; i++) {
+            index.put("org/mod/ivydata-1.0.properties", props("resolver", "r" + i));
+            index.put("org/mod/ivydata-" + (i % 3) + ".properties", props("resolver", "r" + i));
+        }
+        long size = index.getDataSize();
+        long length = index.getFile().length();
+        index.compact();
+        assertTrue(index.getDataSize() < size);
+        // compacted in place
+        assertEquals(length, index.getFile().length());
+        assertEquals(props("resolver", "r99"), index.get("org/mod/ivydata-1.0.properties"));
+        assertEquals(props("resolver", "r99"), index.get("org/mod/ivydata-0.properties"));
+        assertEquals(props("resolver", "r98"), index.get("org/mod/ivydata-2.properties"));
+
+        index.put("org/mod/ivydata-3.properties", props("resolver", "r100"));
+        index.close();
+        assertEquals(props("resolver", "r99"), index.get("org/mod/ivydata-1.0.properties"));
+        assertEquals(props("resolver", "r100"), index.get("org/mod/ivydata-3.properties"));
+    }
+
+    public void testCompactWhenTooMuchGarbage() throws Exception {
+        for (int i = 0; i < 10000; i++) {
+            index.put("org/mod/ivydata-" + (i % 10) + ".properties", props("resolver", "r" + i));
+        }
+        // compacted while records were written, without being reopened
+        assertTrue(index.getDataSize() < 64 * 1024);
+        for (int i = 0; i < 10; i++) {
+            assertEquals(props("resolver", "r" + (9990 + i)),
+                index.get("org/mod/ivydata-" + i + ".properties"));
+        }
+    }
+
+    public void testPartialRecord() throws Exception {
+        index.put("org/mod/ivydata-1.0.properties", props("resolver", "r1"));
+        long end = 12 + index.getDataSize();
+        index.close();
+
+        // simulate a process killed while writing a record: its length is written last
+        RandomAccessFile raf = new RandomAccessFile(index.getFile(), "rw");
+        raf.seek(end + 4);
+        raf.writeUTF("org/mod");
+        raf.close();
+
+        assertEquals(props("resolver", "r1"), index.get("org/mod/ivydata-1.0.properties"));
+        index.put("org/mod/ivydata-2.0.properties", props("resolver", "r2"));
+        index.close();
+        assertEquals(props("resolver", "r1"), index.get("org/mod/ivydata-1.0.properties"));
+        assertEquals(props("resolver", "r2"), index.get("org/mod/ivydata-2.0.properties"));
+    }
+
+    public void testInterruptedCompaction() throws Exception {
+        index.put("org/mod/ivydata-1.0.properties", props("resolver", "r1"));
+        index.close();
+
+        // simulate a process killed while compacting the file: the generation is left odd
+        RandomAccessFile raf = new RandomAccessFile(index.getFile(), "rw");
+        raf.seek(8);
+        raf.writeInt(1);
+        raf.close();
+
+        assertNull(index.get("org/mod/ivydata-1.0.properties"));
+        index.put("org/mod/ivydata-2.0.properties", props("resolver", "r2"));
+        index.close();
+        assertNull(index.get("org/mod/ivydata-1.0.properties"));
+        assertEquals(props("resolver", "r2"), index.get("org/mod/ivydata-2.0.properties"));
+    }
+
+    public void testCacheManager() throws Exception {
+        Ivy ivy = new Ivy();
+        ivy.configureDefault();
+        DefaultRepositoryCacheManager cacheManager = new DefaultRepositoryCacheManager();
+        cacheManager.setSettings(ivy.getSettings());
+        cacheManager.setBasedir(dir);
+
+        ModuleRevisionId mrid = ModuleRevisionId.newInstance("org", "module", "rev");
+        Artifact artifact = new DefaultArtifact(mrid, new Date(), "name", "type", "ext");
+        ArtifactOrigin origin = new ArtifactOrigin(artifact, true, "file:/some/where.ext");
+
+        // properties files written before the index is used are imported
+        cacheManager.saveArtifactOrigin(artifact, origin);
+        cacheManager.setUseMetadataIndex(true);
+        assertEquals(origin, cacheManager.getSavedArtifactOrigin(artifact));
+        assertNotNull(index.get("org/module/ivydata-rev.properties"));
+
+        cacheManager.saveResolvedRevision(mrid, "1.0");
+        assertEquals("1.0", index.get("org/module/ivydata-rev.properties").getProperty(
+            "resolved.revision"));
+        assertNull(new PropertiesFile(new File(dir, "org/module/ivydata-rev.properties"), "")
+                .getProperty("resolved.revision"));
+
+        cacheManager.clean();
+        assertTrue(ArtifactOrigin.isUnknown(cacheManager.getSavedArtifactOrigin(artifact)));
+    }
+
+    private Properties props(String name, String value) {
+        Properties props = new Properties();
+        props.setProperty(name, value);
+        props.setProperty("key", name + "=" + value);
+        return props;
+    }
+}
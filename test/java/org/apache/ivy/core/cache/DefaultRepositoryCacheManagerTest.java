@@ -18,7 +18,13 @@
 package org.apache.ivy.core.cache;
 
 import java.io.File;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.Date;
+import java.util.List;
 
 import junit.framework.TestCase;
 
@@ -27,10 +33,19 @@ import org.apache.ivy.core.module.descriptor.Artifact;
 import org.apache.ivy.core.module.descriptor.DefaultArtifact;
 import org.apache.ivy.core.module.id.ModuleId;
 import org.apache.ivy.core.module.id.ModuleRevisionId;
+import org.apache.ivy.core.report.ArtifactDownloadReport;
+import org.apache.ivy.core.report.DownloadStatus;
 import org.apache.ivy.core.settings.IvySettings;
+import org.apache.ivy.plugins.repository.Resource;
+import org.apache.ivy.plugins.repository.url.URLRepository;
+import org.apache.ivy.util.FileUtil;
 import org.apache.tools.ant.Project;
 import org.apache.tools.ant.taskdefs.Delete;
 
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
 /**
  * @see DefaultResolutionCacheManager
  */
@@ -78,6 +93,76 @@ public class DefaultRepositoryCacheManagerTest extends TestCase {
         assertTrue(ArtifactOrigin.isUnknown(found));
     }
 
+    public void testArtifactOriginETag() {
+        ArtifactOrigin found = cacheManager.getSavedArtifactOrigin(artifact);
+        assertNull(found.getETag());
+
+        origin.setETag("\"3e8-52a8f0c9\"");
+        cacheManager.saveArtifactOrigin(artifact, origin);
+        found = cacheManager.getSavedArtifactOrigin(artifact);
+        assertEquals("\"3e8-52a8f0c9\"", found.getETag());
+
+        // a new download from a repository without entity tags
+        origin.setETag(null);
+        cacheManager.saveArtifactOrigin(artifact, origin);
+        found = cacheManager.getSavedArtifactOrigin(artifact);
+        assertNull(found.getETag());
+    }
+
+    public void testDownloadRepositoryResourceWithConditionalRequest() throws Exception {
+        final String[] content = {"<metadata>1</metadata>", "\"v1\""};
+        final List requests = Collections.synchronizedList(new ArrayList());
+        HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/", new HttpHandler() {
+            public void handle(HttpExchange exchange) throws IOException {
+                String eTag = exchange.getRequestHeaders().getFirst("If-None-Match");
+                exchange.getResponseHeaders().add("ETag", content[1]);
+                if (content[1].equals(eTag)) {
+                    requests.add(exchange.getRequestMethod() + " 304");
+                    exchange.sendResponseHeaders(304, -1);
+                } else {
+                    requests.add(exchange.getRequestMethod() + " 200");
+                    byte[] body = content[0].getBytes("UTF-8");
+                    exchange.sendResponseHeaders(200, body.length);
+                    exchange.getResponseBody().write(body);
+                }
+                exchange.close();
+            }
+        });
+        server.start();
+        try {
+            URLRepository repository = new URLRepository();
+            Resource resource = repository.getResource("http://localhost:"
+                    + server.getAddress().getPort() + "/maven-metadata.xml");
+            CacheResourceOptions options = new CacheResourceOptions();
+            options.setTtl(0);
+
+            ArtifactDownloadReport report = cacheManager.downloadRepositoryResource(resource,
+                "maven-metadata", "maven-metadata", "xml", options, repository);
+            assertEquals(DownloadStatus.SUCCESSFUL, report.getDownloadStatus());
+            assertEquals(content[0], FileUtil.readEntirely(report.getLocalFile()));
+
+            // unchanged: a single request, without body
+            report = cacheManager.downloadRepositoryResource(resource, "maven-metadata",
+                "maven-metadata", "xml", options, repository);
+            assertEquals(DownloadStatus.NO, report.getDownloadStatus());
+            assertEquals(content[0], FileUtil.readEntirely(report.getLocalFile()));
+            assertEquals(Arrays.asList(new String[] {"GET 200", "GET 304"}), requests);
+
+            // changed
+            content[0] = "<metadata>2</metadata>";
+            content[1] = "\"v2\"";
+            report = cacheManager.downloadRepositoryResource(resource, "maven-metadata",
+                "maven-metadata", "xml", options, repository);
+            assertEquals(DownloadStatus.SUCCESSFUL, report.getDownloadStatus());
+            assertEquals(content[0], FileUtil.readEntirely(report.getLocalFile()));
+            assertEquals("\"v2\"", report.getArtifactOrigin().getETag());
+            assertEquals(Arrays.asList(new String[] {"GET 200", "GET 304", "GET 200"}), requests);
+        } finally {
+            server.stop(0);
+        }
+    }
+
     public void testUniqueness() {
         cacheManager.saveArtifactOrigin(artifact, origin);
 
@@ -17,6 +17,7 @@
  */
 package org.apache.ivy.core.cache;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.IOException;
 import java.text.ParseException;
@@ -29,6 +30,7 @@ import org.apache.ivy.core.module.descriptor.ModuleDescriptor;
 import org.apache.ivy.core.module.id.ModuleRevisionId;
 import org.apache.ivy.core.settings.IvySettings;
 import org.apache.ivy.plugins.parser.ParserSettings;
+import org.apache.ivy.util.FileUtil;
 
 public class ModuleDescriptorMemoryCacheTest extends TestCase {
 
@@ -145,6 +147,59 @@ public class ModuleDescriptorMemoryCacheTest extends TestCase {
         providerMock2.assertCalled();
     }
 
+    public void testWeightIsLimited() throws ParseException, IOException {
+        cache = new ModuleDescriptorMemoryCache(-1,
+                2 * ModuleDescriptorMemoryCache.estimateWeight(md1));
+        ModuleDescriptorProviderMock providerMock1b = new ModuleDescriptorProviderMock(md1);
+        cache.get(url1, ivySettings, false, new ModuleDescriptorProviderMock(md1));
+        cache.get(url2, ivySettings, false, new ModuleDescriptorProviderMock(md2));
+        assertEquals(2, cache.getSize());
+        assertEquals(2 * ModuleDescriptorMemoryCache.estimateWeight(md1), cache.getWeight());
+        cache.get(url3, ivySettings, false, new ModuleDescriptorProviderMock(md3));
+        assertEquals(2, cache.getSize());
+        assertEquals(1, cache.getEvictions());
+        cache.get(url1, ivySettings, false, providerMock1b);
+        providerMock1b.assertCalled();
+    }
+
+    public void testStatistics() throws ParseException, IOException {
+        cache.get(url1, ivySettings, false, new ModuleDescriptorProviderMock(md1));
+        cache.get(url1, ivySettings, false, null);
+        cache.get(url1, ivySettings, false, null);
+        cache.get(url2, ivySettings, false, new ModuleDescriptorProviderMock(md2));
+        assertEquals(2, cache.getHits());
+        assertEquals(2, cache.getMisses());
+        assertEquals(0, cache.getEvictions());
+    }
+
+    public void testSharedInstance() throws ParseException, IOException {
+        File basedir = new File("build/cache");
+        ModuleDescriptorMemoryCache shared = ModuleDescriptorMemoryCache.getSharedInstance(
+            ivySettings, basedir, -1, 1024 * 1024);
+        assertSame(shared, ModuleDescriptorMemoryCache.getSharedInstance(ivySettings, new File(
+                basedir.getAbsolutePath()), 10, 1024));
+        assertNotSame(shared, ModuleDescriptorMemoryCache.getSharedInstance(ivySettings,
+            new File("build/cache2"), -1, 1024));
+        // the module descriptors of other settings may be modified differently
+        assertNotSame(shared, ModuleDescriptorMemoryCache.getSharedInstance(ivySettings2,
+            basedir, -1, 1024));
+        assertEquals(0, ModuleDescriptorMemoryCache.getSharedInstance(ivySettings, basedir, 0,
+            1024).getSize());
+    }
+
+    public void testFileChangeInvalidateEntry() throws Exception {
+        File ivyFile = File.createTempFile("ivy", ".xml");
+        try {
+            ModuleDescriptorProviderMock providerMock2 = new ModuleDescriptorProviderMock(md1);
+            cache.get(ivyFile, ivySettings, false, new ModuleDescriptorProviderMock(md1));
+            FileUtil.copy(new ByteArrayInputStream(new byte[] {1, 2, 3}), ivyFile, null);
+            cache.get(ivyFile, ivySettings, false, providerMock2);
+            providerMock2.assertCalled();
+        } finally {
+            ivyFile.delete();
+        }
+    }
+
     private static class ModuleDescriptorProviderMock implements ModuleDescriptorProvider {
 
         private boolean called = false;
@@ -0,0 +1,135 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  See the NOTICE file distributed with
+ *  this work for additional information regarding copyright ownership.
+ *  The ASF licenses this file to You under the Apache License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance with
+ *  the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package org.apache.ivy.core.cache;
+
+import java.io.File;
+import java.util.Date;
+
+import org.apache.ivy.Ivy;
+import org.apache.ivy.core.module.descriptor.Configuration;
+import org.apache.ivy.core.module.descriptor.DefaultArtifact;
+import org.apache.ivy.core.module.descriptor.DefaultDependencyDescriptor;
+import org.apache.ivy.core.module.descriptor.DefaultModuleDescriptor;
+import org.apache.ivy.core.module.id.ModuleRevisionId;
+import org.apache.ivy.core.report.ResolveReport;
+import org.apache.ivy.core.resolve.ResolveOptions;
+import org.apache.ivy.core.settings.IvySettings;
+import org.apache.ivy.plugins.parser.xml.XmlModuleDescriptorWriter;
+import org.apache.ivy.plugins.resolver.FileSystemResolver;
+import org.apache.ivy.util.DefaultMessageLogger;
+import org.apache.ivy.util.FileUtil;
+import org.apache.ivy.util.Message;
+
+/**
+ * Not a Junit test, performance depends on the machine on which the test is run...
+ * <p>
+ * Compares warm resolves, i.e. with all the module descriptors already in the repository cache,
+ * with and without binary descriptors. A new Ivy instance with no memory cache is used for each
+ * resolve, as in a new build, so that every cached ivy file is loaded again.
+ * </p>
+ */
+public class TestBinaryDescriptorsPerformance {
+    private static final File BASEDIR = new File("build/test/perf-binary");
+
+    private static final String PATTERN = new File(BASEDIR, "repo").getAbsolutePath()
+            + "/[module]/[artifact]-[revision].[ext]";
+
+    private static final int MODULES = 1000;
+
+    private static final int DEPENDENCIES = 3;
+
+    private static final int RESOLVES = 10;
+
+    private void generateModules() throws Exception {
+        for (int i = 0; i < MODULES; i++) {
+            DefaultModuleDescriptor md = new DefaultModuleDescriptor(
+                    ModuleRevisionId.newInstance("apache", "mod" + i, "1.0"), "integration",
+                    new Date());
+            md.addConfiguration(new Configuration("default"));
+            md.addArtifact("default", new DefaultArtifact(md.getModuleRevisionId(), new Date(),
+                    "mod" + i, "jar", "jar"));
+            // the modules form a tree, so that the resolve time is not dominated by conflicts
+            for (int j = 1; j <= DEPENDENCIES && i * DEPENDENCIES + j < MODULES; j++) {
+                DefaultDependencyDescriptor dd = new DefaultDependencyDescriptor(md,
+                        ModuleRevisionId.newInstance("apache", "mod" + (i * DEPENDENCIES + j),
+                            "1.0"), false, false, true);
+                dd.addDependencyConfiguration("default", "default");
+                md.addDependency(dd);
+            }
+            XmlModuleDescriptorWriter.write(md, new File(BASEDIR, "repo/mod" + i + "/ivy-1.0.xml"));
+            FileUtil.copy(new File("test/repositories/1/org1/mod1.1/jars/mod1.1-1.0.jar"),
+                new File(BASEDIR, "repo/mod" + i + "/mod" + i + "-1.0.jar"), null);
+        }
+    }
+
+    private Ivy newIvy(boolean useBinaryDescriptors) {
+        IvySettings settings = new IvySettings();
+        FileSystemResolver resolver = new FileSystemResolver();
+        resolver.setName("def");
+        resolver.setSettings(settings);
+        resolver.addIvyPattern(PATTERN);
+        resolver.addArtifactPattern(PATTERN);
+        settings.addResolver(resolver);
+        settings.setDefaultResolver("def");
+
+        DefaultRepositoryCacheManager cacheManager = new DefaultRepositoryCacheManager("cache",
+                settings, new File(BASEDIR, "cache"));
+        cacheManager.setMemorySize(0);
+        cacheManager.setUseBinaryDescriptors(useBinaryDescriptors);
+        settings.addRepositoryCacheManager(cacheManager);
+        settings.setDefaultRepositoryCacheManager(cacheManager);
+        settings.setDefaultResolutionCacheBasedir(new File(BASEDIR, "resolution")
+                .getAbsolutePath());
+        return Ivy.newInstance(settings);
+    }
+
+    private long resolve(boolean useBinaryDescriptors) throws Exception {
+        long start = System.currentTimeMillis();
+        ResolveReport report = newIvy(useBinaryDescriptors).resolve(
+            new File(BASEDIR, "repo/mod0/ivy-1.0.xml"),
+            new ResolveOptions().setConfs(new String[] {"*"}).setRevision("1.0"));
+        if (report.hasError()) {
+            throw new IllegalStateException("resolve failed: " + report.getAllProblemMessages());
+        }
+        return System.currentTimeMillis() - start;
+    }
+
+    public void testPerfs() throws Exception {
+        Message.setDefaultLogger(new DefaultMessageLogger(Message.MSG_WARN));
+        generateModules();
+        // fills the cache, including the binary descriptors, and warms up the JVM
+        resolve(false);
+        resolve(true);
+        for (int pass = 0; pass < 2; pass++) {
+            long xml = 0;
+            long binary = 0;
+            for (int i = 0; i < RESOLVES; i++) {
+                xml += resolve(false);
+                binary += resolve(true);
+            }
+            System.out.println("warm resolve of " + MODULES + " modules: " + (xml / RESOLVES)
+                    + " ms with ivy files, " + (binary / RESOLVES)
+                    + " ms with binary descriptors");
+        }
+        FileUtil.forceDelete(BASEDIR);
+    }
+
+    public static void main(String[] args) throws Exception {
+        new TestBinaryDescriptorsPerformance().testPerfs();
+    }
+}
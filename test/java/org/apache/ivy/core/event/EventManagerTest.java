@@ -0,0 +1,215 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  See the NOTICE file distributed with
+ *  this work for additional information regarding copyright ownership.
+ *  The ASF licenses this file to You under the Apache License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance with
+ *  the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package org.apache.ivy.core.event;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import org.apache.ivy.core.event.resolve.EndResolveEvent;
+import org.apache.ivy.core.event.resolve.StartResolveEvent;
+import org.apache.ivy.core.module.descriptor.DefaultModuleDescriptor;
+import org.apache.ivy.core.module.descriptor.ModuleDescriptor;
+import org.apache.ivy.core.module.id.ModuleRevisionId;
+import org.apache.ivy.plugins.repository.BasicResource;
+import org.apache.ivy.plugins.repository.TransferEvent;
+import org.apache.ivy.plugins.repository.TransferListener;
+
+public class EventManagerTest extends TestCase {
+
+    private ModuleDescriptor md;
+
+    private EventManager eventManager;
+
+    public void setUp() throws Exception {
+        md = new DefaultModuleDescriptor(ModuleRevisionId.newInstance("foo", "bar", "1.0"),
+                "integration", new Date());
+        eventManager = new EventManager();
+    }
+
+    public void testIsIvyEventListened() {
+        assertFalse(eventManager.isIvyEventListened(StartResolveEvent.NAME));
+
+        RecordingListener listener = new RecordingListener();
+        eventManager.addIvyListener(listener, StartResolveEvent.NAME);
+        assertTrue(eventManager.isIvyEventListened(StartResolveEvent.NAME));
+        assertFalse(eventManager.isIvyEventListened(EndResolveEvent.NAME));
+
+        RecordingListener all = new RecordingListener();
+        eventManager.addIvyListener(all);
+        assertTrue(eventManager.isIvyEventListened(EndResolveEvent.NAME));
+
+        eventManager.removeIvyListener(all);
+        eventManager.removeIvyListener(listener);
+        assertFalse(eventManager.isIvyEventListened(StartResolveEvent.NAME));
+        assertFalse(eventManager.isIvyEventListened(EndResolveEvent.NAME));
+    }
+
+    public void testTransferProgress() {
+        final List transferEvents = new ArrayList();
+        eventManager.addTransferListener(new TransferListener() {
+            public void transferProgress(TransferEvent evt) {
+                transferEvents.add(evt);
+            }
+        });
+        RecordingListener completed = new RecordingListener();
+        eventManager.addIvyListener(completed, TransferEvent.TRANSFER_COMPLETED_NAME);
+        RecordingListener progress = new RecordingListener();
+        eventManager.addIvyListener(progress, TransferEvent.TRANSFER_PROGRESS_NAME);
+
+        TransferEvent evt = newTransferEvent();
+        eventManager.transferProgress(evt);
+
+        assertEquals(Collections.singletonList(evt), transferEvents);
+        assertEquals(Collections.EMPTY_LIST, completed.getEvents());
+        assertEquals(Collections.singletonList(evt), progress.getEvents());
+    }
+
+    public void testAsyncListener() throws Exception {
+        eventManager.setAsyncQueueSize(2);
+        RecordingListener listener = new RecordingListener(5);
+        eventManager.addIvyListener(listener, null, true);
+
+        List fired = new ArrayList();
+        for (int i = 0; i < 20; i++) {
+            IvyEvent evt = new StartResolveEvent(md, new String[] {"conf" + i});
+            fired.add(evt);
+            eventManager.fireIvyEvent(evt);
+        }
+        eventManager.flushAsyncListeners();
+
+        assertEquals(fired, listener.getEvents());
+        assertEquals(1, listener.getThreads().size());
+        assertFalse(listener.getThreads().contains(Thread.currentThread()));
+        assertTrue(((Thread) listener.getThreads().get(0)).isDaemon());
+    }
+
+    public void testAsyncListenerFailure() throws Exception {
+        final List events = new ArrayList();
+        eventManager.addIvyListener(new IvyListener() {
+            public void progress(IvyEvent event) {
+                events.add(event);
+                throw new IllegalStateException("failing listener");
+            }
+        }, null, true);
+
+        IvyEvent start = new StartResolveEvent(md, new String[] {"default"});
+        IvyEvent start2 = new StartResolveEvent(md, new String[] {"test"});
+        eventManager.fireIvyEvent(start);
+        eventManager.fireIvyEvent(start2);
+        eventManager.flushAsyncListeners();
+
+        assertEquals(2, events.size());
+        assertEquals(start, events.get(0));
+        assertEquals(start2, events.get(1));
+    }
+
+    public void testAsyncListenerGetsTransferEventCopies() throws Exception {
+        RecordingListener listener = new RecordingListener();
+        eventManager.addIvyListener(listener, null, true);
+
+        TransferEvent evt = newTransferEvent();
+        eventManager.transferProgress(evt);
+        evt.setTotalLengthSet(true);
+        eventManager.transferProgress(evt);
+        eventManager.flushAsyncListeners();
+
+        assertEquals(2, listener.getEvents().size());
+        assertFalse(((TransferEvent) listener.getEvents().get(0)).isTotalLengthSet());
+        assertTrue(((TransferEvent) listener.getEvents().get(1)).isTotalLengthSet());
+        assertNotSame(evt, listener.getEvents().get(1));
+    }
+
+    public void testRemoveAsyncListener() throws Exception {
+        RecordingListener listener = new RecordingListener();
+        eventManager.addIvyListener(listener, new IvyEventFilter(StartResolveEvent.NAME, null,
+                null), true);
+        assertTrue(eventManager.isIvyEventListened(StartResolveEvent.NAME));
+
+        eventManager.removeIvyListener(listener);
+        assertFalse(eventManager.isIvyEventListened(StartResolveEvent.NAME));
+        eventManager.fireIvyEvent(new StartResolveEvent(md, new String[] {"default"}));
+        eventManager.flushAsyncListeners();
+        assertEquals(Collections.EMPTY_LIST, listener.getEvents());
+    }
+
+    public void testRemoveAsyncListenerFlushesIt() throws Exception {
+        RecordingListener listener = new RecordingListener(5);
+        eventManager.addIvyListener(listener, null, true);
+
+        List fired = new ArrayList();
+        for (int i = 0; i < 10; i++) {
+            IvyEvent evt = new StartResolveEvent(md, new String[] {"conf" + i});
+            fired.add(evt);
+            eventManager.fireIvyEvent(evt);
+        }
+        eventManager.removeIvyListener(listener);
+
+        // the queued events are notified before the removal, and the worker is stopped
+        assertEquals(fired, listener.getEvents());
+        Thread worker = (Thread) listener.getThreads().get(0);
+        worker.join(500);
+        assertFalse(worker.isAlive());
+    }
+
+    private static TransferEvent newTransferEvent() {
+        return new TransferEvent(null, new BasicResource("test", true, 10, 0, true), 10L,
+                TransferEvent.REQUEST_GET);
+    }
+
+    private static class RecordingListener implements IvyListener {
+        private final long delay;
+
+        private final List events = new ArrayList();
+
+        private final List threads = new ArrayList();
+
+        RecordingListener() {
+            this(0);
+        }
+
+        RecordingListener(long delay) {
+            this.delay = delay;
+        }
+
+        public synchronized void progress(IvyEvent event) {
+            events.add(event);
+            if (!threads.contains(Thread.currentThread())) {
+                threads.add(Thread.currentThread());
+            }
+            if (delay > 0) {
+                try {
+                    Thread.sleep(delay);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+
+        public synchronized List getEvents() {
+            return new ArrayList(events);
+        }
+
+        public synchronized List getThreads() {
+            return new ArrayList(threads);
+        }
+    }
+}
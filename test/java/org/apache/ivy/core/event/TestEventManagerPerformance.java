@@ -0,0 +1,69 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  See the NOTICE file distributed with
+ *  this work for additional information regarding copyright ownership.
+ *  The ASF licenses this file to You under the Apache License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance with
+ *  the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package org.apache.ivy.core.event;
+
+import org.apache.ivy.core.event.resolve.EndResolveEvent;
+import org.apache.ivy.plugins.repository.BasicResource;
+import org.apache.ivy.plugins.repository.TransferEvent;
+
+/**
+ * Not a Junit test, performance depends on the machine on which the test is run...
+ * <p>
+ * Measures the time spent notifying the progress of a transfer when the only Ivy listener is a
+ * trigger on post-resolve events, with and without checking first if the transfer events are
+ * listened.
+ * </p>
+ */
+public class TestEventManagerPerformance {
+    private static final int EVENTS = 2000000;
+
+    private EventManager eventManager = new EventManager();
+
+    private TransferEvent evt = new TransferEvent(null, new BasicResource("test", true, 1024, 0,
+            true), 1024L, TransferEvent.REQUEST_GET);
+
+    public TestEventManagerPerformance() {
+        eventManager.addIvyListener(new IvyListener() {
+            public void progress(IvyEvent event) {
+            }
+        }, new IvyEventFilter(EndResolveEvent.NAME, "organisation = foo", null));
+    }
+
+    private long notifyProgress(boolean checkListened) {
+        long start = System.currentTimeMillis();
+        for (int i = 0; i < EVENTS; i++) {
+            if (checkListened) {
+                eventManager.transferProgress(evt);
+            } else {
+                eventManager.fireIvyEvent(evt);
+            }
+        }
+        return System.currentTimeMillis() - start;
+    }
+
+    public static void main(String[] args) {
+        TestEventManagerPerformance t = new TestEventManagerPerformance();
+        // warm up
+        t.notifyProgress(false);
+        t.notifyProgress(true);
+
+        System.out.println("notifying " + EVENTS + " transfer progress events:");
+        System.out.println("\twithout checking if listened: " + t.notifyProgress(false) + " ms");
+        System.out.println("\tchecking if listened:         " + t.notifyProgress(true) + " ms");
+    }
+}
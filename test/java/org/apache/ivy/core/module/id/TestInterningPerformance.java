@@ -0,0 +1,125 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  See the NOTICE file distributed with
+ *  this work for additional information regarding copyright ownership.
+ *  The ASF licenses this file to You under the Apache License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance with
+ *  the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package org.apache.ivy.core.module.id;
+
+import java.io.File;
+import java.net.URL;
+import java.util.Date;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.apache.ivy.core.module.descriptor.Configuration;
+import org.apache.ivy.core.module.descriptor.DefaultArtifact;
+import org.apache.ivy.core.module.descriptor.DefaultDependencyDescriptor;
+import org.apache.ivy.core.module.descriptor.DefaultModuleDescriptor;
+import org.apache.ivy.core.settings.IvySettings;
+import org.apache.ivy.plugins.parser.xml.XmlModuleDescriptorParser;
+import org.apache.ivy.plugins.parser.xml.XmlModuleDescriptorWriter;
+import org.apache.ivy.util.FileUtil;
+
+/**
+ * Not a Junit test, performance depends on the machine on which the test is run...
+ * <p>
+ * Parses the same set of module descriptors with an increasing number of threads, to check that
+ * creating and interning the ids of the modules and artifacts scales with the number of threads.
+ * </p>
+ */
+public class TestInterningPerformance {
+    private static final File REPO = new File("build/test/perf-intern");
+
+    private static final int MODULES = 500;
+
+    private static final int DEPENDENCIES = 30;
+
+    private static final int PASSES = 10;
+
+    private final IvySettings settings = new IvySettings();
+
+    private URL[] descriptors;
+
+    private void generateModules() throws Exception {
+        descriptors = new URL[MODULES];
+        for (int i = 0; i < MODULES; i++) {
+            DefaultModuleDescriptor md = new DefaultModuleDescriptor(
+                    ModuleRevisionId.newInstance("apache", "mod" + i, "1.0"), "integration",
+                    new Date());
+            md.addConfiguration(new Configuration("default"));
+            md.addArtifact("default", new DefaultArtifact(md.getModuleRevisionId(), new Date(),
+                    "mod" + i, "jar", "jar"));
+            for (int j = 1; j <= DEPENDENCIES; j++) {
+                DefaultDependencyDescriptor dd = new DefaultDependencyDescriptor(md,
+                        ModuleRevisionId.newInstance("apache", "mod" + ((i + j) % MODULES), "1.0"),
+                        false, false, true);
+                dd.addDependencyConfiguration("default", "default");
+                md.addDependency(dd);
+            }
+            File f = new File(REPO, "ivy-" + i + ".xml");
+            XmlModuleDescriptorWriter.write(md, f);
+            descriptors[i] = f.toURI().toURL();
+        }
+    }
+
+    public void testPerfs() throws Exception {
+        generateModules();
+        // warm up
+        parse(4);
+        for (int threads = 1; threads <= 8; threads *= 2) {
+            long start = System.currentTimeMillis();
+            parse(threads);
+            long end = System.currentTimeMillis();
+            System.out.println("parsing " + (MODULES * PASSES) + " descriptors with " + threads
+                    + " threads took " + (end - start) + " ms");
+        }
+        FileUtil.forceDelete(REPO);
+    }
+
+    private void parse(int threads) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            Future[] results = new Future[threads];
+            for (int t = 0; t < threads; t++) {
+                final int first = t;
+                final int step = threads;
+                results[t] = executor.submit(new Runnable() {
+                    public void run() {
+                        try {
+                            for (int pass = 0; pass < PASSES; pass++) {
+                                for (int i = first; i < MODULES; i += step) {
+                                    XmlModuleDescriptorParser.getInstance().parseDescriptor(
+                                        settings, descriptors[i], false);
+                                }
+                            }
+                        } catch (Exception e) {
+                            throw new RuntimeException(e);
+                        }
+                    }
+                });
+            }
+            for (int t = 0; t < threads; t++) {
+                results[t].get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        new TestInterningPerformance().testPerfs();
+    }
+}
@@ -0,0 +1,197 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  See the NOTICE file distributed with
+ *  this work for additional information regarding copyright ownership.
+ *  The ASF licenses this file to You under the Apache License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance with
+ *  the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package org.apache.ivy.core.resolve;
+
+import java.io.File;
+import java.lang.management.ManagementFactory;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import junit.framework.TestCase;
+
+import org.apache.ivy.Ivy;
+import org.apache.ivy.core.cache.DefaultResolutionCacheManager;
+import org.apache.ivy.core.module.id.ModuleRevisionId;
+import org.apache.ivy.core.report.ResolveReport;
+import org.apache.ivy.core.settings.IvySettings;
+import org.apache.ivy.plugins.report.MetricsReportOutputter;
+import org.apache.ivy.plugins.resolver.URLResolver;
+import org.apache.ivy.util.CacheCleaner;
+import org.apache.ivy.util.FileUtil;
+
+public class ResolveMetricsTest extends TestCase {
+    private Ivy ivy;
+
+    private File cache;
+
+    protected void setUp() throws Exception {
+        cache = new File("build/cache");
+        System.setProperty("ivy.cache.dir", cache.getAbsolutePath());
+        cache.mkdirs();
+
+        ivy = Ivy.newInstance();
+        ivy.configure(new File("test/repositories/ivysettings.xml"));
+    }
+
+    protected void tearDown() throws Exception {
+        CacheCleaner.deleteDir(cache);
+    }
+
+    public void testResolveMetrics() throws Exception {
+        ivy.getSettings().addReportOutputter(new MetricsReportOutputter());
+        ResolveReport report = ivy.resolve(new File("test/repositories/2/mod7.3/ivy-1.0.xml"),
+            getResolveOptions());
+        assertFalse(report.hasError());
+
+        ResolveMetrics metrics = report.getMetrics();
+        assertNotNull(metrics);
+        assertEquals(1, metrics.getResolves());
+        assertEquals(1, metrics.getPhaseCount(ResolveMetrics.GRAPH_WALK));
+        assertTrue(metrics.getPhaseCount(ResolveMetrics.CONFLICT_RESOLUTION) > 0);
+        assertTrue(metrics.getPhaseCount(ResolveMetrics.DESCRIPTOR_PARSE) > 0);
+        assertTrue(metrics.getPhaseCount(ResolveMetrics.CACHE_LOOKUP) > 0);
+
+        // mod7.2 and mod7.1 aren't in the first repository of the chain
+        assertEquals(2, metrics.getNotFound("1"));
+        assertEquals(2, metrics.getFound("2-ivy"));
+        assertEquals(0, metrics.getCacheHits("2-ivy"));
+        assertEquals(2, metrics.getDownloads("2-ivy"));
+        assertEquals(2, metrics.getDownloads("2-artifact"));
+        assertEquals(new File("test/repositories/2/mod7.1/mod7.1-2.0.jar").length()
+                + new File("test/repositories/2/mod7.2/mod7.2-1.0.jar").length(),
+            metrics.getDownloadedBytes("2-artifact"));
+
+        DefaultResolutionCacheManager cacheMgr = (DefaultResolutionCacheManager) ivy
+                .getResolutionCacheManager();
+        String json = FileUtil.readEntirely(cacheMgr.getResolveMetricsInCache(report
+                .getResolveId()));
+        assertEquals(metrics.toJson(), json);
+        assertTrue(json, json.indexOf("\"2-artifact\": {\"cacheHits\": 0, \"found\": 0,") != -1);
+
+        // the modules are now in the cache, where the chain finds them
+        report = ivy.resolve(new File("test/repositories/2/mod7.3/ivy-1.0.xml"),
+            getResolveOptions());
+        metrics = report.getMetrics();
+        assertEquals(2, metrics.getCacheHits("test"));
+        assertEquals(0, metrics.getFound("2-ivy"));
+        assertEquals(0, metrics.getDownloads("2-artifact"));
+
+        ResolveMetrics total = ivy.getResolveEngine().getMetrics();
+        assertEquals(2, total.getResolves());
+        assertEquals(2, total.getPhaseCount(ResolveMetrics.GRAPH_WALK));
+        assertEquals(2, total.getFound("2-ivy"));
+        assertEquals(2, total.getCacheHits("test"));
+    }
+
+    public void testNetworkPhases() throws Exception {
+        IvySettings settings = ivy.getSettings();
+        String root = new File("test/repositories/1").toURI().toURL().toExternalForm();
+        URLResolver resolver = new URLResolver();
+        resolver.setSettings(settings);
+        resolver.setName("url");
+        resolver.addIvyPattern(root + "[organisation]/[module]/ivys/ivy-[revision].xml");
+        resolver.addArtifactPattern(root
+                + "[organisation]/[module]/[type]s/[artifact]-[revision].[ext]");
+        settings.addResolver(resolver);
+        settings.setDefaultResolver("url");
+
+        ResolveReport report = ivy.resolve(ModuleRevisionId.newInstance("org2", "mod2.2", "0.9"),
+            getResolveOptions(), false);
+        assertFalse(report.hasError());
+
+        // the module descriptor has been put in the cache before the resolve of its caller, which
+        // downloads the two artifacts of the module
+        ResolveMetrics metrics = report.getMetrics();
+        assertEquals(1, metrics.getCacheHits("url"));
+        assertEquals(2, metrics.getDownloads("url"));
+        assertTrue(metrics.getPhaseCount(ResolveMetrics.NETWORK_HEAD) > 0);
+        assertTrue(metrics.getPhaseCount(ResolveMetrics.NETWORK_GET) >= 2);
+    }
+
+    public void testMBean() throws Exception {
+        String name = "org.apache.ivy.test:type=ResolveMetrics";
+        ivy.getSettings().setVariable("ivy.resolve.metrics.mbean", name);
+        ivy.resolve(new File("test/repositories/2/mod7.3/ivy-1.0.xml"), getResolveOptions());
+
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName objectName = new ObjectName(name);
+        try {
+            assertEquals(new Integer(1), server.getAttribute(objectName, "Resolves"));
+            assertEquals(new Long(2), server.invoke(objectName, "getFound",
+                new Object[] {"2-ivy"}, new String[] {String.class.getName()}));
+        } finally {
+            server.unregisterMBean(objectName);
+        }
+    }
+
+    public void testMBeanAlreadyRegistered() throws Exception {
+        String name = "org.apache.ivy.test:type=ResolveMetrics";
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName objectName = new ObjectName(name);
+        ResolveMetrics other = new ResolveMetrics();
+        server.registerMBean(other, objectName);
+        try {
+            ivy.getSettings().setVariable("ivy.resolve.metrics.mbean", name);
+            ivy.resolve(new File("test/repositories/2/mod7.3/ivy-1.0.xml"), getResolveOptions());
+
+            // the metrics of the other instance are kept
+            assertEquals(new Integer(0), server.getAttribute(objectName, "Resolves"));
+        } finally {
+            server.unregisterMBean(objectName);
+        }
+    }
+
+    public void testAdd() {
+        ResolveMetrics metrics = new ResolveMetrics();
+        metrics.addResolve();
+        metrics.addPhase(ResolveMetrics.CHECKSUM, 3000000);
+        metrics.addLookup("repo", true, 2000000);
+        metrics.addLookup("repo", false, 1000000);
+        metrics.addDownload("repo", 100, 5);
+
+        ResolveMetrics total = new ResolveMetrics();
+        total.add(metrics);
+        total.add(metrics);
+        assertEquals(2, total.getResolves());
+        assertEquals(2, total.getPhaseCount(ResolveMetrics.CHECKSUM));
+        assertEquals(6, total.getPhaseTime(ResolveMetrics.CHECKSUM));
+        assertEquals(2, total.getFound("repo"));
+        assertEquals(2, total.getNotFound("repo"));
+        assertEquals(6, total.getLookupTime("repo"));
+        assertEquals(200, total.getDownloadedBytes("repo"));
+        assertEquals(10, total.getDownloadTime("repo"));
+        assertEquals(0, total.getFound("unknown"));
+
+        total.reset();
+        assertEquals(0, total.getResolves());
+        assertEquals(0, total.getResolvers().length);
+        assertEquals(7, total.getPhases().length);
+    }
+
+    public void testJsonEscaping() {
+        ResolveMetrics metrics = new ResolveMetrics();
+        metrics.addCacheHit("my \"quoted\"\\resolver");
+        assertTrue(metrics.toJson(),
+            metrics.toJson().indexOf("\"my \\\"quoted\\\"\\\\resolver\": {\"cacheHits\": 1,") != -1);
+    }
+
+    private ResolveOptions getResolveOptions() {
+        return new ResolveOptions().setConfs(new String[] {"*"});
+    }
+}
@@ -17,9 +17,13 @@
  */
 package org.apache.ivy.core.resolve;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.net.URL;
+import java.text.ParseException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
@@ -27,8 +31,10 @@ import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Properties;
 import java.util.Set;
 
 import javax.xml.parsers.SAXParser;
@@ -40,7 +46,12 @@ import org.apache.ivy.Ivy;
 import org.apache.ivy.TestHelper;
 import org.apache.ivy.core.cache.ArtifactOrigin;
 import org.apache.ivy.core.cache.DefaultRepositoryCacheManager;
+import org.apache.ivy.core.cache.DefaultResolutionCacheManager;
 import org.apache.ivy.core.deliver.DeliverOptions;
+import org.apache.ivy.core.event.IvyEvent;
+import org.apache.ivy.core.event.IvyListener;
+import org.apache.ivy.core.event.resolve.EndResolveDependencyEvent;
+import org.apache.ivy.core.event.resolve.StartResolveDependencyEvent;
 import org.apache.ivy.core.module.descriptor.Artifact;
 import org.apache.ivy.core.module.descriptor.DefaultArtifact;
 import org.apache.ivy.core.module.descriptor.DependencyDescriptor;
@@ -62,6 +73,7 @@ import org.apache.ivy.plugins.matcher.ExactPatternMatcher;
 import org.apache.ivy.plugins.parser.xml.XmlModuleDescriptorParser;
 import org.apache.ivy.plugins.repository.AbstractRepository;
 import org.apache.ivy.plugins.repository.Resource;
+import org.apache.ivy.plugins.resolver.AbstractResolver;
 import org.apache.ivy.plugins.resolver.BasicResolver;
 import org.apache.ivy.plugins.resolver.DependencyResolver;
 import org.apache.ivy.plugins.resolver.DualResolver;
@@ -2154,6 +2166,402 @@ public class ResolveTest extends TestCase {
         assertFalse(getArchiveFileInCache("org1", "mod1.2", "2.0", "mod1.2", "jar", "jar").exists());
     }
 
+    public void testParallelResolve() throws Exception {
+        // same graph as testTransitiveEviction, resolved with and without parallel prefetching:
+        // the reports must be the same
+        ResolveReport serial = ivy.resolve(new File("test/repositories/2/mod7.3/ivy-1.0.xml"),
+            getResolveOptions(new String[] {"*"}));
+        assertFalse(serial.hasError());
+
+        CacheCleaner.deleteDir(cache);
+        createCache();
+
+        ResolveReport parallel = ivy.resolve(new File("test/repositories/2/mod7.3/ivy-1.0.xml"),
+            getResolveOptions(new String[] {"*"}).setParallel(true));
+        assertFalse(parallel.hasError());
+
+        assertEquals(toIds(serial.getDependencies()), toIds(parallel.getDependencies()));
+        String[] confs = serial.getConfigurations();
+        assertEquals(Arrays.asList(confs), Arrays.asList(parallel.getConfigurations()));
+        for (int i = 0; i < confs.length; i++) {
+            ConfigurationResolveReport serialConf = serial.getConfigurationReport(confs[i]);
+            ConfigurationResolveReport parallelConf = parallel.getConfigurationReport(confs[i]);
+            assertEquals(serialConf.getModuleRevisionIds(), parallelConf.getModuleRevisionIds());
+            assertEquals(toIds(Arrays.asList(serialConf.getEvictedNodes())),
+                toIds(Arrays.asList(parallelConf.getEvictedNodes())));
+        }
+
+        assertTrue(getArchiveFileInCache("org7", "mod7.1", "2.0", "mod7.1", "jar", "jar").exists());
+        assertFalse(getArchiveFileInCache("org7", "mod7.1", "1.0", "mod7.1", "jar", "jar").exists());
+        assertFalse(getArchiveFileInCache("org1", "mod1.2", "2.0", "mod1.2", "jar", "jar").exists());
+    }
+
+    public void testParallelResolvePrefetchesDescriptors() throws Exception {
+        FileSystemResolver resolver = new FileSystemResolver();
+        resolver.setName("fs");
+        resolver.addIvyPattern(ivy
+                .substitute("${ivy.settings.dir}/1/[organisation]/[module]/ivys/ivy-[revision].xml"));
+        resolver.addArtifactPattern(ivy.substitute("${ivy.settings.dir}/1/[organisation]/[module]/"
+                + "[type]s/[artifact]-[revision].[ext]"));
+        ivy.getSettings().addResolver(resolver);
+        ivy.getSettings().setDefaultResolver("fs");
+        ivy.getSettings().setVariable("ivy.resolve.parallel", "true");
+
+        // the modules asked by the resolve thread, with true if it has downloaded them itself
+        final Map asked = new HashMap();
+        ivy.getEventManager().addIvyListener(new IvyListener() {
+            public void progress(IvyEvent event) {
+                EndResolveDependencyEvent end = (EndResolveDependencyEvent) event;
+                asked.put(end.getDependencyDescriptor().getDependencyRevisionId(), Boolean
+                        .valueOf(end.getModule().getReport().isDownloaded()));
+            }
+        }, EndResolveDependencyEvent.NAME);
+
+        // two revisions of the same module, both loaded since they are in distinct confs
+        ResolveReport report = ivy.resolve(newParallelIvyFile("mod1.1", "1.0", "mod1.1", "2.0"),
+            getResolveOptions(new String[] {"*"}));
+        assertFalse(report.hasError());
+
+        // each dependency has been prefetched, so that the resolve thread has found it in cache
+        assertTrue(asked.containsKey(ModuleRevisionId.newInstance("org1", "mod1.1", "1.0")));
+        assertTrue(asked.containsKey(ModuleRevisionId.newInstance("org1", "mod1.1", "2.0")));
+        for (Iterator it = asked.entrySet().iterator(); it.hasNext();) {
+            Map.Entry entry = (Map.Entry) it.next();
+            assertEquals(entry.getKey() + " should have been prefetched", Boolean.FALSE,
+                entry.getValue());
+        }
+    }
+
+    public void testParallelResolveDoesNotPrefetchWithUnknownResolver() throws Exception {
+        RecordingResolver resolver = new RecordingResolver();
+        resolver.setName("recording");
+        resolver.addIvyPattern(ivy
+                .substitute("${ivy.settings.dir}/1/[organisation]/[module]/ivys/ivy-[revision].xml"));
+        resolver.addArtifactPattern(ivy.substitute("${ivy.settings.dir}/1/[organisation]/[module]/"
+                + "[type]s/[artifact]-[revision].[ext]"));
+        ivy.getSettings().addResolver(resolver);
+        ivy.getSettings().setDefaultResolver("recording");
+
+        ResolveReport report = ivy.resolve(newParallelIvyFile("mod1.1", "1.0", "mod1.1", "2.0"),
+            getResolveOptions(new String[] {"*"}).setParallel(true));
+        assertFalse(report.hasError());
+
+        // the resolver may not support concurrent lookups: only the resolve thread has used it
+        List calls = resolver.getCalls();
+        assertFalse(calls.isEmpty());
+        for (int i = 0; i < calls.size(); i++) {
+            assertSame(Thread.currentThread(), ((Object[]) calls.get(i))[0]);
+        }
+    }
+
+    public void testParallelResolveDoesNotLookForMissingModuleTwice() throws Exception {
+        FileSystemResolver resolver = new FileSystemResolver();
+        resolver.setName("fs");
+        resolver.addIvyPattern(ivy
+                .substitute("${ivy.settings.dir}/1/[organisation]/[module]/ivys/ivy-[revision].xml"));
+        resolver.addArtifactPattern(ivy.substitute("${ivy.settings.dir}/1/[organisation]/[module]/"
+                + "[type]s/[artifact]-[revision].[ext]"));
+        ivy.getSettings().addResolver(resolver);
+        ivy.getSettings().setDefaultResolver("fs");
+
+        ResolveReport report = ivy.resolve(
+            newParallelIvyFile("mod1.1", "1.0", "unknown", "1.0"),
+            getResolveOptions(new String[] {"*"}).setParallel(true));
+        assertTrue(report.hasError());
+        assertEquals(1, report.getConfigurationReport("b").getUnresolvedDependencies().length);
+
+        // the failed prefetch has been reported without asking the resolver again
+        assertEquals(1, report.getMetrics().getNotFound("fs"));
+    }
+
+    private File newParallelIvyFile(String mod1, String rev1, String mod2, String rev2)
+            throws IOException {
+        File ivyFile = new File(workDir, "ivy.xml");
+        FileUtil.copy(new ByteArrayInputStream(("<ivy-module version=\"2.0\">"
+                + "<info organisation=\"test\" module=\"parallel\"/>"
+                + "<configurations><conf name=\"a\"/><conf name=\"b\"/></configurations>"
+                + "<dependencies>"
+                + "<dependency org=\"org1\" name=\"" + mod1 + "\" rev=\"" + rev1
+                + "\" conf=\"a->default\"/>"
+                + "<dependency org=\"org1\" name=\"" + mod2 + "\" rev=\"" + rev2
+                + "\" conf=\"b->default\"/>"
+                + "</dependencies></ivy-module>").getBytes("UTF-8")), ivyFile, null);
+        return ivyFile;
+    }
+
+    public void testCompactNodesResolve() throws Exception {
+        String[] ivyFiles = new String[] {"test/repositories/2/mod7.3/ivy-1.0.xml",
+                "test/repositories/1/org6/mod6.2/ivys/ivy-0.3.xml",
+                "test/repositories/1/org6/mod6.2/ivys/ivy-0.4.xml"};
+        for (int f = 0; f < ivyFiles.length; f++) {
+            ResolveReport regular = ivy.resolve(new File(ivyFiles[f]),
+                getResolveOptions(new String[] {"*"}));
+            assertFalse(regular.hasError());
+            ResolveReport compact = ivy.resolve(new File(ivyFiles[f]),
+                getResolveOptions(new String[] {"*"}).setCompactNodes(true));
+            assertFalse(compact.hasError());
+
+            // only the order of the configurations of the dependencies may differ
+            assertEquals(toIds(regular.getDependencies()), toIds(compact.getDependencies()));
+            String[] confs = regular.getConfigurations();
+            for (int i = 0; i < confs.length; i++) {
+                ConfigurationResolveReport regularConf = regular.getConfigurationReport(confs[i]);
+                ConfigurationResolveReport compactConf = compact.getConfigurationReport(confs[i]);
+                assertEquals(regularConf.getModuleRevisionIds(),
+                    compactConf.getModuleRevisionIds());
+                assertEquals(toIds(Arrays.asList(regularConf.getEvictedNodes())),
+                    toIds(Arrays.asList(compactConf.getEvictedNodes())));
+                // the artifacts are already in the cache for the compact resolve
+                assertEquals(toArtifacts(regularConf.getAllArtifactsReports()),
+                    toArtifacts(compactConf.getAllArtifactsReports()));
+                for (Iterator it = regularConf.getModuleRevisionIds().iterator(); it.hasNext();) {
+                    ModuleRevisionId mrid = (ModuleRevisionId) it.next();
+                    assertEquals(
+                        new HashSet(Arrays.asList(regularConf.getDependency(mrid)
+                                .getConfigurations(confs[i]))),
+                        new HashSet(Arrays.asList(compactConf.getDependency(mrid)
+                                .getConfigurations(confs[i]))));
+                }
+            }
+        }
+    }
+
+    public void testParallelDownload() throws Exception {
+        ResolveReport serial = ivy.resolve(new File("test/repositories/2/mod7.3/ivy-1.0.xml"),
+            getResolveOptions(new String[] {"*"}));
+        assertFalse(serial.hasError());
+
+        CacheCleaner.deleteDir(cache);
+        createCache();
+
+        ivy.getSettings().setVariable("ivy.download.threads", "3");
+        ivy.getSettings().setVariable("ivy.download.threads.per.resolver", "2");
+        ResolveReport parallel = ivy.resolve(new File("test/repositories/2/mod7.3/ivy-1.0.xml"),
+            getResolveOptions(new String[] {"*"}));
+        assertFalse(parallel.hasError());
+
+        assertEquals(serial.getDownloadSize(), parallel.getDownloadSize());
+        String[] confs = serial.getConfigurations();
+        for (int i = 0; i < confs.length; i++) {
+            ArtifactDownloadReport[] serialReports = serial.getConfigurationReport(confs[i])
+                    .getAllArtifactsReports();
+            ArtifactDownloadReport[] parallelReports = parallel.getConfigurationReport(confs[i])
+                    .getAllArtifactsReports();
+            assertEquals(serialReports.length, parallelReports.length);
+            for (int j = 0; j < serialReports.length; j++) {
+                assertEquals(serialReports[j].getArtifact(), parallelReports[j].getArtifact());
+                assertEquals(serialReports[j].getDownloadStatus(),
+                    parallelReports[j].getDownloadStatus());
+                assertEquals(serialReports[j].getLocalFile(), parallelReports[j].getLocalFile());
+            }
+        }
+
+        assertTrue(getArchiveFileInCache("org7", "mod7.1", "2.0", "mod7.1", "jar", "jar").exists());
+        assertTrue(getArchiveFileInCache("org7", "mod7.2", "1.0", "mod7.2", "jar", "jar").exists());
+    }
+
+    public void testResolveSnapshot() throws Exception {
+        final List resolvedDependencies = new ArrayList();
+        ivy.getEventManager().addIvyListener(new IvyListener() {
+            public void progress(IvyEvent event) {
+                resolvedDependencies.add(event);
+            }
+        }, StartResolveDependencyEvent.NAME);
+
+        File ivyFile = new File("test/repositories/2/mod7.3/ivy-1.0.xml");
+        ResolveReport report = ivy.resolve(ivyFile,
+            getResolveOptions(new String[] {"*"}).setUseSnapshot(true));
+        assertFalse(report.hasError());
+        assertFalse(resolvedDependencies.isEmpty());
+
+        // nothing changed: the report is restored without resolving any dependency
+        resolvedDependencies.clear();
+        ResolveReport restored = ivy.resolve(ivyFile,
+            getResolveOptions(new String[] {"*"}).setUseSnapshot(true));
+        assertTrue(resolvedDependencies.isEmpty());
+        assertFalse(restored.hasError());
+        assertEquals(0, restored.getDownloadSize());
+        assertEquals(report.getArtifacts(), restored.getArtifacts());
+        assertEquals(report.getConfigurationReport("default").getModuleRevisionIds(), restored
+                .getConfigurationReport("default").getModuleRevisionIds());
+        ArtifactDownloadReport[] adrs = restored.getConfigurationReport("default")
+                .getAllArtifactsReports();
+        assertEquals(2, adrs.length);
+        for (int i = 0; i < adrs.length; i++) {
+            assertEquals(DownloadStatus.NO, adrs[i].getDownloadStatus());
+            assertEquals(((DefaultRepositoryCacheManager) ivy.getSettings()
+                    .getDefaultRepositoryCacheManager()).getArchiveFileInCache(adrs[i]
+                    .getArtifact()), adrs[i].getLocalFile());
+        }
+
+        // an artifact missing in cache invalidates the snapshot
+        getArchiveFileInCache("org7", "mod7.1", "2.0", "mod7.1", "jar", "jar").delete();
+        restored = ivy.resolve(ivyFile, getResolveOptions(new String[] {"*"})
+                .setUseSnapshot(true));
+        assertFalse(resolvedDependencies.isEmpty());
+        assertTrue(getArchiveFileInCache("org7", "mod7.1", "2.0", "mod7.1", "jar", "jar").exists());
+
+        // so does a resolve with other options
+        resolvedDependencies.clear();
+        ivy.resolve(ivyFile, getResolveOptions(new String[] {"*"}).setUseSnapshot(true)
+                .setTransitive(false));
+        assertFalse(resolvedDependencies.isEmpty());
+
+        // and a resolve without snapshot
+        ivy.resolve(ivyFile, getResolveOptions(new String[] {"*"}));
+        resolvedDependencies.clear();
+        ivy.resolve(ivyFile, getResolveOptions(new String[] {"*"}).setUseSnapshot(true));
+        assertFalse(resolvedDependencies.isEmpty());
+    }
+
+    public void testResolveSnapshotWithChangingDependency() throws Exception {
+        List resolvedDependencies = listenResolvedDependencies(ivy);
+        File ivyFile = new File("test/repositories/2/mod7.3/ivy-1.0.xml");
+
+        // the revisions asked match the changing pattern of the resolver
+        AbstractResolver resolver = (AbstractResolver) ivy.getSettings().getResolver("1");
+        resolver.setChangingPattern(".*");
+        ivy.resolve(ivyFile, getResolveOptions(new String[] {"*"}).setUseSnapshot(true));
+        resolvedDependencies.clear();
+        ivy.resolve(ivyFile, getResolveOptions(new String[] {"*"}).setUseSnapshot(true));
+        assertFalse(resolvedDependencies.isEmpty());
+
+        // the resolver checks the modification of the metadata
+        resolver.setChangingPattern(null);
+        resolver.setCheckmodified(true);
+        resolvedDependencies.clear();
+        ivy.resolve(ivyFile, getResolveOptions(new String[] {"*"}).setUseSnapshot(true));
+        assertFalse(resolvedDependencies.isEmpty());
+
+        // the dependency is declared changing
+        resolver.setCheckmodified(false);
+        ivyFile = new File(workDir, "ivy.xml");
+        write(ivyFile, "<ivy-module version=\"2.0\">"
+                + "<info organisation=\"test\" module=\"changing\"/>"
+                + "<dependencies>"
+                + "<dependency org=\"org1\" name=\"mod1.2\" rev=\"2.0\" changing=\"true\"/>"
+                + "</dependencies></ivy-module>");
+        ivy.resolve(ivyFile, getResolveOptions(new String[] {"*"}).setUseSnapshot(true));
+        resolvedDependencies.clear();
+        ivy.resolve(ivyFile, getResolveOptions(new String[] {"*"}).setUseSnapshot(true));
+        assertFalse(resolvedDependencies.isEmpty());
+    }
+
+    public void testResolveSnapshotWithEditedSettings() throws Exception {
+        File settingsFile = new File(workDir, "ivysettings.xml");
+        File propertiesFile = new File(workDir, "snapshot.properties");
+        File includedFile = new File(workDir, "included.xml");
+        write(settingsFile, "<ivysettings>"
+                + "<properties file=\"${ivy.settings.dir}/snapshot.properties\"/>"
+                + "<include file=\"${ivy.settings.dir}/included.xml\"/>"
+                + "<include file=\""
+                + new File("test/repositories/ivysettings.xml").getAbsolutePath() + "\"/>"
+                + "</ivysettings>");
+        write(propertiesFile, "snapshot.value=1");
+        write(includedFile, "<ivysettings><property name=\"snapshot.included\" value=\"1\"/>"
+                + "</ivysettings>");
+        File ivyFile = new File("test/repositories/2/mod7.3/ivy-1.0.xml");
+
+        Ivy ivy = Ivy.newInstance();
+        ivy.configure(settingsFile);
+        ivy.resolve(ivyFile, getResolveOptions(new String[] {"*"}).setUseSnapshot(true));
+
+        // same settings: the snapshot is used
+        ivy = Ivy.newInstance();
+        ivy.configure(settingsFile);
+        List resolvedDependencies = listenResolvedDependencies(ivy);
+        ivy.resolve(ivyFile, getResolveOptions(new String[] {"*"}).setUseSnapshot(true));
+        assertTrue(resolvedDependencies.isEmpty());
+
+        // edited properties file
+        write(propertiesFile, "snapshot.value=2");
+        ivy = Ivy.newInstance();
+        ivy.configure(settingsFile);
+        resolvedDependencies = listenResolvedDependencies(ivy);
+        ivy.resolve(ivyFile, getResolveOptions(new String[] {"*"}).setUseSnapshot(true));
+        assertFalse(resolvedDependencies.isEmpty());
+
+        // edited included settings file
+        write(includedFile, "<ivysettings><property name=\"snapshot.included\" value=\"2\"/>"
+                + "</ivysettings>");
+        ivy = Ivy.newInstance();
+        ivy.configure(settingsFile);
+        resolvedDependencies = listenResolvedDependencies(ivy);
+        ivy.resolve(ivyFile, getResolveOptions(new String[] {"*"}).setUseSnapshot(true));
+        assertFalse(resolvedDependencies.isEmpty());
+    }
+
+    public void testResolveSnapshotExpired() throws Exception {
+        File ivyFile = new File(workDir, "ivy.xml");
+        write(ivyFile, "<ivy-module version=\"2.0\">"
+                + "<info organisation=\"test\" module=\"dynamic\"/>"
+                + "<dependencies>"
+                + "<dependency org=\"org1\" name=\"mod1.2\" rev=\"latest.integration\"/>"
+                + "</dependencies></ivy-module>");
+        ((DefaultRepositoryCacheManager) ivy.getSettings().getDefaultRepositoryCacheManager())
+                .setDefaultTTL(60000);
+        ResolveReport report = ivy.resolve(ivyFile,
+            getResolveOptions(new String[] {"*"}).setUseSnapshot(true));
+
+        // the snapshot expires with the TTL of the dynamic revision
+        File snapshotFile = ((DefaultResolutionCacheManager) ivy.getSettings()
+                .getResolutionCacheManager()).getResolveSnapshotInCache(report.getResolveId());
+        Properties snapshot = new Properties();
+        FileInputStream in = new FileInputStream(snapshotFile);
+        try {
+            snapshot.load(in);
+        } finally {
+            in.close();
+        }
+        long expiration = Long.parseLong(snapshot.getProperty("expiration"));
+        assertTrue(expiration > System.currentTimeMillis());
+        assertTrue(expiration <= System.currentTimeMillis() + 60000);
+
+        List resolvedDependencies = listenResolvedDependencies(ivy);
+        ivy.resolve(ivyFile, getResolveOptions(new String[] {"*"}).setUseSnapshot(true));
+        assertTrue(resolvedDependencies.isEmpty());
+
+        snapshot.setProperty("expiration", String.valueOf(System.currentTimeMillis() - 1000));
+        FileOutputStream out = new FileOutputStream(snapshotFile);
+        try {
+            snapshot.store(out, null);
+        } finally {
+            out.close();
+        }
+        ivy.resolve(ivyFile, getResolveOptions(new String[] {"*"}).setUseSnapshot(true));
+        assertFalse(resolvedDependencies.isEmpty());
+    }
+
+    private List listenResolvedDependencies(Ivy ivy) {
+        final List resolvedDependencies = new ArrayList();
+        ivy.getEventManager().addIvyListener(new IvyListener() {
+            public void progress(IvyEvent event) {
+                resolvedDependencies.add(event);
+            }
+        }, StartResolveDependencyEvent.NAME);
+        return resolvedDependencies;
+    }
+
+    private void write(File file, String content) throws IOException {
+        FileUtil.copy(new ByteArrayInputStream(content.getBytes("UTF-8")), file, null);
+    }
+
+    private List toArtifacts(ArtifactDownloadReport[] reports) {
+        List artifacts = new ArrayList();
+        for (int i = 0; i < reports.length; i++) {
+            artifacts.add(reports[i].getArtifact());
+        }
+        return artifacts;
+    }
+
+    private List toIds(Collection nodes) {
+        List ids = new ArrayList();
+        for (Iterator iter = nodes.iterator(); iter.hasNext();) {
+            ids.add(((IvyNode) iter.next()).getResolvedId());
+        }
+        return ids;
+    }
+
     public void testTransitiveEvictionWithExtendingConf() throws Exception {
         // IVY-590
         ResolveReport report = ivy.resolve(ResolveTest.class.getResource("ivy-590.xml"),
@@ -5628,4 +6036,28 @@ public class ResolveTest extends TestCase {
         assertEquals(new File(adr.getUnpackedLocalFile(), "META-INF/MANIFEST.MF"),
             jarContents[0].listFiles()[0]);
     }
+
+    /**
+     * A file system resolver recording the thread asking each dependency, and if its descriptor
+     * has been downloaded then.
+     */
+    private static class RecordingResolver extends FileSystemResolver {
+        private List/* <Object[]> */calls = new ArrayList();
+
+        public ResolvedModuleRevision getDependency(DependencyDescriptor dd, ResolveData data)
+                throws ParseException {
+            ResolvedModuleRevision rmr = super.getDependency(dd, data);
+            synchronized (calls) {
+                calls.add(new Object[] {Thread.currentThread(), dd.getDependencyRevisionId(),
+                        Boolean.valueOf(rmr != null && rmr.getReport().isDownloaded())});
+            }
+            return rmr;
+        }
+
+        public List getCalls() {
+            synchronized (calls) {
+                return new ArrayList(calls);
+            }
+        }
+    }
 }
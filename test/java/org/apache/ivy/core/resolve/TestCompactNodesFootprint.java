@@ -0,0 +1,160 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  See the NOTICE file distributed with
+ *  this work for additional information regarding copyright ownership.
+ *  The ASF licenses this file to You under the Apache License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance with
+ *  the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package org.apache.ivy.core.resolve;
+
+import java.io.File;
+import java.util.Date;
+
+import org.apache.ivy.Ivy;
+import org.apache.ivy.core.module.descriptor.Configuration;
+import org.apache.ivy.core.module.descriptor.DefaultArtifact;
+import org.apache.ivy.core.module.descriptor.DefaultDependencyDescriptor;
+import org.apache.ivy.core.module.descriptor.DefaultModuleDescriptor;
+import org.apache.ivy.core.module.id.ModuleRevisionId;
+import org.apache.ivy.core.report.ResolveReport;
+import org.apache.ivy.core.settings.IvySettings;
+import org.apache.ivy.plugins.parser.xml.XmlModuleDescriptorWriter;
+import org.apache.ivy.plugins.resolver.FileSystemResolver;
+import org.apache.ivy.util.DefaultMessageLogger;
+import org.apache.ivy.util.FileUtil;
+import org.apache.ivy.util.Message;
+
+/**
+ * Not a Junit test, memory usage depends on the JVM on which the test is run...
+ * <p>
+ * Resolves a wide graph of modules with many configurations, with and without compact nodes, and
+ * compares the heap retained by the resolve reports, which keep all the nodes of the graph, and the
+ * time needed to resolve.
+ * </p>
+ */
+public class TestCompactNodesFootprint {
+    private static final File BASEDIR = new File("build/test/perf-compact");
+
+    private static final String PATTERN = new File(BASEDIR, "repo").getAbsolutePath()
+            + "/[module]/[artifact]-[revision].[ext]";
+
+    private static final int MODULES = 200;
+
+    private static final int DEPENDENCIES = 3;
+
+    private static final int CONFS = 10;
+
+    private void generateModules() throws Exception {
+        DefaultModuleDescriptor root = newModule("root");
+        for (int i = 0; i < MODULES; i++) {
+            DefaultModuleDescriptor md = newModule("mod" + i);
+            md.addArtifact("c0", new DefaultArtifact(md.getModuleRevisionId(), new Date(), "mod"
+                    + i, "jar", "jar"));
+            // the modules also form a tree, to keep the graph shallow
+            for (int j = 1; j <= DEPENDENCIES && i * DEPENDENCIES + j < MODULES; j++) {
+                addDependency(md, "mod" + (i * DEPENDENCIES + j));
+            }
+            XmlModuleDescriptorWriter.write(md, new File(BASEDIR, "repo/mod" + i + "/ivy-1.0.xml"));
+            FileUtil.copy(new File("test/repositories/1/org1/mod1.1/jars/mod1.1-1.0.jar"),
+                new File(BASEDIR, "repo/mod" + i + "/mod" + i + "-1.0.jar"), null);
+            // the root module depends on all the modules, which makes the graph wide
+            addDependency(root, "mod" + i);
+        }
+        XmlModuleDescriptorWriter.write(root, new File(BASEDIR, "repo/root/ivy-1.0.xml"));
+    }
+
+    private static DefaultModuleDescriptor newModule(String name) {
+        DefaultModuleDescriptor md = new DefaultModuleDescriptor(ModuleRevisionId.newInstance(
+            "apache", name, "1.0"), "integration", new Date());
+        for (int i = 0; i < CONFS; i++) {
+            md.addConfiguration(new Configuration("c" + i, Configuration.Visibility.PUBLIC,
+                    null, i == 0 ? new String[0] : new String[] {"c" + (i - 1)}, true, null));
+        }
+        return md;
+    }
+
+    private static void addDependency(DefaultModuleDescriptor md, String dependency) {
+        DefaultDependencyDescriptor dd = new DefaultDependencyDescriptor(md,
+                ModuleRevisionId.newInstance("apache", dependency, "1.0"), false, false, true);
+        for (int i = 0; i < CONFS; i++) {
+            dd.addDependencyConfiguration("c" + i, "c" + i);
+        }
+        md.addDependency(dd);
+    }
+
+    private Ivy newIvy() {
+        IvySettings settings = new IvySettings();
+        FileSystemResolver resolver = new FileSystemResolver();
+        resolver.setName("def");
+        resolver.setSettings(settings);
+        resolver.addIvyPattern(PATTERN);
+        resolver.addArtifactPattern(PATTERN);
+        settings.addResolver(resolver);
+        settings.setDefaultResolver("def");
+        settings.setDefaultCache(new File(BASEDIR, "cache"));
+        return Ivy.newInstance(settings);
+    }
+
+    private ResolveReport resolve(Ivy ivy, boolean compactNodes) throws Exception {
+        ResolveReport report = ivy.resolve(new File(BASEDIR, "repo/root/ivy-1.0.xml"),
+            new ResolveOptions().setConfs(new String[] {"*"}).setCompactNodes(compactNodes)
+                    .setOutputReport(false));
+        if (report.hasError()) {
+            throw new IllegalStateException("resolve failed: " + report.getAllProblemMessages());
+        }
+        return report;
+    }
+
+    private void measure(Ivy ivy, boolean compactNodes) throws Exception {
+        long start = System.currentTimeMillis();
+        ResolveReport report = resolve(ivy, compactNodes);
+        long time = System.currentTimeMillis() - start;
+        int nodes = report.getDependencies().size();
+        // only the heap released with the report is counted, not the caches filled by the resolve
+        long withReport = usedHeap();
+        report = null;
+        long retained = withReport - usedHeap();
+        System.out.println("\t" + (compactNodes ? "compact nodes: " : "regular nodes: ")
+                + (retained / 1024) + " KB retained by " + nodes + " nodes, resolved in " + time
+                + " ms");
+    }
+
+    private static long usedHeap() {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        Runtime runtime = Runtime.getRuntime();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    public void testFootprint() throws Exception {
+        Message.setDefaultLogger(new DefaultMessageLogger(Message.MSG_WARN));
+        generateModules();
+        Ivy ivy = newIvy();
+        // fills the cache and warms up the JVM
+        resolve(ivy, false);
+        resolve(ivy, true);
+
+        System.out.println("resolve of " + MODULES + " modules with " + CONFS
+                + " configurations:");
+        for (int pass = 0; pass < 2; pass++) {
+            measure(ivy, false);
+            measure(ivy, true);
+        }
+        FileUtil.forceDelete(BASEDIR);
+    }
+
+    public static void main(String[] args) throws Exception {
+        new TestCompactNodesFootprint().testFootprint();
+    }
+}
@@ -17,11 +17,13 @@
  */
 package org.apache.ivy.core.retrieve;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.IOException;
 import java.net.URL;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 
@@ -38,9 +40,11 @@ import org.apache.ivy.core.event.retrieve.StartRetrieveArtifactEvent;
 import org.apache.ivy.core.event.retrieve.StartRetrieveEvent;
 import org.apache.ivy.core.module.descriptor.ModuleDescriptor;
 import org.apache.ivy.core.module.id.ModuleRevisionId;
+import org.apache.ivy.core.report.ArtifactDownloadReport;
 import org.apache.ivy.core.report.ResolveReport;
 import org.apache.ivy.core.resolve.ResolveOptions;
 import org.apache.ivy.util.DefaultMessageLogger;
+import org.apache.ivy.util.FileUtil;
 import org.apache.ivy.util.Message;
 import org.apache.ivy.util.MockMessageLogger;
 import org.apache.tools.ant.Project;
@@ -259,6 +263,173 @@ public class RetrieveTest extends TestCase {
         }
     }
 
+    public void testRetrieveWithTransferStrategy() throws Exception {
+        RetrieveReport report = retrieveWithStrategy(RetrieveOptions.STRATEGY_TRANSFER, 1);
+        assertEquals(2, report.getNbrArtifactsCopied());
+        for (Iterator it = report.getCopiedFiles().iterator(); it.hasNext();) {
+            File file = (File) it.next();
+            assertEquals(RetrieveOptions.STRATEGY_TRANSFER, report.getRetrieveStrategy(file));
+            File archive = ((ArtifactDownloadReport) report.getDownloadReport().get(file))
+                    .getLocalFile();
+            assertEquals(archive.length(), file.length());
+            assertEquals(archive.lastModified(), file.lastModified());
+        }
+    }
+
+    public void testRetrieveWithHardlinkStrategy() throws Exception {
+        RetrieveReport report = retrieveWithStrategy(RetrieveOptions.STRATEGY_HARDLINK, 1);
+        assertEquals(2, report.getNbrArtifactsCopied());
+        for (Iterator it = report.getCopiedFiles().iterator(); it.hasNext();) {
+            File file = (File) it.next();
+            assertTrue(file.exists());
+            // the cache and the retrieve directory are on the same file system, unless the
+            // links aren't supported at all, in which case the files are copied
+            assertTrue(Arrays.asList(
+                new String[] {RetrieveOptions.STRATEGY_HARDLINK, RetrieveOptions.STRATEGY_TRANSFER})
+                    .contains(report.getRetrieveStrategy(file)));
+        }
+
+        // copying over the links must not modify the files of the cache
+        File file = (File) report.getCopiedFiles().iterator().next();
+        File archive = ((ArtifactDownloadReport) report.getDownloadReport().get(file))
+                .getLocalFile();
+        long length = archive.length();
+        ivy.retrieve(
+            ModuleRevisionId.newInstance("org20", "mod20.1", "1.2"),
+            getRetrieveOptions()
+                    .setDestArtifactPattern(
+                        "build/test/retrieve/[module]/[conf]/[artifact]-[revision].[ext]")
+                    .setConfs(new String[] {"A"}).setOverwriteMode("always"));
+        FileUtil.copy(new ByteArrayInputStream(new byte[0]), file, null);
+        assertEquals(0, file.length());
+        assertEquals(length, archive.length());
+    }
+
+    public void testRetrieveWithReflinkStrategy() throws Exception {
+        RetrieveReport report = retrieveWithStrategy(RetrieveOptions.STRATEGY_REFLINK, 1);
+        assertEquals(2, report.getNbrArtifactsCopied());
+        for (Iterator it = report.getCopiedFiles().iterator(); it.hasNext();) {
+            File file = (File) it.next();
+            assertTrue(file.exists());
+            // most file systems don't support copy-on-write clones
+            assertTrue(Arrays.asList(
+                new String[] {RetrieveOptions.STRATEGY_REFLINK, RetrieveOptions.STRATEGY_TRANSFER})
+                    .contains(report.getRetrieveStrategy(file)));
+        }
+    }
+
+    public void testRetrieveConcurrently() throws Exception {
+        final List events = new ArrayList();
+        ivy.getEventManager().addIvyListener(new IvyListener() {
+            public void progress(IvyEvent event) {
+                events.add(event);
+            }
+        });
+        RetrieveReport report = retrieveWithStrategy(RetrieveOptions.STRATEGY_COPY, 4);
+        assertEquals(2, report.getNbrArtifactsCopied());
+        for (Iterator it = report.getCopiedFiles().iterator(); it.hasNext();) {
+            File file = (File) it.next();
+            assertTrue(file.exists());
+            assertEquals(RetrieveOptions.STRATEGY_COPY, report.getRetrieveStrategy(file));
+        }
+
+        // the events are fired as when retrieving the files one after the other
+        List retrieveEvents = new ArrayList();
+        for (Iterator it = events.iterator(); it.hasNext();) {
+            Object event = it.next();
+            if (event instanceof StartRetrieveArtifactEvent
+                    || event instanceof EndRetrieveArtifactEvent) {
+                retrieveEvents.add(event);
+            }
+        }
+        assertEquals(4, retrieveEvents.size());
+        for (int i = 0; i < retrieveEvents.size(); i += 2) {
+            assertTrue(retrieveEvents.get(i) instanceof StartRetrieveArtifactEvent);
+            assertTrue(retrieveEvents.get(i + 1) instanceof EndRetrieveArtifactEvent);
+            assertEquals(((StartRetrieveArtifactEvent) retrieveEvents.get(i)).getDestFile(),
+                ((EndRetrieveArtifactEvent) retrieveEvents.get(i + 1)).getDestFile());
+        }
+    }
+
+    public void testRetrieveWithManifest() throws Exception {
+        ResolveReport resolveReport = ivy.resolve(new File(
+                "test/repositories/1/org20/mod20.1/ivys/ivy-1.2.xml").toURI().toURL(),
+            getResolveOptions(new String[] {"*"}));
+        ModuleRevisionId mrid = resolveReport.getModuleDescriptor().getModuleRevisionId();
+        RetrieveOptions options = getRetrieveOptions()
+                .setDestArtifactPattern(
+                    "build/test/retrieve/[module]/[conf]/[artifact]-[revision].[ext]")
+                .setConfs(new String[] {"A"}).setUseManifest(true);
+
+        RetrieveReport report = ivy.retrieve(mrid, options);
+        assertEquals(2, report.getNbrArtifactsCopied());
+
+        report = ivy.retrieve(mrid, options);
+        assertEquals(0, report.getNbrArtifactsCopied());
+        assertEquals(2, report.getNbrArtifactsUpToDate());
+
+        // a retrieved file which has been modified is compared with its source as without
+        // manifest
+        File file = (File) report.getUpToDateFiles().iterator().next();
+        file.setLastModified(file.lastModified() - 10000);
+        report = ivy.retrieve(mrid, options);
+        assertEquals(1, report.getNbrArtifactsCopied());
+        assertEquals(file, report.getCopiedFiles().iterator().next());
+
+        // so is a file whose source has been modified: the newer mode keeps a newer file
+        File archive = ((ArtifactDownloadReport) report.getDownloadReport().get(file))
+                .getLocalFile();
+        archive.setLastModified(archive.lastModified() - 10000);
+        report = ivy.retrieve(mrid, options);
+        assertEquals(0, report.getNbrArtifactsCopied());
+        assertEquals(2, report.getNbrArtifactsUpToDate());
+
+        // while the different mode retrieves it again
+        report = ivy.retrieve(mrid,
+            options.setOverwriteMode(RetrieveOptions.OVERWRITEMODE_DIFFERENT));
+        assertEquals(1, report.getNbrArtifactsCopied());
+        assertEquals(archive.lastModified(), file.lastModified());
+    }
+
+    public void testRetrieveSyncWithManifest() throws Exception {
+        ResolveReport resolveReport = ivy.resolve(new File(
+                "test/repositories/1/org20/mod20.1/ivys/ivy-1.2.xml").toURI().toURL(),
+            getResolveOptions(new String[] {"*"}));
+        ModuleRevisionId mrid = resolveReport.getModuleDescriptor().getModuleRevisionId();
+        RetrieveOptions options = getRetrieveOptions()
+                .setDestArtifactPattern(
+                    "build/test/retrieve/[module]/[conf]/[artifact]-[revision].[ext]")
+                .setConfs(new String[] {"A"}).setSync(true).setUseManifest(true);
+
+        RetrieveReport report = ivy.retrieve(mrid, options);
+        assertEquals(2, report.getNbrArtifactsCopied());
+        File other = new File("build/test/retrieve/other.txt");
+        FileUtil.copy(new ByteArrayInputStream(new byte[0]), other, null);
+
+        report = ivy.retrieve(mrid, options.setConfs(new String[] {"B"}));
+        assertEquals(2, report.getNbrArtifactsCopied());
+        for (Iterator it = report.getCopiedFiles().iterator(); it.hasNext();) {
+            assertTrue(((File) it.next()).exists());
+        }
+        // the files of A are stale, but the files not retrieved by Ivy are kept
+        assertFalse(new File("build/test/retrieve/mod20.1/A").exists());
+        assertTrue(other.exists());
+    }
+
+    private RetrieveReport retrieveWithStrategy(String strategy, int threads) throws Exception {
+        ResolveReport report = ivy.resolve(new File(
+                "test/repositories/1/org20/mod20.1/ivys/ivy-1.2.xml").toURI().toURL(),
+            getResolveOptions(new String[] {"*"}));
+        assertFalse(report.hasError());
+
+        return ivy.retrieve(
+            report.getModuleDescriptor().getModuleRevisionId(),
+            getRetrieveOptions()
+                    .setDestArtifactPattern(
+                        "build/test/retrieve/[module]/[conf]/[artifact]-[revision].[ext]")
+                    .setConfs(new String[] {"A"}).setStrategy(strategy).setThreads(threads));
+    }
+
     public void testRetrieveWithVariable() throws Exception {
         // mod1.1 depends on mod1.2
         ivy.setVariable("retrieve.dir", "retrieve");
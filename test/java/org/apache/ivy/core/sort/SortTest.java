@@ -20,6 +20,7 @@ package org.apache.ivy.core.sort;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Date;
 import java.util.Iterator;
 import java.util.List;
@@ -191,6 +192,53 @@ public class SortTest extends TestCase {
         circularDepReportMock.validate();
     }
 
+    /**
+     * The depth of the dependency graph must not be limited by the stack size.
+     */
+    public void testSortDeepGraph() {
+        final int size = 50000;
+        List toSort = new ArrayList();
+        for (int i = 0; i < size; i++) {
+            DefaultModuleDescriptor md = createModuleDescriptorToSort("m" + i, "1");
+            if (i > 0) {
+                addDependency(md, "m" + (i - 1), "1");
+            }
+            toSort.add(md);
+        }
+        // the first module depends on the last one, making a single loop of all the modules
+        final DefaultModuleDescriptor first = (DefaultModuleDescriptor) toSort.get(0);
+        addDependency(first, "m" + (size - 1), "1");
+        Collections.reverse(toSort);
+
+        final List loops = new ArrayList();
+        settings.setCircularDependencyStrategy(new CircularDependencyStrategy() {
+            public String getName() {
+                return "test";
+            }
+
+            public void handleCircularDependency(ModuleRevisionId[] mrids) {
+                loops.add(mrids);
+            }
+        });
+        List sorted = sortModuleDescriptors(toSort, nonMatchReporter);
+        assertEquals(size, sorted.size());
+        assertEquals(1, loops.size());
+        ModuleRevisionId[] loop = (ModuleRevisionId[]) loops.get(0);
+        assertEquals(size + 1, loop.length);
+        assertEquals(loop[0], loop[size]);
+
+        // without the loop, the modules are sorted from the first to the last one
+        DefaultModuleDescriptor noLoop = createModuleDescriptorToSort("m0", "1");
+        toSort.set(size - 1, noLoop);
+        sorted = sortModuleDescriptors(toSort, nonMatchReporter);
+        assertEquals(size, sorted.size());
+        for (int i = 0; i < size; i++) {
+            assertEquals("m" + i, ((ModuleDescriptor) sorted.get(i)).getModuleRevisionId()
+                    .getName());
+        }
+        assertEquals(1, loops.size());
+    }
+
     /**
      * The dependency can ask for the latest integration. It should match whatever the version
      * declared in the modules to order.
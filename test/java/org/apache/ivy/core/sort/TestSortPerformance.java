@@ -0,0 +1,125 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  See the NOTICE file distributed with
+ *  this work for additional information regarding copyright ownership.
+ *  The ASF licenses this file to You under the Apache License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance with
+ *  the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package org.apache.ivy.core.sort;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.apache.ivy.core.module.descriptor.DefaultDependencyDescriptor;
+import org.apache.ivy.core.module.descriptor.DefaultModuleDescriptor;
+import org.apache.ivy.core.module.descriptor.ModuleDescriptor;
+import org.apache.ivy.core.module.id.ModuleRevisionId;
+import org.apache.ivy.plugins.circular.IgnoreCircularDependencyStrategy;
+import org.apache.ivy.plugins.version.ExactVersionMatcher;
+
+/**
+ * Not a Junit test, performance depends on the machine on which the test is run...
+ * <p>
+ * Sorts synthetic graphs of modules: a wide graph with random dependencies and a few loops, and a
+ * single chain of dependencies, deep enough to exhaust the stack of a recursive sort.
+ * </p>
+ */
+public class TestSortPerformance {
+    private static final int MODULES = 20000;
+
+    private static final int DEPENDENCIES = 10;
+
+    private static final int LOOPS = 20;
+
+    private static final int PASSES = 10;
+
+    private final SortEngine sortEngine;
+
+    private final SortOptions options;
+
+    public TestSortPerformance() {
+        SimpleSortEngineSettings settings = new SimpleSortEngineSettings();
+        settings.setCircularDependencyStrategy(IgnoreCircularDependencyStrategy.getInstance());
+        settings.setVersionMatcher(new ExactVersionMatcher());
+        sortEngine = new SortEngine(settings);
+        options = new SortOptions();
+        options.setNonMatchingVersionReporter(new SilentNonMatchingVersionReporter());
+    }
+
+    private static List<ModuleDescriptor> generateWideGraph() {
+        Random random = new Random(42);
+        List<ModuleDescriptor> modules = new ArrayList<ModuleDescriptor>();
+        for (int i = 0; i < MODULES; i++) {
+            DefaultModuleDescriptor md = newModule(i);
+            // dependencies on modules with a lower index can't make loops...
+            for (int j = 0; i > 0 && j < DEPENDENCIES; j++) {
+                addDependency(md, random.nextInt(i));
+            }
+            modules.add(md);
+        }
+        // ... except these ones
+        for (int i = 0; i < LOOPS; i++) {
+            addDependency((DefaultModuleDescriptor) modules.get(random.nextInt(MODULES)),
+                random.nextInt(MODULES));
+        }
+        Collections.shuffle(modules, random);
+        return modules;
+    }
+
+    private static List<ModuleDescriptor> generateChain() {
+        List<ModuleDescriptor> modules = new ArrayList<ModuleDescriptor>();
+        for (int i = 0; i < MODULES; i++) {
+            DefaultModuleDescriptor md = newModule(i);
+            if (i > 0) {
+                addDependency(md, i - 1);
+            }
+            modules.add(md);
+        }
+        Collections.reverse(modules);
+        return modules;
+    }
+
+    private static DefaultModuleDescriptor newModule(int i) {
+        return DefaultModuleDescriptor.newBasicInstance(
+            ModuleRevisionId.newInstance("org", "mod" + i, "1.0"), null);
+    }
+
+    private static void addDependency(DefaultModuleDescriptor md, int dependency) {
+        md.addDependency(new DefaultDependencyDescriptor(md, ModuleRevisionId.newInstance("org",
+            "mod" + dependency, "1.0"), false, false, true));
+    }
+
+    private long sort(List<ModuleDescriptor> modules) {
+        long start = System.currentTimeMillis();
+        for (int i = 0; i < PASSES; i++) {
+            sortEngine.sortModuleDescriptors(modules, options);
+        }
+        return (System.currentTimeMillis() - start) / PASSES;
+    }
+
+    public static void main(String[] args) {
+        TestSortPerformance t = new TestSortPerformance();
+        List<ModuleDescriptor> wide = generateWideGraph();
+        List<ModuleDescriptor> chain = generateChain();
+        // warm up
+        t.sort(wide);
+        t.sort(chain);
+
+        System.out.println("sorting " + MODULES + " modules:");
+        System.out.println("\twith " + DEPENDENCIES + " random dependencies each: " + t.sort(wide)
+                + " ms");
+        System.out.println("\tin a single chain: " + t.sort(chain) + " ms");
+    }
+}
@@ -22,6 +22,8 @@ import java.util.Arrays;
 import java.util.Collections;
 import java.util.Date;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 
 import junit.framework.TestCase;
 
@@ -85,6 +87,108 @@ public class LatestRevisionStrategyTest extends TestCase {
         assertEquals(Arrays.asList(revs), shuffled);
     }
 
+    public void testComparatorMatchesRegexpAlgorithm() {
+        String[] revs = new String[] {"", ".", "1", "01", "1.0", "1.0.0", "1.0-SNAPSHOT",
+                "1.0-dev", "1.0rc1", "1.0RC1", "1.0-final", "1.0+1", "1.0_2", "1a1", "a1b2",
+                "1.0.", ".1", "1..0", "1-", "1.0-beta-1", "1.0-Beta2", "2.0-pre", "2.0-QA",
+                "3.0.0.GA", "20170101", "1.2.3-alpha.1+build.5", "1.0.99999999999999999999",
+                "1.0.100000000000000000000", "abc", "ABC", "1.0-xyz"};
+
+        LatestRevisionStrategy latestRevisionStrategy = new LatestRevisionStrategy();
+        LatestRevisionStrategy.SpecialMeaning specialMeaning = new LatestRevisionStrategy.SpecialMeaning();
+        specialMeaning.setName("QA");
+        specialMeaning.setValue(new Integer(4));
+        latestRevisionStrategy.addConfiguredSpecialMeaning(specialMeaning);
+        Map specialMeanings = latestRevisionStrategy.getSpecialMeanings();
+        for (int i = 0; i < revs.length; i++) {
+            for (int j = 0; j < revs.length; j++) {
+                if (isTooLargeForLong(revs[i]) || isTooLargeForLong(revs[j])) {
+                    // the regexp algorithm fails on numbers not fitting in a long
+                    continue;
+                }
+                int expected = Integer.signum(regexpCompare(revs[i], revs[j], specialMeanings));
+                int actual = Integer.signum(latestRevisionStrategy.parse(revs[i]).compareTo(
+                    latestRevisionStrategy.parse(revs[j])));
+                assertEquals("comparing '" + revs[i] + "' to '" + revs[j] + "'", expected, actual);
+            }
+        }
+    }
+
+    public void testComparatorLargeNumbers() {
+        LatestRevisionStrategy latestRevisionStrategy = new LatestRevisionStrategy();
+        assertTrue(latestRevisionStrategy.parse("1.99999999999999999999").compareTo(
+            latestRevisionStrategy.parse("1.100000000000000000000")) < 0);
+        assertTrue(latestRevisionStrategy.parse("1.100000000000000000000").compareTo(
+            latestRevisionStrategy.parse("1.0099999999999999999999")) > 0);
+        assertEquals(0, latestRevisionStrategy.parse("1.100000000000000000000").compareTo(
+            latestRevisionStrategy.parse("1.0100000000000000000000")));
+    }
+
+    public void testSpecialMeaningAddedAfterComparison() {
+        LatestRevisionStrategy latestRevisionStrategy = new LatestRevisionStrategy();
+        assertTrue(latestRevisionStrategy.parse("1.0-QA").compareTo(
+            latestRevisionStrategy.parse("1.0-final")) < 0);
+        LatestRevisionStrategy.SpecialMeaning specialMeaning = new LatestRevisionStrategy.SpecialMeaning();
+        specialMeaning.setName("QA");
+        specialMeaning.setValue(new Integer(4));
+        latestRevisionStrategy.addConfiguredSpecialMeaning(specialMeaning);
+        assertTrue(latestRevisionStrategy.parse("1.0-QA").compareTo(
+            latestRevisionStrategy.parse("1.0-final")) > 0);
+    }
+
+    private static boolean isTooLargeForLong(String rev) {
+        return rev.matches(".*\\d{19,}.*");
+    }
+
+    /**
+     * The revision comparison algorithm as it was implemented with regular expressions, used as
+     * reference.
+     */
+    private static int regexpCompare(String rev1, String rev2, Map specialMeanings) {
+        rev1 = rev1.replaceAll("([a-zA-Z])(\\d)", "$1.$2");
+        rev1 = rev1.replaceAll("(\\d)([a-zA-Z])", "$1.$2");
+        rev2 = rev2.replaceAll("([a-zA-Z])(\\d)", "$1.$2");
+        rev2 = rev2.replaceAll("(\\d)([a-zA-Z])", "$1.$2");
+
+        String[] parts1 = rev1.split("[\\._\\-\\+]");
+        String[] parts2 = rev2.split("[\\._\\-\\+]");
+
+        int i = 0;
+        for (; i < parts1.length && i < parts2.length; i++) {
+            if (parts1[i].equals(parts2[i])) {
+                continue;
+            }
+            boolean is1Number = parts1[i].matches("\\d+");
+            boolean is2Number = parts2[i].matches("\\d+");
+            if (is1Number && !is2Number) {
+                return 1;
+            }
+            if (is2Number && !is1Number) {
+                return -1;
+            }
+            if (is1Number && is2Number) {
+                return Long.valueOf(parts1[i]).compareTo(Long.valueOf(parts2[i]));
+            }
+            Integer sm1 = (Integer) specialMeanings.get(parts1[i].toLowerCase(Locale.US));
+            Integer sm2 = (Integer) specialMeanings.get(parts2[i].toLowerCase(Locale.US));
+            if (sm1 != null) {
+                sm2 = sm2 == null ? new Integer(0) : sm2;
+                return sm1.compareTo(sm2);
+            }
+            if (sm2 != null) {
+                return new Integer(0).compareTo(sm2);
+            }
+            return parts1[i].compareTo(parts2[i]);
+        }
+        if (i < parts1.length) {
+            return parts1[i].matches("\\d+") ? 1 : -1;
+        }
+        if (i < parts2.length) {
+            return parts2[i].matches("\\d+") ? -1 : 1;
+        }
+        return 0;
+    }
+
     private static class MockArtifactInfo implements ArtifactInfo {
 
         private long _lastModified;
@@ -0,0 +1,137 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  See the NOTICE file distributed with
+ *  this work for additional information regarding copyright ownership.
+ *  The ASF licenses this file to You under the Apache License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance with
+ *  the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package org.apache.ivy.plugins.lock;
+
+import java.io.File;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import junit.framework.TestCase;
+
+import org.apache.ivy.util.FileUtil;
+
+public class BlockingFileLockStrategyTest extends TestCase {
+    private static final File CACHE = new File("build/test/cache");
+
+    protected void setUp() throws Exception {
+        FileUtil.forceDelete(CACHE);
+    }
+
+    protected void tearDown() throws Exception {
+        FileUtil.forceDelete(CACHE);
+    }
+
+    public void testReentrantLock() throws Exception {
+        BlockingFileLockStrategy strategy = new BlockingFileLockStrategy();
+        File file = new File(CACHE, "org/mod/jars/mod.jar");
+        assertTrue(strategy.lockArtifact(null, file));
+        assertTrue(strategy.lockArtifact(null, file));
+        strategy.unlockArtifact(null, file);
+        strategy.unlockArtifact(null, file);
+        assertTrue(strategy.lockArtifact(null, file));
+        strategy.unlockArtifact(null, file);
+
+        assertEquals(3, strategy.getAcquiredLocks());
+        assertEquals(0, strategy.getContendedLocks());
+        assertTrue(new File(CACHE, "org/mod/jars/mod.jar.lck").exists());
+    }
+
+    public void testUnlockNotHeld() throws Exception {
+        BlockingFileLockStrategy strategy = new BlockingFileLockStrategy();
+        try {
+            strategy.unlockArtifact(null, new File(CACHE, "mod.jar"));
+            fail("releasing a lock which isn't held should fail");
+        } catch (IllegalStateException e) {
+            // expected
+        }
+    }
+
+    public void testTimeout() throws Exception {
+        final BlockingFileLockStrategy strategy = new BlockingFileLockStrategy();
+        strategy.setTimeout(100);
+        final File file = new File(CACHE, "mod.jar");
+        assertTrue(strategy.lockArtifact(null, file));
+        final boolean[] locked = new boolean[] {true};
+        Thread t = new Thread() {
+            public void run() {
+                try {
+                    locked[0] = strategy.lockArtifact(null, file);
+                } catch (InterruptedException e) {
+                    // the thread is not interrupted
+                }
+            }
+        };
+        t.start();
+        t.join(10000);
+        strategy.unlockArtifact(null, file);
+
+        assertFalse(locked[0]);
+        assertEquals(1, strategy.getAcquiredLocks());
+        assertEquals(1, strategy.getContendedLocks());
+        assertTrue(strategy.getWaitTime() >= 90);
+    }
+
+    public void testConcurrentLocks() throws Exception {
+        final BlockingFileLockStrategy strategy = new BlockingFileLockStrategy();
+        final File[] files = new File[] {new File(CACHE, "mod1.jar"), new File(CACHE, "mod2.jar")};
+        final int[] holders = new int[files.length];
+        final AtomicInteger errors = new AtomicInteger();
+        final int loops = 50;
+        Thread[] threads = new Thread[8];
+        for (int i = 0; i < threads.length; i++) {
+            final File file = files[i % files.length];
+            final int index = i % files.length;
+            threads[i] = new Thread() {
+                public void run() {
+                    for (int j = 0; j < loops; j++) {
+                        try {
+                            if (!strategy.lockArtifact(null, file)) {
+                                errors.incrementAndGet();
+                                continue;
+                            }
+                        } catch (InterruptedException e) {
+                            errors.incrementAndGet();
+                            return;
+                        }
+                        try {
+                            synchronized (holders) {
+                                if (holders[index]++ != 0) {
+                                    errors.incrementAndGet();
+                                }
+                            }
+                            Thread.yield();
+                            synchronized (holders) {
+                                holders[index]--;
+                            }
+                        } finally {
+                            strategy.unlockArtifact(null, file);
+                        }
+                    }
+                }
+            };
+        }
+        for (int i = 0; i < threads.length; i++) {
+            threads[i].start();
+        }
+        for (int i = 0; i < threads.length; i++) {
+            threads[i].join(60000);
+        }
+
+        assertEquals(0, errors.get());
+        assertEquals(threads.length * loops, strategy.getAcquiredLocks());
+    }
+}
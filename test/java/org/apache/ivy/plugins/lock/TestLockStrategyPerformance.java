@@ -0,0 +1,116 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  See the NOTICE file distributed with
+ *  this work for additional information regarding copyright ownership.
+ *  The ASF licenses this file to You under the Apache License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance with
+ *  the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package org.apache.ivy.plugins.lock;
+
+import java.io.File;
+import java.util.Random;
+
+import org.apache.ivy.util.FileUtil;
+
+/**
+ * Not a Junit test, performance depends on the machine on which the test is run...
+ * <p>
+ * Makes several threads lock and unlock artifacts of a shared cache directory, with each of the
+ * artifact lock strategies, and reports the number of locks acquired per second.
+ * </p>
+ */
+public class TestLockStrategyPerformance {
+    private static final File CACHE = new File("build/test/perf-lock");
+
+    private static final int THREADS = 16;
+
+    private static final int ARTIFACTS = 32;
+
+    private static final int LOCKS_PER_THREAD = 500;
+
+    private final File[] artifacts = new File[ARTIFACTS];
+
+    public TestLockStrategyPerformance() {
+        for (int i = 0; i < artifacts.length; i++) {
+            artifacts[i] = new File(CACHE, "org/mod" + i + "/jars/mod" + i + ".jar");
+        }
+    }
+
+    private long run(final LockStrategy strategy) throws Exception {
+        FileUtil.forceDelete(CACHE);
+        Thread[] threads = new Thread[THREADS];
+        final Exception[] failure = new Exception[1];
+        for (int i = 0; i < threads.length; i++) {
+            final Random random = new Random(i);
+            threads[i] = new Thread() {
+                public void run() {
+                    try {
+                        for (int j = 0; j < LOCKS_PER_THREAD; j++) {
+                            File artifact = artifacts[random.nextInt(artifacts.length)];
+                            if (!strategy.lockArtifact(null, artifact)) {
+                                throw new IllegalStateException("lock timeout on " + artifact);
+                            }
+                            try {
+                                // simulates a check of the cache
+                                artifact.exists();
+                            } finally {
+                                strategy.unlockArtifact(null, artifact);
+                            }
+                        }
+                    } catch (Exception e) {
+                        failure[0] = e;
+                    }
+                }
+            };
+        }
+        long start = System.currentTimeMillis();
+        for (int i = 0; i < threads.length; i++) {
+            threads[i].start();
+        }
+        for (int i = 0; i < threads.length; i++) {
+            threads[i].join();
+        }
+        long time = Math.max(1, System.currentTimeMillis() - start);
+        if (failure[0] != null) {
+            throw failure[0];
+        }
+        return THREADS * LOCKS_PER_THREAD * 1000L / time;
+    }
+
+    private static LockStrategy[] newStrategies() {
+        return new LockStrategy[] {new CreateFileLockStrategy(false),
+                new NIOFileLockStrategy(false), new BlockingFileLockStrategy(false)};
+    }
+
+    public static void main(String[] args) throws Exception {
+        TestLockStrategyPerformance t = new TestLockStrategyPerformance();
+        // warm up
+        LockStrategy[] strategies = newStrategies();
+        for (int i = 0; i < strategies.length; i++) {
+            t.run(strategies[i]);
+        }
+
+        strategies = newStrategies();
+
+        System.out.println(THREADS + " threads locking " + ARTIFACTS + " artifacts:");
+        for (int i = 0; i < strategies.length; i++) {
+            System.out.println("\t" + strategies[i].getName() + ": " + t.run(strategies[i])
+                    + " locks/s");
+        }
+        BlockingFileLockStrategy blocking = (BlockingFileLockStrategy) strategies[2];
+        System.out.println("\t" + blocking.getName() + " contention: "
+                + blocking.getContendedLocks() + " of " + blocking.getAcquiredLocks()
+                + " locks waited " + blocking.getWaitTime() + " ms");
+        FileUtil.forceDelete(CACHE);
+    }
+}
@@ -50,4 +50,36 @@ public class RegexpPatternMatcherTest extends AbstractPatternMatcherTest {
 
         }
     }
+
+    public void testMatcherCache() {
+        RegexpPatternMatcher matcher = new RegexpPatternMatcher();
+        Matcher m = matcher.getMatcher("a.*");
+        assertSame(m, matcher.getMatcher("a.*"));
+        assertEquals(1, matcher.getCacheMisses());
+        assertEquals(1, matcher.getCacheHits());
+        assertEquals(1, matcher.getCacheSize());
+
+        // the any expression doesn't go through the cache
+        matcher.getMatcher("*");
+        assertEquals(1, matcher.getCacheSize());
+
+        matcher.clearCache();
+        assertEquals(0, matcher.getCacheSize());
+        assertEquals(0, matcher.getCacheHits());
+        assertNotSame(m, matcher.getMatcher("a.*"));
+    }
+
+    public void testMatcherCacheIsBounded() {
+        AbstractPatternMatcher matcher = new AbstractPatternMatcher("test", 8) {
+            protected Matcher newMatcher(String expression) {
+                return RegexpPatternMatcher.INSTANCE.newMatcher(expression);
+            }
+        };
+        for (int i = 0; i < 100; i++) {
+            assertTrue(matcher.getMatcher("a" + i + ".*").matches("a" + i + "b"));
+            assertTrue(matcher.getCacheSize() <= 8);
+        }
+        assertEquals(100, matcher.getCacheMisses());
+        assertTrue(matcher.getCacheEvictions() > 0);
+    }
 }
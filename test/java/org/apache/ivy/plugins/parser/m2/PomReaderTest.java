@@ -0,0 +1,139 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  See the NOTICE file distributed with
+ *  this work for additional information regarding copyright ownership.
+ *  The ASF licenses this file to You under the Apache License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance with
+ *  the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package org.apache.ivy.plugins.parser.m2;
+
+import java.io.File;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import junit.framework.TestCase;
+
+import org.apache.ivy.core.module.descriptor.License;
+import org.apache.ivy.plugins.parser.m2.PomReader.PomDependencyData;
+import org.apache.ivy.plugins.repository.url.URLResource;
+import org.xml.sax.SAXException;
+
+public class PomReaderTest extends TestCase {
+
+    /**
+     * Checks that the streaming reader reads the same data as the DOM reader out of all the poms
+     * used by the tests.
+     */
+    public void testStreamingReaderEquivalence() throws Exception {
+        List poms = new ArrayList();
+        findPoms(new File("test"), poms);
+        assertTrue("not enough poms found: " + poms.size(), poms.size() > 50);
+
+        for (Iterator it = poms.iterator(); it.hasNext();) {
+            URL pom = ((File) it.next()).toURI().toURL();
+            assertEquals(pom.toString(), describe(pom, false), describe(pom, true));
+        }
+    }
+
+    public void testStreamingReaderWithEntity() throws Exception {
+        URL pom = getClass().getResource("test-entity.pom");
+        PomReader reader = new PomReader(pom, new URLResource(pom), true);
+        assertEquals("org.apache", reader.getGroupId());
+        assertEquals(describe(pom, false), describe(pom, true));
+    }
+
+    public void testStreamingReaderRejectsOtherDocuments() throws Exception {
+        URL xml = getClass().getResource("test-transitive.xml");
+        try {
+            new PomReader(xml, new URLResource(xml), true);
+            fail("a document which is not a pom should be rejected");
+        } catch (SAXException e) {
+            assertEquals("project must be the root tag", e.getMessage());
+        }
+    }
+
+    private static void findPoms(File dir, List poms) {
+        File[] files = dir.listFiles();
+        for (int i = 0; i < files.length; i++) {
+            if (files[i].isDirectory()) {
+                findPoms(files[i], poms);
+            } else if (files[i].getName().endsWith(".pom")) {
+                poms.add(files[i]);
+            }
+        }
+    }
+
+    /**
+     * Returns everything the given reader reads out of the pom, or the failure if it can't be
+     * read.
+     */
+    private static String describe(URL pom, boolean streaming) throws Exception {
+        PomReader reader;
+        try {
+            reader = new PomReader(pom, new URLResource(pom), streaming);
+        } catch (SAXException e) {
+            return "failure: " + e.getMessage();
+        }
+        StringBuffer sb = new StringBuffer();
+        Map properties = new TreeMap(reader.getPomProperties());
+        for (Iterator it = properties.entrySet().iterator(); it.hasNext();) {
+            Map.Entry prop = (Map.Entry) it.next();
+            reader.setProperty((String) prop.getKey(), (String) prop.getValue());
+        }
+        sb.append("properties=").append(properties).append('\n');
+        sb.append("parent=").append(reader.hasParent()).append(' ')
+                .append(reader.getParentGroupId()).append(':')
+                .append(reader.getParentArtifactId()).append(':')
+                .append(reader.getParentVersion()).append('\n');
+        sb.append("module=").append(reader.getGroupId()).append(':')
+                .append(reader.getArtifactId()).append(':').append(reader.getVersion())
+                .append('\n');
+        sb.append("packaging=").append(reader.getPackaging()).append('\n');
+        sb.append("homepage=").append(reader.getHomePage()).append('\n');
+        sb.append("description=").append(reader.getDescription()).append('\n');
+        License[] licenses = reader.getLicenses();
+        for (int i = 0; i < licenses.length; i++) {
+            sb.append("license=").append(licenses[i].getName()).append(' ')
+                    .append(licenses[i].getUrl()).append('\n');
+        }
+        sb.append("relocation=").append(reader.getRelocation()).append('\n');
+        for (Iterator it = reader.getDependencies().iterator(); it.hasNext();) {
+            PomDependencyData dep = (PomDependencyData) it.next();
+            sb.append("dependency=");
+            describe(dep, sb);
+            sb.append(' ').append(dep.getClassifier()).append(' ').append(dep.getType())
+                    .append(' ').append(dep.isOptional()).append('\n');
+        }
+        for (Iterator it = reader.getDependencyMgt().iterator(); it.hasNext();) {
+            sb.append("dependencyMgt=");
+            describe((PomDependencyMgt) it.next(), sb);
+            sb.append('\n');
+        }
+        for (Iterator it = reader.getPlugins().iterator(); it.hasNext();) {
+            sb.append("plugin=");
+            describe((PomDependencyMgt) it.next(), sb);
+            sb.append('\n');
+        }
+        return sb.toString();
+    }
+
+    private static void describe(PomDependencyMgt dep, StringBuffer sb) {
+        sb.append(dep.getGroupId()).append(':').append(dep.getArtifactId()).append(':')
+                .append(dep.getVersion()).append(' ').append(dep.getScope()).append(' ')
+                .append(dep.getExcludedModules());
+    }
+}
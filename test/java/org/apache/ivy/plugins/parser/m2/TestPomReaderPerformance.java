@@ -0,0 +1,109 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  See the NOTICE file distributed with
+ *  this work for additional information regarding copyright ownership.
+ *  The ASF licenses this file to You under the Apache License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance with
+ *  the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package org.apache.ivy.plugins.parser.m2;
+
+import java.io.File;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.ivy.plugins.repository.url.URLResource;
+
+/**
+ * Not a Junit test, performance depends on the machine on which the test is run...
+ * <p>
+ * Compares the DOM and the streaming pom readers: the time needed to read all the poms used by the
+ * m2 parser tests and extract their data, and the heap retained by readers kept alive, as they are
+ * while a pom and its parents are being parsed.
+ * </p>
+ */
+public class TestPomReaderPerformance {
+    private static final int ITERATIONS = 200;
+
+    private static final int RETAINED_READERS = 500;
+
+    private URL[] poms;
+
+    public TestPomReaderPerformance() throws Exception {
+        File[] files = new File("test/java/org/apache/ivy/plugins/parser/m2").listFiles();
+        List urls = new ArrayList();
+        for (int i = 0; i < files.length; i++) {
+            if (files[i].getName().endsWith(".pom")) {
+                urls.add(files[i].toURI().toURL());
+            }
+        }
+        poms = (URL[]) urls.toArray(new URL[urls.size()]);
+    }
+
+    private PomReader read(URL pom, boolean streaming) throws Exception {
+        PomReader reader = new PomReader(pom, new URLResource(pom), streaming);
+        reader.getGroupId();
+        reader.getVersion();
+        reader.getPomProperties();
+        reader.getLicenses();
+        reader.getDependencies();
+        reader.getDependencyMgt();
+        reader.getPlugins();
+        return reader;
+    }
+
+    private long readAll(boolean streaming) throws Exception {
+        long start = System.currentTimeMillis();
+        for (int i = 0; i < ITERATIONS; i++) {
+            for (int j = 0; j < poms.length; j++) {
+                read(poms[j], streaming);
+            }
+        }
+        return System.currentTimeMillis() - start;
+    }
+
+    private long retainedHeap(boolean streaming) throws Exception {
+        URL pom = new File("test/java/org/apache/ivy/plugins/parser/m2/test-large-pom.pom")
+                .toURI().toURL();
+        long before = usedHeap();
+        PomReader[] readers = new PomReader[RETAINED_READERS];
+        for (int i = 0; i < readers.length; i++) {
+            readers[i] = read(pom, streaming);
+        }
+        long after = usedHeap();
+        readers[0].getGroupId();
+        return (after - before) / readers.length;
+    }
+
+    private static long usedHeap() {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        Runtime runtime = Runtime.getRuntime();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    public static void main(String[] args) throws Exception {
+        TestPomReaderPerformance t = new TestPomReaderPerformance();
+        // warm up
+        t.readAll(false);
+        t.readAll(true);
+
+        System.out.println("reading " + t.poms.length + " poms " + ITERATIONS + " times:");
+        System.out.println("\tDOM reader:       " + t.readAll(false) + " ms");
+        System.out.println("\tstreaming reader: " + t.readAll(true) + " ms");
+        System.out.println("heap retained by a reader of test-large-pom.pom:");
+        System.out.println("\tDOM reader:       " + t.retainedHeap(false) + " bytes");
+        System.out.println("\tstreaming reader: " + t.retainedHeap(true) + " bytes");
+    }
+}
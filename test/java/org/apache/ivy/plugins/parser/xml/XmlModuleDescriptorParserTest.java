@@ -499,6 +499,63 @@ public class XmlModuleDescriptorParserTest extends AbstractModuleDescriptorParse
         assertEquals("56576", md.getExtraInfo().get("e:someExtra"));
     }
 
+    public void testBinaryDescriptor() throws Exception {
+        File dir = new File("build/test/binary-descriptor");
+        try {
+            String[] names = new String[] {"test.xml", "test-extrainfo-nested.xml"};
+            for (int i = 0; i < names.length; i++) {
+                File ivyFile = new File(dir, names[i]);
+                File binaryFile = new File(dir, names[i] + ".bin");
+                FileUtil.copy(getClass().getResource(names[i]), ivyFile, null);
+
+                ModuleDescriptor md = XmlModuleDescriptorParser.getInstance().parseDescriptor(
+                    settings, ivyFile.toURI().toURL(), true);
+                ModuleDescriptor recorded = XmlModuleDescriptorParser.getInstance()
+                        .parseDescriptor(settings, ivyFile, binaryFile, true);
+                assertTrue(binaryFile.exists());
+                ModuleDescriptor replayed = XmlModuleDescriptorParser.getInstance()
+                        .parseDescriptor(settings, ivyFile, binaryFile, true);
+
+                String expected = toIvyFile(md, new File(dir, "expected.xml"));
+                assertEquals(names[i], expected, toIvyFile(recorded, new File(dir, "rec.xml")));
+                assertEquals(names[i], expected, toIvyFile(replayed, new File(dir, "rep.xml")));
+                assertEquals(md.getLastModified(), replayed.getLastModified());
+            }
+        } finally {
+            FileUtil.forceDelete(dir);
+        }
+    }
+
+    public void testBinaryDescriptorIsNotUsedWhenStale() throws Exception {
+        File dir = new File("build/test/binary-descriptor");
+        try {
+            File ivyFile = new File(dir, "ivy.xml");
+            File binaryFile = new File(dir, "ivy.xml.bin");
+            FileUtil.copy(getClass().getResource("test-simple.xml"), ivyFile, null);
+            XmlModuleDescriptorParser.getInstance().parseDescriptor(settings, ivyFile,
+                binaryFile, false);
+            long recorded = binaryFile.lastModified();
+
+            // recorded without validation: recorded again to be validated
+            binaryFile.setLastModified(recorded - 10000);
+            XmlModuleDescriptorParser.getInstance().parseDescriptor(settings, ivyFile,
+                binaryFile, true);
+            assertTrue(binaryFile.lastModified() > recorded - 10000);
+
+            FileUtil.copy(getClass().getResource("test.xml"), ivyFile, null);
+            ModuleDescriptor md = XmlModuleDescriptorParser.getInstance().parseDescriptor(
+                settings, ivyFile, binaryFile, true);
+            assertEquals("mymodule", md.getModuleRevisionId().getName());
+        } finally {
+            FileUtil.forceDelete(dir);
+        }
+    }
+
+    private static String toIvyFile(ModuleDescriptor md, File file) throws Exception {
+        XmlModuleDescriptorWriter.write(md, file);
+        return FileUtil.readEntirely(file);
+    }
+
     public void testExtraInfos() throws Exception {
         ModuleDescriptor md = XmlModuleDescriptorParser.getInstance().parseDescriptor(settings,
             getClass().getResource("test-extrainfo.xml"), true);
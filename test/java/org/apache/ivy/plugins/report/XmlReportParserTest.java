@@ -17,14 +17,20 @@
  */
 package org.apache.ivy.plugins.report;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
+import java.util.Arrays;
 
 import junit.framework.TestCase;
 
 import org.apache.ivy.Ivy;
+import org.apache.ivy.core.cache.DefaultResolutionCacheManager;
 import org.apache.ivy.core.module.id.ModuleRevisionId;
+import org.apache.ivy.core.report.ArtifactDownloadReport;
+import org.apache.ivy.core.report.MetadataArtifactDownloadReport;
 import org.apache.ivy.core.report.ResolveReport;
 import org.apache.ivy.core.resolve.ResolveOptions;
+import org.apache.ivy.util.FileUtil;
 import org.apache.tools.ant.Project;
 import org.apache.tools.ant.taskdefs.Delete;
 
@@ -70,6 +76,82 @@ public class XmlReportParserTest extends TestCase {
         ModuleRevisionId parsedModRevId = parser.getResolvedModule();
 
         assertEquals("Resolved module doesn't equals parsed module", modRevId, parsedModRevId);
+
+        // binary reports are only written when their outputter is added to the settings
+        assertFalse(((DefaultResolutionCacheManager) _ivy.getResolutionCacheManager())
+                .getConfigurationResolveBinaryReportInCache("testGetResolvedModule", "default")
+                .exists());
+    }
+
+    public void testBinaryReport() throws Exception {
+        _ivy.getSettings().addReportOutputter(new BinaryReportOutputter());
+        ResolveReport report = _ivy.resolve(new File(
+                "test/repositories/1/org6/mod6.2/ivys/ivy-0.4.xml"),
+            getResolveOptions(new String[] {"default", "extension"}).setResolveId(
+                "testBinaryReport"));
+        assertFalse(report.hasError());
+
+        DefaultResolutionCacheManager cacheMgr = (DefaultResolutionCacheManager) _ivy
+                .getResolutionCacheManager();
+        // a binary report isn't used with another xml report than the one it was written with
+        File otherReport = cacheMgr.getConfigurationResolveReportInCache("testBinaryReport",
+            "extension");
+        XmlReportParser parser = new XmlReportParser();
+        parser.parse(otherReport);
+        String expected = describe(parser);
+        parser = new XmlReportParser();
+        parser.parse(otherReport, cacheMgr.getConfigurationResolveBinaryReportInCache(
+            "testBinaryReport", "default"));
+        assertEquals(expected, describe(parser));
+
+        String[] confs = new String[] {"default", "extension"};
+        for (int i = 0; i < confs.length; i++) {
+            File xmlReport = cacheMgr.getConfigurationResolveReportInCache("testBinaryReport",
+                confs[i]);
+            File binaryReport = cacheMgr.getConfigurationResolveBinaryReportInCache(
+                "testBinaryReport", confs[i]);
+            assertTrue(binaryReport.exists());
+
+            parser = new XmlReportParser();
+            parser.parse(xmlReport);
+            expected = describe(parser);
+            // the binary report must be read instead of the xml one, made invalid but keeping its
+            // length and date, and give the same results
+            long lastModified = xmlReport.lastModified();
+            FileUtil.copy(new ByteArrayInputStream(new byte[(int) xmlReport.length()]),
+                xmlReport, null);
+            assertTrue(xmlReport.setLastModified(lastModified));
+            parser = new XmlReportParser();
+            parser.parse(xmlReport, binaryReport);
+            assertEquals(expected, describe(parser));
+        }
+    }
+
+    private static String describe(XmlReportParser parser) {
+        StringBuffer sb = new StringBuffer();
+        sb.append("module=").append(parser.getResolvedModule()).append('\n');
+        sb.append("error=").append(parser.hasError()).append('\n');
+        sb.append("dependencies=").append(Arrays.asList(parser.getDependencyRevisionIds()))
+                .append('\n');
+        ModuleRevisionId[] realMrids = parser.getRealDependencyRevisionIds();
+        for (int i = 0; i < realMrids.length; i++) {
+            MetadataArtifactDownloadReport madr = parser.getMetadataArtifactReport(realMrids[i]);
+            sb.append("metadata=").append(madr.getArtifact()).append(' ')
+                    .append(madr.getDownloadStatus()).append(' ').append(madr.getSize())
+                    .append(' ').append(madr.getLocalFile()).append(' ')
+                    .append(madr.getOriginalLocalFile()).append(' ').append(madr.isSearched())
+                    .append(' ').append(madr.getArtifactOrigin()).append('\n');
+        }
+        ArtifactDownloadReport[] adrs = parser.getArtifactReports();
+        for (int i = 0; i < adrs.length; i++) {
+            sb.append("artifact=").append(adrs[i].getArtifact()).append(' ')
+                    .append(adrs[i].getArtifact().getPublicationDate()).append(' ')
+                    .append(adrs[i].getDownloadStatus()).append(' ').append(adrs[i].getSize())
+                    .append(' ').append(adrs[i].getLocalFile()).append(' ')
+                    .append(adrs[i].getArtifactOrigin()).append('\n');
+        }
+        sb.append("artifacts=").append(Arrays.asList(parser.getArtifacts())).append('\n');
+        return sb.toString();
     }
 
     private ResolveOptions getResolveOptions(String[] confs) {
@@ -18,11 +18,15 @@
 package org.apache.ivy.plugins.resolver;
 
 import java.io.File;
+import java.text.ParseException;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.Date;
 import java.util.GregorianCalendar;
 import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.ivy.core.IvyContext;
 import org.apache.ivy.core.event.EventManager;
@@ -43,6 +47,8 @@ import org.apache.ivy.core.settings.XmlSettingsParser;
 import org.apache.ivy.core.sort.SortEngine;
 import org.apache.ivy.plugins.latest.LatestRevisionStrategy;
 import org.apache.ivy.plugins.latest.LatestTimeStrategy;
+import org.apache.ivy.plugins.resolver.util.ResolvedResource;
+import org.apache.ivy.util.FileUtil;
 import org.apache.ivy.util.MockMessageLogger;
 import org.apache.tools.ant.Project;
 import org.apache.tools.ant.taskdefs.Delete;
@@ -342,6 +348,159 @@ public class ChainResolverTest extends AbstractDependencyResolverTest {
         assertEquals("2", rmr.getResolver().getName());
     }
 
+    public void testConcurrentResolveOrder() throws Exception {
+        ChainResolver chain = new ChainResolver();
+        chain.setName("chain");
+        chain.setSettings(settings);
+        chain.setConcurrent(true);
+        chain.add(MockResolver.buildMockResolver(settings, "1", false, null));
+        chain.add(MockResolver.buildMockResolver(settings, "2", true, null));
+        chain.add(MockResolver.buildMockResolver(settings, "3", true, null));
+
+        DefaultDependencyDescriptor dd = new DefaultDependencyDescriptor(
+                ModuleRevisionId.newInstance("org", "mod", "rev"), false);
+        ResolvedModuleRevision rmr = chain.getDependency(dd, data);
+        assertNotNull(rmr);
+        assertEquals("2", rmr.getResolver().getName());
+    }
+
+    public void testConcurrentLatestRevisionResolve() throws Exception {
+        ChainResolver chain = new ChainResolver();
+        chain.setName("chain");
+        chain.setSettings(settings);
+        chain.setLatestStrategy(new LatestRevisionStrategy());
+        chain.setConcurrent(true);
+        chain.setThreads(2);
+        String[] revisions = new String[] {"1", null, "2", null, "4", "3", null};
+        for (int i = 0; i < revisions.length; i++) {
+            chain.add(MockResolver.buildMockResolver(settings, String.valueOf(i + 1),
+                revisions[i] != null, ModuleRevisionId.newInstance("org", "mod", revisions[i]),
+                new GregorianCalendar(2005, 1, 20 - i).getTime()));
+        }
+
+        DefaultDependencyDescriptor dd = new DefaultDependencyDescriptor(
+                ModuleRevisionId.newInstance("org", "mod", "latest.integration"), false);
+        ResolvedModuleRevision rmr = chain.getDependency(dd, data);
+        assertNotNull(rmr);
+        assertEquals("5", rmr.getResolver().getName());
+        for (int i = 0; i < revisions.length; i++) {
+            assertEquals(1, ((MockResolver) chain.getResolvers().get(i)).askedDeps.size());
+        }
+    }
+
+    public void testConcurrentReturnFirst() throws Exception {
+        ChainResolver chain = new ChainResolver();
+        chain.setName("chain");
+        chain.setSettings(settings);
+        chain.setReturnFirst(true);
+        chain.setConcurrent(true);
+        chain.add(MockResolver.buildMockResolver(settings, "1", false, null));
+        chain.add(MockResolver.buildMockResolver(settings, "2", true, new GregorianCalendar(2005,
+                1, 20).getTime()));
+        chain.add(MockResolver.buildMockResolver(settings, "3", true, new GregorianCalendar(2005,
+                1, 25).getTime()));
+
+        DefaultDependencyDescriptor dd = new DefaultDependencyDescriptor(
+                ModuleRevisionId.newInstance("org", "mod", "latest.integration"), false);
+        ResolvedModuleRevision rmr = chain.getDependency(dd, data);
+        assertNotNull(rmr);
+        assertEquals("2", rmr.getResolver().getName());
+    }
+
+    public void testConcurrentLookupAsksResolversAtOnce() throws Exception {
+        final CountDownLatch allAsked = new CountDownLatch(3);
+        final AtomicInteger timeouts = new AtomicInteger();
+        ChainResolver chain = new ChainResolver();
+        chain.setName("chain");
+        chain.setSettings(settings);
+        chain.setConcurrent(true);
+        for (int i = 1; i <= 3; i++) {
+            FileSystemResolver resolver = new FileSystemResolver() {
+                public ResolvedResource findIvyFileRef(DependencyDescriptor dd, ResolveData data) {
+                    allAsked.countDown();
+                    try {
+                        // only returns once all the resolvers have been asked
+                        if (!allAsked.await(5, TimeUnit.SECONDS)) {
+                            timeouts.incrementAndGet();
+                        }
+                    } catch (InterruptedException e) {
+                        return null;
+                    }
+                    return super.findIvyFileRef(dd, data);
+                }
+            };
+            resolver.setName(String.valueOf(i));
+            resolver.setSettings(settings);
+            if (i == 3) {
+                resolver.addIvyPattern(settings.getBaseDir()
+                        + "/test/repositories/1/[organisation]/[module]/ivys/ivy-[revision].xml");
+            }
+            chain.add(resolver);
+        }
+        settings.addResolver(chain);
+
+        DefaultDependencyDescriptor dd = new DefaultDependencyDescriptor(
+                ModuleRevisionId.newInstance("org1", "mod1.1", "1.0"), false);
+        ResolvedModuleRevision rmr = chain.getDependency(dd, data);
+        assertNotNull(rmr);
+        assertEquals("3", rmr.getResolver().getName());
+        assertEquals(0, timeouts.get());
+    }
+
+    public void testConcurrentLatestRevisionCached() throws Exception {
+        // a copy of the first revision only of the module
+        File old = new File("build/test/chain-old");
+        FileUtil.copy(new File("test/repositories/1/org1/mod1.1/ivys/ivy-1.0.xml"), new File(old,
+                "org1/mod1.1/ivys/ivy-1.0.xml"), null);
+        try {
+            ChainResolver chain = new ChainResolver();
+            chain.setName("chain");
+            chain.setSettings(settings);
+            chain.setConcurrent(true);
+
+            FileSystemResolver resolver = new FileSystemResolver();
+            resolver.setName("new");
+            resolver.setSettings(settings);
+            resolver.addIvyPattern(settings.getBaseDir()
+                    + "/test/repositories/1/[organisation]/[module]/ivys/ivy-[revision].xml");
+            chain.add(resolver);
+
+            // the older revision is found last
+            resolver = new FileSystemResolver() {
+                public ResolvedResource findIvyFileRef(DependencyDescriptor dd, ResolveData data) {
+                    try {
+                        Thread.sleep(200);
+                    } catch (InterruptedException e) {
+                        return null;
+                    }
+                    return super.findIvyFileRef(dd, data);
+                }
+            };
+            resolver.setName("old");
+            resolver.setSettings(settings);
+            resolver.addIvyPattern(old.getAbsolutePath()
+                    + "/[organisation]/[module]/ivys/ivy-[revision].xml");
+            chain.add(resolver);
+            settings.addResolver(chain);
+
+            DefaultDependencyDescriptor dd = new DefaultDependencyDescriptor(
+                    ModuleRevisionId.newInstance("org1", "mod1.1", "latest.integration"), false);
+            ResolvedModuleRevision rmr = chain.getDependency(dd, data);
+            assertNotNull(rmr);
+            assertEquals("2.0", rmr.getId().getRevision());
+            assertEquals("new", rmr.getResolver().getName());
+
+            // the revision kept in cache is the selected one
+            rmr = chain.findModuleInCache(dd, new ResolveData(engine, new ResolveOptions()
+                    .setUseCacheOnly(true)), true);
+            assertNotNull(rmr);
+            assertEquals("2.0", rmr.getId().getRevision());
+            assertEquals("new", rmr.getResolver().getName());
+        } finally {
+            FileUtil.forceDelete(old);
+        }
+    }
+
     public void testUseCache() throws Exception {
         DefaultDependencyDescriptor dd = new DefaultDependencyDescriptor(
                 ModuleRevisionId.newInstance("org1", "mod1.1", "1.0"), false);
@@ -18,6 +18,9 @@
 package org.apache.ivy.plugins.resolver;
 
 import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
@@ -26,6 +29,7 @@ import java.util.Set;
 
 import org.apache.ivy.core.IvyContext;
 import org.apache.ivy.core.IvyPatternHelper;
+import org.apache.ivy.core.cache.DefaultRepositoryCacheManager;
 import org.apache.ivy.core.event.EventManager;
 import org.apache.ivy.core.module.descriptor.Artifact;
 import org.apache.ivy.core.module.descriptor.DefaultArtifact;
@@ -46,7 +50,12 @@ import org.apache.ivy.core.search.RevisionEntry;
 import org.apache.ivy.core.settings.IvySettings;
 import org.apache.ivy.core.sort.SortEngine;
 import org.apache.ivy.plugins.matcher.ExactPatternMatcher;
+import org.apache.ivy.plugins.repository.Resource;
+import org.apache.ivy.plugins.repository.url.URLRepository;
+import org.apache.ivy.plugins.repository.url.URLResource;
+import org.apache.ivy.util.FileUtil;
 import org.apache.ivy.util.MockMessageLogger;
+import org.apache.ivy.util.url.URLHandler.URLInfo;
 import org.apache.tools.ant.Project;
 import org.apache.tools.ant.taskdefs.Delete;
 
@@ -64,10 +73,13 @@ public class IBiblioResolverTest extends AbstractDependencyResolverTest {
 
     private File _cache;
 
+    private File _repo;
+
     protected void setUp() throws Exception {
         _settings = new IvySettings();
         _engine = new ResolveEngine(_settings, new EventManager(), new SortEngine(_settings));
         _cache = new File("build/cache");
+        _repo = new File("build/testrepo");
         _data = new ResolveData(_engine, new ResolveOptions());
         _cache.mkdirs();
         _settings.setDefaultCache(_cache);
@@ -78,6 +90,8 @@ public class IBiblioResolverTest extends AbstractDependencyResolverTest {
         del.setProject(new Project());
         del.setDir(_cache);
         del.execute();
+        del.setDir(_repo);
+        del.execute();
     }
 
     public void testDefaults() {
@@ -235,6 +249,101 @@ public class IBiblioResolverTest extends AbstractDependencyResolverTest {
         assertEquals("commons-lang", values[0]);
     }
 
+    public void testMavenMetadataCache() throws Exception {
+        File metadata = new File(_repo, "org/apache/test-metadata/maven-metadata.xml");
+        FileUtil.copy(new File("test/repositories/m2/org/apache/test-metadata/maven-metadata.xml"),
+            metadata, null);
+        long past = System.currentTimeMillis() - 60000;
+        metadata.setLastModified(past);
+
+        DownloadCountingRepository repository = new DownloadCountingRepository();
+        IBiblioResolver resolver = new IBiblioResolver();
+        resolver.setName("test");
+        resolver.setRoot(_repo.toURI().toURL().toExternalForm());
+        resolver.setM2compatible(true);
+        resolver.setRepository(repository);
+        resolver.setSettings(_settings);
+
+        DefaultRepositoryCacheManager cacheManager = (DefaultRepositoryCacheManager) _settings
+                .getDefaultRepositoryCacheManager();
+        cacheManager.setDefaultTTL(0);
+        Map ttlAttributes = new HashMap();
+        ttlAttributes.put(IvyPatternHelper.MODULE_KEY, "test-metadata");
+        cacheManager.addTTL(ttlAttributes, ExactPatternMatcher.INSTANCE, 3600000);
+
+        Map tokenValues = new HashMap();
+        tokenValues.put(IvyPatternHelper.ORGANISATION_KEY, "org.apache");
+        tokenValues.put(IvyPatternHelper.MODULE_KEY, "test-metadata");
+
+        // the first listing downloads the metadata
+        IvyContext.getContext().setResolveData(new ResolveData(_engine, new ResolveOptions()));
+        assertEquals("[1.0, 1.1]", listRevisions(resolver, tokenValues));
+        assertEquals(1, repository.downloads);
+
+        // another resolve within the ttl of the module uses the cached metadata
+        IvyContext.getContext().setResolveData(new ResolveData(_engine, new ResolveOptions()));
+        assertEquals("[1.0, 1.1]", listRevisions(resolver, tokenValues));
+        assertEquals(1, repository.downloads);
+
+        // once the ttl has expired, the metadata is checked, but kept in memory for the resolve
+        DefaultRepositoryCacheManager expiredCacheManager = new DefaultRepositoryCacheManager(
+                "expired", _settings, _cache);
+        expiredCacheManager.setDefaultTTL(0);
+        resolver.setRepositoryCacheManager(expiredCacheManager);
+        FileUtil.copy(new File("test/repositories/m2/org/apache/test-SNAPSHOT1/maven-metadata.xml"),
+            metadata, null, true);
+        metadata.setLastModified(System.currentTimeMillis() + 60000);
+        assertEquals("[1.0, 1.1]", listRevisions(resolver, tokenValues));
+        assertEquals(1, repository.downloads);
+
+        IvyContext.getContext().setResolveData(new ResolveData(_engine, new ResolveOptions()));
+        assertEquals("[2.0.0-SNAPSHOT, 2.0.2-SNAPSHOT]", listRevisions(resolver, tokenValues));
+        assertEquals(2, repository.downloads);
+
+        // unchanged metadata is not downloaded again
+        metadata.setLastModified(past);
+        IvyContext.getContext().setResolveData(new ResolveData(_engine, new ResolveOptions()));
+        assertEquals("[2.0.0-SNAPSHOT, 2.0.2-SNAPSHOT]", listRevisions(resolver, tokenValues));
+        assertEquals(2, repository.downloads);
+
+        IvyContext.getContext().setResolveData(null);
+    }
+
+    private static String listRevisions(IBiblioResolver resolver, Map tokenValues) {
+        return Arrays.asList(
+            resolver.listTokenValues(IvyPatternHelper.REVISION_KEY, new HashMap(tokenValues)))
+                .toString();
+    }
+
+    /**
+     * Reads a local repository as if it was a remote one, and counts the downloaded files.
+     */
+    private static class DownloadCountingRepository extends URLRepository {
+        private int downloads;
+
+        public Resource getResource(String source) throws IOException {
+            return new URLResource(new URL(source)) {
+                public boolean isLocal() {
+                    return false;
+                }
+            };
+        }
+
+        public void get(String source, File destination) throws IOException {
+            downloads++;
+            super.get(source, destination);
+        }
+
+        public URLInfo getIfModified(String source, File destination, String eTag,
+                long lastModified) throws IOException {
+            URLInfo info = super.getIfModified(source, destination, eTag, lastModified);
+            if (info != null) {
+                downloads++;
+            }
+            return info;
+        }
+    }
+
     public void testErrorReport() throws Exception {
         IBiblioResolver resolver = new IBiblioResolver();
         resolver.setRoot("http://unknown.host.comx/");
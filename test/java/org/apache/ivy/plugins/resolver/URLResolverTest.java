@@ -18,9 +18,12 @@
 package org.apache.ivy.plugins.resolver;
 
 import java.io.File;
+import java.io.IOException;
+import java.net.URL;
 import java.util.Date;
 import java.util.GregorianCalendar;
 
+import org.apache.ivy.core.IvyContext;
 import org.apache.ivy.core.cache.DefaultRepositoryCacheManager;
 import org.apache.ivy.core.event.EventManager;
 import org.apache.ivy.core.module.descriptor.Artifact;
@@ -40,6 +43,9 @@ import org.apache.ivy.core.resolve.ResolvedModuleRevision;
 import org.apache.ivy.core.settings.IvySettings;
 import org.apache.ivy.core.sort.SortEngine;
 import org.apache.ivy.plugins.matcher.ExactPatternMatcher;
+import org.apache.ivy.plugins.repository.Resource;
+import org.apache.ivy.plugins.repository.url.URLRepository;
+import org.apache.ivy.plugins.repository.url.URLResource;
 import org.apache.tools.ant.Project;
 import org.apache.tools.ant.taskdefs.Delete;
 
@@ -117,6 +123,33 @@ public class URLResolverTest extends AbstractDependencyResolverTest {
         assertEquals(DownloadStatus.NO, ar.getDownloadStatus());
     }
 
+    public void testChecksum() throws Exception {
+        URLResolver resolver = new URLResolver();
+        resolver.setSettings(settings);
+        String rootpath = new File("test/repositories/checksums").toURI().toURL()
+                .toExternalForm();
+        resolver.addIvyPattern(rootpath + "/[module]/[artifact]-[revision].[ext]");
+        resolver.addArtifactPattern(rootpath + "/[module]/[artifact]-[revision].[ext]");
+        resolver.setName("test");
+
+        resolver.setChecksums("sha1, md5");
+        ModuleRevisionId mrid = ModuleRevisionId.newInstance("test", "allright", "1.0");
+        ResolvedModuleRevision rmr = resolver.getDependency(new DefaultDependencyDescriptor(mrid,
+                false), data);
+        assertNotNull(rmr);
+        DownloadReport report = resolver.download(rmr.getDescriptor().getAllArtifacts(),
+            downloadOptions());
+        assertEquals(4, report.getArtifactsReports(DownloadStatus.SUCCESSFUL).length);
+
+        resolver.setChecksums("md5");
+        mrid = ModuleRevisionId.newInstance("test", "badartcs", "1.0");
+        rmr = resolver.getDependency(new DefaultDependencyDescriptor(mrid, false), data);
+        assertNotNull(rmr);
+        report = resolver.download(new Artifact[] {new DefaultArtifact(mrid,
+                rmr.getPublicationDate(), mrid.getName(), "jar", "jar")}, downloadOptions());
+        assertEquals(1, report.getArtifactsReports(DownloadStatus.FAILED).length);
+    }
+
     public void testLatestFile() throws Exception {
         URLResolver resolver = new URLResolver();
         resolver.setSettings(settings);
@@ -356,4 +389,75 @@ public class URLResolverTest extends AbstractDependencyResolverTest {
         assertEquals(artifact, ar.getArtifact());
         assertEquals(DownloadStatus.NO, ar.getDownloadStatus());
     }
+
+    public void testMissingResourcesCache() throws Exception {
+        URLResolver resolver = new URLResolver();
+        ProbeCountingRepository repository = new ProbeCountingRepository();
+        resolver.setRepository(repository);
+        resolver.setSettings(settings);
+        String rootpath = new File("test/repositories/1").toURI().toURL().toExternalForm();
+        resolver.addIvyPattern(rootpath + "/[organisation]/[module]/ivys/ivy-[revision].xml");
+        resolver.addArtifactPattern(rootpath
+                + "/[organisation]/[module]/[type]s/[artifact]-[revision].[type]");
+        resolver.setName("test");
+        ((DefaultRepositoryCacheManager) resolver.getRepositoryCacheManager())
+                .setDefaultMissingTTL("1h");
+
+        DefaultDependencyDescriptor dd = new DefaultDependencyDescriptor(
+                ModuleRevisionId.newInstance("org1", "mod1.1", "9.9"), false);
+        assertNull(resolver.getDependency(dd, data));
+        int probes = repository.probes;
+        assertTrue(probes > 0);
+
+        // a module which has never been found isn't recorded, it has no cached data
+        assertNull(resolver.getDependency(dd, data));
+        assertEquals(2 * probes, repository.probes);
+
+        // the missing artifacts of an existing module are recorded
+        ModuleRevisionId mrid = ModuleRevisionId.newInstance("org1", "mod1.1", "1.0");
+        assertNotNull(resolver.getDependency(new DefaultDependencyDescriptor(mrid, false), data));
+        DefaultArtifact sources = new DefaultArtifact(mrid, new Date(), "mod1.1-sources",
+                "source", "jar");
+        ArtifactDownloadReport ar = resolver.download(new Artifact[] {sources}, downloadOptions())
+                .getArtifactReport(sources);
+        assertEquals(DownloadStatus.FAILED, ar.getDownloadStatus());
+        probes = repository.probes;
+
+        ar = resolver.download(new Artifact[] {sources}, downloadOptions()).getArtifactReport(
+            sources);
+        assertEquals(DownloadStatus.FAILED, ar.getDownloadStatus());
+        assertEquals(probes, repository.probes);
+
+        // unless a refresh is asked
+        IvyContext.getContext().setResolveData(
+            new ResolveData(engine, new ResolveOptions().setRefresh(true)));
+        try {
+            ar = resolver.download(new Artifact[] {sources}, downloadOptions())
+                    .getArtifactReport(sources);
+        } finally {
+            IvyContext.getContext().setResolveData(null);
+        }
+        assertEquals(DownloadStatus.FAILED, ar.getDownloadStatus());
+        assertTrue(repository.probes > probes);
+    }
+
+    /**
+     * A url repository whose resources aren't local, counting the checks of their existence.
+     */
+    private static class ProbeCountingRepository extends URLRepository {
+        private int probes;
+
+        public Resource getResource(String source) throws IOException {
+            return new URLResource(new URL(source)) {
+                public boolean isLocal() {
+                    return false;
+                }
+
+                public boolean exists() {
+                    probes++;
+                    return super.exists();
+                }
+            };
+        }
+    }
 }
@@ -0,0 +1,89 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  See the NOTICE file distributed with
+ *  this work for additional information regarding copyright ownership.
+ *  The ASF licenses this file to You under the Apache License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance with
+ *  the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package org.apache.ivy.util;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+public class WeakInternerTest extends TestCase {
+    public void testIntern() {
+        WeakInterner interner = new WeakInterner();
+        String s1 = new String("value");
+        String s2 = new String("value");
+        assertSame(s1, interner.intern(s1));
+        assertSame(s1, interner.intern(s2));
+        assertEquals(1, interner.size());
+    }
+
+    public void testGrow() {
+        WeakInterner interner = new WeakInterner();
+        List values = new ArrayList();
+        for (int i = 0; i < 10000; i++) {
+            String value = "value" + i;
+            values.add(value);
+            assertSame(value, interner.intern(value));
+        }
+        for (int i = 0; i < 10000; i++) {
+            assertSame(values.get(i), interner.intern(new String("value" + i)));
+        }
+        assertEquals(10000, interner.size());
+    }
+
+    public void testCollectedInstancesAreRemoved() throws Exception {
+        WeakInterner interner = new WeakInterner();
+        for (int i = 0; i < 10000; i++) {
+            interner.intern(new String("value" + i));
+        }
+        for (int i = 0; i < 10 && interner.size() > 100; i++) {
+            System.gc();
+            Thread.sleep(10);
+            // stale entries are removed when a segment is updated
+            for (int j = 0; j < 100; j++) {
+                interner.intern(new String("other" + i + "-" + j));
+            }
+        }
+        assertTrue("stale entries not removed: " + interner.size(), interner.size() < 10000);
+    }
+
+    public void testConcurrentIntern() throws Exception {
+        final WeakInterner interner = new WeakInterner();
+        final Object[][] results = new Object[4][1000];
+        Thread[] threads = new Thread[results.length];
+        for (int t = 0; t < threads.length; t++) {
+            final Object[] result = results[t];
+            threads[t] = new Thread() {
+                public void run() {
+                    for (int i = 0; i < result.length; i++) {
+                        result[i] = interner.intern(new String("value" + i));
+                    }
+                }
+            };
+            threads[t].start();
+        }
+        for (int t = 0; t < threads.length; t++) {
+            threads[t].join();
+        }
+        for (int t = 1; t < threads.length; t++) {
+            for (int i = 0; i < 1000; i++) {
+                assertSame(results[0][i], results[t][i]);
+            }
+        }
+    }
+}
@@ -0,0 +1,106 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  See the NOTICE file distributed with
+ *  this work for additional information regarding copyright ownership.
+ *  The ASF licenses this file to You under the Apache License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance with
+ *  the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package org.apache.ivy.util;
+
+import java.io.ByteArrayInputStream;
+import java.net.URL;
+
+import junit.framework.TestCase;
+
+import org.apache.ivy.plugins.parser.xml.XmlModuleDescriptorParser;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.SAXParseException;
+import org.xml.sax.ext.DefaultHandler2;
+import org.xml.sax.helpers.DefaultHandler;
+
+public class XMLHelperTest extends TestCase {
+    private static final String VALID = "<ivy-module version=\"2.0\">"
+            + "<info organisation=\"org\" module=\"mod\"/></ivy-module>";
+
+    private static final String INVALID = "<ivy-module version=\"2.0\">"
+            + "<info organisation=\"org\" module=\"mod\" unknown=\"attribute\"/></ivy-module>";
+
+    private URL schema = XmlModuleDescriptorParser.class.getResource("ivy.xsd");
+
+    public void testValidationWithCachedSchema() throws Exception {
+        // the schema and the parsers are reused from one parse to the next
+        for (int i = 0; i < 3; i++) {
+            assertEquals(0, countErrors(VALID, schema));
+            assertEquals(1, countErrors(INVALID, schema));
+            assertEquals(0, countErrors(INVALID, null));
+        }
+    }
+
+    public void testConcurrentParsing() throws Exception {
+        final Exception[] failure = new Exception[1];
+        Thread[] threads = new Thread[4];
+        for (int i = 0; i < threads.length; i++) {
+            threads[i] = new Thread() {
+                public void run() {
+                    try {
+                        for (int j = 0; j < 20; j++) {
+                            assertEquals(1, countErrors(INVALID, schema));
+                            assertEquals(0, countErrors(VALID, schema));
+                        }
+                    } catch (Exception e) {
+                        synchronized (failure) {
+                            failure[0] = e;
+                        }
+                    }
+                }
+            };
+            threads[i].start();
+        }
+        for (int i = 0; i < threads.length; i++) {
+            threads[i].join();
+        }
+        if (failure[0] != null) {
+            throw failure[0];
+        }
+    }
+
+    public void testLexicalHandlerIsNotKept() throws Exception {
+        final int[] comments = new int[1];
+        DefaultHandler2 lexicalHandler = new DefaultHandler2() {
+            public void comment(char[] ch, int start, int length) {
+                comments[0]++;
+            }
+        };
+        String xml = "<!-- a comment --><root/>";
+        XMLHelper.parse(source(xml), null, new DefaultHandler(), lexicalHandler);
+        assertEquals(1, comments[0]);
+
+        XMLHelper.parse(source(xml), null, new DefaultHandler(), null);
+        assertEquals(1, comments[0]);
+    }
+
+    private static int countErrors(String xml, URL schema) throws Exception {
+        final int[] errors = new int[1];
+        XMLHelper.parse(source(xml), schema, new DefaultHandler() {
+            public void error(SAXParseException e) throws SAXException {
+                errors[0]++;
+            }
+        }, null);
+        return errors[0];
+    }
+
+    private static InputSource source(String xml) {
+        return new InputSource(new ByteArrayInputStream(xml.getBytes()));
+    }
+}
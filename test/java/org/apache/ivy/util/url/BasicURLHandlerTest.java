@@ -18,12 +18,18 @@
 package org.apache.ivy.util.url;
 
 import java.io.File;
+import java.io.IOException;
+import java.net.InetSocketAddress;
 import java.net.URL;
 
 import junit.framework.TestCase;
 
 import org.apache.ivy.util.FileUtil;
 
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
 /**
  * Test BasicURLHandler
  */
@@ -74,6 +80,29 @@ public class BasicURLHandlerTest extends TestCase {
             new File(testDir, "nh80-deflate.pdf"));
     }
 
+    public void testGetURLInfoNotFound() throws Exception {
+        HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/", new HttpHandler() {
+            public void handle(HttpExchange exchange) throws IOException {
+                exchange.sendResponseHeaders(
+                    exchange.getRequestURI().getPath().startsWith("/missing") ? 404 : 500, -1);
+                exchange.close();
+            }
+        });
+        server.start();
+        try {
+            String baseUrl = "http://localhost:" + server.getAddress().getPort();
+            assertSame(URLHandler.NOT_FOUND, handler.getURLInfo(new URL(baseUrl + "/missing")));
+            // a server error doesn't tell whether the target exists
+            assertSame(URLHandler.UNAVAILABLE, handler.getURLInfo(new URL(baseUrl + "/error")));
+        } finally {
+            server.stop(0);
+        }
+
+        assertSame(URLHandler.NOT_FOUND,
+            handler.getURLInfo(new File("unknownfile.xml").toURI().toURL()));
+    }
+
     private void assertDownloadOK(URL url, File file) throws Exception {
         handler.download(url, file, null);
         assertTrue(file.exists());
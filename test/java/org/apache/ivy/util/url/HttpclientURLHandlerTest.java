@@ -18,13 +18,30 @@
 package org.apache.ivy.util.url;
 
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
 import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import junit.framework.TestCase;
 
 import org.apache.ivy.util.FileUtil;
 import org.apache.ivy.util.url.URLHandler.URLInfo;
 
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
 /**
  * Test HttpClientHandler
  */
@@ -57,7 +74,8 @@ public class HttpclientURLHandlerTest extends TestCase {
                 .getURLInfo(new URL(
                         "https://repo1.maven.org/maven2/commons-lang/commons-lang/[1.0,3.0[/commons-lang-[1.0,3.0[.pom"));
 
-        assertEquals(URLHandler.UNAVAILABLE, info);
+        // either rejected by HttpClient or not found by the server
+        assertFalse(info.isReachable());
     }
 
     public void testContentEncoding() throws Exception {
@@ -78,6 +96,91 @@ public class HttpclientURLHandlerTest extends TestCase {
             new File(testDir, "nh80-deflate.pdf"));
     }
 
+    public void testConnectionsAreShared() throws Exception {
+        final Set connections = Collections.synchronizedSet(new HashSet());
+        HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/", new HttpHandler() {
+            public void handle(HttpExchange exchange) throws IOException {
+                connections.add(new Integer(exchange.getRemoteAddress().getPort()));
+                byte[] content = exchange.getRequestURI().getPath().getBytes("UTF-8");
+                exchange.sendResponseHeaders(200, content.length);
+                OutputStream out = exchange.getResponseBody();
+                out.write(content);
+                out.close();
+            }
+        });
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        server.setExecutor(executor);
+        server.start();
+        try {
+            final String baseUrl = "http://localhost:" + server.getAddress().getPort();
+            for (int i = 0; i < 10; i++) {
+                File file = new File(testDir, "file" + i);
+                new HttpClientHandler().download(new URL(baseUrl + "/file" + i), file, null);
+                assertEquals("/file" + i, FileUtil.readEntirely(new FileInputStream(file)));
+            }
+            // the handlers have used the same connection one after the other
+            assertEquals(1, connections.size());
+
+            // not run by the threads of the server, which would wait for each other
+            ExecutorService clients = Executors.newFixedThreadPool(8);
+            List downloads = new ArrayList();
+            for (int i = 0; i < 20; i++) {
+                final File file = new File(testDir, "concurrent" + i);
+                final URL url = new URL(baseUrl + "/concurrent" + i);
+                downloads.add(clients.submit(new Callable() {
+                    public Object call() throws Exception {
+                        handler.download(url, file, null);
+                        return FileUtil.readEntirely(new FileInputStream(file));
+                    }
+                }));
+            }
+            try {
+                for (int i = 0; i < downloads.size(); i++) {
+                    assertEquals("/concurrent" + i, ((Future) downloads.get(i)).get());
+                }
+            } finally {
+                clients.shutdownNow();
+            }
+            // at most 4 connections to the same host
+            assertTrue(connections.size() <= 4);
+        } finally {
+            server.stop(0);
+            executor.shutdownNow();
+        }
+    }
+
+    public void testDownloadIfModified() throws Exception {
+        HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/", new HttpHandler() {
+            public void handle(HttpExchange exchange) throws IOException {
+                exchange.getResponseHeaders().add("ETag", "\"v1\"");
+                if ("\"v1\"".equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+                    exchange.sendResponseHeaders(304, -1);
+                } else {
+                    byte[] content = "v1".getBytes("UTF-8");
+                    exchange.sendResponseHeaders(200, content.length);
+                    exchange.getResponseBody().write(content);
+                }
+                exchange.close();
+            }
+        });
+        server.start();
+        try {
+            URL url = new URL("http://localhost:" + server.getAddress().getPort() + "/file");
+            File file = new File(testDir, "file");
+            URLInfo info = handler.downloadIfModified(url, file, null, 0, null);
+            assertNotNull(info);
+            assertEquals("\"v1\"", info.getETag());
+            assertEquals("v1", FileUtil.readEntirely(new FileInputStream(file)));
+
+            // not modified: nothing is downloaded
+            assertNull(handler.downloadIfModified(url, file, "\"v1\"", 0, null));
+        } finally {
+            server.stop(0);
+        }
+    }
+
     private void assertDownloadOK(URL url, File file) throws Exception {
         handler.download(url, file, null);
         assertTrue(file.exists());